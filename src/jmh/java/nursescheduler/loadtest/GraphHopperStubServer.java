@@ -0,0 +1,156 @@
+package nursescheduler.loadtest;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Stands in for GraphHopper's GET /route (points_encoded=false), the only endpoint GraphHopperService calls
+ * Each leg is a gently curving line between its points, with about one point per 60 m like a real
+ * road geometry; distance is measured along it and time uses a per-leg speed, all derived from the
+ * coordinates so the same request always gets the same route.
+ */
+public class GraphHopperStubServer extends StubServer {
+
+    private static final double EARTH_RADIUS_METERS = 6_371_000;
+    private static final double POINT_SPACING_METERS = 60;
+    private static final int MAX_POINTS_PER_LEG = 2000;
+
+    public GraphHopperStubServer(int port, long latencyMillis, long jitterMillis, double errorRate, long seed) {
+        super(port, latencyMillis, jitterMillis, errorRate, seed);
+    }
+
+    @Override
+    protected Object respond(String path, Map<String, List<String>> params) {
+        if (!"/route".equals(path)) {
+            return null;
+        }
+        List<String> pointParams = params.get("point");
+        if (pointParams == null || pointParams.size() < 2) {
+            throw new IllegalArgumentException("At least two point parameters are required");
+        }
+        List<double[]> waypoints = new ArrayList<>();
+        for (String point : pointParams) {
+            String[] parts = point.split(",");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Invalid point: " + point);
+            }
+            try {
+                waypoints.add(new double[]{Double.parseDouble(parts[0].trim()), Double.parseDouble(parts[1].trim())});
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid point: " + point);
+            }
+        }
+
+        // GeoJSON order: [lon, lat]
+        List<double[]> coordinates = new ArrayList<>();
+        double distance = 0;
+        double seconds = 0;
+        for (int i = 0; i < waypoints.size() - 1; i++) {
+            List<double[]> leg = legGeometry(waypoints.get(i), waypoints.get(i + 1));
+            double legDistance = 0;
+            for (int k = 1; k < leg.size(); k++) {
+                legDistance += haversine(leg.get(k - 1), leg.get(k));
+            }
+            distance += legDistance;
+            seconds += legDistance / speed(waypoints.get(i), waypoints.get(i + 1));
+            // Consecutive legs share their joining point
+            coordinates.addAll(i == 0 ? leg : leg.subList(1, leg.size()));
+        }
+
+        double minLon = Double.MAX_VALUE;
+        double minLat = Double.MAX_VALUE;
+        double maxLon = -Double.MAX_VALUE;
+        double maxLat = -Double.MAX_VALUE;
+        for (double[] c : coordinates) {
+            minLon = Math.min(minLon, c[0]);
+            minLat = Math.min(minLat, c[1]);
+            maxLon = Math.max(maxLon, c[0]);
+            maxLat = Math.max(maxLat, c[1]);
+        }
+
+        Map<String, Object> routePath = new LinkedHashMap<>();
+        routePath.put("distance", Math.round(distance * 1000) / 1000.0);
+        routePath.put("weight", Math.round(seconds * 1000) / 1000.0);
+        routePath.put("time", Math.round(seconds * 1000));
+        routePath.put("transfers", 0);
+        routePath.put("points_encoded", false);
+        routePath.put("bbox", new double[]{minLon, minLat, maxLon, maxLat});
+        if (!"false".equals(first(params, "calc_points"))) {
+            Map<String, Object> lineString = new LinkedHashMap<>();
+            lineString.put("type", "LineString");
+            lineString.put("coordinates", coordinates);
+            routePath.put("points", lineString);
+        }
+        routePath.put("instructions", new ArrayList<>());
+
+        Map<String, Object> info = new HashMap<>();
+        info.put("copyrights", List.of("GraphHopper stub"));
+        info.put("took", 0);
+
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("hints", new HashMap<>());
+        response.put("info", info);
+        response.put("paths", List.of(routePath));
+        return response;
+    }
+
+    /**
+     * A sine-shaped detour between two [lat, lon] points, as [lon, lat] points
+     */
+    private static List<double[]> legGeometry(double[] from, double[] to) {
+        long hash = hash(from, to);
+        double straight = haversine(new double[]{from[1], from[0]}, new double[]{to[1], to[0]});
+        int count = (int) Math.max(2, Math.min(MAX_POINTS_PER_LEG, Math.ceil(straight / POINT_SPACING_METERS) + 1));
+
+        // Bulge up to 15% of the leg length sideways, with one to three bends
+        double amplitude = 0.15 * unit(hash);
+        int bends = 1 + (int) (unit(mix(hash)) * 3);
+        double dLat = to[0] - from[0];
+        double dLon = to[1] - from[1];
+
+        List<double[]> points = new ArrayList<>(count);
+        for (int k = 0; k < count; k++) {
+            double t = k / (double) (count - 1);
+            double offset = amplitude * Math.sin(Math.PI * bends * t);
+            double lat = from[0] + dLat * t - dLon * offset;
+            double lon = from[1] + dLon * t + dLat * offset;
+            points.add(new double[]{round(lon), round(lat)});
+        }
+        return points;
+    }
+
+    /**
+     * Average speed for a leg, 8 to 16 m/s (about 30 to 60 km/h)
+     */
+    private static double speed(double[] from, double[] to) {
+        return 8 + 8 * unit(mix(hash(from, to) ^ 0x5DEECE66DL));
+    }
+
+    private static long hash(double[] from, double[] to) {
+        long hash = mix(Double.doubleToLongBits(from[0]));
+        hash = mix(hash ^ Double.doubleToLongBits(from[1]));
+        hash = mix(hash ^ Double.doubleToLongBits(to[0]));
+        return mix(hash ^ Double.doubleToLongBits(to[1]));
+    }
+
+    /**
+     * Great-circle distance in meters between two [lon, lat] points
+     */
+    private static double haversine(double[] a, double[] b) {
+        double lat1 = Math.toRadians(a[1]);
+        double lat2 = Math.toRadians(b[1]);
+        double dLat = lat2 - lat1;
+        double dLon = Math.toRadians(b[0] - a[0]);
+        double h = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+            + Math.cos(lat1) * Math.cos(lat2) * Math.sin(dLon / 2) * Math.sin(dLon / 2);
+        return 2 * EARTH_RADIUS_METERS * Math.asin(Math.min(1, Math.sqrt(h)));
+    }
+
+    // GraphHopper returns coordinates with 6 decimals
+    private static double round(double degrees) {
+        return Math.round(degrees * 1e6) / 1e6;
+    }
+}
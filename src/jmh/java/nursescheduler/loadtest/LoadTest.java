@@ -0,0 +1,369 @@
+package nursescheduler.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import nursescheduler.NurseSchedulerApplication;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Closed-loop HTTP load test of the schedule endpoints
+ * A fixed number of workers send requests back to back for the warmup and measurement periods, cycling
+ * through every field nurse and date, and the measured requests are reported as throughput and latency
+ * percentiles. With --embedded the application and both stubs are started in this JVM, so a run needs
+ * nothing else; otherwise point --base-url at an application using the StubServers stubs.
+ *
+ * Usage: LoadTest [--base-url=http://localhost:8080 | --embedded] [--scenario=schedule]
+ *                 [--concurrency=16] [--warmup=10] [--duration=60] [--timeout=120]
+ *                 [--dates=2025-01-06,2025-01-07] [--nurses=0] [--out=target/loadtest-result.json]
+ *                 [--latency-ms=5 --jitter-ms=10 --error-rate=0 --seed=1]   (embedded stubs)
+ *                 [--app.some.property=value ...]                          (embedded application)
+ *
+ * Scenarios:
+ *   schedule      GET  /api/schedule?nurseId&date           (stored schedule, generated on first request)
+ *   generate      POST /api/schedule/generate?nurseId&date  (forced re-optimization)
+ *   bulk          GET  /api/init/schedules?date             (every nurse for a date)
+ *   generate-all  GET  /api/generateAllSchedules            (every nurse for today)
+ */
+public class LoadTest {
+
+    private static final double[] PERCENTILES = {50, 90, 95, 99, 99.9};
+
+    private final ObjectMapper objectMapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+    private final HttpClient httpClient;
+    private final String baseUrl;
+    private final String scenario;
+    private final int concurrency;
+    private final Duration warmup;
+    private final Duration duration;
+    private final Duration timeout;
+    private final List<LocalDate> dates;
+    private final int maxNurses;
+
+    private final AtomicLong sequence = new AtomicLong();
+    private final Map<String, AtomicLong> outcomes = new ConcurrentHashMap<>();
+    private final Map<String, String> sampleErrors = new ConcurrentHashMap<>();
+
+    LoadTest(String baseUrl, Options options) {
+        this.baseUrl = baseUrl;
+        this.scenario = options.get("scenario", "schedule");
+        this.concurrency = options.getInt("concurrency", 16);
+        this.warmup = Duration.ofSeconds(options.getLong("warmup", 10));
+        this.duration = Duration.ofSeconds(options.getLong("duration", 60));
+        this.timeout = Duration.ofSeconds(options.getLong("timeout", 120));
+        this.maxNurses = options.getInt("nurses", 0);
+        String dateList = options.get("dates", LocalDate.now().toString());
+        this.dates = Arrays.stream(dateList.split(",")).map(String::trim).map(LocalDate::parse).toList();
+        this.httpClient = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(10))
+            .build();
+        if (!List.of("schedule", "generate", "bulk", "generate-all").contains(scenario)) {
+            throw new IllegalArgumentException("Unknown scenario: " + scenario);
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        Options options;
+        try {
+            options = new Options(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.exit(1);
+            return;
+        }
+
+        StubServer[] stubs = null;
+        ConfigurableApplicationContext application = null;
+        String baseUrl = options.get("base-url", "http://localhost:8080");
+        try {
+            if (options.has("embedded")) {
+                stubs = options.startStubs(0, 0);
+                application = startApplication(options, stubs);
+                baseUrl = "http://127.0.0.1:" + application.getEnvironment().getProperty("local.server.port");
+            }
+
+            LoadTest loadTest = new LoadTest(baseUrl, options);
+            Map<String, Object> result = loadTest.run();
+            if (stubs != null) {
+                result.put("graphHopperStubRequests", stubs[0].getRequestCount());
+                result.put("graphHopperStubErrors", stubs[0].getErrorCount());
+                result.put("photonStubRequests", stubs[1].getRequestCount());
+                result.put("photonStubErrors", stubs[1].getErrorCount());
+            }
+            loadTest.print(result);
+
+            Path out = Paths.get(options.get("out", "target/loadtest-result.json"));
+            if (out.getParent() != null) {
+                Files.createDirectories(out.getParent());
+            }
+            loadTest.objectMapper.writeValue(out.toFile(), result);
+            System.out.println("Results written to " + out.toAbsolutePath());
+        } finally {
+            if (application != null) {
+                application.close();
+            }
+            if (stubs != null) {
+                for (StubServer stub : stubs) {
+                    stub.close();
+                }
+            }
+        }
+    }
+
+    /**
+     * Boot the application on a free port against the stubs, with its stores in a scratch directory
+     */
+    private static ConfigurableApplicationContext startApplication(Options options, StubServer[] stubs) throws IOException {
+        Path scratch = Files.createTempDirectory("nurse-scheduler-loadtest");
+        List<String> args = new ArrayList<>(List.of(
+            "--server.port=0",
+            "--graphhopper.url=" + stubs[0].getBaseUrl(),
+            "--geocoding.photon.url=" + stubs[1].getBaseUrl(),
+            "--routing.matrix.directory=" + scratch.resolve("routing"),
+            "--tiles.pack.file=" + scratch.resolve("tiles.tilepack")));
+        args.addAll(options.passThrough("app."));
+        // DevTools would restart the context in another class loader
+        System.setProperty("spring.devtools.restart.enabled", "false");
+        return SpringApplication.run(NurseSchedulerApplication.class, args.toArray(new String[0]));
+    }
+
+    Map<String, Object> run() throws Exception {
+        List<String> nurseIds = "schedule".equals(scenario) || "generate".equals(scenario) ? fetchNurseIds() : List.of();
+        System.out.printf(Locale.ROOT, "Scenario %s against %s: %d workers, %ds warmup, %ds measured, %d nurses, %d dates%n",
+            scenario, baseUrl, concurrency, warmup.getSeconds(), duration.getSeconds(), nurseIds.size(), dates.size());
+
+        long start = System.nanoTime();
+        long measureStart = start + warmup.toNanos();
+        long measureEnd = measureStart + duration.toNanos();
+
+        List<Worker> workers = new ArrayList<>();
+        for (int i = 0; i < concurrency; i++) {
+            Worker worker = new Worker(nurseIds, measureStart, measureEnd);
+            worker.setName("load-" + i);
+            worker.setDaemon(true);
+            workers.add(worker);
+            worker.start();
+        }
+
+        long[] latencies = new long[0];
+        long errors = 0;
+        for (Worker worker : workers) {
+            worker.join();
+            int offset = latencies.length;
+            latencies = Arrays.copyOf(latencies, offset + worker.count);
+            System.arraycopy(worker.latencies, 0, latencies, offset, worker.count);
+            errors += worker.errors;
+        }
+        // Requests still in flight at the end count toward the time actually measured
+        double seconds = (Math.max(measureEnd, workers.stream().mapToLong(w -> w.lastFinish).max().orElse(measureEnd))
+            - measureStart) / 1e9;
+        Arrays.sort(latencies);
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("scenario", scenario);
+        result.put("baseUrl", baseUrl);
+        result.put("concurrency", concurrency);
+        result.put("nurses", nurseIds.size());
+        result.put("dates", dates.stream().map(LocalDate::toString).toList());
+        result.put("measuredSeconds", round(seconds));
+        result.put("requests", latencies.length);
+        result.put("errors", errors);
+        result.put("throughputPerSecond", round(latencies.length / seconds));
+
+        Map<String, Object> latency = new LinkedHashMap<>();
+        if (latencies.length > 0) {
+            latency.put("mean", round(Arrays.stream(latencies).average().orElse(0) / 1e6));
+            for (double percentile : PERCENTILES) {
+                latency.put("p" + (percentile == Math.rint(percentile) ? String.valueOf((int) percentile) : String.valueOf(percentile)),
+                    round(percentile(latencies, percentile) / 1e6));
+            }
+            latency.put("max", round(latencies[latencies.length - 1] / 1e6));
+        }
+        result.put("latencyMillis", latency);
+
+        Map<String, Long> outcomeCounts = new TreeMap<>();
+        outcomes.forEach((outcome, count) -> outcomeCounts.put(outcome, count.get()));
+        result.put("outcomes", outcomeCounts);
+        result.put("sampleErrors", new TreeMap<>(sampleErrors));
+        return result;
+    }
+
+    private void print(Map<String, Object> result) {
+        System.out.println();
+        System.out.printf(Locale.ROOT, "Requests:   %s in %ss (%s errors)%n",
+            result.get("requests"), result.get("measuredSeconds"), result.get("errors"));
+        System.out.printf(Locale.ROOT, "Throughput: %s req/s%n", result.get("throughputPerSecond"));
+        System.out.println("Latency ms: " + result.get("latencyMillis"));
+        System.out.println("Outcomes:   " + result.get("outcomes"));
+        if (!sampleErrors.isEmpty()) {
+            System.out.println("Errors:     " + result.get("sampleErrors"));
+        }
+        if (result.containsKey("graphHopperStubRequests")) {
+            System.out.println("Stub calls: " + result.get("graphHopperStubRequests") + " route ("
+                + result.get("graphHopperStubErrors") + " injected errors), " + result.get("photonStubRequests")
+                + " geocoding (" + result.get("photonStubErrors") + " injected errors)");
+        }
+    }
+
+    /**
+     * Field nurses with a home location, falling back to every nurse
+     * Follows nextCursor through every page of /api/nurses. Nurses without the fieldStaff flag count as
+     * field staff, as they do on the server.
+     */
+    private List<String> fetchNurseIds() throws IOException, InterruptedException {
+        List<String> fieldNurses = new ArrayList<>();
+        List<String> allNurses = new ArrayList<>();
+        String cursor = null;
+        do {
+            String url = baseUrl + "/api/nurses" + (cursor != null ? "?cursor=" + cursor : "");
+            HttpResponse<String> response = httpClient.send(HttpRequest.newBuilder(URI.create(url))
+                .timeout(timeout).GET().build(), HttpResponse.BodyHandlers.ofString());
+            JsonNode page = objectMapper.readTree(response.body());
+            if (response.statusCode() != 200 || !page.path("success").asBoolean(false)) {
+                throw new IllegalStateException("Could not list nurses at " + url + ": HTTP " + response.statusCode()
+                    + " " + page.path("error").asText(""));
+            }
+            for (JsonNode nurse : page.path("nurses")) {
+                String id = nurse.path("id").asText();
+                allNurses.add(id);
+                JsonNode fieldStaff = nurse.path("fieldStaff");
+                if ((!fieldStaff.isBoolean() || fieldStaff.asBoolean()) && nurse.hasNonNull("latitude")
+                        && nurse.hasNonNull("longitude")) {
+                    fieldNurses.add(id);
+                }
+            }
+            cursor = page.hasNonNull("nextCursor") ? page.path("nextCursor").asText() : null;
+        } while (cursor != null && (maxNurses <= 0 || fieldNurses.size() < maxNurses));
+
+        List<String> ids = fieldNurses.isEmpty() ? allNurses : fieldNurses;
+        if (ids.isEmpty()) {
+            throw new IllegalStateException("No nurses at " + baseUrl + "/api/nurses; load data before testing");
+        }
+        return maxNurses > 0 && ids.size() > maxNurses ? ids.subList(0, maxNurses) : ids;
+    }
+
+    private HttpRequest nextRequest(List<String> nurseIds) {
+        long n = sequence.getAndIncrement();
+        LocalDate date = dates.get((int) (n % dates.size()));
+        String nurseId = nurseIds.isEmpty() ? null : nurseIds.get((int) ((n / dates.size()) % nurseIds.size()));
+        HttpRequest.Builder request;
+        switch (scenario) {
+            case "generate":
+                request = HttpRequest.newBuilder(URI.create(baseUrl + "/api/schedule/generate?nurseId=" + nurseId + "&date=" + date))
+                    .POST(HttpRequest.BodyPublishers.noBody());
+                break;
+            case "bulk":
+                request = HttpRequest.newBuilder(URI.create(baseUrl + "/api/init/schedules?date=" + date)).GET();
+                break;
+            case "generate-all":
+                request = HttpRequest.newBuilder(URI.create(baseUrl + "/api/generateAllSchedules")).GET();
+                break;
+            default:
+                request = HttpRequest.newBuilder(URI.create(baseUrl + "/api/schedule?nurseId=" + nurseId + "&date=" + date)).GET();
+                break;
+        }
+        return request.timeout(timeout).header("Accept", "application/json").build();
+    }
+
+    /**
+     * Sends requests back to back until the measurement period ends, recording latencies once warmed up
+     */
+    private class Worker extends Thread {
+        private final List<String> nurseIds;
+        private final long measureStart;
+        private final long measureEnd;
+        private long[] latencies = new long[1024];
+        private int count;
+        private long errors;
+        private long lastFinish;
+
+        Worker(List<String> nurseIds, long measureStart, long measureEnd) {
+            this.nurseIds = nurseIds;
+            this.measureStart = measureStart;
+            this.measureEnd = measureEnd;
+        }
+
+        @Override
+        public void run() {
+            while (System.nanoTime() < measureEnd) {
+                HttpRequest request = nextRequest(nurseIds);
+                long sent = System.nanoTime();
+                String outcome;
+                String error = null;
+                try {
+                    HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+                    outcome = String.valueOf(response.statusCode());
+                    // Controllers report failures as {"success": false} with status 200
+                    if (response.statusCode() / 100 != 2) {
+                        error = "HTTP " + response.statusCode();
+                    } else if (response.body().contains("\"success\":false")) {
+                        outcome = outcome + " success=false";
+                        error = summarize(response.body());
+                    }
+                } catch (IOException e) {
+                    outcome = e.getClass().getSimpleName();
+                    error = String.valueOf(e.getMessage());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                long finished = System.nanoTime();
+
+                if (sent >= measureStart) {
+                    if (count == latencies.length) {
+                        latencies = Arrays.copyOf(latencies, count * 2);
+                    }
+                    latencies[count++] = finished - sent;
+                    lastFinish = finished;
+                    outcomes.computeIfAbsent(outcome, key -> new AtomicLong()).incrementAndGet();
+                    if (error != null) {
+                        errors++;
+                        sampleErrors.putIfAbsent(outcome, error);
+                    }
+                }
+            }
+        }
+    }
+
+    private String summarize(String body) {
+        try {
+            return objectMapper.readTree(body).path("error").asText(body);
+        } catch (IOException e) {
+            return body.length() > 200 ? body.substring(0, 200) : body;
+        }
+    }
+
+    /**
+     * Nearest-rank percentile of sorted values
+     */
+    private static long percentile(long[] sorted, double percentile) {
+        int rank = (int) Math.ceil(percentile / 100.0 * sorted.length);
+        return sorted[Math.max(0, Math.min(sorted.length - 1, rank - 1))];
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 100) / 100.0;
+    }
+}
@@ -0,0 +1,80 @@
+package nursescheduler.loadtest;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * --name=value command line options for the load test tools
+ * The dashes are optional, since XML comments in the pom's usage examples cannot contain "--".
+ */
+class Options {
+
+    private final Map<String, String> values = new HashMap<>();
+
+    Options(String[] args) {
+        for (String arg : args) {
+            String option = arg.startsWith("--") ? arg.substring(2) : arg;
+            if (option.isEmpty() || option.startsWith("-")) {
+                throw new IllegalArgumentException("Unexpected argument: " + arg);
+            }
+            int equals = option.indexOf('=');
+            if (equals < 0) {
+                values.put(option, "true");
+            } else {
+                values.put(option.substring(0, equals), option.substring(equals + 1));
+            }
+        }
+    }
+
+    String get(String name, String defaultValue) {
+        return values.getOrDefault(name, defaultValue);
+    }
+
+    int getInt(String name, int defaultValue) {
+        String value = values.get(name);
+        return value == null ? defaultValue : Integer.parseInt(value);
+    }
+
+    long getLong(String name, long defaultValue) {
+        String value = values.get(name);
+        return value == null ? defaultValue : Long.parseLong(value);
+    }
+
+    double getDouble(String name, double defaultValue) {
+        String value = values.get(name);
+        return value == null ? defaultValue : Double.parseDouble(value);
+    }
+
+    boolean has(String name) {
+        return values.containsKey(name);
+    }
+
+    /**
+     * Options starting with a prefix, with the prefix removed, as --name=value arguments
+     */
+    List<String> passThrough(String prefix) {
+        List<String> args = new ArrayList<>();
+        for (Map.Entry<String, String> option : values.entrySet()) {
+            if (option.getKey().startsWith(prefix)) {
+                args.add("--" + option.getKey().substring(prefix.length()) + "=" + option.getValue());
+            }
+        }
+        return args;
+    }
+
+    /**
+     * Start the GraphHopper and Photon stubs from --latency-ms, --jitter-ms, --error-rate and --seed
+     */
+    StubServer[] startStubs(int graphHopperPort, int photonPort) throws IOException {
+        long latency = getLong("latency-ms", 5);
+        long jitter = getLong("jitter-ms", 10);
+        double errorRate = getDouble("error-rate", 0);
+        long seed = getLong("seed", 1);
+        StubServer graphHopper = new GraphHopperStubServer(graphHopperPort, latency, jitter, errorRate, seed).start();
+        StubServer photon = new PhotonStubServer(photonPort, latency, jitter, errorRate, seed + 1).start();
+        return new StubServer[]{graphHopper, photon};
+    }
+}
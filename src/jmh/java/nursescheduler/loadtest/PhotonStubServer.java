@@ -0,0 +1,132 @@
+package nursescheduler.loadtest;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Stands in for Photon's GET /api (forward) and GET /reverse, as PhotonGeocodingService calls them
+ * Every query geocodes to a stable point in the Austin area derived from the normalized query text,
+ * and the address properties echo the query's "street, city, state zip" parts back.
+ */
+public class PhotonStubServer extends StubServer {
+
+    private static final double CENTER_LAT = 30.2672;
+    private static final double CENTER_LON = -97.7431;
+    private static final double SPREAD_DEGREES = 0.5;
+
+    public PhotonStubServer(int port, long latencyMillis, long jitterMillis, double errorRate, long seed) {
+        super(port, latencyMillis, jitterMillis, errorRate, seed);
+    }
+
+    @Override
+    protected Object respond(String path, Map<String, List<String>> params) {
+        if ("/api".equals(path) || "/api/".equals(path)) {
+            return geocode(params);
+        }
+        if ("/reverse".equals(path)) {
+            return reverse(params);
+        }
+        return null;
+    }
+
+    private Object geocode(Map<String, List<String>> params) {
+        String query = first(params, "q");
+        if (query == null || query.isBlank()) {
+            throw new IllegalArgumentException("Missing parameter q");
+        }
+        String limitParam = first(params, "limit");
+        int limit = limitParam == null ? 1 : Math.max(1, Integer.parseInt(limitParam));
+        String normalized = query.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+        long hash = hash(normalized);
+
+        // Best match first, then a few weaker candidates nearby
+        List<Map<String, Object>> features = new ArrayList<>();
+        double lat = CENTER_LAT + (unit(hash) - 0.5) * SPREAD_DEGREES;
+        double lon = CENTER_LON + (unit(mix(hash)) - 0.5) * SPREAD_DEGREES;
+        for (int i = 0; i < Math.min(limit, 5); i++) {
+            long candidate = mix(hash + i);
+            double offset = i == 0 ? 0 : 0.01 * i;
+            features.add(feature(lat + offset * (unit(candidate) - 0.5), lon + offset * (unit(mix(candidate)) - 0.5),
+                addressProperties(query.trim(), candidate)));
+        }
+        return featureCollection(features);
+    }
+
+    private Object reverse(Map<String, List<String>> params) {
+        double lat = doubleParam(params, "lat");
+        double lon = doubleParam(params, "lon");
+        long hash = mix(Double.doubleToLongBits(lat) ^ mix(Double.doubleToLongBits(lon)));
+
+        Map<String, Object> properties = new LinkedHashMap<>();
+        properties.put("osm_type", "N");
+        properties.put("housenumber", String.valueOf(100 + Math.floorMod(hash, 9900)));
+        properties.put("street", "Stub Street " + (1 + (mix(hash) & 0xFF)));
+        properties.put("city", "Austin");
+        properties.put("state", "Texas");
+        properties.put("postcode", String.format(Locale.ROOT, "787%02d", (mix(hash) >>> 8) % 100));
+        properties.put("country", "United States");
+        return featureCollection(List.of(feature(lat, lon, properties)));
+    }
+
+    /**
+     * Split "123 Main St, Austin, TX 78701" into the properties Photon would return for it
+     */
+    private static Map<String, Object> addressProperties(String query, long hash) {
+        String[] parts = query.split(",");
+        Map<String, Object> properties = new LinkedHashMap<>();
+        properties.put("osm_type", "N");
+        if (parts.length >= 3) {
+            String street = parts[0].trim();
+            int space = street.indexOf(' ');
+            if (space > 0 && street.substring(0, space).chars().allMatch(Character::isDigit)) {
+                properties.put("housenumber", street.substring(0, space));
+                street = street.substring(space + 1);
+            }
+            properties.put("street", street);
+            properties.put("city", parts[1].trim());
+            String[] stateZip = parts[2].trim().split(" ");
+            properties.put("state", stateZip[0]);
+            if (stateZip.length > 1) {
+                properties.put("postcode", stateZip[stateZip.length - 1]);
+            }
+        } else {
+            properties.put("name", parts[0].trim());
+            properties.put("city", parts.length > 1 ? parts[0].trim() : "Austin");
+            properties.put("state", parts.length > 1 ? parts[1].trim() : "Texas");
+        }
+        properties.put("country", "United States");
+        properties.put("osm_id", Math.floorMod(hash, 10_000_000_000L));
+        return properties;
+    }
+
+    private static Map<String, Object> feature(double lat, double lon, Map<String, Object> properties) {
+        Map<String, Object> geometry = new LinkedHashMap<>();
+        geometry.put("type", "Point");
+        geometry.put("coordinates", new double[]{Math.round(lon * 1e7) / 1e7, Math.round(lat * 1e7) / 1e7});
+
+        Map<String, Object> feature = new LinkedHashMap<>();
+        feature.put("type", "Feature");
+        feature.put("geometry", geometry);
+        feature.put("properties", properties);
+        return feature;
+    }
+
+    private static Map<String, Object> featureCollection(List<Map<String, Object>> features) {
+        Map<String, Object> collection = new LinkedHashMap<>();
+        collection.put("type", "FeatureCollection");
+        collection.put("features", features);
+        return collection;
+    }
+
+    private static long hash(String text) {
+        long hash = 0;
+        for (byte b : text.getBytes(StandardCharsets.UTF_8)) {
+            hash = mix(hash ^ b);
+        }
+        return hash;
+    }
+}
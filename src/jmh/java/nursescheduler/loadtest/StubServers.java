@@ -0,0 +1,35 @@
+package nursescheduler.loadtest;
+
+/**
+ * Run the GraphHopper and Photon stubs standalone, on the ports the application expects by default
+ *
+ * Usage: StubServers [--graphhopper-port=8989] [--photon-port=2322] [--latency-ms=5] [--jitter-ms=10]
+ *                    [--error-rate=0] [--seed=1]
+ */
+public class StubServers {
+
+    public static void main(String[] args) throws Exception {
+        Options options;
+        try {
+            options = new Options(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.exit(1);
+            return;
+        }
+
+        StubServer[] stubs = options.startStubs(options.getInt("graphhopper-port", 8989), options.getInt("photon-port", 2322));
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            for (StubServer stub : stubs) {
+                stub.close();
+            }
+            System.out.println("Stubs served " + stubs[0].getRequestCount() + " route and "
+                + stubs[1].getRequestCount() + " geocoding requests");
+        }));
+
+        System.out.println("GraphHopper stub: " + stubs[0].getBaseUrl() + "  (graphhopper.url)");
+        System.out.println("Photon stub:      " + stubs[1].getBaseUrl() + "  (geocoding.photon.url)");
+        System.out.println("Press Ctrl-C to stop");
+        Thread.currentThread().join();
+    }
+}
@@ -0,0 +1,130 @@
+package nursescheduler.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import nursescheduler.utility.SyntheticDataGenerator;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Deterministic inputs and stubbed services shared by the benchmarks
+ * Everything is seeded so numbers from different runs and branches are comparable.
+ */
+final class BenchmarkData {
+
+    // Around Austin, roughly the spread of a single agency's service area
+    private static final double CENTER_LAT = 30.2672;
+    private static final double CENTER_LON = -97.7431;
+    private static final double SPREAD_DEGREES = 0.25;
+
+    // Points per stubbed road leg, about what GraphHopper returns for a short urban drive
+    private static final int LEG_POINTS = 20;
+
+    private BenchmarkData() {
+    }
+
+    /**
+     * Random [lat, lon] points; the first one plays the nurse's home
+     */
+    static List<double[]> points(int count, long seed) {
+        Random random = new Random(seed);
+        List<double[]> points = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            points.add(new double[]{
+                CENTER_LAT + (random.nextDouble() - 0.5) * SPREAD_DEGREES,
+                CENTER_LON + (random.nextDouble() - 0.5) * SPREAD_DEGREES});
+        }
+        return points;
+    }
+
+    /**
+     * A distance matrix store that knows no locations, so every pair falls back to straight-line costs
+     */
+    static DistanceMatrixService emptyDistanceMatrix() {
+        DistanceMatrixService distanceMatrixService = new DistanceMatrixService();
+        ReflectionTestUtils.setField(distanceMatrixService, "enabled", false);
+        ReflectionTestUtils.setField(distanceMatrixService, "meterRegistry", new SimpleMeterRegistry());
+        return distanceMatrixService;
+    }
+
+    /**
+     * GraphHopperService whose road legs are a straight line split into a few points instead of a REST call,
+     * so route benchmarks measure the optimizer and not the router
+     */
+    static GraphHopperService stubbedGraphHopperService() {
+        GraphHopperService service = new GraphHopperService() {
+            @Override
+            public RouteLeg fetchLeg(int fromStop, double[] from, int toStop, double[] to) {
+                List<double[]> coordinates = new ArrayList<>(LEG_POINTS);
+                for (int i = 0; i < LEG_POINTS; i++) {
+                    double t = i / (double) (LEG_POINTS - 1);
+                    coordinates.add(new double[]{from[0] + (to[0] - from[0]) * t, from[1] + (to[1] - from[1]) * t});
+                }
+                double distance = straightLineDistance(from, to);
+                return new RouteLeg(fromStop, toStop, distance, distance / AVERAGE_SPEED_MPS, coordinates);
+            }
+        };
+        ReflectionTestUtils.setField(service, "distanceMatrixService", emptyDistanceMatrix());
+        ReflectionTestUtils.setField(service, "meterRegistry", new SimpleMeterRegistry());
+        return service;
+    }
+
+    /**
+     * A GraphHopper /route response (points_encoded=false) with the given number of path points
+     */
+    static String graphHopperResponse(int pointCount, long seed) {
+        Random random = new Random(seed);
+        StringBuilder json = new StringBuilder(pointCount * 40 + 512);
+        json.append("{\"hints\":{\"visited_nodes.sum\":").append(pointCount * 7)
+            .append(",\"visited_nodes.average\":").append(pointCount * 7).append(".0},")
+            .append("\"info\":{\"copyrights\":[\"GraphHopper\",\"OpenStreetMap contributors\"],\"took\":3},")
+            .append("\"paths\":[{\"distance\":").append(String.format(Locale.ROOT, "%.3f", pointCount * 35.5))
+            .append(",\"weight\":").append(String.format(Locale.ROOT, "%.6f", pointCount * 2.9))
+            .append(",\"time\":").append(pointCount * 2600L)
+            .append(",\"transfers\":0,\"points_encoded\":false,")
+            .append("\"bbox\":[-97.86,30.14,-97.62,30.39],")
+            .append("\"points\":{\"type\":\"LineString\",\"coordinates\":[");
+        double lat = CENTER_LAT;
+        double lon = CENTER_LON;
+        for (int i = 0; i < pointCount; i++) {
+            lat += (random.nextDouble() - 0.5) * 0.001;
+            lon += (random.nextDouble() - 0.5) * 0.001;
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append(String.format(Locale.ROOT, "[%.6f,%.6f]", lon, lat));
+        }
+        json.append("]},\"instructions\":[],\"legs\":[],\"details\":{},\"ascend\":12.5,\"descend\":9.25,")
+            .append("\"snapped_waypoints\":{\"type\":\"LineString\",\"coordinates\":[[-97.74,30.26],[-97.70,30.30]]}}]}");
+        return json.toString();
+    }
+
+    /**
+     * An appointments.json document in the shape DataInitializer reads, from the synthetic agency generator
+     */
+    static byte[] appointmentsJson(int count, long seed) throws IOException {
+        // About 100 appointments per nurse over the period, so the limit is always reached
+        SyntheticDataGenerator generator = new SyntheticDataGenerator(Math.max(1, count / 50), Math.max(1, count / 4),
+            60, LocalDate.of(2025, 1, 6), seed);
+        generator.setAppointmentLimit(count);
+        ByteArrayOutputStream out = new ByteArrayOutputStream(count * 200 + 64);
+        generator.writeAppointments(out);
+        return out.toByteArray();
+    }
+
+    /**
+     * A patients.json document in the shape DataInitializer reads, from the synthetic agency generator
+     */
+    static byte[] patientsJson(int count, long seed) throws IOException {
+        SyntheticDataGenerator generator = new SyntheticDataGenerator(1, count, 1, LocalDate.of(2025, 1, 6), seed);
+        ByteArrayOutputStream out = new ByteArrayOutputStream(count * 220 + 32);
+        generator.writePatients(out);
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,99 @@
+package nursescheduler.service;
+
+import com.graphhopper.jsprit.core.problem.Location;
+import com.graphhopper.jsprit.core.problem.VehicleRoutingProblem;
+import com.graphhopper.jsprit.core.problem.job.Job;
+import com.graphhopper.jsprit.core.problem.job.Service;
+import com.graphhopper.jsprit.core.problem.solution.VehicleRoutingProblemSolution;
+import com.graphhopper.jsprit.core.problem.solution.route.VehicleRoute;
+import com.graphhopper.jsprit.core.problem.vehicle.VehicleImpl;
+import com.graphhopper.jsprit.core.problem.vehicle.VehicleTypeImpl;
+import com.graphhopper.jsprit.core.util.Coordinate;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The optimizer's cost function: building the per-problem transport cost matrix, and scoring a
+ * solution with the distance objective jsprit calls on every warm-start iteration
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CostFunctionBenchmark {
+
+    @Param({"5", "25", "100"})
+    public int stops;
+
+    private GraphHopperService graphHopperService;
+    private List<double[]> points;
+    private GraphHopperService.DistanceObjective objective;
+    private VehicleRoutingProblemSolution solution;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        graphHopperService = BenchmarkData.stubbedGraphHopperService();
+        points = BenchmarkData.points(stops + 1, 43L * stops);
+        GraphHopperService.MatrixTransportCosts transportCosts = graphHopperService.new MatrixTransportCosts(points);
+        objective = new GraphHopperService.DistanceObjective(transportCosts);
+
+        // Same location ids as calculateRoute, which the cost matrix relies on
+        double[] home = points.get(0);
+        VehicleImpl vehicle = VehicleImpl.Builder.newInstance("vehicle")
+            .setStartLocation(Location.Builder.newInstance().setId("vehicle")
+                .setCoordinate(Coordinate.newInstance(home[0], home[1])).build())
+            .setType(VehicleTypeImpl.Builder.newInstance("vehicleType").addCapacityDimension(0, stops).build())
+            .setReturnToDepot(true)
+            .build();
+        List<Service> services = new ArrayList<>();
+        for (int i = 1; i <= stops; i++) {
+            services.add(Service.Builder.newInstance("service_" + i)
+                .addSizeDimension(0, 1)
+                .setLocation(Location.Builder.newInstance().setId("service_" + i)
+                    .setCoordinate(Coordinate.newInstance(points.get(i)[0], points.get(i)[1])).build())
+                .build());
+        }
+        VehicleRoutingProblem problem = VehicleRoutingProblem.Builder.newInstance()
+            .setFleetSize(VehicleRoutingProblem.FleetSize.FINITE)
+            .addVehicle(vehicle)
+            .addAllJobs(services)
+            .setRoutingCost(transportCosts)
+            .build();
+
+        VehicleRoute.Builder route = VehicleRoute.Builder.newInstance(vehicle)
+            .setJobActivityFactory(problem.getJobActivityFactory());
+        for (Service service : services) {
+            route.addService(service);
+        }
+        List<VehicleRoute> routes = new ArrayList<>();
+        routes.add(route.build());
+        solution = new VehicleRoutingProblemSolution(routes, Collections.<Job>emptyList(), 0);
+    }
+
+    @Benchmark
+    public double scoreSolution() {
+        return objective.getCosts(solution);
+    }
+
+    @Benchmark
+    public GraphHopperService.MatrixTransportCosts buildTransportCosts() {
+        return graphHopperService.new MatrixTransportCosts(points);
+    }
+}
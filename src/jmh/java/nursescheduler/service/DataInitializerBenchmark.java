@@ -0,0 +1,70 @@
+package nursescheduler.service;
+
+import nursescheduler.model.Appointment;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Startup parsing in DataInitializer: reading appointments.json and patients.json, and turning
+ * appointment records into entities (without saving them)
+ * One invocation parses a whole file, so the large sizes run as single shots with a bigger heap.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class DataInitializerBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    public int records;
+
+    private DataInitializer dataInitializer;
+    private byte[] appointmentsJson;
+    private byte[] patientsJson;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        dataInitializer = new DataInitializer();
+        appointmentsJson = BenchmarkData.appointmentsJson(records, 59L * records);
+        patientsJson = BenchmarkData.patientsJson(records, 61L * records);
+    }
+
+    @Benchmark
+    public List<Map<String, Object>> readAppointments() throws IOException {
+        return dataInitializer.readAppointments(new ByteArrayInputStream(appointmentsJson));
+    }
+
+    @Benchmark
+    public List<Map<String, Object>> readPatients() throws IOException {
+        return dataInitializer.readPatients(new ByteArrayInputStream(patientsJson));
+    }
+
+    @Benchmark
+    public List<Appointment> readAndConvertAppointments() throws IOException {
+        List<Map<String, Object>> appointmentsList = dataInitializer.readAppointments(new ByteArrayInputStream(appointmentsJson));
+        List<Appointment> appointments = new ArrayList<>(appointmentsList.size());
+        for (Map<String, Object> appointmentData : appointmentsList) {
+            appointments.add(DataInitializer.toAppointment(appointmentData));
+        }
+        return appointments;
+    }
+}
@@ -0,0 +1,62 @@
+package nursescheduler.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cache hits in PhotonGeocodingService.geocodeAddress, including the hit/miss counter it updates
+ * Misses go to Photon over HTTP and are left to the load tests.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GeocodeCacheBenchmark {
+
+    @Param({"1000", "100000"})
+    public int cachedAddresses;
+
+    private PhotonGeocodingService geocodingService;
+    private String[] addresses;
+    private int next;
+
+    @Setup(Level.Trial)
+    @SuppressWarnings("unchecked")
+    public void setUp() {
+        geocodingService = new PhotonGeocodingService();
+        ReflectionTestUtils.setField(geocodingService, "meterRegistry", new SimpleMeterRegistry());
+        Map<String, PhotonGeocodingService.GeocodingResult> cache =
+            (Map<String, PhotonGeocodingService.GeocodingResult>) ReflectionTestUtils.getField(geocodingService, "geocodeCache");
+
+        addresses = new String[cachedAddresses];
+        for (int i = 0; i < cachedAddresses; i++) {
+            // Same form DataInitializer builds: street, city, state zip
+            addresses[i] = (100 + i % 9900) + " Main St " + i + ", Austin, TX 787" + (i % 90 + 10);
+            cache.put(addresses[i], new PhotonGeocodingService.GeocodingResult(30.2672, -97.7431, addresses[i]));
+        }
+    }
+
+    @Benchmark
+    public PhotonGeocodingService.GeocodingResult cachedLookup() {
+        String address = addresses[next];
+        next = next + 1 == addresses.length ? 0 : next + 1;
+        return geocodingService.geocodeAddress(address);
+    }
+}
@@ -0,0 +1,47 @@
+package nursescheduler.service;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parsing a GraphHopper /route response into a RouteLeg, sized from a short hop to a long rural drive
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GraphHopperParseBenchmark {
+
+    @Param({"50", "500", "5000"})
+    public int pathPoints;
+
+    private GraphHopperService graphHopperService;
+    private String response;
+    private final double[] from = {30.2672, -97.7431};
+    private final double[] to = {30.3072, -97.7031};
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        graphHopperService = BenchmarkData.stubbedGraphHopperService();
+        response = BenchmarkData.graphHopperResponse(pathPoints, 47L * pathPoints);
+    }
+
+    @Benchmark
+    public GraphHopperService.RouteLeg parseLeg() {
+        return graphHopperService.parseLeg(response, 0, from, 1, to);
+    }
+}
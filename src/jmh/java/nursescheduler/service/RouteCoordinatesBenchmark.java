@@ -0,0 +1,54 @@
+package nursescheduler.service;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writing and reading the routeCoordinates JSON stored on every NurseSchedule
+ * A day's route is typically a few thousand points; the largest size is a long rural day.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RouteCoordinatesBenchmark {
+
+    @Param({"500", "5000", "50000"})
+    public int routePoints;
+
+    private NurseScheduleService nurseScheduleService;
+    private List<double[]> coordinates;
+    private String json;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        nurseScheduleService = new NurseScheduleService();
+        coordinates = BenchmarkData.points(routePoints, 53L * routePoints);
+        json = nurseScheduleService.writeCoordinates(coordinates);
+    }
+
+    @Benchmark
+    public String writeCoordinates() {
+        return nurseScheduleService.writeCoordinates(coordinates);
+    }
+
+    @Benchmark
+    public List<double[]> parseCoordinates() {
+        return nurseScheduleService.parseCoordinates(json);
+    }
+}
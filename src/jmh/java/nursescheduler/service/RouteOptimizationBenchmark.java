@@ -0,0 +1,76 @@
+package nursescheduler.service;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Full jsprit solve through GraphHopperService.calculateRoute, with road legs stubbed out
+ * Cold starts use the regular search budget; warm starts are seeded with the stops' previous order.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RouteOptimizationBenchmark {
+
+    private static final double SHIFT_START = 7 * 3600;
+    private static final double SHIFT_END = 19 * 3600;
+
+    @Param({"5", "10", "25", "50", "100"})
+    public int stops;
+
+    @Param({"cold", "warm"})
+    public String start;
+
+    @Param({"none", "windows"})
+    public String constraints;
+
+    private GraphHopperService graphHopperService;
+    private List<double[]> points;
+    private List<GraphHopperService.VisitWindow> visits;
+    private List<Integer> seedOrder;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        graphHopperService = BenchmarkData.stubbedGraphHopperService();
+        points = BenchmarkData.points(stops + 1, 41L * stops);
+
+        // Windows spread evenly over the shift so most stops stay feasible at every size
+        if ("windows".equals(constraints)) {
+            visits = new ArrayList<>();
+            double slot = (SHIFT_END - SHIFT_START) / stops;
+            for (int i = 0; i < stops; i++) {
+                double earliest = SHIFT_START + i * slot;
+                visits.add(new GraphHopperService.VisitWindow(earliest, earliest + 2 * 3600, Math.min(1800, slot / 2)));
+            }
+        }
+
+        if ("warm".equals(start)) {
+            seedOrder = new ArrayList<>();
+            for (int i = 1; i <= stops; i++) {
+                seedOrder.add(i);
+            }
+        }
+    }
+
+    @Benchmark
+    public GraphHopperService.RouteResponse calculateRoute() {
+        return graphHopperService.calculateRoute(points, visits, SHIFT_START, SHIFT_END, seedOrder);
+    }
+}
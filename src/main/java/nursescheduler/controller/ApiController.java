@@ -1,6 +1,15 @@
 package nursescheduler.controller;
 
-import nursescheduler.model.Appointment;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import nursescheduler.dto.NurseResponse;
+import nursescheduler.dto.NursesResponse;
+import nursescheduler.dto.PageCursor;
+import nursescheduler.dto.PatientsResponse;
+import nursescheduler.dto.RouteResult;
+import nursescheduler.dto.ScheduleBatchResponse;
+import nursescheduler.dto.ScheduleDetail;
+import nursescheduler.dto.ScheduleDetailResponse;
 import nursescheduler.model.Nurse;
 import nursescheduler.model.Patient;
 import nursescheduler.model.NurseSchedule;
@@ -8,10 +17,17 @@ import nursescheduler.repository.AppointmentRepository;
 import nursescheduler.repository.NurseRepository;
 import nursescheduler.repository.PatientRepository;
 import nursescheduler.repository.NurseScheduleRepository;
+import nursescheduler.service.DataVersionService;
+import nursescheduler.service.DistanceMatrixService;
 import nursescheduler.service.GraphHopperService;
 import nursescheduler.service.NurseScheduleService;
 import nursescheduler.service.RoutePrecalculationService;
+import nursescheduler.service.ScheduleGenerationQueue;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.web.bind.annotation.*;
 
 import java.time.LocalDate;
@@ -24,6 +40,11 @@ import java.util.stream.Collectors;
 @RequestMapping("/api")
 public class ApiController {
 
+    private static final Logger log = LoggerFactory.getLogger(ApiController.class);
+
+    // Largest page the listing endpoints return, whatever limit asks for
+    private static final int MAX_PAGE_SIZE = 1000;
+
     @Autowired
     private NurseRepository nurseRepository;
 
@@ -45,12 +66,28 @@ public class ApiController {
     @Autowired
     private NurseScheduleService nurseScheduleService;
 
+    @Autowired
+    private DistanceMatrixService distanceMatrixService;
+
+    @Autowired
+    private DataVersionService dataVersionService;
+
+    @Autowired
+    private ScheduleGenerationQueue scheduleGenerationQueue;
+
     /**
      * Get nurse information
+     * Conditional GETs (If-None-Match) get a 304 while the nurses are unchanged.
      */
     @GetMapping("/nurse")
-    public Map<String, Object> getNurse(@RequestParam(required = false) String id) {
-        Map<String, Object> response = new HashMap<>();
+    public NurseResponse getNurse(
+            @RequestParam(required = false) String id,
+            HttpServletRequest request,
+            HttpServletResponse response) {
+        String version = dataVersionService.nursesVersion();
+        if (ConditionalRequests.notModified(request, response, version)) {
+            return null;
+        }
         try {
             Nurse nurse;
             
@@ -60,101 +97,198 @@ public class ApiController {
                 nurse = nurseRepository.findAll().stream().findFirst().orElse(null);
             }
             
-            if (nurse != null) {
-                response.put("success", true);
-                response.put("nurse", nurse);
-            } else {
-                response.put("success", false);
-                response.put("error", "No nurse found");
+            if (nurse == null) {
+                return NurseResponse.failed("No nurse found");
             }
-            
-            return response;
+            return ConditionalRequests.tagged(request, response, new NurseResponse(nurse),
+                version, dataVersionService.nursesVersion());
         } catch (Exception e) {
-            response.put("success", false);
-            response.put("error", e.getMessage());
-            return response;
+            return NurseResponse.failed(e.getMessage());
         }
     }
 
     /**
-     * Get all nurses
+     * Get nurses a page at a time, ordered by ID or by name, optionally field or office staff only
+     * Pass a response's nextCursor back as cursor for the following page; the last page has none.
+     * Conditional GETs (If-None-Match) get a 304 while the nurses are unchanged.
      */
     @GetMapping("/nurses")
-    public Map<String, Object> getAllNurses() {
-        Map<String, Object> response = new HashMap<>();
+    public NursesResponse getAllNurses(
+            @RequestParam(required = false) Boolean fieldStaff,
+            @RequestParam(required = false, defaultValue = "id") String sort,
+            @RequestParam(required = false, defaultValue = "500") int limit,
+            @RequestParam(required = false) String cursor,
+            HttpServletRequest request,
+            HttpServletResponse response) {
+        String version = dataVersionService.nursesVersion();
+        if (ConditionalRequests.notModified(request, response, version)) {
+            return null;
+        }
         try {
-            List<Nurse> nurses = nurseRepository.findAll();
+            if (!"id".equals(sort) && !"name".equals(sort)) {
+                return NursesResponse.failed("sort must be id or name");
+            }
+            int pageSize = pageSize(limit);
+            PageCursor after = PageCursor.decode(cursor, sort);
+            Long afterId = after != null ? after.getNumericId() : null;
             
-            response.put("success", true);
-            response.put("nurses", nurses);
-            return response;
+            // One row more than the page tells whether there is a next page
+            List<Nurse> nurses = "name".equals(sort)
+                ? nurseRepository.findPageOrderByName(fieldStaff, after != null ? after.getKey() : null, afterId,
+                    PageRequest.of(0, pageSize + 1))
+                : nurseRepository.findPageOrderById(fieldStaff, afterId, PageRequest.of(0, pageSize + 1));
+            
+            String nextCursor = null;
+            if (nurses.size() > pageSize) {
+                nurses = nurses.subList(0, pageSize);
+                Nurse last = nurses.get(pageSize - 1);
+                nextCursor = new PageCursor(sort, "name".equals(sort) ? last.getName() : null,
+                    String.valueOf(last.getId())).encode();
+            }
+            
+            return ConditionalRequests.tagged(request, response, new NursesResponse(nurses, nextCursor),
+                version, dataVersionService.nursesVersion());
         } catch (Exception e) {
-            response.put("success", false);
-            response.put("error", e.getMessage());
-            return response;
+            return NursesResponse.failed(e.getMessage());
         }
     }
 
     /**
-     * Get patients with optional filtering by nurse and limiting results
+     * Get patients a page at a time
+     * With a nurse and/or a date range (from and to, inclusive) the page follows that nurse's appointments
+     * in date order and lists each visited patient once; otherwise all patients are listed by ID or name.
+     * city and state filters match exactly. Pass a response's nextCursor back as cursor for the next page.
+     * Conditional GETs get a 304 while patients (and, when following appointments, appointments) are unchanged.
      */
     @GetMapping("/patients")
-    public Map<String, Object> getPatients(
+    public PatientsResponse getPatients(
             @RequestParam(required = false) String nurseId,
-            @RequestParam(required = false, defaultValue = "30") int limit) {
-        Map<String, Object> response = new HashMap<>();
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) String city,
+            @RequestParam(required = false) String state,
+            @RequestParam(required = false) String sort,
+            @RequestParam(required = false, defaultValue = "30") int limit,
+            @RequestParam(required = false) String cursor,
+            HttpServletRequest request,
+            HttpServletResponse response) {
+        boolean byAppointments = nurseId != null || from != null || to != null;
+        String version = dataVersionService.patientsVersion(byAppointments);
+        if (ConditionalRequests.notModified(request, response, version)) {
+            return null;
+        }
         try {
-            List<Patient> patients;
-            
-            if (nurseId != null) {
-                // Find appointments for this nurse
-                List<Appointment> appointments = appointmentRepository.findByPractitionerId(nurseId);
-                
-                if (appointments.size() > limit) {
-                    System.out.println("Warning: Nurse " + nurseId + " has " + appointments.size() + 
-                                      " appointments. Limiting to " + limit);
-                    appointments = appointments.subList(0, limit);
-                }
-                
-                // Get patient IDs from appointments
-                List<String> patientIds = appointments.stream()
-                    .map(Appointment::getPatientId)
-                    .collect(Collectors.toList());
-                
-                // Find patients by IDs (converted to numeric IDs)
-                patients = new ArrayList<>();
-                for (String patientId : patientIds) {
-                    Long numericId = Long.parseLong(Math.abs(patientId.hashCode()) + "");
-                    patientRepository.findById(numericId).ifPresent(patients::add);
+            int pageSize = pageSize(limit);
+            PatientsResponse patients;
+            if (byAppointments) {
+                if (sort != null && !"date".equals(sort)) {
+                    return PatientsResponse.failed("Patients of a nurse or date range can only be sorted by date");
                 }
+                patients = patientsByAppointments(nurseId, from, to, city, state, pageSize, PageCursor.decode(cursor, "date"));
             } else {
-                // If no nurse ID provided, get all patients with limit
-                patients = patientRepository.findAll();
-                if (patients.size() > limit) {
-                    patients = patients.subList(0, limit);
+                String order = sort != null ? sort : "id";
+                if (!"id".equals(order) && !"name".equals(order)) {
+                    return PatientsResponse.failed("sort must be id or name");
                 }
+                patients = patientsPage(city, state, order, pageSize, PageCursor.decode(cursor, order));
             }
             
-            response.put("success", true);
-            response.put("patients", patients);
-            response.put("total", patients.size());
-            return response;
+            return ConditionalRequests.tagged(request, response, patients,
+                version, dataVersionService.patientsVersion(byAppointments));
         } catch (Exception e) {
-            response.put("success", false);
-            response.put("error", e.getMessage());
-            return response;
+            return PatientsResponse.failed(e.getMessage());
+        }
+    }
+
+    private PatientsResponse patientsPage(String city, String state, String sort, int pageSize, PageCursor after) {
+        Long afterId = after != null ? after.getNumericId() : null;
+        List<Patient> patients = "name".equals(sort)
+            ? patientRepository.findPageOrderByName(city, state, after != null ? after.getKey() : null, afterId,
+                PageRequest.of(0, pageSize + 1))
+            : patientRepository.findPageOrderById(city, state, afterId, PageRequest.of(0, pageSize + 1));
+        
+        String nextCursor = null;
+        if (patients.size() > pageSize) {
+            patients = patients.subList(0, pageSize);
+            Patient last = patients.get(pageSize - 1);
+            nextCursor = new PageCursor(sort, "name".equals(sort) ? last.getName() : null,
+                String.valueOf(last.getId())).encode();
+        }
+        return new PatientsResponse(patients, nextCursor);
+    }
+
+    /**
+     * A page of up to pageSize patients of the matching appointments, each once, ordered by their first
+     * matching appointment (city and state are filtered in the same query, so every page but the last is full)
+     */
+    private PatientsResponse patientsByAppointments(String nurseId, LocalDate from, LocalDate to, String city,
+            String state, int pageSize, PageCursor after) {
+        if (after != null && after.getKey() == null) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+        List<Object[]> rows = appointmentRepository.findPatientPage(nurseId,
+            from != null ? from.atStartOfDay() : null,
+            to != null ? to.plusDays(1).atStartOfDay() : null,
+            city, state,
+            after != null ? LocalDateTime.parse(after.getKey()) : null,
+            after != null ? after.getNumericId() : null,
+            PageRequest.of(0, pageSize + 1));
+        
+        String nextCursor = null;
+        if (rows.size() > pageSize) {
+            rows = rows.subList(0, pageSize);
+            Object[] last = rows.get(pageSize - 1);
+            nextCursor = new PageCursor("date", last[1].toString(), String.valueOf(last[0])).encode();
+        }
+        
+        // Load the page's patients in one query and keep the page order
+        List<Long> patientIds = new ArrayList<>();
+        for (Object[] row : rows) {
+            patientIds.add((Long) row[0]);
+        }
+        Map<Long, Patient> patientsById = new HashMap<>();
+        for (Patient patient : patientRepository.findAllById(patientIds)) {
+            patientsById.put(patient.getId(), patient);
+        }
+        List<Patient> patients = new ArrayList<>();
+        for (Long patientId : patientIds) {
+            Patient patient = patientsById.get(patientId);
+            if (patient != null) {
+                patients.add(patient);
+            }
         }
+        return new PatientsResponse(patients, nextCursor);
+    }
+
+    // Requested page size, kept between 1 and MAX_PAGE_SIZE
+    private static int pageSize(int limit) {
+        return Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
     }
 
     /**
      * Get nurse schedule with patients and route
+     * Conditional GETs get a 304 while the schedule, nurses and patients are unchanged.
      */
     @GetMapping("/schedule")
-    public Map<String, Object> getSchedule(
+    public ScheduleDetailResponse getSchedule(
             @RequestParam(required = false) String nurseId,
-            @RequestParam(required = false) String date) {
-        Map<String, Object> response = new HashMap<>();
+            @RequestParam(required = false) String date,
+            HttpServletRequest request,
+            HttpServletResponse response) {
         try {
+            // Parse date or use today
+            LocalDate scheduleDate;
+            if (date != null) {
+                scheduleDate = LocalDate.parse(date);
+            } else {
+                scheduleDate = LocalDate.now();
+            }
+            
+            String version = dataVersionService.scheduleDetailVersion(nurseId, scheduleDate);
+            if (ConditionalRequests.notModified(request, response, version)) {
+                return null;
+            }
+            
             // Get the nurse (either by ID or the first one if no ID provided)
             Nurse nurse;
             if (nurseId != null) {
@@ -164,17 +298,7 @@ public class ApiController {
             }
             
             if (nurse == null) {
-                response.put("success", false);
-                response.put("error", "Nurse not found");
-                return response;
-            }
-            
-            // Parse date or use today
-            LocalDate scheduleDate;
-            if (date != null) {
-                scheduleDate = LocalDate.parse(date);
-            } else {
-                scheduleDate = LocalDate.now();
+                return ScheduleDetailResponse.failed("Nurse not found");
             }
             
             // Get or generate the schedule for this nurse and date
@@ -190,31 +314,116 @@ public class ApiController {
                 }
             }
             
-            // Build response
-            Map<String, Object> scheduleData = new HashMap<>();
-            scheduleData.put("nurse", nurse);
-            scheduleData.put("patients", patients);
-            scheduleData.put("date", scheduleDate.toString());
-            scheduleData.put("totalDistance", schedule.getTotalDistance());
-            scheduleData.put("travelTime", schedule.getTotalTravelTime());
-            scheduleData.put("status", schedule.getStatus());
-            
-            // Parse route coordinates from JSON if present
-            if (schedule.getRouteCoordinates() != null && !schedule.getRouteCoordinates().equals("[]")) {
-                // In a real implementation, you would parse the JSON string to a List<double[]>
-                // For now, we'll just include the raw JSON string
-                scheduleData.put("routeCoordinates", schedule.getRouteCoordinates());
+            return ConditionalRequests.tagged(request, response,
+                new ScheduleDetailResponse(new ScheduleDetail(nurse, patients, schedule)),
+                version, dataVersionService.scheduleDetailVersion(nurseId, scheduleDate));
+        } catch (Exception e) {
+            return ScheduleDetailResponse.failed(e.getMessage());
+        }
+    }
+
+    /**
+     * Get many nurses' schedules for one date, with their patients and routes, for dashboards
+     * nurseIds is a comma-separated list; without it the field nurses are listed a page at a time in ID
+     * order (limit, and nextCursor passed back as cursor). The data comes from four queries however many
+     * nurses are asked for (nurses, schedules, their visits, patients). Missing schedules are not generated
+     * inline: they are queued for background generation and listed under pending, and show up on a later
+     * request. Conditional GETs get a 304 while the day's schedules, nurses and patients are unchanged; a
+     * response with pending schedules carries no ETag, since it is about to change.
+     */
+    @GetMapping("/schedule/batch")
+    public ScheduleBatchResponse getSchedules(
+            @RequestParam(required = false) List<String> nurseIds,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date,
+            @RequestParam(required = false, defaultValue = "200") int limit,
+            @RequestParam(required = false) String cursor,
+            HttpServletRequest request,
+            HttpServletResponse response) {
+        String version = dataVersionService.scheduleBatchVersion(date);
+        if (ConditionalRequests.notModified(request, response, version)) {
+            return null;
+        }
+        try {
+            List<Nurse> nurses;
+            String nextCursor = null;
+            if (nurseIds != null && !nurseIds.isEmpty()) {
+                if (nurseIds.size() > MAX_PAGE_SIZE) {
+                    return ScheduleBatchResponse.failed("At most " + MAX_PAGE_SIZE + " nurses per request");
+                }
+                Map<Long, Nurse> nursesById = new HashMap<>();
+                for (Nurse nurse : nurseRepository.findAllById(
+                        nurseIds.stream().map(Long::parseLong).collect(Collectors.toCollection(LinkedHashSet::new)))) {
+                    nursesById.put(nurse.getId(), nurse);
+                }
+                // Keep the requested order; unknown IDs are left out
+                nurses = new ArrayList<>();
+                for (String nurseId : new LinkedHashSet<>(nurseIds)) {
+                    Nurse nurse = nursesById.get(Long.parseLong(nurseId));
+                    if (nurse != null) {
+                        nurses.add(nurse);
+                    }
+                }
             } else {
-                scheduleData.put("routeCoordinates", "[]");
+                int pageSize = pageSize(limit);
+                PageCursor after = PageCursor.decode(cursor, "id");
+                nurses = nurseRepository.findPageOrderById(Boolean.TRUE, after != null ? after.getNumericId() : null,
+                    PageRequest.of(0, pageSize + 1));
+                if (nurses.size() > pageSize) {
+                    nurses = nurses.subList(0, pageSize);
+                    nextCursor = new PageCursor("id", null, String.valueOf(nurses.get(pageSize - 1).getId())).encode();
+                }
             }
             
-            response.put("success", true);
-            response.put("schedule", scheduleData);
-            return response;
+            List<String> keys = new ArrayList<>();
+            for (Nurse nurse : nurses) {
+                keys.add(String.valueOf(nurse.getId()));
+            }
+            Map<String, NurseSchedule> schedulesByNurse = new HashMap<>();
+            for (NurseSchedule schedule : nurseScheduleService.getSchedulesForDate(date, keys)) {
+                schedulesByNurse.put(schedule.getNurseId(), schedule);
+            }
+            
+            // All patients on the day's schedules in one query
+            Set<Long> patientIds = new HashSet<>();
+            for (NurseSchedule schedule : schedulesByNurse.values()) {
+                for (String patientId : schedule.getPatientVisitOrder()) {
+                    patientIds.add(Long.parseLong(Math.abs(patientId.hashCode()) + ""));
+                }
+            }
+            Map<Long, Patient> patientsById = new HashMap<>();
+            for (Patient patient : patientRepository.findAllById(patientIds)) {
+                patientsById.put(patient.getId(), patient);
+            }
+            
+            List<ScheduleDetail> schedules = new ArrayList<>();
+            List<String> pending = new ArrayList<>();
+            for (Nurse nurse : nurses) {
+                String nurseId = String.valueOf(nurse.getId());
+                NurseSchedule schedule = schedulesByNurse.get(nurseId);
+                if (schedule == null) {
+                    // Listed as pending even when the queue is full; a later request queues it again
+                    scheduleGenerationQueue.enqueue(nurseId, date);
+                    pending.add(nurseId);
+                    continue;
+                }
+                List<Patient> patients = new ArrayList<>();
+                for (String patientId : schedule.getPatientVisitOrder()) {
+                    Patient patient = patientsById.get(Long.parseLong(Math.abs(patientId.hashCode()) + ""));
+                    if (patient != null) {
+                        patients.add(patient);
+                    }
+                }
+                schedules.add(new ScheduleDetail(nurse, patients, schedule));
+            }
+            
+            ScheduleBatchResponse batch = new ScheduleBatchResponse(date.toString(), schedules, pending, nextCursor);
+            if (!pending.isEmpty()) {
+                return batch;
+            }
+            return ConditionalRequests.tagged(request, response, batch,
+                version, dataVersionService.scheduleBatchVersion(date));
         } catch (Exception e) {
-            response.put("success", false);
-            response.put("error", e.getMessage());
-            return response;
+            return ScheduleBatchResponse.failed(e.getMessage());
         }
     }
 
@@ -253,24 +462,36 @@ public class ApiController {
      * Calculate a route for the given points
      */
     @PostMapping("/route")
-    public Map<String, Object> calculateRoute(@RequestBody List<double[]> points) {
+    public RouteResult calculateRoute(@RequestBody List<double[]> points) {
         try {
-            GraphHopperService.RouteResponse response = graphHopperService.calculateRoute(points);
-            
-            Map<String, Object> result = new HashMap<>();
-            result.put("success", true);
-            result.put("coordinates", response.getCoordinates());
-            result.put("distance", response.getDistance());
-            
-            return result;
+            return new RouteResult(graphHopperService.calculateRoute(points));
         } catch (Exception e) {
-            Map<String, Object> error = new HashMap<>();
-            error.put("success", false);
-            error.put("error", e.getMessage());
-            return error;
+            return RouteResult.failed(e.getMessage());
         }
     }
 
+    /**
+     * Get the progress of the background route precalculation
+     */
+    @GetMapping("/routes/precalculation")
+    public Map<String, Object> getPrecalculationStatus() {
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("status", routePrecalculationService.getStatus());
+        return response;
+    }
+
+    /**
+     * Get the size and hit rate of the stored road distance matrix
+     */
+    @GetMapping("/routes/matrix")
+    public Map<String, Object> getDistanceMatrixStatus() {
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("status", distanceMatrixService.getStatus());
+        return response;
+    }
+
     /**
      * Generate schedules for all nurses for today
      */
@@ -287,7 +508,7 @@ public class ApiController {
                     nurseScheduleService.generateSchedule(String.valueOf(nurse.getId()), today);
                     count++;
                 } catch (Exception e) {
-                    System.err.println("Error generating schedule for nurse " + nurse.getId() + ": " + e.getMessage());
+                    log.warn("Error generating schedule for nurse {}: {}", nurse.getId(), e.getMessage());
                 }
             }
             
@@ -0,0 +1,44 @@
+package nursescheduler.controller;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.web.bind.annotation.*;
+import nursescheduler.service.AssignmentService;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Controller for agency-wide visit assignment
+ */
+@RestController
+@RequestMapping("/api/assignments")
+public class AssignmentController {
+
+    @Autowired
+    private AssignmentService assignmentService;
+
+    /**
+     * Propose an assignment of a day's visits to field nurses
+     * (nothing is saved; appointments keep their current nurse)
+     */
+    @PostMapping("/propose")
+    public Map<String, Object> proposeAssignment(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date,
+            @RequestParam(required = false, defaultValue = "false") boolean reassignAll) {
+        
+        Map<String, Object> response = new HashMap<>();
+        
+        try {
+            AssignmentService.AssignmentProposal proposal = assignmentService.proposeAssignment(date, reassignAll);
+            response.put("success", true);
+            response.put("proposal", proposal);
+            return response;
+        } catch (Exception e) {
+            response.put("success", false);
+            response.put("error", e.getMessage());
+            return response;
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package nursescheduler.controller;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import nursescheduler.dto.ApiResponse;
+
+/**
+ * ETags for API responses, built from DataVersionService versions
+ * Clients revalidate on every use (no-cache) and the responses stay out of shared caches, since they
+ * carry patient data. The tags are weak: Tomcat does not compress responses carrying a strong ETag, and a
+ * version says the content is the same, not that the (possibly compressed) bytes are.
+ */
+final class ConditionalRequests {
+
+    private ConditionalRequests() {
+    }
+
+    /**
+     * Set the caching headers and answer If-None-Match against the given version
+     *
+     * @return true when the client's copy is current and a 304 has been set; the handler then returns null
+     */
+    static boolean notModified(HttpServletRequest request, HttpServletResponse response, String version) {
+        response.setHeader("Cache-Control", "private, no-cache");
+        response.setHeader("Vary", "Accept");
+        String etag = etag(request, version);
+        if (matches(request.getHeader("If-None-Match"), etag)) {
+            response.setHeader("ETag", etag);
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Tag a response with the version it was built from, unless it is a failure or the version moved
+     * while it was built (the handler may have generated the schedule it returns); the next request
+     * then gets a tag that matches its body
+     */
+    static <T extends ApiResponse> T tagged(HttpServletRequest request, HttpServletResponse response, T body,
+            String version, String versionAfter) {
+        if (body.isSuccess() && version.equals(versionAfter)) {
+            response.setHeader("ETag", etag(request, version));
+        }
+        return body;
+    }
+
+    // Weak comparison (RFC 9110 13.1.2): "x" and W/"x" match each other
+    private static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        String opaque = opaqueTag(etag);
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.equals("*") || opaqueTag(tag).equals(opaque)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String opaqueTag(String etag) {
+        return etag.startsWith("W/") ? etag.substring(2) : etag;
+    }
+
+    // JSON, Smile and CBOR are different representations of the same data, so each format keeps its own tag
+    private static String etag(HttpServletRequest request, String version) {
+        String accept = request.getHeader("Accept");
+        String format = "";
+        if (accept != null && accept.contains("smile")) {
+            format = "-smile";
+        } else if (accept != null && accept.contains("cbor")) {
+            format = "-cbor";
+        }
+        return "W/\"" + version + format + "\"";
+    }
+}
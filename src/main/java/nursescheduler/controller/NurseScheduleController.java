@@ -1,13 +1,24 @@
 package nursescheduler.controller;
 
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import nursescheduler.dto.ScheduleResponse;
+import nursescheduler.dto.SchedulesResponse;
 import nursescheduler.model.NurseSchedule;
+import nursescheduler.service.DataVersionService;
 import nursescheduler.service.NurseScheduleService;
+import nursescheduler.service.ScheduleExportService;
 
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
-import java.util.HashMap;
+import java.time.LocalTime;
 import java.util.List;
 import java.util.Map;
 
@@ -21,92 +32,198 @@ public class NurseScheduleController {
     @Autowired
     private NurseScheduleService nurseScheduleService;
 
+    @Autowired
+    private DataVersionService dataVersionService;
+
+    @Autowired
+    private ScheduleExportService scheduleExportService;
+
     /**
      * Get or generate a schedule for a nurse on a specific date
+     * Conditional GETs (If-None-Match) get a 304 while the schedule is unchanged.
      */
     @GetMapping("/{nurseId}")
-    public Map<String, Object> getSchedule(
+    public ScheduleResponse getSchedule(
             @PathVariable String nurseId,
-            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date) {
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date,
+            HttpServletRequest request,
+            HttpServletResponse response) {
         
-        Map<String, Object> response = new HashMap<>();
+        String version = dataVersionService.scheduleVersion(nurseId, date);
+        if (ConditionalRequests.notModified(request, response, version)) {
+            return null;
+        }
         
         try {
             NurseSchedule schedule = nurseScheduleService.getOrGenerateSchedule(nurseId, date);
-            response.put("success", true);
-            response.put("schedule", schedule);
-            return response;
+            return ConditionalRequests.tagged(request, response, new ScheduleResponse(schedule),
+                version, dataVersionService.scheduleVersion(nurseId, date));
         } catch (Exception e) {
-            response.put("success", false);
-            response.put("error", e.getMessage());
-            return response;
+            return ScheduleResponse.failed(e.getMessage());
         }
     }
     
     /**
      * Get schedules for a nurse within a date range
+     * Conditional GETs get a 304 while no schedule has changed.
      */
     @GetMapping("/{nurseId}/range")
-    public Map<String, Object> getSchedulesForRange(
+    public SchedulesResponse getSchedulesForRange(
             @PathVariable String nurseId,
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
-            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate) {
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+            HttpServletRequest request,
+            HttpServletResponse response) {
         
-        Map<String, Object> response = new HashMap<>();
+        String version = dataVersionService.schedulesVersion();
+        if (ConditionalRequests.notModified(request, response, version)) {
+            return null;
+        }
         
         try {
             List<NurseSchedule> schedules = nurseScheduleService.getSchedulesForNurse(nurseId, startDate, endDate);
-            response.put("success", true);
-            response.put("schedules", schedules);
-            return response;
+            return ConditionalRequests.tagged(request, response, new SchedulesResponse(schedules),
+                version, dataVersionService.schedulesVersion());
         } catch (Exception e) {
-            response.put("success", false);
-            response.put("error", e.getMessage());
-            return response;
+            return SchedulesResponse.failed(e.getMessage());
         }
     }
     
     /**
      * Get all schedules for a specific date
+     * Conditional GETs get a 304 while none of that day's schedules has changed.
      */
     @GetMapping("/date")
-    public Map<String, Object> getSchedulesForDate(
-            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date) {
+    public SchedulesResponse getSchedulesForDate(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date,
+            HttpServletRequest request,
+            HttpServletResponse response) {
         
-        Map<String, Object> response = new HashMap<>();
+        String version = dataVersionService.dateVersion(date);
+        if (ConditionalRequests.notModified(request, response, version)) {
+            return null;
+        }
         
         try {
             List<NurseSchedule> schedules = nurseScheduleService.getSchedulesForDate(date);
-            response.put("success", true);
-            response.put("schedules", schedules);
-            return response;
+            return ConditionalRequests.tagged(request, response, new SchedulesResponse(schedules),
+                version, dataVersionService.dateVersion(date));
         } catch (Exception e) {
-            response.put("success", false);
-            response.put("error", e.getMessage());
-            return response;
+            return SchedulesResponse.failed(e.getMessage());
         }
     }
     
+    /**
+     * Export stored schedules between two dates (inclusive), optionally for one nurse, as NDJSON or CSV
+     * Rows carry each schedule's totals (distance in meters, travel time in minutes); NDJSON adds the
+     * visits, the route geometry with route=true and a closing totals line. The export is written
+     * straight to the response as it is read, a page of schedules at a time.
+     */
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportSchedules(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) String nurseId,
+            @RequestParam(required = false, defaultValue = "ndjson") String format,
+            @RequestParam(required = false, defaultValue = "false") boolean route) {
+        
+        if (to.isBefore(from)) {
+            return exportFailed("to is before from");
+        }
+        String filename = "schedules-" + from + "-" + to;
+        if ("csv".equals(format)) {
+            StreamingResponseBody body = out -> scheduleExportService.writeCsv(out, from, to, nurseId);
+            return ResponseEntity.ok()
+                .contentType(new MediaType("text", "csv", StandardCharsets.UTF_8))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + filename + ".csv\"")
+                .body(body);
+        }
+        if ("ndjson".equals(format)) {
+            StreamingResponseBody body = out -> scheduleExportService.writeNdjson(out, from, to, nurseId, route);
+            return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + filename + ".ndjson\"")
+                .body(body);
+        }
+        return exportFailed("format must be ndjson or csv");
+    }
+    
+    // Export errors keep the usual {"success": false, "error": ...} shape (messages are plain literals)
+    private static ResponseEntity<StreamingResponseBody> exportFailed(String error) {
+        byte[] body = ("{\"success\":false,\"error\":\"" + error + "\"}").getBytes(StandardCharsets.UTF_8);
+        return ResponseEntity.badRequest()
+            .contentType(MediaType.APPLICATION_JSON)
+            .body(out -> out.write(body));
+    }
+    
     /**
      * Generate a new schedule for a nurse on a specific date
      * (forces regeneration even if a schedule already exists)
      */
     @PostMapping("/{nurseId}/generate")
-    public Map<String, Object> generateSchedule(
+    public ScheduleResponse generateSchedule(
             @PathVariable String nurseId,
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date) {
         
-        Map<String, Object> response = new HashMap<>();
-        
         try {
             NurseSchedule schedule = nurseScheduleService.generateSchedule(nurseId, date);
-            response.put("success", true);
-            response.put("schedule", schedule);
-            return response;
+            return new ScheduleResponse(schedule);
         } catch (Exception e) {
-            response.put("success", false);
-            response.put("error", e.getMessage());
-            return response;
+            return ScheduleResponse.failed(e.getMessage());
+        }
+    }
+    
+    /**
+     * Add a visit to an existing schedule without re-solving the whole route
+     */
+    @PostMapping("/{nurseId}/visits")
+    public ScheduleResponse addVisit(
+            @PathVariable String nurseId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date,
+            @RequestParam String patientId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.TIME) LocalTime time,
+            @RequestParam(required = false) String visitType) {
+        
+        try {
+            NurseSchedule schedule = nurseScheduleService.addVisit(nurseId, date, patientId, time, visitType);
+            return new ScheduleResponse(schedule);
+        } catch (Exception e) {
+            return ScheduleResponse.failed(e.getMessage());
+        }
+    }
+    
+    /**
+     * Cancel a visit and close the gap in the route
+     */
+    @DeleteMapping("/{nurseId}/visits/{patientId}")
+    public ScheduleResponse cancelVisit(
+            @PathVariable String nurseId,
+            @PathVariable String patientId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date) {
+        
+        try {
+            NurseSchedule schedule = nurseScheduleService.cancelVisit(nurseId, date, patientId);
+            return new ScheduleResponse(schedule);
+        } catch (Exception e) {
+            return ScheduleResponse.failed(e.getMessage());
+        }
+    }
+    
+    /**
+     * Move a visit to a new time and re-place it in the route
+     */
+    @PutMapping("/{nurseId}/visits/{patientId}")
+    public ScheduleResponse moveVisit(
+            @PathVariable String nurseId,
+            @PathVariable String patientId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.TIME) LocalTime time) {
+        
+        try {
+            NurseSchedule schedule = nurseScheduleService.moveVisit(nurseId, date, patientId, time);
+            return new ScheduleResponse(schedule);
+        } catch (Exception e) {
+            return ScheduleResponse.failed(e.getMessage());
         }
     }
     
@@ -114,12 +231,10 @@ public class NurseScheduleController {
      * Update the status of a schedule
      */
     @PutMapping("/{scheduleId}/status")
-    public Map<String, Object> updateScheduleStatus(
+    public ScheduleResponse updateScheduleStatus(
             @PathVariable Long scheduleId,
             @RequestBody Map<String, String> requestBody) {
         
-        Map<String, Object> response = new HashMap<>();
-        
         try {
             String newStatus = requestBody.get("status");
             if (newStatus == null || newStatus.isEmpty()) {
@@ -127,13 +242,9 @@ public class NurseScheduleController {
             }
             
             NurseSchedule updatedSchedule = nurseScheduleService.updateScheduleStatus(scheduleId, newStatus);
-            response.put("success", true);
-            response.put("schedule", updatedSchedule);
-            return response;
+            return new ScheduleResponse(updatedSchedule);
         } catch (Exception e) {
-            response.put("success", false);
-            response.put("error", e.getMessage());
-            return response;
+            return ScheduleResponse.failed(e.getMessage());
         }
     }
 }
\ No newline at end of file
@@ -0,0 +1,135 @@
+package nursescheduler.controller;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import nursescheduler.dto.MileageReportResponse;
+import nursescheduler.dto.MileageReportRow;
+import nursescheduler.model.MileageRollup;
+import nursescheduler.model.Nurse;
+import nursescheduler.repository.NurseRepository;
+import nursescheduler.service.DataVersionService;
+import nursescheduler.service.MileageRollupService;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Mileage and travel time reports, read from the pre-aggregated rollups
+ */
+@RestController
+@RequestMapping("/api/reports")
+public class ReportController {
+
+    @Autowired
+    private MileageRollupService mileageRollupService;
+
+    @Autowired
+    private NurseRepository nurseRepository;
+
+    @Autowired
+    private DataVersionService dataVersionService;
+
+    /**
+     * Mileage per nurse, county or visit type for each day, week or month from from to to (inclusive;
+     * defaults to the period containing from), optionally for one nurse ID, county or visit type
+     * Conditional GETs get a 304 while no schedule has changed.
+     */
+    @GetMapping("/mileage")
+    public MileageReportResponse getMileage(
+            @RequestParam(required = false, defaultValue = "month") String granularity,
+            @RequestParam(required = false, defaultValue = "nurse") String dimension,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) String key,
+            HttpServletRequest request,
+            HttpServletResponse response) {
+        String version = dataVersionService.mileageReportVersion();
+        if (ConditionalRequests.notModified(request, response, version)) {
+            return null;
+        }
+        try {
+            String period = granularity(granularity);
+            String by = dimension(dimension);
+            if (period == null) {
+                return MileageReportResponse.failed("granularity must be day, week or month");
+            }
+            if (by == null) {
+                return MileageReportResponse.failed("dimension must be nurse, county or visitType");
+            }
+            LocalDate until = to != null ? to : from;
+            if (until.isBefore(from)) {
+                return MileageReportResponse.failed("to is before from");
+            }
+
+            List<MileageRollup> rollups = mileageRollupService.getRollups(period, by, from, until, key);
+
+            // Nurse reports show names as well (one query for the whole report)
+            Map<String, String> names = new HashMap<>();
+            if (MileageRollup.NURSE.equals(by)) {
+                Set<Long> nurseIds = new HashSet<>();
+                for (MileageRollup rollup : rollups) {
+                    try {
+                        nurseIds.add(Long.parseLong(rollup.getDimensionKey()));
+                    } catch (NumberFormatException e) {
+                        // Not a nurse entity ID; reported without a name
+                    }
+                }
+                for (Nurse nurse : nurseRepository.findAllById(nurseIds)) {
+                    names.put(String.valueOf(nurse.getId()), nurse.getName());
+                }
+            }
+
+            List<MileageReportRow> rows = new ArrayList<>();
+            MileageReportRow totals = new MileageReportRow();
+            for (MileageRollup rollup : rollups) {
+                rows.add(new MileageReportRow(rollup, names.get(rollup.getDimensionKey())));
+                totals.add(rollup);
+            }
+
+            return ConditionalRequests.tagged(request, response,
+                new MileageReportResponse(period, by, MileageRollupService.periodStart(period, from).toString(),
+                    until.toString(), rows, totals),
+                version, dataVersionService.mileageReportVersion());
+        } catch (Exception e) {
+            return MileageReportResponse.failed(e.getMessage());
+        }
+    }
+
+    private static String granularity(String value) {
+        switch (value.toLowerCase()) {
+            case "day":
+                return MileageRollup.DAY;
+            case "week":
+                return MileageRollup.WEEK;
+            case "month":
+                return MileageRollup.MONTH;
+            default:
+                return null;
+        }
+    }
+
+    private static String dimension(String value) {
+        switch (value.toLowerCase()) {
+            case "nurse":
+                return MileageRollup.NURSE;
+            case "county":
+                return MileageRollup.COUNTY;
+            case "visittype":
+            case "visit-type":
+                return MileageRollup.VISIT_TYPE;
+            default:
+                return null;
+        }
+    }
+}
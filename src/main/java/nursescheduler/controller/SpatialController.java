@@ -0,0 +1,134 @@
+package nursescheduler.controller;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.web.bind.annotation.*;
+import nursescheduler.service.SpatialIndexService;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Controller for location queries served from the in-memory spatial index
+ */
+@RestController
+@RequestMapping("/api/spatial")
+public class SpatialController {
+
+    @Autowired
+    private SpatialIndexService spatialIndexService;
+
+    // Largest area a single query may cover, so one request can't walk (and return) the whole index
+    @Value("${spatial.query.max-radius-km:200}")
+    private double maxRadiusKm = 200;
+
+    @Value("${spatial.query.max-box-degrees:4}")
+    private double maxBoxDegrees = 4;
+
+    /**
+     * Find the nurses living closest to a point (e.g. a new patient's address)
+     */
+    @GetMapping("/nurses/nearest")
+    public Map<String, Object> nearestNurses(
+            @RequestParam double lat,
+            @RequestParam double lon,
+            @RequestParam(required = false, defaultValue = "5") int k,
+            @RequestParam(required = false, defaultValue = "true") boolean fieldStaffOnly) {
+        Map<String, Object> response = new HashMap<>();
+        try {
+            List<SpatialIndexService.Neighbor> nurses = spatialIndexService.nearestNurses(lat, lon, k, fieldStaffOnly);
+            response.put("success", true);
+            response.put("nurses", nurses);
+            return response;
+        } catch (Exception e) {
+            response.put("success", false);
+            response.put("error", e.getMessage());
+            return response;
+        }
+    }
+
+    /**
+     * Find the patients closest to a point
+     */
+    @GetMapping("/patients/nearest")
+    public Map<String, Object> nearestPatients(
+            @RequestParam double lat,
+            @RequestParam double lon,
+            @RequestParam(required = false, defaultValue = "10") int k) {
+        Map<String, Object> response = new HashMap<>();
+        try {
+            List<SpatialIndexService.Neighbor> patients = spatialIndexService.nearestPatients(lat, lon, k);
+            response.put("success", true);
+            response.put("patients", patients);
+            return response;
+        } catch (Exception e) {
+            response.put("success", false);
+            response.put("error", e.getMessage());
+            return response;
+        }
+    }
+
+    /**
+     * Find patients within a radius (in kilometers) of a point
+     */
+    @GetMapping("/patients/radius")
+    public Map<String, Object> patientsWithinRadius(
+            @RequestParam double lat,
+            @RequestParam double lon,
+            @RequestParam double radiusKm) {
+        Map<String, Object> response = new HashMap<>();
+        try {
+            checkPoint(lat, lon);
+            if (!(radiusKm >= 0) || radiusKm > maxRadiusKm) {
+                throw new IllegalArgumentException("radiusKm must be between 0 and " + maxRadiusKm);
+            }
+            List<SpatialIndexService.Neighbor> patients = spatialIndexService.patientsWithinRadius(lat, lon, radiusKm * 1000);
+            response.put("success", true);
+            response.put("patients", patients);
+            response.put("total", patients.size());
+            return response;
+        } catch (Exception e) {
+            response.put("success", false);
+            response.put("error", e.getMessage());
+            return response;
+        }
+    }
+
+    /**
+     * Find patients inside a bounding box (e.g. the visible map area)
+     */
+    @GetMapping("/patients/box")
+    public Map<String, Object> patientsInBox(
+            @RequestParam double minLat,
+            @RequestParam double minLon,
+            @RequestParam double maxLat,
+            @RequestParam double maxLon) {
+        Map<String, Object> response = new HashMap<>();
+        try {
+            checkPoint(minLat, minLon);
+            checkPoint(maxLat, maxLon);
+            if (minLat > maxLat || minLon > maxLon) {
+                throw new IllegalArgumentException("minLat and minLon must not be greater than maxLat and maxLon");
+            }
+            if (maxLat - minLat > maxBoxDegrees || maxLon - minLon > maxBoxDegrees) {
+                throw new IllegalArgumentException("The box may span at most " + maxBoxDegrees + " degrees each way");
+            }
+            List<SpatialIndexService.IndexedPoint> patients = spatialIndexService.patientsInBox(minLat, minLon, maxLat, maxLon);
+            response.put("success", true);
+            response.put("patients", patients);
+            response.put("total", patients.size());
+            return response;
+        } catch (Exception e) {
+            response.put("success", false);
+            response.put("error", e.getMessage());
+            return response;
+        }
+    }
+
+    private static void checkPoint(double lat, double lon) {
+        if (!(lat >= -90 && lat <= 90) || !(lon >= -180 && lon <= 180)) {
+            throw new IllegalArgumentException("Coordinates out of range: " + lat + "," + lon);
+        }
+    }
+}
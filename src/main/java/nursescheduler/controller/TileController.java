@@ -0,0 +1,246 @@
+package nursescheduler.controller;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import nursescheduler.service.TilePackService;
+import nursescheduler.service.TileSeedingService;
+import nursescheduler.service.VectorTileService;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Controller serving offline map tiles from the local tile pack
+ */
+@RestController
+public class TileController {
+
+    @Autowired
+    private TilePackService tilePackService;
+
+    @Autowired
+    private TileSeedingService tileSeedingService;
+
+    @Autowired
+    private VectorTileService vectorTileService;
+
+    // Tiles only change when the pack is rebuilt, and the ETag covers that
+    @Value("${tiles.cache.max-age-seconds:2592000}")
+    private long maxAgeSeconds;
+
+    // Tiles this large go out through the connector's sendfile; smaller ones are cheaper to write from memory
+    @Value("${tiles.sendfile.min-bytes:49152}")
+    private long sendfileMinBytes;
+
+    /**
+     * Get a single map tile
+     * Large tiles are handed to Tomcat's sendfile as a range of the pack file, so they go from the page
+     * cache to the socket without passing through the JVM. The rest, or all tiles on a connector without
+     * sendfile or while the pack file is being replaced, are written from the memory-mapped pack or the
+     * tile cache.
+     */
+    @GetMapping("/tiles/{z}/{x}/{y}.png")
+    public void getTile(
+            @PathVariable int z,
+            @PathVariable int x,
+            @PathVariable int y,
+            HttpServletRequest request,
+            HttpServletResponse response) throws IOException {
+        
+        TilePackService.Tile tile = tilePackService.getTile(z, x, y);
+        if (tile == null) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+        
+        response.setHeader("ETag", tile.getETag());
+        response.setDateHeader("Last-Modified", tile.getLastModified());
+        response.setHeader("Cache-Control", "public, max-age=" + maxAgeSeconds);
+        
+        if (notModified(request, tile)) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+        
+        response.setContentType(tile.getContentType());
+        response.setContentLength(tile.getLength());
+        if (tile.getLength() >= sendfileMinBytes
+                && Boolean.TRUE.equals(request.getAttribute("org.apache.tomcat.sendfile.support"))
+                && tile.isFileCurrent()) {
+            request.setAttribute("org.apache.tomcat.sendfile.filename", tile.getFile().toAbsolutePath().toString());
+            request.setAttribute("org.apache.tomcat.sendfile.start", tile.getOffset());
+            request.setAttribute("org.apache.tomcat.sendfile.end", tile.getOffset() + tile.getLength());
+            return;
+        }
+        ByteBuffer data = tile.getData();
+        WritableByteChannel channel = Channels.newChannel(response.getOutputStream());
+        while (data.hasRemaining()) {
+            channel.write(data);
+        }
+    }
+
+    /**
+     * Get a vector tile (MVT) of a day's scheduled routes and the nurse and patient locations
+     * Layers: "routes", "patients" and "nurses". Tiles change whenever schedules do, so clients
+     * revalidate each time and usually get a 304.
+     */
+    @GetMapping("/tiles/vector/{z}/{x}/{y}.mvt")
+    public void getVectorTile(
+            @PathVariable int z,
+            @PathVariable int x,
+            @PathVariable int y,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date,
+            HttpServletRequest request,
+            HttpServletResponse response) throws IOException {
+        
+        VectorTileService.VectorTile tile;
+        try {
+            tile = vectorTileService.getTile(date != null ? date : LocalDate.now(), z, x, y);
+        } catch (IllegalArgumentException e) {
+            response.sendError(HttpServletResponse.SC_BAD_REQUEST, e.getMessage());
+            return;
+        }
+        
+        response.setHeader("ETag", tile.getETag());
+        response.setHeader("Cache-Control", "no-cache");
+        String ifNoneMatch = request.getHeader("If-None-Match");
+        if (ifNoneMatch != null && (ifNoneMatch.equals("*") || ifNoneMatch.contains(tile.getETag()))) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+        
+        response.setContentType("application/vnd.mapbox-vector-tile");
+        response.setContentLength(tile.getData().length);
+        response.getOutputStream().write(tile.getData());
+    }
+
+    /**
+     * Conditional GET: If-None-Match wins when present, otherwise If-Modified-Since (whole seconds)
+     */
+    private static boolean notModified(HttpServletRequest request, TilePackService.Tile tile) {
+        String ifNoneMatch = request.getHeader("If-None-Match");
+        if (ifNoneMatch != null) {
+            return ifNoneMatch.equals("*") || ifNoneMatch.contains(tile.getETag());
+        }
+        try {
+            long ifModifiedSince = request.getDateHeader("If-Modified-Since");
+            return ifModifiedSince >= 0 && tile.getLastModified() / 1000 <= ifModifiedSince / 1000;
+        } catch (IllegalArgumentException e) {
+            // Unparseable date: ignore the condition
+            return false;
+        }
+    }
+
+    /**
+     * Get the state of the tile pack and its hot tile cache
+     */
+    @GetMapping("/api/tiles/status")
+    public Map<String, Object> getStatus() {
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("status", tilePackService.getStatus());
+        response.put("seeding", tileSeedingService.getStatus());
+        response.put("vector", vectorTileService.getStatus());
+        return response;
+    }
+
+    /**
+     * Seed tiles around every nurse and patient location
+     */
+    @PostMapping("/api/tiles/seed/points")
+    public Map<String, Object> seedPoints(
+            @RequestParam(required = false, defaultValue = "2000") double radiusMeters,
+            @RequestParam(required = false, defaultValue = "10") int minZoom,
+            @RequestParam(required = false, defaultValue = "16") int maxZoom) {
+        
+        Map<String, Object> response = new HashMap<>();
+        
+        try {
+            return seedResponse(tileSeedingService.seedPoints(radiusMeters, minZoom, maxZoom));
+        } catch (Exception e) {
+            response.put("success", false);
+            response.put("error", e.getMessage());
+            return response;
+        }
+    }
+
+    /**
+     * Seed a corridor of tiles along the routes scheduled in a date range
+     */
+    @PostMapping("/api/tiles/seed/routes")
+    public Map<String, Object> seedRoutes(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+            @RequestParam(required = false, defaultValue = "500") double radiusMeters,
+            @RequestParam(required = false, defaultValue = "12") int minZoom,
+            @RequestParam(required = false, defaultValue = "17") int maxZoom) {
+        
+        Map<String, Object> response = new HashMap<>();
+        
+        try {
+            return seedResponse(tileSeedingService.seedRoutes(startDate, endDate, radiusMeters, minZoom, maxZoom));
+        } catch (Exception e) {
+            response.put("success", false);
+            response.put("error", e.getMessage());
+            return response;
+        }
+    }
+
+    /**
+     * Seed every tile touching the polygons of a GeoJSON document (e.g. county boundaries)
+     */
+    @PostMapping("/api/tiles/seed/polygon")
+    public Map<String, Object> seedPolygon(
+            @RequestBody String geoJson,
+            @RequestParam(required = false, defaultValue = "6") int minZoom,
+            @RequestParam(required = false, defaultValue = "14") int maxZoom) {
+        
+        Map<String, Object> response = new HashMap<>();
+        
+        try {
+            return seedResponse(tileSeedingService.seedPolygon(geoJson, minZoom, maxZoom));
+        } catch (Exception e) {
+            response.put("success", false);
+            response.put("error", e.getMessage());
+            return response;
+        }
+    }
+
+    /**
+     * Stop the running seeding job
+     */
+    @PostMapping("/api/tiles/seed/stop")
+    public Map<String, Object> stopSeeding() {
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", tileSeedingService.stop());
+        response.put("seeding", tileSeedingService.getStatus());
+        return response;
+    }
+
+    private Map<String, Object> seedResponse(Map<String, Object> seeding) {
+        Map<String, Object> response = new HashMap<>();
+        if (seeding == null) {
+            response.put("success", false);
+            response.put("error", "A seeding job is already running");
+            response.put("seeding", tileSeedingService.getStatus());
+        } else {
+            response.put("success", true);
+            response.put("seeding", seeding);
+        }
+        return response;
+    }
+}
@@ -0,0 +1,32 @@
+package nursescheduler.dto;
+
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+
+/**
+ * Envelope shared by the typed API responses: {"success": true, ...} or {"success": false, "error": "..."}
+ * Subclasses add their payload field, which stays null (and is left out) on failure.
+ */
+@JsonPropertyOrder({"success", "error"})
+public class ApiResponse {
+
+    private final boolean success;
+    private final String error;
+
+    protected ApiResponse() {
+        this.success = true;
+        this.error = null;
+    }
+
+    protected ApiResponse(String error) {
+        this.success = false;
+        this.error = error;
+    }
+
+    public boolean isSuccess() {
+        return success;
+    }
+
+    public String getError() {
+        return error;
+    }
+}
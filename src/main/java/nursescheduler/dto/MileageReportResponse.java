@@ -0,0 +1,65 @@
+package nursescheduler.dto;
+
+import java.util.List;
+
+/**
+ * {"success": true, "granularity": "MONTH", "dimension": "NURSE", "from": "...", "to": "...",
+ *  "rows": [...], "totals": {...}}
+ */
+public class MileageReportResponse extends ApiResponse {
+
+    private final String granularity;
+    private final String dimension;
+    private final String from;
+    private final String to;
+    private final List<MileageReportRow> rows;
+    private final MileageReportRow totals;
+
+    public MileageReportResponse(String granularity, String dimension, String from, String to,
+            List<MileageReportRow> rows, MileageReportRow totals) {
+        this.granularity = granularity;
+        this.dimension = dimension;
+        this.from = from;
+        this.to = to;
+        this.rows = rows;
+        this.totals = totals;
+    }
+
+    private MileageReportResponse(String error) {
+        super(error);
+        this.granularity = null;
+        this.dimension = null;
+        this.from = null;
+        this.to = null;
+        this.rows = null;
+        this.totals = null;
+    }
+
+    public static MileageReportResponse failed(String error) {
+        return new MileageReportResponse(error);
+    }
+
+    public String getGranularity() {
+        return granularity;
+    }
+
+    public String getDimension() {
+        return dimension;
+    }
+
+    public String getFrom() {
+        return from;
+    }
+
+    public String getTo() {
+        return to;
+    }
+
+    public List<MileageReportRow> getRows() {
+        return rows;
+    }
+
+    public MileageReportRow getTotals() {
+        return totals;
+    }
+}
@@ -0,0 +1,75 @@
+package nursescheduler.dto;
+
+import nursescheduler.model.MileageRollup;
+
+/**
+ * One period and nurse, county or visit type of a mileage report, or the report's totals (no period or key)
+ * Distances are in meters and miles, travel time in minutes.
+ */
+public class MileageReportRow {
+
+    private static final double METERS_PER_MILE = 1609.344;
+
+    private final String period;
+    private final String key;
+    private final String name;
+    private long schedules;
+    private long visits;
+    private double distance;
+    private long travelSeconds;
+
+    public MileageReportRow(MileageRollup rollup, String name) {
+        this.period = rollup.getPeriodStart().toString();
+        this.key = rollup.getDimensionKey();
+        this.name = name;
+        add(rollup);
+    }
+
+    /**
+     * An empty totals row
+     */
+    public MileageReportRow() {
+        this.period = null;
+        this.key = null;
+        this.name = null;
+    }
+
+    public void add(MileageRollup rollup) {
+        schedules += rollup.getSchedules();
+        visits += rollup.getVisits();
+        distance += rollup.getDistance();
+        travelSeconds += rollup.getTravelSeconds();
+    }
+
+    public String getPeriod() {
+        return period;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public long getSchedules() {
+        return schedules;
+    }
+
+    public long getVisits() {
+        return visits;
+    }
+
+    public double getDistance() {
+        return Math.round(distance * 10) / 10.0;
+    }
+
+    public double getMiles() {
+        return Math.round(distance / METERS_PER_MILE * 10) / 10.0;
+    }
+
+    public double getTravelMinutes() {
+        return Math.round(travelSeconds / 6.0) / 10.0;
+    }
+}
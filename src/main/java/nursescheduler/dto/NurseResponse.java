@@ -0,0 +1,28 @@
+package nursescheduler.dto;
+
+import nursescheduler.model.Nurse;
+
+/**
+ * {"success": true, "nurse": {...}}
+ */
+public class NurseResponse extends ApiResponse {
+
+    private final Nurse nurse;
+
+    public NurseResponse(Nurse nurse) {
+        this.nurse = nurse;
+    }
+
+    private NurseResponse(String error) {
+        super(error);
+        this.nurse = null;
+    }
+
+    public static NurseResponse failed(String error) {
+        return new NurseResponse(error);
+    }
+
+    public Nurse getNurse() {
+        return nurse;
+    }
+}
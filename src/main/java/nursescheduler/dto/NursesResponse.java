@@ -0,0 +1,42 @@
+package nursescheduler.dto;
+
+import nursescheduler.model.Nurse;
+
+import java.util.List;
+
+/**
+ * {"success": true, "nurses": [...], "nextCursor": "..."}
+ * nextCursor is left out on the last page.
+ */
+public class NursesResponse extends ApiResponse {
+
+    private final List<Nurse> nurses;
+    private final String nextCursor;
+
+    public NursesResponse(List<Nurse> nurses) {
+        this(nurses, null);
+    }
+
+    public NursesResponse(List<Nurse> nurses, String nextCursor) {
+        this.nurses = nurses;
+        this.nextCursor = nextCursor;
+    }
+
+    private NursesResponse(String error) {
+        super(error);
+        this.nurses = null;
+        this.nextCursor = null;
+    }
+
+    public static NursesResponse failed(String error) {
+        return new NursesResponse(error);
+    }
+
+    public List<Nurse> getNurses() {
+        return nurses;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+}
@@ -0,0 +1,81 @@
+package nursescheduler.dto;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Opaque keyset pagination token: the sort order plus the sort key and ID of the last row on a page
+ * The next page starts strictly after that row, so rows added or removed elsewhere don't shift it. A null
+ * sort key (a row without a name) is kept apart from an empty one.
+ */
+public final class PageCursor {
+
+    private static final char SEPARATOR = '\u0000';
+
+    private final String sort;
+    private final String key;
+    private final String id;
+
+    public PageCursor(String sort, String key, String id) {
+        this.sort = sort;
+        this.key = key;
+        this.id = id;
+    }
+
+    /**
+     * Decode a token from a previous response
+     *
+     * @param expectedSort the sort order of this request; a cursor from another order is rejected
+     * @return null for a null or empty token (the first page)
+     */
+    public static PageCursor decode(String token, String expectedSort) {
+        if (token == null || token.isEmpty()) {
+            return null;
+        }
+        String text;
+        try {
+            text = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+        // sort\0key\0id, or sort\0id without a key
+        int first = text.indexOf(SEPARATOR);
+        int last = text.lastIndexOf(SEPARATOR);
+        if (first < 0) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+        PageCursor cursor = new PageCursor(text.substring(0, first),
+            first == last ? null : text.substring(first + 1, last), text.substring(last + 1));
+        if (!cursor.sort.equals(expectedSort)) {
+            throw new IllegalArgumentException("Cursor was issued for sort=" + cursor.sort + ", not sort=" + expectedSort);
+        }
+        return cursor;
+    }
+
+    public String encode() {
+        String text = key != null ? sort + SEPARATOR + key + SEPARATOR + id : sort + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * The sort key, or null if the row had none
+     */
+    public String getKey() {
+        return key;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    /**
+     * The ID as a number, for tables with numeric keys
+     */
+    public Long getNumericId() {
+        try {
+            return Long.valueOf(id);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+    }
+}
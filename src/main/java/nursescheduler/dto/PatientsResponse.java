@@ -0,0 +1,49 @@
+package nursescheduler.dto;
+
+import nursescheduler.model.Patient;
+
+import java.util.List;
+
+/**
+ * {"success": true, "patients": [...], "total": n, "nextCursor": "..."}
+ * total counts the patients on this page; nextCursor is left out on the last page.
+ */
+public class PatientsResponse extends ApiResponse {
+
+    private final List<Patient> patients;
+    private final Integer total;
+    private final String nextCursor;
+
+    public PatientsResponse(List<Patient> patients) {
+        this(patients, null);
+    }
+
+    public PatientsResponse(List<Patient> patients, String nextCursor) {
+        this.patients = patients;
+        this.total = patients.size();
+        this.nextCursor = nextCursor;
+    }
+
+    private PatientsResponse(String error) {
+        super(error);
+        this.patients = null;
+        this.total = null;
+        this.nextCursor = null;
+    }
+
+    public static PatientsResponse failed(String error) {
+        return new PatientsResponse(error);
+    }
+
+    public List<Patient> getPatients() {
+        return patients;
+    }
+
+    public Integer getTotal() {
+        return total;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+}
@@ -0,0 +1,42 @@
+package nursescheduler.dto;
+
+import nursescheduler.service.GraphHopperService;
+
+import java.util.List;
+
+/**
+ * {"success": true, "coordinates": [[lat, lon], ...], "distance": m, "stopOrder": [...], "stops": [...]}
+ */
+public class RouteResult extends ApiResponse {
+
+    private final GraphHopperService.RouteResponse route;
+
+    public RouteResult(GraphHopperService.RouteResponse route) {
+        this.route = route;
+    }
+
+    private RouteResult(String error) {
+        super(error);
+        this.route = null;
+    }
+
+    public static RouteResult failed(String error) {
+        return new RouteResult(error);
+    }
+
+    public List<double[]> getCoordinates() {
+        return route != null ? route.getCoordinates() : null;
+    }
+
+    public Double getDistance() {
+        return route != null ? route.getDistance() : null;
+    }
+
+    public List<Integer> getStopOrder() {
+        return route != null ? route.getStopOrder() : null;
+    }
+
+    public List<GraphHopperService.StopTiming> getStops() {
+        return route != null ? route.getStopTimings() : null;
+    }
+}
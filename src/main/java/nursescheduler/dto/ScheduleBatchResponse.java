@@ -0,0 +1,52 @@
+package nursescheduler.dto;
+
+import java.util.List;
+
+/**
+ * {"success": true, "date": "...", "schedules": [...], "pending": [...], "nextCursor": "..."}
+ * schedules holds one ScheduleDetail per requested nurse that has a schedule for the date; pending lists
+ * the nurse IDs whose schedules are being generated in the background. nextCursor is set when listing
+ * all field nurses and more follow.
+ */
+public class ScheduleBatchResponse extends ApiResponse {
+
+    private final String date;
+    private final List<ScheduleDetail> schedules;
+    private final List<String> pending;
+    private final String nextCursor;
+
+    public ScheduleBatchResponse(String date, List<ScheduleDetail> schedules, List<String> pending, String nextCursor) {
+        this.date = date;
+        this.schedules = schedules;
+        this.pending = pending;
+        this.nextCursor = nextCursor;
+    }
+
+    private ScheduleBatchResponse(String error) {
+        super(error);
+        this.date = null;
+        this.schedules = null;
+        this.pending = null;
+        this.nextCursor = null;
+    }
+
+    public static ScheduleBatchResponse failed(String error) {
+        return new ScheduleBatchResponse(error);
+    }
+
+    public String getDate() {
+        return date;
+    }
+
+    public List<ScheduleDetail> getSchedules() {
+        return schedules;
+    }
+
+    public List<String> getPending() {
+        return pending;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+}
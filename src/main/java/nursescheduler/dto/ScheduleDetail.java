@@ -0,0 +1,71 @@
+package nursescheduler.dto;
+
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import nursescheduler.model.Nurse;
+import nursescheduler.model.NurseSchedule;
+import nursescheduler.model.Patient;
+import nursescheduler.model.ScheduledVisit;
+import nursescheduler.utility.RawJsonSerializer;
+
+import java.util.List;
+
+/**
+ * A nurse's day as the map view shows it: the nurse, patients in visit order, visit timings and the route
+ */
+public class ScheduleDetail {
+
+    private final Nurse nurse;
+    private final List<Patient> patients;
+    private final String date;
+    private final double totalDistance;
+    private final int travelTime;
+    private final String status;
+    private final List<ScheduledVisit> visits;
+    @JsonSerialize(using = RawJsonSerializer.class)
+    private final String routeCoordinates;
+
+    public ScheduleDetail(Nurse nurse, List<Patient> patients, NurseSchedule schedule) {
+        this.nurse = nurse;
+        this.patients = patients;
+        this.date = schedule.getScheduleDate().toString();
+        this.totalDistance = schedule.getTotalDistance();
+        this.travelTime = schedule.getTotalTravelTime();
+        this.status = schedule.getStatus();
+        this.visits = schedule.getVisits();
+        // Stored as a JSON array string, which goes into the response as is
+        String coordinates = schedule.getRouteCoordinates();
+        this.routeCoordinates = coordinates != null && !coordinates.isBlank() ? coordinates : "[]";
+    }
+
+    public Nurse getNurse() {
+        return nurse;
+    }
+
+    public List<Patient> getPatients() {
+        return patients;
+    }
+
+    public String getDate() {
+        return date;
+    }
+
+    public double getTotalDistance() {
+        return totalDistance;
+    }
+
+    public int getTravelTime() {
+        return travelTime;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public List<ScheduledVisit> getVisits() {
+        return visits;
+    }
+
+    public String getRouteCoordinates() {
+        return routeCoordinates;
+    }
+}
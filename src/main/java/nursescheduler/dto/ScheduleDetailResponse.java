@@ -0,0 +1,26 @@
+package nursescheduler.dto;
+
+/**
+ * {"success": true, "schedule": {...}} for the map view's schedule with nurse and patients
+ */
+public class ScheduleDetailResponse extends ApiResponse {
+
+    private final ScheduleDetail schedule;
+
+    public ScheduleDetailResponse(ScheduleDetail schedule) {
+        this.schedule = schedule;
+    }
+
+    private ScheduleDetailResponse(String error) {
+        super(error);
+        this.schedule = null;
+    }
+
+    public static ScheduleDetailResponse failed(String error) {
+        return new ScheduleDetailResponse(error);
+    }
+
+    public ScheduleDetail getSchedule() {
+        return schedule;
+    }
+}
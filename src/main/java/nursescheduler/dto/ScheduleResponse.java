@@ -0,0 +1,28 @@
+package nursescheduler.dto;
+
+import nursescheduler.model.NurseSchedule;
+
+/**
+ * {"success": true, "schedule": {...}} for a stored schedule
+ */
+public class ScheduleResponse extends ApiResponse {
+
+    private final NurseSchedule schedule;
+
+    public ScheduleResponse(NurseSchedule schedule) {
+        this.schedule = schedule;
+    }
+
+    private ScheduleResponse(String error) {
+        super(error);
+        this.schedule = null;
+    }
+
+    public static ScheduleResponse failed(String error) {
+        return new ScheduleResponse(error);
+    }
+
+    public NurseSchedule getSchedule() {
+        return schedule;
+    }
+}
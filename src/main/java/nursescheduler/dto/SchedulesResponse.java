@@ -0,0 +1,30 @@
+package nursescheduler.dto;
+
+import nursescheduler.model.NurseSchedule;
+
+import java.util.List;
+
+/**
+ * {"success": true, "schedules": [...]}
+ */
+public class SchedulesResponse extends ApiResponse {
+
+    private final List<NurseSchedule> schedules;
+
+    public SchedulesResponse(List<NurseSchedule> schedules) {
+        this.schedules = schedules;
+    }
+
+    private SchedulesResponse(String error) {
+        super(error);
+        this.schedules = null;
+    }
+
+    public static SchedulesResponse failed(String error) {
+        return new SchedulesResponse(error);
+    }
+
+    public List<NurseSchedule> getSchedules() {
+        return schedules;
+    }
+}
@@ -1,21 +1,31 @@
 package nursescheduler.model;
 
 import jakarta.persistence.Entity;
+import jakarta.persistence.EntityListeners;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.Table;
+import nursescheduler.service.DataVersionListener;
 import java.time.LocalDateTime;
 
 /**
  * Entity class representing an appointment between a nurse and a patient
  */
 @Entity
-@Table(name = "appointment")
+@Table(name = "appointment", indexes = {
+    @Index(name = "idx_appointment_practitioner_date", columnList = "practitionerId, appointmentDate, appointmentId"),
+    @Index(name = "idx_appointment_date", columnList = "appointmentDate, appointmentId"),
+    @Index(name = "idx_appointment_patient_key", columnList = "patientKey")
+})
+@EntityListeners(DataVersionListener.class)
 public class Appointment {
     
     @Id
     private String appointmentId;
     
     private String patientId;
+    // Patient entity ID derived from patientId, so queries can join appointments to their patients
+    private Long patientKey;
     private String practitionerId;
     private LocalDateTime appointmentDate;
     private String visitType;
@@ -37,6 +47,11 @@ public class Appointment {
     
     public void setPatientId(String patientId) {
         this.patientId = patientId;
+        this.patientKey = patientId != null ? Long.parseLong(Math.abs(patientId.hashCode()) + "") : null;
+    }
+    
+    public Long getPatientKey() {
+        return patientKey;
     }
     
     public String getPractitionerId() {
@@ -0,0 +1,88 @@
+package nursescheduler.model;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+
+import java.time.LocalDate;
+
+/**
+ * What one schedule last added to the mileage rollups for one nurse, county or visit type
+ * Kept so that a regenerated schedule can take its old figures back out of the rollups.
+ */
+@Entity
+@Table(name = "mileage_contribution", indexes = @Index(name = "idx_mileage_contribution_schedule", columnList = "scheduleId"))
+public class MileageContribution {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    private Long scheduleId;
+    private LocalDate scheduleDate;
+
+    // NURSE, COUNTY or VISIT_TYPE (see MileageRollup) and its key
+    private String dimension;
+    private String dimensionKey;
+
+    // Visits, road distance in meters and travel time in seconds
+    private long visits;
+    private double distance;
+    private long travelSeconds;
+
+    public MileageContribution() {
+    }
+
+    public MileageContribution(Long scheduleId, LocalDate scheduleDate, String dimension, String dimensionKey) {
+        this.scheduleId = scheduleId;
+        this.scheduleDate = scheduleDate;
+        this.dimension = dimension;
+        this.dimensionKey = dimensionKey;
+    }
+
+    /**
+     * Add one visit's (or the return leg's) figures
+     */
+    public void add(long visits, double distance, long travelSeconds) {
+        this.visits += visits;
+        this.distance += distance;
+        this.travelSeconds += travelSeconds;
+    }
+
+    // Getters
+
+    public Long getId() {
+        return id;
+    }
+
+    public Long getScheduleId() {
+        return scheduleId;
+    }
+
+    public LocalDate getScheduleDate() {
+        return scheduleDate;
+    }
+
+    public String getDimension() {
+        return dimension;
+    }
+
+    public String getDimensionKey() {
+        return dimensionKey;
+    }
+
+    public long getVisits() {
+        return visits;
+    }
+
+    public double getDistance() {
+        return distance;
+    }
+
+    public long getTravelSeconds() {
+        return travelSeconds;
+    }
+}
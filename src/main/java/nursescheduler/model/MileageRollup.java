@@ -0,0 +1,101 @@
+package nursescheduler.model;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+
+import java.time.LocalDate;
+
+/**
+ * Pre-aggregated mileage and travel time for one period (day, week or month) and one nurse, county or
+ * visit type
+ * Maintained by MileageRollupService as schedules are generated and updated, so reports never scan
+ * the schedules themselves.
+ */
+@Entity
+@Table(name = "mileage_rollup",
+    uniqueConstraints = @UniqueConstraint(name = "uk_mileage_rollup",
+        columnNames = {"granularity", "periodStart", "dimension", "dimensionKey"}),
+    indexes = @Index(name = "idx_mileage_rollup_report", columnList = "granularity, dimension, periodStart"))
+public class MileageRollup {
+
+    public static final String DAY = "DAY";
+    public static final String WEEK = "WEEK";
+    public static final String MONTH = "MONTH";
+
+    public static final String NURSE = "NURSE";
+    public static final String COUNTY = "COUNTY";
+    public static final String VISIT_TYPE = "VISIT_TYPE";
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // DAY, WEEK or MONTH
+    private String granularity;
+
+    // First day of the period (the day itself, the Monday of the week, the first of the month)
+    private LocalDate periodStart;
+
+    // NURSE, COUNTY or VISIT_TYPE, and the nurse ID, county name or visit type
+    private String dimension;
+    private String dimensionKey;
+
+    // Schedules and visits counted, road distance in meters and travel time in seconds
+    private long schedules;
+    private long visits;
+    private double distance;
+    private long travelSeconds;
+
+    public MileageRollup() {
+    }
+
+    public MileageRollup(String granularity, LocalDate periodStart, String dimension, String dimensionKey) {
+        this.granularity = granularity;
+        this.periodStart = periodStart;
+        this.dimension = dimension;
+        this.dimensionKey = dimensionKey;
+    }
+
+    // Getters
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getGranularity() {
+        return granularity;
+    }
+
+    public LocalDate getPeriodStart() {
+        return periodStart;
+    }
+
+    public String getDimension() {
+        return dimension;
+    }
+
+    public String getDimensionKey() {
+        return dimensionKey;
+    }
+
+    public long getSchedules() {
+        return schedules;
+    }
+
+    public long getVisits() {
+        return visits;
+    }
+
+    public double getDistance() {
+        return distance;
+    }
+
+    public long getTravelSeconds() {
+        return travelSeconds;
+    }
+}
@@ -1,11 +1,20 @@
 package nursescheduler.model;
 
 import jakarta.persistence.Entity;
+import jakarta.persistence.EntityListeners;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.Table;
+import nursescheduler.service.DataVersionListener;
+import nursescheduler.service.LocationRegistryListener;
+import nursescheduler.service.SpatialIndexListener;
 
 @Entity
-@Table(name = "nurse")
+@EntityListeners({SpatialIndexListener.class, LocationRegistryListener.class, DataVersionListener.class})
+@Table(name = "nurse", indexes = {
+    @Index(name = "idx_nurse_name_id", columnList = "name, id"),
+    @Index(name = "idx_nurse_field_staff_id", columnList = "fieldStaff, id")
+})
 public class Nurse {
 
     @Id
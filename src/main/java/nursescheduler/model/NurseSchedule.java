@@ -1,13 +1,20 @@
 package nursescheduler.model;
 
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
 import jakarta.persistence.Entity;
+import jakarta.persistence.EntityListeners;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.Table;
 import jakarta.persistence.Column;
 import jakarta.persistence.ElementCollection;
 import jakarta.persistence.OrderColumn;
+import org.hibernate.annotations.BatchSize;
+import nursescheduler.service.DataVersionListener;
+import nursescheduler.service.ScheduleChangeListener;
+import nursescheduler.utility.RawJsonSerializer;
 import java.time.LocalDate;
 import java.util.List;
 
@@ -16,7 +23,11 @@ import java.util.List;
  * Includes optimized route information and visit order
  */
 @Entity
-@Table(name = "nurse_schedule")
+@Table(name = "nurse_schedule", indexes = {
+    @Index(name = "idx_schedule_nurse_date", columnList = "nurseId, scheduleDate, id"),
+    @Index(name = "idx_schedule_date_id", columnList = "scheduleDate, id")
+})
+@EntityListeners({ScheduleChangeListener.class, DataVersionListener.class})
 public class NurseSchedule {
     
     @Id
@@ -33,13 +44,26 @@ public class NurseSchedule {
     private int totalTravelTime;
     
     // Ordered list of patient IDs in optimal visit sequence
+    // (both collections are loaded for up to 100 schedules at once when listing many schedules)
     @ElementCollection
+    @BatchSize(size = 100)
     @OrderColumn
     @Column(name = "patient_id")
     private List<String> patientVisitOrder;
     
-    // Route coordinates as JSON string (latitude,longitude pairs)
+    // Planned timing for each stop, in the same order as patientVisitOrder
+    @ElementCollection
+    @BatchSize(size = 100)
+    @OrderColumn
+    private List<ScheduledVisit> visits;
+    
+    // Final leg from the last visit back to the nurse's home (meters and seconds)
+    private double returnLegDistance;
+    private int returnLegTravelSeconds;
+    
+    // Route coordinates as JSON string (latitude,longitude pairs), sent to clients as the array itself
     @Column(columnDefinition = "TEXT")
+    @JsonSerialize(using = RawJsonSerializer.class)
     private String routeCoordinates;
     
     // Status of the schedule (DRAFT, CONFIRMED, IN_PROGRESS, COMPLETED)
@@ -98,6 +122,30 @@ public class NurseSchedule {
         this.patientVisitOrder = patientVisitOrder;
     }
     
+    public List<ScheduledVisit> getVisits() {
+        return visits;
+    }
+    
+    public void setVisits(List<ScheduledVisit> visits) {
+        this.visits = visits;
+    }
+    
+    public double getReturnLegDistance() {
+        return returnLegDistance;
+    }
+    
+    public void setReturnLegDistance(double returnLegDistance) {
+        this.returnLegDistance = returnLegDistance;
+    }
+    
+    public int getReturnLegTravelSeconds() {
+        return returnLegTravelSeconds;
+    }
+    
+    public void setReturnLegTravelSeconds(int returnLegTravelSeconds) {
+        this.returnLegTravelSeconds = returnLegTravelSeconds;
+    }
+    
     public String getRouteCoordinates() {
         return routeCoordinates;
     }
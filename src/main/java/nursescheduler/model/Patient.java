@@ -1,14 +1,24 @@
 package nursescheduler.model;
 
 import jakarta.persistence.Entity;
+import jakarta.persistence.EntityListeners;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.Table;
+import nursescheduler.service.DataVersionListener;
+import nursescheduler.service.LocationRegistryListener;
+import nursescheduler.service.SpatialIndexListener;
 
 /**
  * Entity class representing a patient
  */
 @Entity
-@Table(name = "patient")
+@EntityListeners({SpatialIndexListener.class, LocationRegistryListener.class, DataVersionListener.class})
+@Table(name = "patient", indexes = {
+    // Keyset pages: filters first, then the sort key and the id as tie-breaker
+    @Index(name = "idx_patient_state_city_id", columnList = "state, city, id"),
+    @Index(name = "idx_patient_name_id", columnList = "name, id")
+})
 public class Patient {
     
     @Id
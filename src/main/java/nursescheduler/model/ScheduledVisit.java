@@ -0,0 +1,95 @@
+package nursescheduler.model;
+
+import jakarta.persistence.Embeddable;
+import java.time.LocalTime;
+
+/**
+ * A single stop in a nurse schedule, in optimized visit order
+ * Holds the planned times and the road leg driven to reach the stop
+ */
+@Embeddable
+public class ScheduledVisit {
+    
+    private String patientId;
+    
+    // Planned arrival, visit start and departure times
+    private LocalTime arrivalTime;
+    private LocalTime startTime;
+    private LocalTime departureTime;
+    
+    // Minutes the visit can slip without missing this or a later window (negative when late)
+    private int slackMinutes;
+    
+    // Leg from the previous stop (or the nurse's home) in meters and seconds
+    private double legDistance;
+    private int legTravelSeconds;
+    
+    // Number of routeCoordinates points belonging to that leg, so legs can be reused individually
+    private int legPointCount;
+    
+    // Getters and setters
+    
+    public String getPatientId() {
+        return patientId;
+    }
+    
+    public void setPatientId(String patientId) {
+        this.patientId = patientId;
+    }
+    
+    public LocalTime getArrivalTime() {
+        return arrivalTime;
+    }
+    
+    public void setArrivalTime(LocalTime arrivalTime) {
+        this.arrivalTime = arrivalTime;
+    }
+    
+    public LocalTime getStartTime() {
+        return startTime;
+    }
+    
+    public void setStartTime(LocalTime startTime) {
+        this.startTime = startTime;
+    }
+    
+    public LocalTime getDepartureTime() {
+        return departureTime;
+    }
+    
+    public void setDepartureTime(LocalTime departureTime) {
+        this.departureTime = departureTime;
+    }
+    
+    public int getSlackMinutes() {
+        return slackMinutes;
+    }
+    
+    public void setSlackMinutes(int slackMinutes) {
+        this.slackMinutes = slackMinutes;
+    }
+    
+    public double getLegDistance() {
+        return legDistance;
+    }
+    
+    public void setLegDistance(double legDistance) {
+        this.legDistance = legDistance;
+    }
+    
+    public int getLegTravelSeconds() {
+        return legTravelSeconds;
+    }
+    
+    public void setLegTravelSeconds(int legTravelSeconds) {
+        this.legTravelSeconds = legTravelSeconds;
+    }
+    
+    public int getLegPointCount() {
+        return legPointCount;
+    }
+    
+    public void setLegPointCount(int legPointCount) {
+        this.legPointCount = legPointCount;
+    }
+}
@@ -1,6 +1,9 @@
 package nursescheduler.repository;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import nursescheduler.model.Appointment;
 
@@ -25,4 +28,25 @@ public interface AppointmentRepository extends JpaRepository<Appointment, String
     
     // Find appointments by practitioner ID and date
     List<Appointment> findByPractitionerIdAndAppointmentDateBetween(String practitionerId, LocalDateTime start, LocalDateTime end);
+    
+    // Keyset page of the patients with dated appointments, optionally for one practitioner, within [from, to)
+    // and in one city/state, each once and ordered by their first such appointment, then patient ID;
+    // rows are [patient ID, first appointment date], afterDate/afterId the last row of the previous page
+    @Query("select p.id, min(a.appointmentDate) from Appointment a join Patient p on p.id = a.patientKey"
+        + " where a.appointmentDate is not null"
+        + " and (:practitionerId is null or a.practitionerId = :practitionerId)"
+        + " and (:from is null or a.appointmentDate >= :from) and (:to is null or a.appointmentDate < :to)"
+        + " and (:city is null or p.city = :city) and (:state is null or p.state = :state)"
+        + " group by p.id"
+        + " having :afterDate is null or min(a.appointmentDate) > :afterDate"
+        + " or (min(a.appointmentDate) = :afterDate and p.id > :afterId)"
+        + " order by min(a.appointmentDate), p.id")
+    List<Object[]> findPatientPage(@Param("practitionerId") String practitionerId,
+        @Param("from") LocalDateTime from, @Param("to") LocalDateTime to,
+        @Param("city") String city, @Param("state") String state,
+        @Param("afterDate") LocalDateTime afterDate, @Param("afterId") Long afterId, Pageable page);
+    
+    // Find practitioners who have carried out visits of a given type (e.g. HOSPICE)
+    @Query("select distinct a.practitionerId from Appointment a where upper(a.visitType) like concat('%', upper(:visitType), '%')")
+    List<String> findPractitionerIdsByVisitType(@Param("visitType") String visitType);
 }
\ No newline at end of file
@@ -0,0 +1,23 @@
+package nursescheduler.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import nursescheduler.model.MileageContribution;
+
+import java.util.List;
+
+/**
+ * Repository for what each schedule last added to the mileage rollups
+ */
+@Repository
+public interface MileageContributionRepository extends JpaRepository<MileageContribution, Long> {
+
+    List<MileageContribution> findByScheduleId(Long scheduleId);
+
+    @Modifying(flushAutomatically = true)
+    @Query("delete from MileageContribution c where c.scheduleId = :scheduleId")
+    int deleteByScheduleId(@Param("scheduleId") Long scheduleId);
+}
@@ -0,0 +1,43 @@
+package nursescheduler.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import nursescheduler.model.MileageRollup;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Repository for the pre-aggregated mileage rollups
+ */
+@Repository
+public interface MileageRollupRepository extends JpaRepository<MileageRollup, Long> {
+
+    // Rollups of one granularity and dimension for periods starting between from and to (inclusive),
+    // optionally for one key
+    @Query("select r from MileageRollup r where r.granularity = :granularity and r.dimension = :dimension"
+        + " and r.periodStart between :from and :to and (:dimensionKey is null or r.dimensionKey = :dimensionKey)"
+        + " order by r.periodStart, r.dimensionKey")
+    List<MileageRollup> findReport(@Param("granularity") String granularity, @Param("dimension") String dimension,
+        @Param("from") LocalDate from, @Param("to") LocalDate to, @Param("dimensionKey") String dimensionKey);
+
+    // Candidate rows for a set of period starts and keys (a superset; callers match the exact combinations)
+    @Query("select r from MileageRollup r where r.periodStart in :periodStarts and r.dimensionKey in :dimensionKeys")
+    List<MileageRollup> findCandidates(@Param("periodStarts") Collection<LocalDate> periodStarts,
+        @Param("dimensionKeys") Collection<String> dimensionKeys);
+
+    // Add to a rollup in place, so concurrent schedule updates never overwrite each other's figures
+    @Modifying(flushAutomatically = true)
+    @Query("update MileageRollup r set r.schedules = r.schedules + :schedules, r.visits = r.visits + :visits,"
+        + " r.distance = r.distance + :distance, r.travelSeconds = r.travelSeconds + :travelSeconds"
+        + " where r.granularity = :granularity and r.periodStart = :periodStart"
+        + " and r.dimension = :dimension and r.dimensionKey = :dimensionKey")
+    int addTo(@Param("granularity") String granularity, @Param("periodStart") LocalDate periodStart,
+        @Param("dimension") String dimension, @Param("dimensionKey") String dimensionKey,
+        @Param("schedules") long schedules, @Param("visits") long visits, @Param("distance") double distance,
+        @Param("travelSeconds") long travelSeconds);
+}
@@ -1,9 +1,14 @@
 package nursescheduler.repository;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import nursescheduler.model.Nurse;
 
+import java.util.List;
+
 /**
  * Repository for accessing and managing Nurse entities
  */
@@ -13,4 +18,21 @@ public interface NurseRepository extends JpaRepository<Nurse, Long> {
     
     // Find nurse by name
     Nurse findByName(String name);
+    
+    // Keyset page ordered by ID: nurses after afterId (null for the first page), optionally field or office
+    // staff only (nurses without the flag count as field staff)
+    @Query("select n from Nurse n where (:fieldStaff is null or n.fieldStaff = :fieldStaff"
+        + " or (:fieldStaff = true and n.fieldStaff is null))"
+        + " and (:afterId is null or n.id > :afterId) order by n.id")
+    List<Nurse> findPageOrderById(@Param("fieldStaff") Boolean fieldStaff, @Param("afterId") Long afterId, Pageable page);
+    
+    // Keyset page ordered by name (nurses without one first), then ID: nurses after (afterName, afterId);
+    // a null afterName with an afterId continues among the nameless nurses
+    @Query("select n from Nurse n where (:fieldStaff is null or n.fieldStaff = :fieldStaff"
+        + " or (:fieldStaff = true and n.fieldStaff is null))"
+        + " and (:afterId is null or (:afterName is null and (n.name is not null or n.id > :afterId))"
+        + " or n.name > :afterName or (n.name = :afterName and n.id > :afterId))"
+        + " order by n.name nulls first, n.id")
+    List<Nurse> findPageOrderByName(@Param("fieldStaff") Boolean fieldStaff, @Param("afterName") String afterName,
+        @Param("afterId") Long afterId, Pageable page);
 }
\ No newline at end of file
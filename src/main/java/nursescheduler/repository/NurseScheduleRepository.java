@@ -1,10 +1,14 @@
 package nursescheduler.repository;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import nursescheduler.model.NurseSchedule;
 
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -30,4 +34,23 @@ public interface NurseScheduleRepository extends JpaRepository<NurseSchedule, Lo
     
     // Find schedules for a nurse within a date range
     List<NurseSchedule> findByNurseIdAndScheduleDateBetween(String nurseId, LocalDate startDate, LocalDate endDate);
-}
\ No newline at end of file
+    
+    // Schedules of several nurses for one date
+    List<NurseSchedule> findByScheduleDateAndNurseIdIn(LocalDate scheduleDate, Collection<String> nurseIds);
+    
+    // Schedule ID and route geometry of every stored route between two dates (inclusive), without
+    // loading the schedules themselves
+    @Query("select s.id, s.routeCoordinates from NurseSchedule s where s.scheduleDate between :from and :to"
+        + " and s.routeCoordinates is not null")
+    List<Object[]> findRouteCoordinates(@Param("from") LocalDate from, @Param("to") LocalDate to);
+    
+    // Keyset page of schedules between two dates (inclusive) ordered by date, then ID, after
+    // (afterDate, afterId); null afterDate for the first page, null nurseId for every nurse
+    @Query("select s from NurseSchedule s where s.scheduleDate between :from and :to"
+        + " and (:nurseId is null or s.nurseId = :nurseId)"
+        + " and (:afterDate is null or s.scheduleDate > :afterDate or (s.scheduleDate = :afterDate and s.id > :afterId))"
+        + " order by s.scheduleDate, s.id")
+    List<NurseSchedule> findPage(@Param("from") LocalDate from, @Param("to") LocalDate to,
+        @Param("nurseId") String nurseId, @Param("afterDate") LocalDate afterDate, @Param("afterId") Long afterId,
+        Pageable page);
+}
@@ -1,6 +1,9 @@
 package nursescheduler.repository;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import nursescheduler.model.Patient;
 
@@ -21,4 +24,19 @@ public interface PatientRepository extends JpaRepository<Patient, Long> {
     
     // Find patients by state
     List<Patient> findByState(String state);
+    
+    // Keyset page ordered by ID: patients after afterId (null for the first page), optionally filtered by city/state
+    @Query("select p from Patient p where (:city is null or p.city = :city) and (:state is null or p.state = :state)"
+        + " and (:afterId is null or p.id > :afterId) order by p.id")
+    List<Patient> findPageOrderById(@Param("city") String city, @Param("state") String state,
+        @Param("afterId") Long afterId, Pageable page);
+    
+    // Keyset page ordered by name (patients without one first), then ID: patients after (afterName, afterId);
+    // a null afterName with an afterId continues among the nameless patients
+    @Query("select p from Patient p where (:city is null or p.city = :city) and (:state is null or p.state = :state)"
+        + " and (:afterId is null or (:afterName is null and (p.name is not null or p.id > :afterId))"
+        + " or p.name > :afterName or (p.name = :afterName and p.id > :afterId))"
+        + " order by p.name nulls first, p.id")
+    List<Patient> findPageOrderByName(@Param("city") String city, @Param("state") String state,
+        @Param("afterName") String afterName, @Param("afterId") Long afterId, Pageable page);
 }
\ No newline at end of file
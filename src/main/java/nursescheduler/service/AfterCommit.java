@@ -0,0 +1,51 @@
+package nursescheduler.service;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Defers in-memory side effects of database writes until the transaction commits
+ * Each owner collects the changes of one transaction in a batch of its own and applies the batch once,
+ * after commit, so a rolled back write leaves no trace and a bulk import registers one synchronization.
+ * Outside a transaction a change is applied at once.
+ */
+public final class AfterCommit {
+
+    private AfterCommit() {
+    }
+
+    /**
+     * @param owner the collecting object; its batch is bound to the transaction under this key
+     * @param newBatch creates an empty batch
+     * @param change adds one change to the batch
+     * @param apply applies a batch
+     */
+    public static <B> void record(Object owner, Supplier<B> newBatch, Consumer<B> change, Consumer<B> apply) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            B batch = newBatch.get();
+            change.accept(batch);
+            apply.accept(batch);
+            return;
+        }
+        @SuppressWarnings("unchecked")
+        B batch = (B) TransactionSynchronizationManager.getResource(owner);
+        if (batch == null) {
+            B transactionBatch = newBatch.get();
+            TransactionSynchronizationManager.bindResource(owner, transactionBatch);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(owner);
+                    if (status == STATUS_COMMITTED) {
+                        apply.accept(transactionBatch);
+                    }
+                }
+            });
+            batch = transactionBatch;
+        }
+        change.accept(batch);
+    }
+}
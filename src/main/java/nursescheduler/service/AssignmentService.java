@@ -0,0 +1,655 @@
+package nursescheduler.service;
+
+import com.graphhopper.jsprit.core.algorithm.VehicleRoutingAlgorithm;
+import com.graphhopper.jsprit.core.algorithm.box.Jsprit;
+import com.graphhopper.jsprit.core.algorithm.termination.IterationWithoutImprovementTermination;
+import com.graphhopper.jsprit.core.problem.Location;
+import com.graphhopper.jsprit.core.problem.VehicleRoutingProblem;
+import com.graphhopper.jsprit.core.problem.cost.AbstractForwardVehicleRoutingTransportCosts;
+import com.graphhopper.jsprit.core.problem.driver.Driver;
+import com.graphhopper.jsprit.core.problem.job.Job;
+import com.graphhopper.jsprit.core.problem.solution.VehicleRoutingProblemSolution;
+import com.graphhopper.jsprit.core.problem.solution.route.VehicleRoute;
+import com.graphhopper.jsprit.core.problem.solution.route.activity.TourActivity;
+import com.graphhopper.jsprit.core.problem.vehicle.Vehicle;
+import com.graphhopper.jsprit.core.problem.vehicle.VehicleImpl;
+import com.graphhopper.jsprit.core.problem.vehicle.VehicleType;
+import com.graphhopper.jsprit.core.problem.vehicle.VehicleTypeImpl;
+import com.graphhopper.jsprit.core.util.Coordinate;
+import com.graphhopper.jsprit.core.util.Solutions;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import nursescheduler.model.Appointment;
+import nursescheduler.model.Nurse;
+import nursescheduler.model.Patient;
+import nursescheduler.repository.AppointmentRepository;
+import nursescheduler.repository.NurseRepository;
+import nursescheduler.repository.PatientRepository;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Agency-wide assignment of a day's visits to field nurses
+ * Splits the service area into regions, solves one multi-vehicle problem per region in parallel,
+ * and returns a proposed assignment without changing any appointments
+ */
+@Service
+public class AssignmentService {
+
+    private static final Logger log = LoggerFactory.getLogger(AssignmentService.class);
+
+    @Autowired
+    private NurseRepository nurseRepository;
+
+    @Autowired
+    private PatientRepository patientRepository;
+
+    @Autowired
+    private AppointmentRepository appointmentRepository;
+
+    @Autowired
+    private NurseScheduleService nurseScheduleService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${assignment.max-visits-per-nurse:8}")
+    private int maxVisitsPerNurse;
+
+    @Value("${assignment.max-hours-per-nurse:8}")
+    private double maxHoursPerNurse;
+
+    // Target number of visits per regional sub-problem
+    @Value("${assignment.region-size:150}")
+    private int regionSize;
+
+    @Value("${assignment.max-iterations:128}")
+    private int maxIterations;
+
+    @Value("${assignment.threads:4}")
+    private int threadCount;
+
+    private static final int VISIT_INDEX = 0;
+    private static final String HOSPICE_SKILL = "hospice";
+    private static final int KMEANS_ITERATIONS = 10;
+
+    private ExecutorService executor;
+
+    /**
+     * Propose an assignment of the day's visits to field nurses
+     *
+     * @param date The day to plan
+     * @param reassignAll If true every visit is open for reassignment; otherwise only visits
+     *                    without a field nurse are assigned, and existing visits stay on their nurse's
+     *                    route at their own times, using up visit capacity and shift time
+     */
+    public AssignmentProposal proposeAssignment(LocalDate date, boolean reassignAll) {
+        long started = System.currentTimeMillis();
+
+        // Field nurses with a known home location
+        List<Nurse> nurses = nurseRepository.findAll().stream()
+            .filter(nurse -> !Boolean.FALSE.equals(nurse.getFieldStaff()))
+            .filter(nurse -> nurse.getLatitude() != null && nurse.getLongitude() != null
+                && nurse.getLatitude() != 0 && nurse.getLongitude() != 0)
+            .collect(Collectors.toList());
+        Set<String> nurseIds = nurses.stream().map(nurse -> String.valueOf(nurse.getId())).collect(Collectors.toSet());
+        Set<String> hospiceNurseIds = new HashSet<>(appointmentRepository.findPractitionerIdsByVisitType("HOSPICE"));
+
+        // The day's appointments and their patients, loaded in two queries
+        List<Appointment> appointments = appointmentRepository.findByAppointmentDateBetween(
+            date.atStartOfDay(), date.plusDays(1).atStartOfDay());
+        List<Long> patientIds = appointments.stream()
+            .map(appointment -> toPatientKey(appointment.getPatientId()))
+            .distinct()
+            .collect(Collectors.toList());
+        Map<Long, Patient> patients = patientRepository.findAllById(patientIds).stream()
+            .collect(Collectors.toMap(Patient::getId, Function.identity()));
+
+        // Split visits into those to assign and those that stay with their nurse
+        List<Visit> openVisits = new ArrayList<>();
+        List<String> unroutable = new ArrayList<>();
+        Map<String, Integer> committedCounts = new HashMap<>();
+        Map<String, List<Visit>> committedVisits = new HashMap<>();
+        for (Appointment appointment : appointments) {
+            String practitionerId = appointment.getPractitionerId();
+            boolean assigned = practitionerId != null && nurseIds.contains(practitionerId);
+            Patient patient = patients.get(toPatientKey(appointment.getPatientId()));
+            boolean routable = patient != null && patient.getLatitude() != 0 && patient.getLongitude() != 0;
+            if (assigned && !reassignAll) {
+                // Committed visits without a location still count against the nurse's visit limit
+                committedCounts.merge(practitionerId, 1, Integer::sum);
+                if (routable) {
+                    committedVisits.computeIfAbsent(practitionerId, key -> new ArrayList<>())
+                        .add(new Visit(appointment, patient, nurseScheduleService.buildVisitWindow(appointment, patient)));
+                }
+                continue;
+            }
+
+            if (!routable) {
+                unroutable.add(appointment.getAppointmentId());
+                continue;
+            }
+            openVisits.add(new Visit(appointment, patient, nurseScheduleService.buildVisitWindow(appointment, patient)));
+        }
+
+        List<NurseSlot> slots = new ArrayList<>();
+        for (Nurse nurse : nurses) {
+            String nurseId = String.valueOf(nurse.getId());
+            int capacity = maxVisitsPerNurse - committedCounts.getOrDefault(nurseId, 0);
+            if (capacity > 0) {
+                slots.add(new NurseSlot(nurse, capacity, hospiceNurseIds.contains(nurseId),
+                    committedVisits.getOrDefault(nurseId, new ArrayList<>())));
+            }
+        }
+
+        AssignmentProposal proposal = new AssignmentProposal(date);
+        proposal.getUnassignedAppointmentIds().addAll(unroutable);
+        if (openVisits.isEmpty() || slots.isEmpty()) {
+            openVisits.forEach(visit -> proposal.getUnassignedAppointmentIds().add(visit.appointment.getAppointmentId()));
+            proposal.setSolveMillis(System.currentTimeMillis() - started);
+            return proposal;
+        }
+
+        // Solve each region independently on the worker pool
+        List<Region> regions = partition(openVisits, slots);
+        proposal.setRegionCount(regions.size());
+        List<CompletableFuture<RegionResult>> futures = regions.stream()
+            .map(region -> CompletableFuture.supplyAsync(() -> solveRegion(region), getExecutor()))
+            .collect(Collectors.toList());
+
+        for (CompletableFuture<RegionResult> future : futures) {
+            RegionResult result = future.join();
+            proposal.getAssignments().addAll(result.assignments);
+            proposal.getUnassignedAppointmentIds().addAll(result.unassignedAppointmentIds);
+        }
+        proposal.getAssignments().sort(Comparator.comparing(NurseAssignment::getNurseName,
+            Comparator.nullsLast(Comparator.naturalOrder())));
+        proposal.setSolveMillis(System.currentTimeMillis() - started);
+
+        log.info("Assignment for {}: {} visits, {} nurses, {} regions, {} unassigned in {}ms", date, openVisits.size(),
+            slots.size(), regions.size(), proposal.getUnassignedAppointmentIds().size(), proposal.getSolveMillis());
+        return proposal;
+    }
+
+    /**
+     * Spatial decomposition: k-means over visit locations, then nurses are attached to the
+     * nearest region and moved between regions until each has enough capacity where possible
+     */
+    private List<Region> partition(List<Visit> visits, List<NurseSlot> slots) {
+        int regionCount = Math.max(1, Math.min(slots.size(), (int) Math.ceil(visits.size() / (double) regionSize)));
+        double[][] centroids = initialCentroids(visits, regionCount);
+        int[] membership = new int[visits.size()];
+
+        for (int iteration = 0; iteration < KMEANS_ITERATIONS; iteration++) {
+            boolean changed = false;
+            for (int i = 0; i < visits.size(); i++) {
+                int nearest = nearestCentroid(centroids, visits.get(i).point());
+                if (nearest != membership[i]) {
+                    membership[i] = nearest;
+                    changed = true;
+                }
+            }
+
+            double[][] sums = new double[regionCount][3];
+            for (int i = 0; i < visits.size(); i++) {
+                double[] point = visits.get(i).point();
+                sums[membership[i]][0] += point[0];
+                sums[membership[i]][1] += point[1];
+                sums[membership[i]][2]++;
+            }
+            for (int r = 0; r < regionCount; r++) {
+                if (sums[r][2] > 0) {
+                    centroids[r] = new double[]{sums[r][0] / sums[r][2], sums[r][1] / sums[r][2]};
+                }
+            }
+            if (!changed && iteration > 0) {
+                break;
+            }
+        }
+
+        List<Region> regions = new ArrayList<>();
+        for (int r = 0; r < regionCount; r++) {
+            regions.add(new Region(centroids[r]));
+        }
+        for (int i = 0; i < visits.size(); i++) {
+            regions.get(membership[i]).visits.add(visits.get(i));
+        }
+        for (NurseSlot slot : slots) {
+            regions.get(nearestCentroid(centroids, slot.point())).nurses.add(slot);
+        }
+
+        rebalanceNurses(regions);
+
+        // Regions left without nurses hand their visits to the nearest staffed region
+        List<Region> staffed = regions.stream().filter(region -> !region.nurses.isEmpty()).collect(Collectors.toList());
+        for (Region region : regions) {
+            if (region.nurses.isEmpty() && !region.visits.isEmpty()) {
+                Region target = staffed.stream()
+                    .min(Comparator.comparingDouble(other -> GraphHopperService.straightLineDistance(other.centroid, region.centroid)))
+                    .orElseThrow();
+                target.visits.addAll(region.visits);
+            }
+        }
+        return staffed.stream().filter(region -> !region.visits.isEmpty()).collect(Collectors.toList());
+    }
+
+    /**
+     * Move the closest spare nurse into regions whose visits exceed their nurses' capacity
+     */
+    private void rebalanceNurses(List<Region> regions) {
+        for (int pass = 0; pass < regions.size() * maxVisitsPerNurse; pass++) {
+            Region needy = regions.stream()
+                .filter(region -> region.shortfall() > 0)
+                .max(Comparator.comparingInt(Region::shortfall))
+                .orElse(null);
+            if (needy == null) {
+                return;
+            }
+
+            NurseSlot donorSlot = null;
+            Region donorRegion = null;
+            double bestDistance = Double.MAX_VALUE;
+            for (Region region : regions) {
+                if (region == needy) {
+                    continue;
+                }
+                for (NurseSlot slot : region.nurses) {
+                    // Only take a nurse the region can spare without falling short itself
+                    if (region.capacity() - slot.capacity < region.visits.size()) {
+                        continue;
+                    }
+                    double distance = GraphHopperService.straightLineDistance(slot.point(), needy.centroid);
+                    if (distance < bestDistance) {
+                        bestDistance = distance;
+                        donorSlot = slot;
+                        donorRegion = region;
+                    }
+                }
+            }
+            if (donorSlot == null) {
+                return;
+            }
+            donorRegion.nurses.remove(donorSlot);
+            needy.nurses.add(donorSlot);
+        }
+    }
+
+    /**
+     * Deterministic farthest-point seeding so repeated runs give the same regions
+     */
+    private static double[][] initialCentroids(List<Visit> visits, int regionCount) {
+        double[][] centroids = new double[regionCount][];
+        centroids[0] = visits.get(0).point();
+        double[] nearestDistance = new double[visits.size()];
+        Arrays.fill(nearestDistance, Double.MAX_VALUE);
+
+        for (int r = 1; r < regionCount; r++) {
+            int farthest = 0;
+            for (int i = 0; i < visits.size(); i++) {
+                nearestDistance[i] = Math.min(nearestDistance[i],
+                    GraphHopperService.straightLineDistance(visits.get(i).point(), centroids[r - 1]));
+                if (nearestDistance[i] > nearestDistance[farthest]) {
+                    farthest = i;
+                }
+            }
+            centroids[r] = visits.get(farthest).point();
+        }
+        return centroids;
+    }
+
+    private static int nearestCentroid(double[][] centroids, double[] point) {
+        int nearest = 0;
+        double best = Double.MAX_VALUE;
+        for (int r = 0; r < centroids.length; r++) {
+            double distance = GraphHopperService.straightLineDistance(point, centroids[r]);
+            if (distance < best) {
+                best = distance;
+                nearest = r;
+            }
+        }
+        return nearest;
+    }
+
+    /**
+     * Solve one region as a multi-vehicle problem with skills, capacity and time windows
+     * A nurse's committed visits form a fixed initial route (jsprit never moves jobs of initial routes),
+     * so open visits are only placed where they fit around them.
+     */
+    private RegionResult solveRegion(Region region) {
+        double shiftStart = nurseScheduleService.getShiftStartSeconds();
+        double shiftEnd = Math.min(nurseScheduleService.getShiftEndSeconds(), shiftStart + maxHoursPerNurse * 3600);
+
+        VehicleRoutingProblem.Builder problemBuilder = VehicleRoutingProblem.Builder.newInstance()
+            .setFleetSize(VehicleRoutingProblem.FleetSize.FINITE)
+            .setRoutingCost(new StraightLineTransportCosts());
+
+        Map<String, NurseSlot> slotsById = new HashMap<>();
+        for (NurseSlot slot : region.nurses) {
+            String nurseId = String.valueOf(slot.nurse.getId());
+            // Committed visits on the route take up their share of the capacity themselves
+            VehicleType type = VehicleTypeImpl.Builder.newInstance("type_" + nurseId)
+                .addCapacityDimension(VISIT_INDEX, slot.capacity + slot.committed.size())
+                .build();
+            VehicleImpl.Builder vehicleBuilder = VehicleImpl.Builder.newInstance(nurseId)
+                .setStartLocation(Location.Builder.newInstance()
+                    .setId("home_" + nurseId)
+                    .setCoordinate(Coordinate.newInstance(slot.point()[0], slot.point()[1]))
+                    .build())
+                .setType(type)
+                .setEarliestStart(shiftStart)
+                .setLatestArrival(shiftEnd)
+                .setReturnToDepot(true);
+            if (slot.hospice) {
+                vehicleBuilder.addSkill(HOSPICE_SKILL);
+            }
+            VehicleImpl vehicle = vehicleBuilder.build();
+            if (slot.committed.isEmpty()) {
+                problemBuilder.addVehicle(vehicle);
+            } else {
+                // Adds the vehicle as well
+                VehicleRoute.Builder routeBuilder = VehicleRoute.Builder.newInstance(vehicle);
+                slot.committed.stream()
+                    .sorted(Comparator.comparingDouble(visit -> visit.window.getEarliestStart()))
+                    .forEach(visit -> routeBuilder.addService(toService(visit, false)));
+                problemBuilder.addInitialVehicleRoute(routeBuilder.build());
+            }
+            slotsById.put(nurseId, slot);
+        }
+
+        Map<String, Visit> visitsById = new HashMap<>();
+        for (Visit visit : region.visits) {
+            problemBuilder.addJob(toService(visit, true));
+            visitsById.put(visit.appointment.getAppointmentId(), visit);
+        }
+
+        VehicleRoutingAlgorithm algorithm = Jsprit.createAlgorithm(problemBuilder.build());
+        algorithm.setMaxIterations(maxIterations);
+        algorithm.addTerminationCriterion(new IterationWithoutImprovementTermination(Math.max(1, maxIterations / 4)));
+        Timer.Sample sample = Timer.start(meterRegistry);
+        VehicleRoutingProblemSolution solution = Solutions.bestOf(algorithm.searchSolutions());
+        sample.stop(meterRegistry.timer("scheduler.assignment.region"));
+
+        RegionResult result = new RegionResult();
+        for (VehicleRoute route : solution.getRoutes()) {
+            NurseSlot slot = slotsById.get(route.getVehicle().getId());
+            NurseAssignment assignment = new NurseAssignment(String.valueOf(slot.nurse.getId()), slot.nurse.getName());
+            double[] previous = slot.point();
+            for (TourActivity activity : route.getActivities()) {
+                com.graphhopper.jsprit.core.problem.job.Service job = (com.graphhopper.jsprit.core.problem.job.Service)
+                    ((TourActivity.JobActivity) activity).getJob();
+                double[] point = new double[]{job.getLocation().getCoordinate().getX(), job.getLocation().getCoordinate().getY()};
+                assignment.addDistance(GraphHopperService.straightLineDistance(previous, point));
+                previous = point;
+                // Committed visits are part of the route but not of the proposal
+                Visit visit = visitsById.get(job.getId());
+                if (visit != null) {
+                    assignment.getVisits().add(new AssignedVisit(visit.appointment.getAppointmentId(),
+                        visit.appointment.getPatientId(), NurseScheduleService.toLocalTime(activity.getArrTime())));
+                }
+            }
+            assignment.addDistance(GraphHopperService.straightLineDistance(previous, slot.point()));
+            if (!assignment.getVisits().isEmpty()) {
+                result.assignments.add(assignment);
+            }
+        }
+        for (Job job : solution.getUnassignedJobs()) {
+            result.unassignedAppointmentIds.add(job.getId());
+        }
+        return result;
+    }
+
+    /**
+     * A visit as a jsprit service; committed visits are already with their nurse, so skills are only
+     * required of open visits
+     */
+    private static com.graphhopper.jsprit.core.problem.job.Service toService(Visit visit, boolean open) {
+        String jobId = visit.appointment.getAppointmentId();
+        com.graphhopper.jsprit.core.problem.job.Service.Builder<?> serviceBuilder = com.graphhopper.jsprit.core.problem.job.Service.Builder.newInstance(jobId)
+            .addSizeDimension(VISIT_INDEX, 1)
+            .setServiceTime(visit.window.getServiceTime())
+            .setLocation(Location.Builder.newInstance()
+                .setId(jobId)
+                .setCoordinate(Coordinate.newInstance(visit.point()[0], visit.point()[1]))
+                .build());
+        if (visit.window.hasTimeWindow()) {
+            serviceBuilder.addTimeWindow(visit.window.getEarliestStart(), visit.window.getLatestStart());
+        }
+        if (open && visit.requiresHospice()) {
+            serviceBuilder.addRequiredSkill(HOSPICE_SKILL);
+        }
+        return serviceBuilder.build();
+    }
+
+    private synchronized ExecutorService getExecutor() {
+        if (executor == null) {
+            executor = Executors.newFixedThreadPool(Math.max(1, threadCount), runnable -> {
+                Thread thread = new Thread(runnable, "assignment-solver");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return executor;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    private static Long toPatientKey(String patientId) {
+        return Long.parseLong(Math.abs(patientId.hashCode()) + "");
+    }
+
+    // Straight-line costs over [lat, lon] coordinates; time at the average road speed
+    private static class StraightLineTransportCosts extends AbstractForwardVehicleRoutingTransportCosts {
+        @Override
+        public double getDistance(Location from, Location to, double departureTime, Vehicle vehicle) {
+            return GraphHopperService.straightLineDistance(
+                new double[]{from.getCoordinate().getX(), from.getCoordinate().getY()},
+                new double[]{to.getCoordinate().getX(), to.getCoordinate().getY()});
+        }
+
+        @Override
+        public double getTransportCost(Location from, Location to, double departureTime, Driver driver, Vehicle vehicle) {
+            return getDistance(from, to, departureTime, vehicle);
+        }
+
+        @Override
+        public double getTransportTime(Location from, Location to, double departureTime, Driver driver, Vehicle vehicle) {
+            return getDistance(from, to, departureTime, vehicle) / GraphHopperService.AVERAGE_SPEED_MPS;
+        }
+    }
+
+    private static class Visit {
+        private final Appointment appointment;
+        private final Patient patient;
+        private final GraphHopperService.VisitWindow window;
+
+        Visit(Appointment appointment, Patient patient, GraphHopperService.VisitWindow window) {
+            this.appointment = appointment;
+            this.patient = patient;
+            this.window = window;
+        }
+
+        double[] point() {
+            return new double[]{patient.getLatitude(), patient.getLongitude()};
+        }
+
+        boolean requiresHospice() {
+            return appointment.getVisitType() != null && appointment.getVisitType().toUpperCase().contains("HOSPICE");
+        }
+    }
+
+    private static class NurseSlot {
+        private final Nurse nurse;
+        // Visits the nurse can still take
+        private final int capacity;
+        private final boolean hospice;
+        // Routable visits the nurse already has (reassignAll=false)
+        private final List<Visit> committed;
+
+        NurseSlot(Nurse nurse, int capacity, boolean hospice, List<Visit> committed) {
+            this.nurse = nurse;
+            this.capacity = capacity;
+            this.hospice = hospice;
+            this.committed = committed;
+        }
+
+        double[] point() {
+            return new double[]{nurse.getLatitude(), nurse.getLongitude()};
+        }
+    }
+
+    private static class Region {
+        private final double[] centroid;
+        private final List<Visit> visits = new ArrayList<>();
+        private final List<NurseSlot> nurses = new ArrayList<>();
+
+        Region(double[] centroid) {
+            this.centroid = centroid;
+        }
+
+        int capacity() {
+            return nurses.stream().mapToInt(slot -> slot.capacity).sum();
+        }
+
+        int shortfall() {
+            return visits.size() - capacity();
+        }
+    }
+
+    private static class RegionResult {
+        private final List<NurseAssignment> assignments = new ArrayList<>();
+        private final List<String> unassignedAppointmentIds = new ArrayList<>();
+    }
+
+    /**
+     * A visit placed on a nurse's proposed route
+     */
+    public static class AssignedVisit {
+        private final String appointmentId;
+        private final String patientId;
+        private final LocalTime estimatedArrival;
+
+        public AssignedVisit(String appointmentId, String patientId, LocalTime estimatedArrival) {
+            this.appointmentId = appointmentId;
+            this.patientId = patientId;
+            this.estimatedArrival = estimatedArrival;
+        }
+
+        public String getAppointmentId() {
+            return appointmentId;
+        }
+
+        public String getPatientId() {
+            return patientId;
+        }
+
+        public LocalTime getEstimatedArrival() {
+            return estimatedArrival;
+        }
+    }
+
+    /**
+     * The visits proposed for one nurse, in route order
+     */
+    public static class NurseAssignment {
+        private final String nurseId;
+        private final String nurseName;
+        private final List<AssignedVisit> visits = new ArrayList<>();
+        private double estimatedDistance;
+
+        public NurseAssignment(String nurseId, String nurseName) {
+            this.nurseId = nurseId;
+            this.nurseName = nurseName;
+        }
+
+        public String getNurseId() {
+            return nurseId;
+        }
+
+        public String getNurseName() {
+            return nurseName;
+        }
+
+        public List<AssignedVisit> getVisits() {
+            return visits;
+        }
+
+        // Straight-line estimate in meters for the whole route, committed visits included; road distances
+        // come from schedule generation
+        public double getEstimatedDistance() {
+            return estimatedDistance;
+        }
+
+        void addDistance(double distance) {
+            estimatedDistance += distance;
+        }
+    }
+
+    /**
+     * Proposed agency-wide assignment for a day
+     */
+    public static class AssignmentProposal {
+        private final LocalDate date;
+        private final List<NurseAssignment> assignments = new ArrayList<>();
+        private final List<String> unassignedAppointmentIds = new ArrayList<>();
+        private int regionCount;
+        private long solveMillis;
+
+        public AssignmentProposal(LocalDate date) {
+            this.date = date;
+        }
+
+        public LocalDate getDate() {
+            return date;
+        }
+
+        public List<NurseAssignment> getAssignments() {
+            return assignments;
+        }
+
+        public List<String> getUnassignedAppointmentIds() {
+            return unassignedAppointmentIds;
+        }
+
+        public int getRegionCount() {
+            return regionCount;
+        }
+
+        public void setRegionCount(int regionCount) {
+            this.regionCount = regionCount;
+        }
+
+        public long getSolveMillis() {
+            return solveMillis;
+        }
+
+        public void setSolveMillis(long solveMillis) {
+            this.solveMillis = solveMillis;
+        }
+    }
+}
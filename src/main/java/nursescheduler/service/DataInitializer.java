@@ -2,7 +2,11 @@ package nursescheduler.service;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.core.type.TypeReference;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.core.io.Resource;
 import org.springframework.core.io.ResourceLoader;
@@ -15,6 +19,8 @@ import nursescheduler.repository.AppointmentRepository;
 import nursescheduler.repository.NurseRepository;
 import nursescheduler.repository.PatientRepository;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
@@ -29,6 +35,8 @@ import java.util.stream.Collectors;
 @Component
 public class DataInitializer implements CommandLineRunner {
 
+    private static final Logger log = LoggerFactory.getLogger(DataInitializer.class);
+
     @Autowired
     private ResourceLoader resourceLoader;
     
@@ -44,27 +52,33 @@ public class DataInitializer implements CommandLineRunner {
     @Autowired
     private PhotonGeocodingService geocodingService;
     
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    // Directory holding workers.json, patients.json and appointments.json (classpath: or file: URL)
+    @Value("${data.initializer.location:classpath:static/JSON/}")
+    private String dataLocation = "classpath:static/JSON/";
+    
     private final ObjectMapper mapper = new ObjectMapper();
 
     @Override
     public void run(String... args) {
         // Only initialize if the database is empty
         if (nurseRepository.count() == 0 && patientRepository.count() == 0) {
-            System.out.println("Database is empty. Loading data from JSON files...");
-            loadDataFromJson();
+            log.info("Database is empty. Loading data from JSON files...");
+            meterRegistry.timer("scheduler.data.initialize").record(this::loadDataFromJson);
         } else {
-            System.out.println("Database already contains data. Skipping initialization.");
+            log.info("Database already contains data. Skipping initialization.");
             
             // Log count of existing records
-            System.out.println("Existing records: " + nurseRepository.count() + " nurses, " 
-                + patientRepository.count() + " patients, " 
-                + appointmentRepository.count() + " appointments");
+            log.info("Existing records: {} nurses, {} patients, {} appointments",
+                nurseRepository.count(), patientRepository.count(), appointmentRepository.count());
         }
     }
     
     private void loadDataFromJson() {
         try {
-            System.out.println("Loading data from JSON files...");
+            log.debug("Loading data from JSON files...");
             
             // First, load appointments to identify active nurses
             List<Map<String, Object>> appointmentsList = loadAppointmentsFromJson();
@@ -79,12 +93,12 @@ public class DataInitializer implements CommandLineRunner {
                 nurseAppointmentCounts.put(practitionerId, nurseAppointmentCounts.getOrDefault(practitionerId, 0) + 1);
             }
             
-            System.out.println("Found " + nurseAppointmentCounts.size() + " nurses with appointments");
+            log.info("Found {} nurses with appointments", nurseAppointmentCounts.size());
             
             // Load workers (nurses) JSON
-            Resource workersResource = resourceLoader.getResource("classpath:static/JSON/workers.json");
+            Resource workersResource = resourceLoader.getResource(dataLocation + "workers.json");
             if (!workersResource.exists()) {
-                System.err.println("Workers JSON file not found. Cannot initialize data.");
+                log.warn("Workers JSON file not found. Cannot initialize data.");
                 return;
             }
             
@@ -96,10 +110,11 @@ public class DataInitializer implements CommandLineRunner {
             
             @SuppressWarnings("unchecked")
             List<Map<String, Object>> workers = (List<Map<String, Object>>) workersData.get("workers");
-            System.out.println("Found " + workers.size() + " workers in JSON file");
+            log.info("Found {} workers in JSON file", workers.size());
             
             // Convert and save nurses
             List<Nurse> nurses = new ArrayList<>();
+            Map<String, Long> nurseIdsByWorkerId = new HashMap<>();
             int fieldNurses = 0;
             int officeStaff = 0;
             int geocodedNurses = 0;
@@ -111,6 +126,7 @@ public class DataInitializer implements CommandLineRunner {
                 // Set nurse ID (use workerId as a string)
                 String workerId = (String) worker.get("workerId");
                 nurse.setId(Long.parseLong(Math.abs(workerId.hashCode()) + "")); // Convert string ID to a numeric ID
+                nurseIdsByWorkerId.put(workerId, nurse.getId());
                 
                 // Set nurse name (firstname + lastname)
                 String firstName = (String) worker.get("firstName");
@@ -155,13 +171,13 @@ public class DataInitializer implements CommandLineRunner {
                         nurse.setLatitude(lat);
                         nurse.setLongitude(lng);
                         hasCoordinates = true;
-                        System.out.println("Nurse " + nurse.getName() + " has coordinates: " + lat + ", " + lng);
+                        log.debug("Nurse {} has coordinates: {}, {}", nurse.getName(), lat, lng);
                     }
                 }
                 
                 // Only geocode field nurses with no coordinates but an address
                 if (hasAppointments && !hasCoordinates && !nurseAddress.isEmpty()) {
-                    System.out.println("Geocoding address for field nurse " + nurse.getName() + ": " + nurseAddress);
+                    log.debug("Geocoding address for field nurse {}", nurse.getName());
                     hasCoordinates = tryGeocodeAddress(nurse, nurseAddress);
                     if (hasCoordinates) {
                         geocodedNurses++;
@@ -170,7 +186,7 @@ public class DataInitializer implements CommandLineRunner {
                     }
                 } else if (hasAppointments && !hasCoordinates) {
                     // Field nurse with no address and no coordinates
-                    System.out.println("Field nurse " + nurse.getName() + " has no address or coordinates. Cannot determine location.");
+                    log.warn("Field nurse {} has no address or coordinates. Cannot determine location.", nurse.getName());
                     missingCoordinates++;
                 }
                 
@@ -178,11 +194,8 @@ public class DataInitializer implements CommandLineRunner {
             }
             
             nurseRepository.saveAll(nurses);
-            System.out.println("Loaded " + nurses.size() + " nurses:");
-            System.out.println("  - Field nurses: " + fieldNurses);
-            System.out.println("  - Office staff: " + officeStaff);
-            System.out.println("  - Geocoded: " + geocodedNurses);
-            System.out.println("  - Missing coordinates: " + missingCoordinates);
+            log.info("Loaded {} nurses ({} field, {} office, {} geocoded, {} missing coordinates)",
+                    nurses.size(), fieldNurses, officeStaff, geocodedNurses, missingCoordinates);
             
             // Load patients JSON
             List<Patient> patients = loadPatientsFromJson();
@@ -191,41 +204,29 @@ public class DataInitializer implements CommandLineRunner {
             }
             
             // Now process appointments and link to patients and nurses
-            processAppointments(appointmentsList, patients, nurses);
+            processAppointments(appointmentsList, patients, nurseIdsByWorkerId);
             
         } catch (Exception e) {
-            System.err.println("Error loading data from JSON: " + e.getMessage());
-            e.printStackTrace();
+            log.error("Error loading data from JSON", e);
         }
     }
     
     private List<Map<String, Object>> loadAppointmentsFromJson() {
         try {
             // Load appointments JSON
-            Resource appointmentsResource = resourceLoader.getResource("classpath:static/JSON/appointments.json");
+            Resource appointmentsResource = resourceLoader.getResource(dataLocation + "appointments.json");
             if (!appointmentsResource.exists()) {
-                System.err.println("Appointments JSON file not found. Cannot initialize appointment data.");
+                log.warn("Appointments JSON file not found. Cannot initialize appointment data.");
                 return null;
             }
             
-            // Use TypeReference to fix type safety warning
-            Map<String, Object> appointmentsData = mapper.readValue(
-                appointmentsResource.getInputStream(),
-                new TypeReference<Map<String, Object>>() {}
-            );
+            List<Map<String, Object>> appointmentsList = readAppointments(appointmentsResource.getInputStream());
             
-            @SuppressWarnings("unchecked")
-            Map<String, Object> appointmentsContainer = (Map<String, Object>) appointmentsData.get("appointments");
-            
-            @SuppressWarnings("unchecked")
-            List<Map<String, Object>> appointmentsList = (List<Map<String, Object>>) appointmentsContainer.get("all");
-            
-            System.out.println("Found " + appointmentsList.size() + " appointments in JSON file");
+            log.info("Found {} appointments in JSON file", appointmentsList.size());
             
             return appointmentsList;
         } catch (Exception e) {
-            System.err.println("Error loading appointments: " + e.getMessage());
-            e.printStackTrace();
+            log.error("Error loading appointments", e);
             return null;
         }
     }
@@ -233,22 +234,15 @@ public class DataInitializer implements CommandLineRunner {
     private List<Patient> loadPatientsFromJson() {
         try {
             // Load patients JSON
-            Resource patientsResource = resourceLoader.getResource("classpath:static/JSON/patients.json");
+            Resource patientsResource = resourceLoader.getResource(dataLocation + "patients.json");
             if (!patientsResource.exists()) {
-                System.err.println("Patients JSON file not found. Cannot initialize data.");
+                log.warn("Patients JSON file not found. Cannot initialize data.");
                 return null;
             }
             
-            // Use TypeReference to fix type safety warning
-            Map<String, Object> patientsData = mapper.readValue(
-                patientsResource.getInputStream(),
-                new TypeReference<Map<String, Object>>() {}
-            );
+            List<Map<String, Object>> patientsList = readPatients(patientsResource.getInputStream());
             
-            @SuppressWarnings("unchecked")
-            List<Map<String, Object>> patientsList = (List<Map<String, Object>>) patientsData.get("patients");
-            
-            System.out.println("Found " + patientsList.size() + " patients in JSON file");
+            log.info("Found {} patients in JSON file", patientsList.size());
             
             // Convert and save patients
             List<Patient> patients = new ArrayList<>();
@@ -276,6 +270,11 @@ public class DataInitializer implements CommandLineRunner {
                 // Set full address for display and routing
                 String fullAddress = street + ", " + city + ", " + state + " " + zip;
                 patient.setAddress(fullAddress);
+                // Kept separately as well, for filtering patient listings
+                patient.setCity(city);
+                patient.setState(state);
+                patient.setZip(zip);
+                patient.setCounty((String) patientData.get("county"));
                 
                 // Check for coordinates
                 boolean hasCoordinates = false;
@@ -290,13 +289,13 @@ public class DataInitializer implements CommandLineRunner {
                         patient.setLatitude(lat);
                         patient.setLongitude(lng);
                         hasCoordinates = true;
-                        System.out.println("Patient " + patient.getName() + " has coordinates: " + lat + ", " + lng);
+                        log.debug("Patient {} has coordinates", patient.getId());
                     }
                 }
                 
                 // If no coordinates but has address, geocode with multiple fallback strategies
                 if (!hasCoordinates && !fullAddress.isEmpty()) {
-                    System.out.println("Geocoding address for patient " + patient.getName() + ": " + fullAddress);
+                    log.debug("Geocoding address for patient {}", patient.getId());
                     hasCoordinates = tryGeocodePatientAddress(patient, street, city, state, zip);
                     if (hasCoordinates) {
                         geocodedPatients++;
@@ -305,7 +304,7 @@ public class DataInitializer implements CommandLineRunner {
                     }
                 } else if (!hasCoordinates) {
                     // No address and no coordinates
-                    System.out.println("No coordinates for patient " + patient.getName() + ". Cannot determine location.");
+                    log.warn("No coordinates for patient {}. Cannot determine location.", patient.getId());
                     patientsMissingCoordinates++;
                 }
                 
@@ -317,20 +316,18 @@ public class DataInitializer implements CommandLineRunner {
             }
             
             patientRepository.saveAll(patients);
-            System.out.println("Loaded " + patients.size() + " patients (" + geocodedPatients + " geocoded, " + patientsMissingCoordinates + " missing coordinates)");
+            log.info("Loaded {} patients ({} geocoded, {} missing coordinates)",
+                    patients.size(), geocodedPatients, patientsMissingCoordinates);
             return patients;
         } catch (Exception e) {
-            System.err.println("Error loading patients: " + e.getMessage());
-            e.printStackTrace();
+            log.error("Error loading patients", e);
             return null;
         }
     }
     
-    private void processAppointments(List<Map<String, Object>> appointmentsList, List<Patient> patients, List<Nurse> nurses) {
+    private void processAppointments(List<Map<String, Object>> appointmentsList, List<Patient> patients,
+            Map<String, Long> nurseIdsByWorkerId) {
         try {
-            // DateTimeFormatter for parsing appointment dates
-            DateTimeFormatter formatter = DateTimeFormatter.ISO_OFFSET_DATE_TIME;
-            
             // Convert and save appointments
             List<Appointment> appointments = new ArrayList<>();
             int parsedAppointments = 0;
@@ -342,21 +339,14 @@ public class DataInitializer implements CommandLineRunner {
             
             for (Map<String, Object> appointmentData : appointmentsList) {
                 try {
-                    Appointment appointment = new Appointment();
+                    Appointment appointment = toAppointment(appointmentData);
+                    LocalDateTime dateTime = appointment.getAppointmentDate();
                     
-                    // Set appointment ID
-                    appointment.setAppointmentId((String) appointmentData.get("appointmentId"));
-                    appointment.setPatientId((String) appointmentData.get("patientId"));
-                    appointment.setPractitionerId((String) appointmentData.get("practitionerId"));
-                    
-                    // Parse and set appointment date/time
-                    String dateTimeStr = (String) appointmentData.get("appointmentDate");
-                    LocalDateTime dateTime = LocalDateTime.parse(dateTimeStr, formatter);
-                    appointment.setAppointmentDate(dateTime);
-                    
-                    // Set visit type and service code
-                    appointment.setVisitType((String) appointmentData.get("visitType"));
-                    appointment.setServiceCode((String) appointmentData.get("serviceCode"));
+                    // Schedules look appointments up by the nurse's numeric ID, not the workerId in the file
+                    Long nurseId = nurseIdsByWorkerId.get(appointment.getPractitionerId());
+                    if (nurseId != null) {
+                        appointment.setPractitionerId(String.valueOf(nurseId));
+                    }
                     
                     appointments.add(appointment);
                     parsedAppointments++;
@@ -380,7 +370,7 @@ public class DataInitializer implements CommandLineRunner {
                         }
                     }
                 } catch (Exception e) {
-                    System.err.println("Error processing appointment: " + e.getMessage());
+                    log.debug("Error processing appointment: {}", e.getMessage());
                     failedAppointments++;
                 }
             }
@@ -391,14 +381,48 @@ public class DataInitializer implements CommandLineRunner {
             // Update patients with appointment times
             patientRepository.saveAll(patients);
             
-            System.out.println("Loaded " + appointments.size() + " appointments (" + parsedAppointments + " successful, " + failedAppointments + " failed)");
-            System.out.println("Database initialization complete!");
+            log.info("Loaded {} appointments ({} successful, {} failed)",
+                    appointments.size(), parsedAppointments, failedAppointments);
+            log.info("Database initialization complete!");
         } catch (Exception e) {
-            System.err.println("Error processing appointments: " + e.getMessage());
-            e.printStackTrace();
+            log.error("Error processing appointments", e);
         }
     }
     
+    /**
+     * Read the appointment records from an appointments.json document ({"appointments": {"all": [...]}})
+     */
+    @SuppressWarnings("unchecked")
+    List<Map<String, Object>> readAppointments(InputStream in) throws IOException {
+        Map<String, Object> appointmentsData = mapper.readValue(in, new TypeReference<Map<String, Object>>() {});
+        Map<String, Object> appointmentsContainer = (Map<String, Object>) appointmentsData.get("appointments");
+        return (List<Map<String, Object>>) appointmentsContainer.get("all");
+    }
+    
+    /**
+     * Read the patient records from a patients.json document ({"patients": [...]})
+     */
+    @SuppressWarnings("unchecked")
+    List<Map<String, Object>> readPatients(InputStream in) throws IOException {
+        Map<String, Object> patientsData = mapper.readValue(in, new TypeReference<Map<String, Object>>() {});
+        return (List<Map<String, Object>>) patientsData.get("patients");
+    }
+    
+    /**
+     * Convert one appointment record; appointmentDate is an ISO date-time with offset
+     */
+    static Appointment toAppointment(Map<String, Object> appointmentData) {
+        Appointment appointment = new Appointment();
+        appointment.setAppointmentId((String) appointmentData.get("appointmentId"));
+        appointment.setPatientId((String) appointmentData.get("patientId"));
+        appointment.setPractitionerId((String) appointmentData.get("practitionerId"));
+        appointment.setAppointmentDate(LocalDateTime.parse((String) appointmentData.get("appointmentDate"),
+                DateTimeFormatter.ISO_OFFSET_DATE_TIME));
+        appointment.setVisitType((String) appointmentData.get("visitType"));
+        appointment.setServiceCode((String) appointmentData.get("serviceCode"));
+        return appointment;
+    }
+    
     /**
      * Try to geocode a nurse's address
      * @return true if geocoding was successful, false otherwise
@@ -410,14 +434,14 @@ public class DataInitializer implements CommandLineRunner {
             if (result != null) {
                 nurse.setLatitude(result.getLatitude());
                 nurse.setLongitude(result.getLongitude());
-                System.out.println("Successfully geocoded to: " + result.getLatitude() + ", " + result.getLongitude());
+                log.debug("Successfully geocoded to: {}, {}", result.getLatitude(), result.getLongitude());
                 return true;
             }
             
-            System.err.println("Failed to geocode address: " + address);
+            log.debug("Failed to geocode address");
             return false;
         } catch (Exception e) {
-            System.err.println("Error geocoding address: " + e.getMessage());
+            log.warn("Error geocoding address: {}", e.getMessage());
             return false;
         }
     }
@@ -435,7 +459,7 @@ public class DataInitializer implements CommandLineRunner {
             if (result != null) {
                 patient.setLatitude(result.getLatitude());
                 patient.setLongitude(result.getLongitude());
-                System.out.println("Successfully geocoded full address to: " + result.getLatitude() + ", " + result.getLongitude());
+                log.debug("Successfully geocoded full address to: {}, {}", result.getLatitude(), result.getLongitude());
                 return true;
             }
             
@@ -449,7 +473,7 @@ public class DataInitializer implements CommandLineRunner {
                 if (result != null) {
                     patient.setLatitude(result.getLatitude());
                     patient.setLongitude(result.getLongitude());
-                    System.out.println("Successfully geocoded street name to: " + result.getLatitude() + ", " + result.getLongitude());
+                    log.debug("Successfully geocoded street name to: {}, {}", result.getLatitude(), result.getLongitude());
                     return true;
                 }
             }
@@ -461,15 +485,15 @@ public class DataInitializer implements CommandLineRunner {
             if (result != null) {
                 patient.setLatitude(result.getLatitude());
                 patient.setLongitude(result.getLongitude());
-                System.out.println("Successfully geocoded city/state to: " + result.getLatitude() + ", " + result.getLongitude());
+                log.debug("Successfully geocoded city/state to: {}, {}", result.getLatitude(), result.getLongitude());
                 return true;
             }
             
             // All geocoding strategies failed
-            System.err.println("All geocoding strategies failed for address: " + fullAddress);
+            log.debug("All geocoding strategies failed for a patient address");
             return false;
         } catch (Exception e) {
-            System.err.println("Error in geocoding patient address: " + e.getMessage());
+            log.warn("Error in geocoding patient address: {}", e.getMessage());
             return false;
         }
     }
@@ -0,0 +1,40 @@
+package nursescheduler.service;
+
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Component;
+
+import nursescheduler.model.Appointment;
+import nursescheduler.model.Nurse;
+import nursescheduler.model.NurseSchedule;
+import nursescheduler.model.Patient;
+
+/**
+ * JPA entity listener that bumps the change stamps behind the API's ETags
+ */
+@Component
+public class DataVersionListener {
+
+    @Autowired
+    @Lazy
+    private DataVersionService dataVersionService;
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    public void afterChange(Object entity) {
+        if (entity instanceof NurseSchedule) {
+            NurseSchedule schedule = (NurseSchedule) entity;
+            dataVersionService.scheduleChanged(schedule.getNurseId(), schedule.getScheduleDate());
+        } else if (entity instanceof Appointment) {
+            dataVersionService.appointmentsChanged();
+        } else if (entity instanceof Patient) {
+            dataVersionService.patientsChanged();
+        } else if (entity instanceof Nurse) {
+            dataVersionService.nursesChanged();
+        }
+    }
+}
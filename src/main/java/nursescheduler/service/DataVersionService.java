@@ -0,0 +1,153 @@
+package nursescheduler.service;
+
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * In-memory change stamps for nurses, patients, appointments and schedules, used to build ETags
+ * Stamps come from one counter and are bumped by DataVersionListener, so a conditional request can be
+ * answered without reading the database (bulk JPQL updates would bypass them). The startup time is part
+ * of every tag, since the counters and the in-memory database start over on each run.
+ */
+@Service
+public class DataVersionService {
+
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+    private final AtomicLong sequence = new AtomicLong();
+
+    private final AtomicLong nurses = new AtomicLong();
+    private final AtomicLong patients = new AtomicLong();
+    private final AtomicLong appointments = new AtomicLong();
+    private final AtomicLong schedules = new AtomicLong();
+
+    // Latest change per "nurseId/date" and per date
+    private final Map<String, Long> scheduleStamps = new ConcurrentHashMap<>();
+    private final Map<LocalDate, Long> dateStamps = new ConcurrentHashMap<>();
+
+    public void nursesChanged() {
+        record(changes -> changes.nurses = true);
+    }
+
+    public void patientsChanged() {
+        record(changes -> changes.patients = true);
+    }
+
+    public void appointmentsChanged() {
+        record(changes -> changes.appointments = true);
+    }
+
+    public void scheduleChanged(String nurseId, LocalDate date) {
+        if (date == null) {
+            return;
+        }
+        record(changes -> {
+            changes.dates.add(date);
+            if (nurseId != null) {
+                changes.scheduleKeys.add(nurseId + "/" + date);
+            }
+        });
+    }
+
+    /**
+     * Version of the nurse list and of each nurse
+     */
+    public String nursesVersion() {
+        return epoch + "-n" + nurses.get();
+    }
+
+    /**
+     * Version of the patient list; with a nurse filter it also depends on that nurse's appointments
+     */
+    public String patientsVersion(boolean byNurse) {
+        return epoch + "-p" + patients.get() + (byNurse ? "-a" + appointments.get() : "");
+    }
+
+    /**
+     * Version of one nurse's stored schedule for a date
+     */
+    public String scheduleVersion(String nurseId, LocalDate date) {
+        return epoch + "-s" + scheduleStamps.getOrDefault(nurseId + "/" + date, 0L);
+    }
+
+    /**
+     * Version of a schedule together with the nurse and patients shown alongside it
+     * Without a nurse ID (the first nurse's schedule) any schedule change counts.
+     */
+    public String scheduleDetailVersion(String nurseId, LocalDate date) {
+        String schedule = nurseId != null ? scheduleVersion(nurseId, date) : schedulesVersion() + "-" + date;
+        return schedule + "-n" + nurses.get() + "-p" + patients.get();
+    }
+
+    /**
+     * Version of a date's schedules together with the nurses and patients shown alongside them
+     */
+    public String scheduleBatchVersion(LocalDate date) {
+        return dateVersion(date) + "-n" + nurses.get() + "-p" + patients.get();
+    }
+
+    /**
+     * Version of the mileage reports (the rollups change with the schedules; nurse names come along)
+     */
+    public String mileageReportVersion() {
+        return schedulesVersion() + "-n" + nurses.get();
+    }
+
+    /**
+     * Version of all schedules for a date
+     */
+    public String dateVersion(LocalDate date) {
+        return epoch + "-d" + dateStamps.getOrDefault(date, 0L);
+    }
+
+    /**
+     * Version of every schedule, for queries spanning nurses or dates
+     */
+    public String schedulesVersion() {
+        return epoch + "-S" + schedules.get();
+    }
+
+    /**
+     * Collect a change; inside a transaction it is applied once the transaction commits, so a tag is
+     * never newer than the data other readers can see, and a bulk import bumps each stamp only once
+     */
+    private void record(Consumer<PendingChanges> change) {
+        AfterCommit.record(this, PendingChanges::new, change, this::apply);
+    }
+
+    private void apply(PendingChanges changes) {
+        long stamp = sequence.incrementAndGet();
+        if (changes.nurses) {
+            nurses.accumulateAndGet(stamp, Math::max);
+        }
+        if (changes.patients) {
+            patients.accumulateAndGet(stamp, Math::max);
+        }
+        if (changes.appointments) {
+            appointments.accumulateAndGet(stamp, Math::max);
+        }
+        if (!changes.dates.isEmpty()) {
+            schedules.accumulateAndGet(stamp, Math::max);
+        }
+        for (LocalDate date : changes.dates) {
+            dateStamps.merge(date, stamp, Math::max);
+        }
+        for (String key : changes.scheduleKeys) {
+            scheduleStamps.merge(key, stamp, Math::max);
+        }
+    }
+
+    private static class PendingChanges {
+        boolean nurses;
+        boolean patients;
+        boolean appointments;
+        final Set<LocalDate> dates = new HashSet<>();
+        final Set<String> scheduleKeys = new HashSet<>();
+    }
+}
@@ -0,0 +1,391 @@
+package nursescheduler.service;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import nursescheduler.model.Nurse;
+import nursescheduler.model.Patient;
+import nursescheduler.repository.NurseRepository;
+import nursescheduler.repository.PatientRepository;
+import nursescheduler.utility.MappedDistanceMatrix;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Road distances and travel times between known nurse and patient locations, kept across days and restarts
+ * Every nurse home and patient address gets a stable integer location ID (persisted in an append-only
+ * registry file, compacted on startup); legs fetched from GraphHopper are stored against those IDs in a
+ * memory-mapped sparse matrix, so the optimizer can use real road costs for recurring pairs without
+ * routing calls.
+ * When a nurse or patient moves, every stored pair touching their location is dropped.
+ */
+@Service
+public class DistanceMatrixService {
+
+    private static final Logger log = LoggerFactory.getLogger(DistanceMatrixService.class);
+
+    @Autowired
+    private NurseRepository nurseRepository;
+
+    @Autowired
+    private PatientRepository patientRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${routing.matrix.enabled:true}")
+    private boolean enabled = true;
+
+    @Value("${routing.matrix.directory:data/routing}")
+    private String directory = "data/routing";
+
+    // Slots in the matrix file (16 bytes each); about 70% can be filled
+    @Value("${routing.matrix.capacity:1048576}")
+    private int capacity = 1048576;
+
+    private static final String REGISTRY_FILE = "locations.csv";
+    private static final String MATRIX_FILE = "distance-matrix.bin";
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, Integer> idsByOwner = new HashMap<>();
+    private final Map<Integer, double[]> coordinatesById = new HashMap<>();
+    private final Map<Long, Integer> idsByCoordinate = new HashMap<>();
+    private int nextId = 1;
+    private boolean fullWarningLogged;
+
+    private Path registryFile;
+    // Lines in the registry file, including ones superseded by a later line for the same location
+    private int registryLines;
+    private MappedDistanceMatrix matrix;
+
+    private final AtomicLong hits = new AtomicLong(0);
+    private final AtomicLong misses = new AtomicLong(0);
+
+    /**
+     * Open the registry and matrix files; any I/O problem just disables the store
+     */
+    @PostConstruct
+    public void open() {
+        FunctionCounter.builder("scheduler.matrix.lookups", hits, AtomicLong::get)
+            .tag("result", "hit").register(meterRegistry);
+        FunctionCounter.builder("scheduler.matrix.lookups", misses, AtomicLong::get)
+            .tag("result", "miss").register(meterRegistry);
+        Gauge.builder("scheduler.matrix.pairs", this, service -> service.matrix != null ? service.matrix.size() : 0)
+            .register(meterRegistry);
+
+        if (!enabled) {
+            return;
+        }
+        try {
+            Path root = Paths.get(directory);
+            Files.createDirectories(root);
+            registryFile = root.resolve(REGISTRY_FILE);
+            boolean hasRegistry = Files.exists(registryFile) && loadRegistry();
+            if (hasRegistry) {
+                compactRegistry();
+            }
+
+            matrix = new MappedDistanceMatrix(root.resolve(MATRIX_FILE), capacity);
+            // Stored pairs are meaningless without the IDs they were recorded under
+            if (!hasRegistry) {
+                matrix.clear();
+            }
+            log.info("Distance matrix opened: {} locations, {} stored pairs", idsByOwner.size(), matrix.size());
+        } catch (IOException e) {
+            log.warn("Distance matrix disabled, could not open {}: {}", directory, e.getMessage());
+            enabled = false;
+        }
+    }
+
+    /**
+     * Register everything already in the database (data initialization has finished by now)
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void registerAll() {
+        if (!enabled) {
+            return;
+        }
+        for (Nurse nurse : nurseRepository.findAll()) {
+            registerNurse(nurse);
+        }
+        for (Patient patient : patientRepository.findAll()) {
+            registerPatient(patient);
+        }
+    }
+
+    public void registerNurse(Nurse nurse) {
+        if (nurse.getId() != null && nurse.getLatitude() != null && nurse.getLongitude() != null
+                && nurse.getLatitude() != 0 && nurse.getLongitude() != 0) {
+            register("nurse:" + nurse.getId(), nurse.getLatitude(), nurse.getLongitude());
+        }
+    }
+
+    public void registerPatient(Patient patient) {
+        if (patient.getId() != null && patient.getLatitude() != 0 && patient.getLongitude() != 0) {
+            register("patient:" + patient.getId(), patient.getLatitude(), patient.getLongitude());
+        }
+    }
+
+    /**
+     * Get the stable location ID for an owner, invalidating stored pairs if its coordinates changed
+     *
+     * @param owner Owner key such as "patient:123"
+     * @return location ID, or -1 if the store is disabled
+     */
+    public int register(String owner, double latitude, double longitude) {
+        if (!enabled) {
+            return -1;
+        }
+        long coordinateKey = coordinateKey(latitude, longitude);
+        lock.writeLock().lock();
+        try {
+            Integer id = idsByOwner.get(owner);
+            if (id != null) {
+                double[] previous = coordinatesById.get(id);
+                if (coordinateKey(previous[0], previous[1]) == coordinateKey) {
+                    idsByCoordinate.putIfAbsent(coordinateKey, id);
+                    return id;
+                }
+                // Moved: road costs to and from the old address no longer apply
+                int removed = matrix.removeLocation(id);
+                idsByCoordinate.remove(coordinateKey(previous[0], previous[1]), id);
+                log.info("Location of {} changed, dropped {} stored pairs", owner, removed);
+            } else {
+                id = nextId++;
+                idsByOwner.put(owner, id);
+            }
+            coordinatesById.put(id, new double[]{latitude, longitude});
+            idsByCoordinate.put(coordinateKey, id);
+            appendRegistry(id, owner, latitude, longitude);
+            return id;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Drop stored pairs for an owner that no longer exists; its ID stays reserved
+     */
+    public void unregister(String owner) {
+        if (!enabled) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            Integer id = idsByOwner.get(owner);
+            if (id != null) {
+                matrix.removeLocation(id);
+                double[] previous = coordinatesById.get(id);
+                idsByCoordinate.remove(coordinateKey(previous[0], previous[1]), id);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Fill in stored road costs for every ordered pair of points
+     * Pairs involving unregistered points, or never routed, are left as NaN
+     *
+     * @param points [lat, lon] points
+     * @param distances Output matrix in meters, points.size() square
+     * @param times Output matrix in seconds, points.size() square
+     * @return number of pairs found
+     */
+    public int lookup(List<double[]> points, double[][] distances, double[][] times) {
+        int n = points.size();
+        for (int i = 0; i < n; i++) {
+            Arrays.fill(distances[i], Double.NaN);
+            Arrays.fill(times[i], Double.NaN);
+        }
+        if (!enabled) {
+            return 0;
+        }
+
+        int found = 0;
+        lock.readLock().lock();
+        try {
+            int[] ids = new int[n];
+            for (int i = 0; i < n; i++) {
+                ids[i] = idsByCoordinate.getOrDefault(coordinateKey(points.get(i)[0], points.get(i)[1]), -1);
+            }
+            for (int i = 0; i < n; i++) {
+                for (int j = 0; j < n; j++) {
+                    if (i == j || ids[i] < 0 || ids[j] < 0) {
+                        continue;
+                    }
+                    if (ids[i] == ids[j]) {
+                        distances[i][j] = 0;
+                        times[i][j] = 0;
+                        found++;
+                        continue;
+                    }
+                    int slot = matrix.find(ids[i], ids[j]);
+                    if (slot >= 0) {
+                        distances[i][j] = matrix.distanceAt(slot);
+                        times[i][j] = matrix.timeAt(slot);
+                        found++;
+                    }
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        int pairs = n * (n - 1);
+        hits.addAndGet(found);
+        misses.addAndGet(Math.max(0, pairs - found));
+        return found;
+    }
+
+    /**
+     * Store a routed leg between two registered points; legs between unknown points are ignored
+     */
+    public void record(double[] from, double[] to, double distance, double seconds) {
+        if (!enabled) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            int fromId = idsByCoordinate.getOrDefault(coordinateKey(from[0], from[1]), -1);
+            int toId = idsByCoordinate.getOrDefault(coordinateKey(to[0], to[1]), -1);
+            if (fromId < 0 || toId < 0 || fromId == toId) {
+                return;
+            }
+            if (!matrix.put(fromId, toId, distance, seconds) && !fullWarningLogged) {
+                log.warn("Distance matrix is full ({} pairs); new legs are not being stored", matrix.size());
+                fullWarningLogged = true;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Snapshot of the store for monitoring
+     */
+    public Map<String, Object> getStatus() {
+        Map<String, Object> status = new HashMap<>();
+        status.put("enabled", enabled);
+        lock.readLock().lock();
+        try {
+            status.put("locations", idsByOwner.size());
+            status.put("storedPairs", matrix != null ? matrix.size() : 0);
+            status.put("capacity", matrix != null ? matrix.capacity() : 0);
+        } finally {
+            lock.readLock().unlock();
+        }
+        status.put("hits", hits.get());
+        status.put("misses", misses.get());
+        return status;
+    }
+
+    @PreDestroy
+    public void close() {
+        if (matrix == null) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            matrix.close();
+        } catch (IOException e) {
+            log.warn("Error closing distance matrix: {}", e.getMessage());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Read "id,owner,lat,lon" lines; a later line for the same ID replaces the earlier one
+     *
+     * @return true if at least one location was loaded
+     */
+    private boolean loadRegistry() throws IOException {
+        registryLines = 0;
+        for (String line : Files.readAllLines(registryFile, StandardCharsets.UTF_8)) {
+            registryLines++;
+            String[] parts = line.split(",");
+            if (parts.length != 4) {
+                continue;
+            }
+            int id = Integer.parseInt(parts[0]);
+            double[] coordinates = new double[]{Double.parseDouble(parts[2]), Double.parseDouble(parts[3])};
+            idsByOwner.put(parts[1], id);
+            coordinatesById.put(id, coordinates);
+            nextId = Math.max(nextId, id + 1);
+        }
+        for (Map.Entry<Integer, double[]> entry : coordinatesById.entrySet()) {
+            idsByCoordinate.put(coordinateKey(entry.getValue()[0], entry.getValue()[1]), entry.getKey());
+        }
+        return !idsByOwner.isEmpty();
+    }
+
+    /**
+     * Rewrite the registry with one line per location once moves have left superseded lines behind
+     * The new file is written next to the old one and moved over it, so a crash leaves one or the other.
+     */
+    private void compactRegistry() {
+        if (registryLines <= idsByOwner.size()) {
+            return;
+        }
+        StringBuilder lines = new StringBuilder();
+        idsByOwner.entrySet().stream()
+            .sorted(Map.Entry.comparingByValue())
+            .forEach(entry -> {
+                double[] coordinates = coordinatesById.get(entry.getValue());
+                lines.append(entry.getValue()).append(',').append(entry.getKey()).append(',')
+                    .append(coordinates[0]).append(',').append(coordinates[1]).append(System.lineSeparator());
+            });
+        Path compacted = registryFile.resolveSibling(REGISTRY_FILE + ".tmp");
+        try {
+            Files.writeString(compacted, lines, StandardCharsets.UTF_8);
+            Files.move(compacted, registryFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            log.info("Compacted location registry from {} to {} lines", registryLines, idsByOwner.size());
+            registryLines = idsByOwner.size();
+        } catch (IOException e) {
+            // The uncompacted registry still loads correctly
+            log.warn("Could not compact location registry: {}", e.getMessage());
+        }
+    }
+
+    private void appendRegistry(int id, String owner, double latitude, double longitude) {
+        String line = id + "," + owner + "," + latitude + "," + longitude + System.lineSeparator();
+        try {
+            Files.writeString(registryFile, line, StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            log.warn("Could not persist location {}: {}", owner, e.getMessage());
+        }
+    }
+
+    /**
+     * Coordinates rounded to 1e-6 degrees (the precision sent to GraphHopper), packed into one long
+     */
+    private static long coordinateKey(double latitude, double longitude) {
+        long lat = Math.round(latitude * 1e6);
+        long lon = Math.round(longitude * 1e6);
+        return (lat << 32) | (lon & 0xffffffffL);
+    }
+}
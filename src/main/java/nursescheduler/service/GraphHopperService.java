@@ -4,18 +4,25 @@ import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.graphhopper.jsprit.core.algorithm.VehicleRoutingAlgorithm;
 import com.graphhopper.jsprit.core.algorithm.box.Jsprit;
+import com.graphhopper.jsprit.core.algorithm.termination.IterationWithoutImprovementTermination;
 import com.graphhopper.jsprit.core.problem.Location;
 import com.graphhopper.jsprit.core.problem.VehicleRoutingProblem;
 import com.graphhopper.jsprit.core.problem.cost.VehicleRoutingTransportCosts;
 import com.graphhopper.jsprit.core.problem.driver.Driver;
+import com.graphhopper.jsprit.core.problem.job.Job;
+import com.graphhopper.jsprit.core.problem.solution.SolutionCostCalculator;
 import com.graphhopper.jsprit.core.problem.solution.VehicleRoutingProblemSolution;
 import com.graphhopper.jsprit.core.problem.solution.route.VehicleRoute;
+import com.graphhopper.jsprit.core.problem.solution.route.activity.TourActivity;
 import com.graphhopper.jsprit.core.problem.vehicle.Vehicle;
 import com.graphhopper.jsprit.core.problem.vehicle.VehicleImpl;
 import com.graphhopper.jsprit.core.problem.vehicle.VehicleType;
 import com.graphhopper.jsprit.core.problem.vehicle.VehicleTypeImpl;
 import com.graphhopper.jsprit.core.util.Coordinate;
 import com.graphhopper.jsprit.core.util.Solutions;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
@@ -23,8 +30,11 @@ import org.springframework.web.client.RestTemplate;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 @Service
 public class GraphHopperService {
@@ -32,18 +42,85 @@ public class GraphHopperService {
     @Value("${graphhopper.url:http://localhost:8989}")
     private String graphHopperUrl;
     
+    @Autowired
+    private DistanceMatrixService distanceMatrixService;
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
     private final RestTemplate restTemplate = new RestTemplate();
     private final ObjectMapper objectMapper = new ObjectMapper();
     private static final int WEIGHT_INDEX = 0;
 
+    // Without time constraints the route may use the whole day
+    private static final double SECONDS_PER_DAY = 24 * 60 * 60;
+
+    // Average road speed used to turn distances into travel times (50 km/h)
+    public static final double AVERAGE_SPEED_MPS = 50.0 / 3.6;
+
+    @Value("${routing.optimizer.max-iterations:256}")
+    private int maxIterations = 256;
+
+    @Value("${routing.optimizer.iterations-without-improvement:64}")
+    private int iterationsWithoutImprovement = 64;
+
+    @Value("${routing.optimizer.warm-start.max-iterations:32}")
+    private int warmStartMaxIterations = 32;
+
+    @Value("${routing.optimizer.warm-start.iterations-without-improvement:8}")
+    private int warmStartIterationsWithoutImprovement = 8;
+
+    // Road-to-straight-line distance ratio assumed for unknown pairs when a problem has no stored pairs
+    @Value("${routing.matrix.default-detour-factor:1.3}")
+    private double defaultDetourFactor = 1.3;
+
+    // Objective penalty for leaving a patient out, large enough to outweigh any detour (meters)
+    private static final double UNASSIGNED_PENALTY = 1_000_000;
+
+    // Objective penalty (meters) per second of missed window or overtime
+    static final double LATENESS_PENALTY = 1000;
+
     public RouteResponse calculateRoute(List<double[]> points) {
+        return calculateRoute(points, null, 0, SECONDS_PER_DAY);
+    }
+
+    /**
+     * Calculate an optimized route honoring visit time windows and service times
+     *
+     * @param points Nurse location first, then one point per patient (optionally the nurse location again at the end)
+     * @param visits One entry per patient point, or null for no time constraints
+     * @param shiftStart Earliest departure from the nurse's home, in seconds since midnight
+     * @param shiftEnd Latest return to the nurse's home, in seconds since midnight
+     */
+    public RouteResponse calculateRoute(List<double[]> points, List<VisitWindow> visits, double shiftStart, double shiftEnd) {
+        return calculateRoute(points, visits, shiftStart, shiftEnd, null);
+    }
+
+    /**
+     * Calculate an optimized route, starting the search from a known visit order
+     * Recurring patients are usually visited in much the same order as last time, so a seeded
+     * search only needs a short improvement budget instead of a cold construction
+     *
+     * @param seedOrder Stop indices (1-based into points) in a previously used order, or null to start cold
+     */
+    public RouteResponse calculateRoute(List<double[]> points, List<VisitWindow> visits, double shiftStart, double shiftEnd,
+                                        List<Integer> seedOrder) {
+        Timer.Sample routeSample = Timer.start(meterRegistry);
+        String outcome = "error";
         try {
             // The first point is the nurse's starting location
             double[] nurseLocation = points.get(0);
 
-            // Define the vehicle type with a capacity of 10 (arbitrary, since we don't have capacity constraints)
+            // Callers may close the loop by repeating the nurse location; the vehicle returns to depot anyway
+            int stopCount = points.size() - 1;
+            double[] lastPoint = points.get(points.size() - 1);
+            if (points.size() > 2 && lastPoint[0] == nurseLocation[0] && lastPoint[1] == nurseLocation[1]) {
+                stopCount--;
+            }
+
+            // One nurse visits every patient, so capacity only needs to cover all stops
             VehicleType vehicleType = VehicleTypeImpl.Builder.newInstance("vehicleType")
-                .addCapacityDimension(WEIGHT_INDEX, 10)
+                .addCapacityDimension(WEIGHT_INDEX, Math.max(1, stopCount))
                 .build();
 
             // Define the vehicle starting at the nurse's location
@@ -55,121 +132,395 @@ public class GraphHopperService {
             VehicleImpl vehicle = VehicleImpl.Builder.newInstance("vehicle")
                 .setStartLocation(vehicleLocation)
                 .setType(vehicleType)
+                .setEarliestStart(shiftStart)
+                .setLatestArrival(shiftEnd)
                 .setReturnToDepot(true)  // Ensure the vehicle returns to the start location
                 .build();
 
             // Define services (patient locations) starting from the second point
             List<com.graphhopper.jsprit.core.problem.job.Service> services = new ArrayList<>();
-            for (int i = 1; i < points.size(); i++) {
+            for (int i = 1; i <= stopCount; i++) {
                 double[] point = points.get(i);
                 Location patientLocation = Location.Builder.newInstance()
                     .setId("service_" + i)
                     .setCoordinate(Coordinate.newInstance(point[0], point[1]))
                     .build();
 
-                com.graphhopper.jsprit.core.problem.job.Service service = com.graphhopper.jsprit.core.problem.job.Service.Builder.newInstance("service_" + i)
+                com.graphhopper.jsprit.core.problem.job.Service.Builder<?> serviceBuilder = com.graphhopper.jsprit.core.problem.job.Service.Builder.newInstance("service_" + i)
                     .addSizeDimension(WEIGHT_INDEX, 1)  // Each patient has a demand of 1
-                    .setLocation(patientLocation)
-                    .build();
-                services.add(service);
+                    .setLocation(patientLocation);
+
+                // Tight appointment windows let jsprit reject infeasible insertions early
+                if (visits != null) {
+                    VisitWindow visit = visits.get(i - 1);
+                    serviceBuilder.setServiceTime(visit.getServiceTime());
+                    if (visit.hasTimeWindow()) {
+                        serviceBuilder.addTimeWindow(visit.getEarliestStart(), visit.getLatestStart());
+                    }
+                }
+                services.add(serviceBuilder.build());
             }
 
-            // Build a transport cost matrix using Euclidean distances
-            VehicleRoutingTransportCosts transportCosts = new EuclideanTransportCosts(points);
+            // Road costs already known for these locations, straight-line estimates for the rest
+            VehicleRoutingTransportCosts transportCosts = new MatrixTransportCosts(points);
 
             // Build the vehicle routing problem
             VehicleRoutingProblem problem = VehicleRoutingProblem.Builder.newInstance()
+                .setFleetSize(VehicleRoutingProblem.FleetSize.FINITE)
                 .addVehicle(vehicle)
                 .addAllJobs(services)
                 .setRoutingCost(transportCosts)
                 .build();
 
-            // Solve the problem using jsprit's default algorithm
-            VehicleRoutingAlgorithm algorithm = Jsprit.createAlgorithm(problem);
+            // Solve with a bounded search so interactive requests stay fast
+            VehicleRoutingAlgorithm algorithm;
+            VehicleRoutingProblemSolution seed = seedOrder == null || seedOrder.isEmpty() ? null
+                : buildSeedSolution(problem, vehicle, services, seedOrder, points, visits, shiftStart, shiftEnd);
+            if (seed != null) {
+                // The seed's cost must be measured the same way as the solutions it competes with
+                SolutionCostCalculator objective = new DistanceObjective(transportCosts);
+                seed.setCost(objective.getCosts(seed));
+                algorithm = Jsprit.Builder.newInstance(problem).setObjectiveFunction(objective).buildAlgorithm();
+                algorithm.addInitialSolution(seed);
+                algorithm.setMaxIterations(warmStartMaxIterations);
+                algorithm.addTerminationCriterion(new IterationWithoutImprovementTermination(warmStartIterationsWithoutImprovement));
+            } else {
+                algorithm = Jsprit.createAlgorithm(problem);
+                algorithm.setMaxIterations(maxIterations);
+                algorithm.addTerminationCriterion(new IterationWithoutImprovementTermination(iterationsWithoutImprovement));
+            }
+            Timer.Sample solveSample = Timer.start(meterRegistry);
             Collection<VehicleRoutingProblemSolution> solutions = algorithm.searchSolutions();
+            solveSample.stop(meterRegistry.timer("scheduler.optimize", "start", seed != null ? "warm" : "cold"));
+            meterRegistry.summary("scheduler.optimize.stops").record(stopCount);
             VehicleRoutingProblemSolution bestSolution = Solutions.bestOf(solutions);
 
-            // Extract the ordered points from the solution
-            List<double[]> orderedPoints = new ArrayList<>();
+            // Extract the visit order as indices into the points list
+            List<Integer> stopOrder = new ArrayList<>();
             for (VehicleRoute route : bestSolution.getRoutes()) {
-                // Start location
-                orderedPoints.add(new double[]{route.getStart().getLocation().getCoordinate().getX(),
-                                               route.getStart().getLocation().getCoordinate().getY()});
-                // Activities (patient visits)
-                route.getActivities().forEach(activity -> {
-                    orderedPoints.add(new double[]{activity.getLocation().getCoordinate().getX(),
-                                                   activity.getLocation().getCoordinate().getY()});
-                });
-                // End location (return to start)
-                orderedPoints.add(new double[]{route.getEnd().getLocation().getCoordinate().getX(),
-                                               route.getEnd().getLocation().getCoordinate().getY()});
+                route.getActivities().forEach(activity ->
+                    stopOrder.add(stopIndex(activity.getLocation().getId())));
+            }
+
+            // Patients whose windows cannot all be met are still visited, after the feasible ones
+            List<Integer> unassigned = new ArrayList<>();
+            for (Job job : bestSolution.getUnassignedJobs()) {
+                unassigned.add(stopIndex(job.getId()));
+            }
+            unassigned.sort(Comparator.comparingDouble(index ->
+                visits != null ? visits.get(index - 1).getEarliestStart() : index));
+            stopOrder.addAll(unassigned);
+
+            // Ordered points: start, patient visits, return to start
+            List<Integer> orderedIndices = new ArrayList<>();
+            orderedIndices.add(0);
+            orderedIndices.addAll(stopOrder);
+            orderedIndices.add(0);
+
+            List<double[]> orderedPoints = new ArrayList<>();
+            for (int index : orderedIndices) {
+                orderedPoints.add(points.get(index));
             }
 
             // Use standalone GraphHopper to calculate the actual road path for the ordered points
             List<double[]> coordinates = new ArrayList<>();
+            List<RouteLeg> legs = new ArrayList<>();
             double totalDistance = 0.0;
             
             for (int i = 0; i < orderedPoints.size() - 1; i++) {
-                // Build GraphHopper REST API request URL
-                String url = String.format("%s/route?point=%.6f,%.6f&point=%.6f,%.6f&vehicle=car&calc_points=true&points_encoded=false",
-                    graphHopperUrl,
-                    orderedPoints.get(i)[0], orderedPoints.get(i)[1],
-                    orderedPoints.get(i + 1)[0], orderedPoints.get(i + 1)[1]);
-                
-                ResponseEntity<String> response = restTemplate.getForEntity(url, String.class);
-                
-                if (response.getStatusCode().is2xxSuccessful() && response.getBody() != null) {
-                    // Parse GraphHopper response
-                    try {
-                        Map<String, Object> responseMap = objectMapper.readValue(response.getBody(), Map.class);
-                        List<Map<String, Object>> paths = (List<Map<String, Object>>) responseMap.get("paths");
-                        
-                        if (paths != null && !paths.isEmpty()) {
-                            Map<String, Object> path = paths.get(0);
-                            totalDistance += ((Number) path.get("distance")).doubleValue();
-                            
-                            // Extract points from the response
-List<List<Double>> pointsFromResponse = (List<List<Double>>) path.get("points");
-
-if (pointsFromResponse != null) {
-    for (List<Double> point : pointsFromResponse) {
-        // GraphHopper returns [lon, lat], but we need [lat, lon]
-        coordinates.add(new double[]{point.get(1), point.get(0)});
+                RouteLeg leg = fetchLeg(orderedIndices.get(i), orderedPoints.get(i), orderedIndices.get(i + 1), orderedPoints.get(i + 1));
+                legs.add(leg);
+                coordinates.addAll(leg.getCoordinates());
+                totalDistance += leg.getDistance();
+            }
+
+            // ETAs use the road legs' driving times rather than the optimizer's estimates
+            List<StopTiming> stopTimings = calculateStopTimings(stopOrder, visits, shiftStart, shiftEnd, legs);
+
+            outcome = "success";
+            return new RouteResponse(coordinates, totalDistance, stopOrder, stopTimings, legs);
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to calculate route: " + e.getMessage(), e);
+        } finally {
+            routeSample.stop(meterRegistry.timer("scheduler.route", "outcome", outcome));
+        }
     }
-}
-                        }
-                    } catch (JsonProcessingException e) {
-                        throw new RuntimeException("Error parsing GraphHopper response: " + e.getMessage(), e);
+
+    /**
+     * Turn a previous visit order into a starting solution
+     * Stops that would now miss their window or overrun the shift are left unassigned for jsprit to place,
+     * since jsprit does not re-check the feasibility of initial solutions
+     *
+     * @return the seed, or null if no seeded stop is feasible
+     */
+    private VehicleRoutingProblemSolution buildSeedSolution(VehicleRoutingProblem problem, VehicleImpl vehicle,
+            List<com.graphhopper.jsprit.core.problem.job.Service> services, List<Integer> seedOrder,
+            List<double[]> points, List<VisitWindow> visits, double shiftStart, double shiftEnd) {
+        VehicleRoute.Builder routeBuilder = VehicleRoute.Builder.newInstance(vehicle)
+            .setJobActivityFactory(problem.getJobActivityFactory());
+        Set<Integer> seeded = new HashSet<>();
+        double time = shiftStart;
+        double[] previous = points.get(0);
+        for (int index : seedOrder) {
+            if (index < 1 || index > services.size() || !seeded.add(index)) {
+                continue;
+            }
+            double[] point = points.get(index);
+            double start = time + straightLineDistance(previous, point) / AVERAGE_SPEED_MPS;
+            double serviceTime = 0;
+            if (visits != null) {
+                VisitWindow visit = visits.get(index - 1);
+                serviceTime = visit.getServiceTime();
+                if (visit.hasTimeWindow()) {
+                    start = Math.max(start, visit.getEarliestStart());
+                    if (start > visit.getLatestStart()) {
+                        seeded.remove(index);
+                        continue;
                     }
-                } else {
-                    throw new RuntimeException("Error from GraphHopper API: " + response.getStatusCode());
                 }
             }
+            double end = start + serviceTime;
+            if (end + straightLineDistance(point, points.get(0)) / AVERAGE_SPEED_MPS > shiftEnd) {
+                seeded.remove(index);
+                continue;
+            }
+            routeBuilder.addService(services.get(index - 1));
+            time = end;
+            previous = point;
+        }
+        if (seeded.isEmpty()) {
+            return null;
+        }
 
-            return new RouteResponse(coordinates, totalDistance);
-        } catch (Exception e) {
-            throw new RuntimeException("Failed to calculate route: " + e.getMessage(), e);
+        List<Job> unassigned = new ArrayList<>();
+        for (int i = 1; i <= services.size(); i++) {
+            if (!seeded.contains(i)) {
+                unassigned.add(services.get(i - 1));
+            }
         }
+        List<VehicleRoute> routes = new ArrayList<>();
+        routes.add(routeBuilder.build());
+        return new VehicleRoutingProblemSolution(routes, unassigned, 0);
     }
 
-    // Custom transport costs using Euclidean distances
-    private class EuclideanTransportCosts implements VehicleRoutingTransportCosts {
-        private final List<double[]> points;
+    /**
+     * Total travel distance plus a heavy penalty per unassigned patient and per second of missed window
+     * or overtime
+     * Arrival times are simulated here rather than read off the activities, because the seed solution
+     * is costed before jsprit has timed its route.
+     */
+    static class DistanceObjective implements SolutionCostCalculator {
+        private final VehicleRoutingTransportCosts transportCosts;
 
-        public EuclideanTransportCosts(List<double[]> points) {
-            this.points = points;
+        DistanceObjective(VehicleRoutingTransportCosts transportCosts) {
+            this.transportCosts = transportCosts;
+        }
+
+        @Override
+        public double getCosts(VehicleRoutingProblemSolution solution) {
+            double cost = solution.getUnassignedJobs().size() * UNASSIGNED_PENALTY;
+            for (VehicleRoute route : solution.getRoutes()) {
+                Vehicle vehicle = route.getVehicle();
+                double time = vehicle.getEarliestDeparture();
+                double lateness = 0;
+                Location previous = route.getStart().getLocation();
+                for (TourActivity activity : route.getActivities()) {
+                    cost += transportCosts.getTransportCost(previous, activity.getLocation(), time, route.getDriver(), vehicle);
+                    double start = Math.max(time + transportCosts.getTransportTime(previous, activity.getLocation(), time,
+                        route.getDriver(), vehicle), activity.getTheoreticalEarliestOperationStartTime());
+                    lateness += Math.max(0, start - activity.getTheoreticalLatestOperationStartTime());
+                    time = start + activity.getOperationTime();
+                    previous = activity.getLocation();
+                }
+                Location end = route.getEnd().getLocation();
+                cost += transportCosts.getTransportCost(previous, end, time, route.getDriver(), vehicle);
+                double arrival = time + transportCosts.getTransportTime(previous, end, time, route.getDriver(), vehicle);
+                lateness += Math.max(0, arrival - vehicle.getLatestArrival());
+                cost += LATENESS_PENALTY * lateness;
+            }
+            return cost;
+        }
+    }
+
+    /**
+     * Fetch the road path between two [lat, lon] points from GraphHopper
+     * If no path exists the leg falls back to a straight-line estimate without geometry
+     */
+    public RouteLeg fetchLeg(int fromStop, double[] from, int toStop, double[] to) {
+        // Build GraphHopper REST API request URL
+        String url = String.format("%s/route?point=%.6f,%.6f&point=%.6f,%.6f&vehicle=car&calc_points=true&points_encoded=false",
+            graphHopperUrl, from[0], from[1], to[0], to[1]);
+        
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "error";
+        try {
+            ResponseEntity<String> response = restTemplate.getForEntity(url, String.class);
+            
+            if (!response.getStatusCode().is2xxSuccessful() || response.getBody() == null) {
+                throw new RuntimeException("Error from GraphHopper API: " + response.getStatusCode());
+            }
+            
+            RouteLeg leg = parseLeg(response.getBody(), fromStop, from, toStop, to);
+            outcome = leg.getCoordinates().isEmpty() ? "no_path" : "success";
+            return leg;
+        } finally {
+            sample.stop(meterRegistry.timer("scheduler.graphhopper.leg", "outcome", outcome));
+        }
+    }
+
+    /**
+     * Turn a GraphHopper /route response into a leg and remember its road cost
+     */
+    RouteLeg parseLeg(String body, int fromStop, double[] from, int toStop, double[] to) {
+        try {
+            Map<String, Object> responseMap = objectMapper.readValue(body, Map.class);
+            List<Map<String, Object>> paths = (List<Map<String, Object>>) responseMap.get("paths");
+            
+            if (paths == null || paths.isEmpty()) {
+                // No road path found; keep the leg so stop timings stay aligned
+                double distance = straightLineDistance(from, to);
+                return new RouteLeg(fromStop, toStop, distance, distance / AVERAGE_SPEED_MPS, new ArrayList<>());
+            }
+
+            Map<String, Object> path = paths.get(0);
+            double distance = ((Number) path.get("distance")).doubleValue();
+
+            // GraphHopper reports time in milliseconds
+            Number time = (Number) path.get("time");
+            double seconds = time != null ? time.doubleValue() / 1000.0 : distance / AVERAGE_SPEED_MPS;
+            
+            // Extract points from the response
+            List<double[]> coordinates = new ArrayList<>();
+            // With points_encoded=false GraphHopper returns a GeoJSON LineString; accept a bare list as well
+            Object points = path.get("points");
+            if (points instanceof Map) {
+                points = ((Map<String, Object>) points).get("coordinates");
+            }
+            List<List<Double>> pointsFromResponse = (List<List<Double>>) points;
+            if (pointsFromResponse != null) {
+                for (List<Double> point : pointsFromResponse) {
+                    // GraphHopper returns [lon, lat], but we need [lat, lon]
+                    coordinates.add(new double[]{point.get(1), point.get(0)});
+                }
+            }
+            // Remember the road cost so later optimizations can use it without a routing call
+            distanceMatrixService.record(from, to, distance, seconds);
+            return new RouteLeg(fromStop, toStop, distance, seconds, coordinates);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Error parsing GraphHopper response: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Walk the visit order from shift start to get arrival and start time per stop, then walk it
+     * backwards from shift end to get each stop's latest feasible start
+     * Slack is how long a visit could be delayed without breaking any later window; negative means a missed window
+     *
+     * @param legs Leg k drives into stop k; the final leg drives back home
+     */
+    static List<StopTiming> calculateStopTimings(List<Integer> stopOrder, List<VisitWindow> visits,
+            double shiftStart, double shiftEnd, List<RouteLeg> legs) {
+        int count = stopOrder.size();
+        double[] arrivals = new double[count];
+        double[] starts = new double[count];
+        double[] serviceTimes = new double[count];
+
+        double time = shiftStart;
+        for (int k = 0; k < count; k++) {
+            VisitWindow visit = visits != null ? visits.get(stopOrder.get(k) - 1) : null;
+            arrivals[k] = time + legs.get(k).getTime();
+            starts[k] = arrivals[k];
+            if (visit != null) {
+                serviceTimes[k] = visit.getServiceTime();
+                if (visit.hasTimeWindow()) {
+                    starts[k] = Math.max(arrivals[k], visit.getEarliestStart());
+                }
+            }
+            time = starts[k] + serviceTimes[k];
+        }
+
+        double[] latestStarts = new double[count];
+        double latestNext = shiftEnd;
+        for (int k = count - 1; k >= 0; k--) {
+            VisitWindow visit = visits != null ? visits.get(stopOrder.get(k) - 1) : null;
+            double latest = latestNext - legs.get(k + 1).getTime() - serviceTimes[k];
+            if (visit != null && visit.hasTimeWindow()) {
+                latest = Math.min(latest, visit.getLatestStart());
+            }
+            latestStarts[k] = latest;
+            latestNext = latest;
+        }
+
+        List<StopTiming> timings = new ArrayList<>();
+        for (int k = 0; k < count; k++) {
+            timings.add(new StopTiming(stopOrder.get(k), arrivals[k], starts[k], starts[k] + serviceTimes[k],
+                latestStarts[k] - starts[k]));
+        }
+        return timings;
+    }
+
+    /**
+     * Approximate Euclidean distance in meters between two [lat, lon] points (using a simple conversion factor)
+     */
+    static double straightLineDistance(double[] from, double[] to) {
+        return Math.sqrt(Math.pow(to[0] - from[0], 2) + Math.pow(to[1] - from[1], 2)) * 111320;
+    }
+
+    private static int stopIndex(String locationId) {
+        return Integer.parseInt(locationId.replace("service_", ""));
+    }
+
+    /**
+     * Transport costs from stored road distances where known, estimates otherwise
+     * Looked up once per problem so the solver's inner loop only reads arrays. Unknown pairs get the
+     * straight-line distance scaled by the detour factor and speed of this problem's stored pairs, so
+     * known and estimated legs are on the same footing and the solver does not favor unrouted pairs.
+     */
+    class MatrixTransportCosts implements VehicleRoutingTransportCosts {
+        private final double[][] distances;
+        private final double[][] times;
+
+        MatrixTransportCosts(List<double[]> points) {
+            int n = points.size();
+            distances = new double[n][n];
+            times = new double[n][n];
+            distanceMatrixService.lookup(points, distances, times);
+
+            // Calibrate against the stored pairs: road meters per straight-line meter, seconds per road meter
+            double roadDistance = 0;
+            double directDistance = 0;
+            double roadTime = 0;
+            for (int i = 0; i < n; i++) {
+                for (int j = 0; j < n; j++) {
+                    double direct = straightLineDistance(points.get(i), points.get(j));
+                    if (!Double.isNaN(distances[i][j]) && direct > 0 && distances[i][j] > 0) {
+                        roadDistance += distances[i][j];
+                        directDistance += direct;
+                        roadTime += times[i][j];
+                    }
+                }
+            }
+            double detourFactor = directDistance > 0
+                ? Math.max(1.0, Math.min(3.0, roadDistance / directDistance)) : defaultDetourFactor;
+            double secondsPerMeter = roadDistance > 0 && roadTime > 0 ? roadTime / roadDistance : 1 / AVERAGE_SPEED_MPS;
+
+            for (int i = 0; i < n; i++) {
+                for (int j = 0; j < n; j++) {
+                    if (Double.isNaN(distances[i][j])) {
+                        distances[i][j] = straightLineDistance(points.get(i), points.get(j)) * detourFactor;
+                        times[i][j] = distances[i][j] * secondsPerMeter;
+                    }
+                }
+            }
+        }
+
+        private int index(Location location) {
+            return location.getId().equals("vehicle") ? 0 : Integer.parseInt(location.getId().replace("service_", ""));
         }
 
         @Override
         public double getDistance(Location from, Location to, double departureTime, Vehicle vehicle) {
-            int fromIndex = from.getId().equals("vehicle") ? 0 : Integer.parseInt(from.getId().replace("service_", ""));
-            int toIndex = to.getId().equals("vehicle") ? 0 : Integer.parseInt(to.getId().replace("service_", ""));
-            double lat1 = points.get(fromIndex)[0];
-            double lon1 = points.get(fromIndex)[1];
-            double lat2 = points.get(toIndex)[0];
-            double lon2 = points.get(toIndex)[1];
-            // Approximate Euclidean distance in meters (using a simple conversion factor)
-            return Math.sqrt(Math.pow(lat2 - lat1, 2) + Math.pow(lon2 - lon1, 2)) * 111320;
+            return distances[index(from)][index(to)];
         }
 
         @Override
@@ -179,7 +530,7 @@ if (pointsFromResponse != null) {
 
         @Override
         public double getTransportTime(Location from, Location to, double departureTime, Driver driver, Vehicle vehicle) {
-            return getTransportCost(from, to, departureTime, driver, vehicle);  // Use distance as a proxy for time
+            return times[index(from)][index(to)];
         }
 
         @Override
@@ -193,13 +544,139 @@ if (pointsFromResponse != null) {
         }
     }
 
+    /**
+     * Time constraints for a single patient visit, in seconds since midnight
+     */
+    public static class VisitWindow {
+        private final double earliestStart;
+        private final double latestStart;
+        private final double serviceTime;
+
+        public VisitWindow(double earliestStart, double latestStart, double serviceTime) {
+            this.earliestStart = earliestStart;
+            this.latestStart = latestStart;
+            this.serviceTime = serviceTime;
+        }
+
+        public double getEarliestStart() {
+            return earliestStart;
+        }
+
+        public double getLatestStart() {
+            return latestStart;
+        }
+
+        public double getServiceTime() {
+            return serviceTime;
+        }
+
+        public boolean hasTimeWindow() {
+            return latestStart < Double.MAX_VALUE;
+        }
+    }
+
+    /**
+     * Planned timing of a visit within the optimized route, in seconds since midnight
+     */
+    public static class StopTiming {
+        private final int stopIndex;
+        private final double arrivalTime;
+        private final double startTime;
+        private final double departureTime;
+        private final double slack;
+
+        public StopTiming(int stopIndex, double arrivalTime, double startTime, double departureTime, double slack) {
+            this.stopIndex = stopIndex;
+            this.arrivalTime = arrivalTime;
+            this.startTime = startTime;
+            this.departureTime = departureTime;
+            this.slack = slack;
+        }
+
+        public int getStopIndex() {
+            return stopIndex;
+        }
+
+        public double getArrivalTime() {
+            return arrivalTime;
+        }
+
+        public double getStartTime() {
+            return startTime;
+        }
+
+        public double getDepartureTime() {
+            return departureTime;
+        }
+
+        public double getSlack() {
+            return slack;
+        }
+
+        public boolean isLate() {
+            return slack < 0;
+        }
+    }
+
+    /**
+     * Road distance (meters) and driving time (seconds) between two consecutive stops
+     * Stop index 0 is the nurse's home
+     */
+    public static class RouteLeg {
+        private final int fromStop;
+        private final int toStop;
+        private final double distance;
+        private final double time;
+        private final List<double[]> coordinates;
+
+        public RouteLeg(int fromStop, int toStop, double distance, double time, List<double[]> coordinates) {
+            this.fromStop = fromStop;
+            this.toStop = toStop;
+            this.distance = distance;
+            this.time = time;
+            this.coordinates = coordinates;
+        }
+
+        public int getFromStop() {
+            return fromStop;
+        }
+
+        public int getToStop() {
+            return toStop;
+        }
+
+        public double getDistance() {
+            return distance;
+        }
+
+        public double getTime() {
+            return time;
+        }
+
+        // Road geometry as [lat, lon] points
+        public List<double[]> getCoordinates() {
+            return coordinates;
+        }
+    }
+
     public static class RouteResponse {
         private final List<double[]> coordinates;
         private final double distance;
+        private final List<Integer> stopOrder;
+        private final List<StopTiming> stopTimings;
+        private final List<RouteLeg> legs;
 
         public RouteResponse(List<double[]> coordinates, double distance) {
+            this(coordinates, distance, new ArrayList<>(), new ArrayList<>(), new ArrayList<>());
+        }
+
+        public RouteResponse(List<double[]> coordinates, double distance, List<Integer> stopOrder,
+                List<StopTiming> stopTimings, List<RouteLeg> legs) {
             this.coordinates = coordinates;
             this.distance = distance;
+            this.stopOrder = stopOrder;
+            this.stopTimings = stopTimings;
+            this.legs = legs;
         }
 
         public List<double[]> getCoordinates() {
@@ -209,5 +686,24 @@ if (pointsFromResponse != null) {
         public double getDistance() {
             return distance;
         }
+
+        // Indices into the request's points list, in visit order
+        public List<Integer> getStopOrder() {
+            return stopOrder;
+        }
+
+        public List<StopTiming> getStopTimings() {
+            return stopTimings;
+        }
+
+        // One leg per consecutive pair of stops, including the drive home
+        public List<RouteLeg> getLegs() {
+            return legs;
+        }
+
+        // Total driving time in seconds as reported by the road legs
+        public double getTravelTime() {
+            return legs.stream().mapToDouble(RouteLeg::getTime).sum();
+        }
     }
 }
\ No newline at end of file
@@ -0,0 +1,58 @@
+package nursescheduler.service;
+
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Component;
+
+import nursescheduler.model.Nurse;
+import nursescheduler.model.Patient;
+
+import java.util.LinkedHashMap;
+
+/**
+ * JPA entity listener that registers nurse and patient locations with the distance matrix
+ * A changed address invalidates the stored road costs for that location. Inside a transaction the
+ * registry is only touched once it commits, so a rolled back address change keeps the stored pairs
+ * and adds no registry line, and no file is written during the flush.
+ */
+@Component
+public class LocationRegistryListener {
+
+    @Autowired
+    @Lazy
+    private DistanceMatrixService distanceMatrixService;
+
+    @PostPersist
+    @PostUpdate
+    public void afterSave(Object entity) {
+        if (entity instanceof Nurse) {
+            Nurse nurse = (Nurse) entity;
+            apply("nurse:" + nurse.getId(), () -> distanceMatrixService.registerNurse(nurse));
+        } else if (entity instanceof Patient) {
+            Patient patient = (Patient) entity;
+            apply("patient:" + patient.getId(), () -> distanceMatrixService.registerPatient(patient));
+        }
+    }
+
+    @PostRemove
+    public void afterRemove(Object entity) {
+        if (entity instanceof Nurse) {
+            String key = "nurse:" + ((Nurse) entity).getId();
+            apply(key, () -> distanceMatrixService.unregister(key));
+        } else if (entity instanceof Patient) {
+            String key = "patient:" + ((Patient) entity).getId();
+            apply(key, () -> distanceMatrixService.unregister(key));
+        }
+    }
+
+    private void apply(String key, Runnable update) {
+        AfterCommit.record(this, LinkedHashMap<String, Runnable>::new, updates -> {
+            // The location's last change wins
+            updates.remove(key);
+            updates.put(key, update);
+        }, updates -> updates.values().forEach(Runnable::run));
+    }
+}
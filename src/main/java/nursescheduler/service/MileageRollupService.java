@@ -0,0 +1,290 @@
+package nursescheduler.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import nursescheduler.model.Appointment;
+import nursescheduler.model.MileageContribution;
+import nursescheduler.model.MileageRollup;
+import nursescheduler.model.NurseSchedule;
+import nursescheduler.model.Patient;
+import nursescheduler.model.ScheduledVisit;
+import nursescheduler.repository.AppointmentRepository;
+import nursescheduler.repository.MileageContributionRepository;
+import nursescheduler.repository.MileageRollupRepository;
+import nursescheduler.repository.PatientRepository;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Keeps the daily, weekly and monthly mileage rollups (per nurse, county and visit type) in step with
+ * the schedules
+ * Each saved schedule's figures are compared with what it contributed last time and only the difference
+ * is added, in the schedule's own transaction. The nurse rollups use the schedule totals; county and
+ * visit type rollups split them by leg, each leg counting towards the visit it leads to and the return
+ * leg towards the last visit.
+ */
+@Service
+public class MileageRollupService {
+
+    private static final String UNKNOWN = "UNKNOWN";
+
+    private static final String[] GRANULARITIES = {MileageRollup.DAY, MileageRollup.WEEK, MileageRollup.MONTH};
+
+    // Plain JDBC under a savepoint rather than the entity manager: a failed insert must not mark the
+    // schedule's transaction rollback-only
+    private static final String UNIQUE_VIOLATION = "23505";
+
+    private static final String INSERT_ROLLUP = "insert into mileage_rollup (granularity, period_start, dimension,"
+        + " dimension_key, schedules, visits, distance, travel_seconds) values (?, ?, ?, ?, 0, 0, 0, 0)";
+
+    @Autowired
+    private MileageRollupRepository rollupRepository;
+
+    @Autowired
+    private MileageContributionRepository contributionRepository;
+
+    @Autowired
+    private PatientRepository patientRepository;
+
+    @Autowired
+    private AppointmentRepository appointmentRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    // Runs on the schedule transaction's own connection
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /**
+     * Bring the rollups up to date with a schedule that has just been generated or updated
+     */
+    @Transactional
+    public void scheduleSaved(NurseSchedule schedule) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        List<MileageContribution> previous = contributionRepository.findByScheduleId(schedule.getId());
+        List<MileageContribution> current = contributions(schedule);
+
+        // Sorted, so concurrent updates lock the rollup rows in the same order
+        Map<String, Delta> deltas = new TreeMap<>();
+        for (MileageContribution contribution : previous) {
+            delta(deltas, contribution).subtract(contribution);
+        }
+        for (MileageContribution contribution : current) {
+            delta(deltas, contribution).add(contribution);
+        }
+        deltas.values().removeIf(Delta::isZero);
+
+        if (!deltas.isEmpty()) {
+            ensureRollups(deltas.values());
+            for (Delta delta : deltas.values()) {
+                for (String granularity : GRANULARITIES) {
+                    rollupRepository.addTo(granularity, periodStart(granularity, delta.date), delta.dimension,
+                        delta.dimensionKey, delta.schedules, delta.visits, delta.distance, delta.travelSeconds);
+                }
+            }
+            contributionRepository.deleteByScheduleId(schedule.getId());
+            contributionRepository.saveAll(current);
+        }
+        sample.stop(meterRegistry.timer("scheduler.rollup.update"));
+    }
+
+    /**
+     * Rollups of one granularity and dimension for the periods touching from..to, optionally for one key
+     */
+    @Transactional(readOnly = true)
+    public List<MileageRollup> getRollups(String granularity, String dimension, LocalDate from, LocalDate to,
+            String dimensionKey) {
+        return rollupRepository.findReport(granularity, dimension, periodStart(granularity, from),
+            periodStart(granularity, to), dimensionKey);
+    }
+
+    /**
+     * First day of the day, ISO week (Monday) or month containing the date
+     */
+    public static LocalDate periodStart(String granularity, LocalDate date) {
+        switch (granularity) {
+            case MileageRollup.WEEK:
+                return date.with(DayOfWeek.MONDAY);
+            case MileageRollup.MONTH:
+                return date.withDayOfMonth(1);
+            default:
+                return date;
+        }
+    }
+
+    /**
+     * What the schedule adds to each nurse, county and visit type (nothing for a day without visits)
+     */
+    private List<MileageContribution> contributions(NurseSchedule schedule) {
+        List<ScheduledVisit> visits = schedule.getVisits() != null ? schedule.getVisits() : new ArrayList<>();
+        List<MileageContribution> contributions = new ArrayList<>();
+        if (visits.isEmpty() && schedule.getTotalDistance() == 0) {
+            return contributions;
+        }
+        Long scheduleId = schedule.getId();
+        LocalDate date = schedule.getScheduleDate();
+
+        MileageContribution nurse = new MileageContribution(scheduleId, date, MileageRollup.NURSE, schedule.getNurseId());
+        nurse.add(visits.size(), schedule.getTotalDistance(), schedule.getTotalTravelTime() * 60L);
+        contributions.add(nurse);
+        if (visits.isEmpty()) {
+            return contributions;
+        }
+
+        // Counties from the visited patients, visit types from the day's appointments
+        Set<Long> patientIds = new HashSet<>();
+        for (ScheduledVisit visit : visits) {
+            patientIds.add(Long.parseLong(Math.abs(visit.getPatientId().hashCode()) + ""));
+        }
+        Map<Long, String> counties = new HashMap<>();
+        for (Patient patient : patientRepository.findAllById(patientIds)) {
+            counties.put(patient.getId(), patient.getCounty());
+        }
+        Map<String, String> visitTypes = new HashMap<>();
+        for (Appointment appointment : appointmentRepository.findByPractitionerIdAndAppointmentDateBetween(
+                schedule.getNurseId(), date.atStartOfDay(), date.plusDays(1).atStartOfDay())) {
+            visitTypes.put(appointment.getPatientId(), appointment.getVisitType());
+        }
+
+        Map<String, MileageContribution> byCounty = new LinkedHashMap<>();
+        Map<String, MileageContribution> byVisitType = new LinkedHashMap<>();
+        MileageContribution county = null;
+        MileageContribution visitType = null;
+        for (ScheduledVisit visit : visits) {
+            String countyKey = orUnknown(counties.get(Long.parseLong(Math.abs(visit.getPatientId().hashCode()) + "")));
+            String visitTypeKey = orUnknown(visitTypes.get(visit.getPatientId()));
+            county = byCounty.computeIfAbsent(countyKey,
+                key -> new MileageContribution(scheduleId, date, MileageRollup.COUNTY, key));
+            visitType = byVisitType.computeIfAbsent(visitTypeKey,
+                key -> new MileageContribution(scheduleId, date, MileageRollup.VISIT_TYPE, key));
+            county.add(1, visit.getLegDistance(), visit.getLegTravelSeconds());
+            visitType.add(1, visit.getLegDistance(), visit.getLegTravelSeconds());
+        }
+        county.add(0, schedule.getReturnLegDistance(), schedule.getReturnLegTravelSeconds());
+        visitType.add(0, schedule.getReturnLegDistance(), schedule.getReturnLegTravelSeconds());
+        contributions.addAll(byCounty.values());
+        contributions.addAll(byVisitType.values());
+        return contributions;
+    }
+
+    /**
+     * Create any missing rollup rows (at zero) in the schedule's own transaction, so the in-place updates
+     * that follow always find their row
+     * Rows are inserted in key order. When another schedule is inserting the same row, the insert waits
+     * for it to commit, then fails on the unique key and is rolled back to its savepoint; the row is there
+     * either way. Nothing needs a second connection, so saves can't starve the pool waiting on each other.
+     */
+    private void ensureRollups(Iterable<Delta> deltas) {
+        // Sorted, so concurrent saves insert shared rows in the same order
+        Map<String, MileageRollup> missing = new TreeMap<>();
+        Set<LocalDate> periodStarts = new HashSet<>();
+        Set<String> keys = new HashSet<>();
+        for (Delta delta : deltas) {
+            for (String granularity : GRANULARITIES) {
+                LocalDate periodStart = periodStart(granularity, delta.date);
+                missing.put(rollupKey(granularity, periodStart, delta.dimension, delta.dimensionKey),
+                    new MileageRollup(granularity, periodStart, delta.dimension, delta.dimensionKey));
+                periodStarts.add(periodStart);
+            }
+            keys.add(delta.dimensionKey);
+        }
+        for (MileageRollup rollup : rollupRepository.findCandidates(periodStarts, keys)) {
+            missing.remove(rollupKey(rollup.getGranularity(), rollup.getPeriodStart(), rollup.getDimension(),
+                rollup.getDimensionKey()));
+        }
+        if (missing.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+            try (PreparedStatement insert = connection.prepareStatement(INSERT_ROLLUP)) {
+                for (MileageRollup rollup : missing.values()) {
+                    insert.setString(1, rollup.getGranularity());
+                    insert.setObject(2, rollup.getPeriodStart());
+                    insert.setString(3, rollup.getDimension());
+                    insert.setString(4, rollup.getDimensionKey());
+                    Savepoint savepoint = connection.setSavepoint();
+                    try {
+                        insert.executeUpdate();
+                    } catch (SQLException e) {
+                        connection.rollback(savepoint);
+                        if (!UNIQUE_VIOLATION.equals(e.getSQLState())) {
+                            throw e;
+                        }
+                        // Inserted by a concurrent schedule save that has committed since
+                    }
+                    connection.releaseSavepoint(savepoint);
+                }
+            }
+            return null;
+        });
+    }
+
+    private static Delta delta(Map<String, Delta> deltas, MileageContribution contribution) {
+        return deltas.computeIfAbsent(
+            contribution.getScheduleDate() + "|" + contribution.getDimension() + "|" + contribution.getDimensionKey(),
+            key -> new Delta(contribution.getScheduleDate(), contribution.getDimension(), contribution.getDimensionKey()));
+    }
+
+    private static String rollupKey(String granularity, LocalDate periodStart, String dimension, String dimensionKey) {
+        return granularity + "|" + periodStart + "|" + dimension + "|" + dimensionKey;
+    }
+
+    private static String orUnknown(String value) {
+        return value != null && !value.isBlank() ? value : UNKNOWN;
+    }
+
+    /**
+     * Change to apply to one day's rollups for one nurse, county or visit type
+     */
+    private static class Delta {
+        final LocalDate date;
+        final String dimension;
+        final String dimensionKey;
+        long schedules;
+        long visits;
+        double distance;
+        long travelSeconds;
+
+        Delta(LocalDate date, String dimension, String dimensionKey) {
+            this.date = date;
+            this.dimension = dimension;
+            this.dimensionKey = dimensionKey;
+        }
+
+        void add(MileageContribution contribution) {
+            schedules++;
+            visits += contribution.getVisits();
+            distance += contribution.getDistance();
+            travelSeconds += contribution.getTravelSeconds();
+        }
+
+        void subtract(MileageContribution contribution) {
+            schedules--;
+            visits -= contribution.getVisits();
+            distance -= contribution.getDistance();
+            travelSeconds -= contribution.getTravelSeconds();
+        }
+
+        boolean isZero() {
+            return schedules == 0 && visits == 0 && distance == 0 && travelSeconds == 0;
+        }
+    }
+}
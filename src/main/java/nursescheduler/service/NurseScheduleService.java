@@ -2,7 +2,13 @@ package nursescheduler.service;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -10,6 +16,7 @@ import nursescheduler.model.Appointment;
 import nursescheduler.model.Nurse;
 import nursescheduler.model.NurseSchedule;
 import nursescheduler.model.Patient;
+import nursescheduler.model.ScheduledVisit;
 import nursescheduler.repository.AppointmentRepository;
 import nursescheduler.repository.NurseRepository;
 import nursescheduler.repository.NurseScheduleRepository;
@@ -17,8 +24,18 @@ import nursescheduler.repository.PatientRepository;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.LocalTime;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 /**
@@ -28,6 +45,8 @@ import java.util.stream.Collectors;
 @Service
 public class NurseScheduleService {
 
+    private static final Logger log = LoggerFactory.getLogger(NurseScheduleService.class);
+
     @Autowired
     private NurseRepository nurseRepository;
     
@@ -43,23 +62,62 @@ public class NurseScheduleService {
     @Autowired
     private GraphHopperService graphHopperService;
     
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    @Autowired
+    private MileageRollupService mileageRollupService;
+    
+    @Value("${schedule.shift.start:08:00}")
+    private String shiftStart;
+    
+    @Value("${schedule.shift.end:18:00}")
+    private String shiftEnd;
+    
+    // How far a visit may start before or after its appointment time
+    @Value("${schedule.visit.window-minutes:30}")
+    private int visitWindowMinutes;
+    
+    // Improving moves allowed when polishing a route after a single-visit change
+    @Value("${schedule.incremental.max-moves:50}")
+    private int maxLocalSearchMoves;
+    
+    // How many days back to look for a schedule to warm-start the optimizer from (0 disables)
+    @Value("${schedule.warm-start.lookback-days:14}")
+    private int warmStartLookbackDays;
+    
+    // Share of today's patients that must appear in the earlier schedule to use it as a seed
+    @Value("${schedule.warm-start.min-overlap:0.5}")
+    private double warmStartMinOverlap;
+    
+    // Marker for the nurse's home in leg keys
+    private static final String HOME = "";
+    
     private final ObjectMapper objectMapper = new ObjectMapper();
     
+    // Schedule generations and incremental updates currently running
+    private final AtomicInteger activeGenerations = new AtomicInteger();
+    
+    @PostConstruct
+    public void registerMetrics() {
+        meterRegistry.gauge("scheduler.schedule.generations.active", activeGenerations);
+    }
+    
     /**
      * Generate or retrieve a schedule for a nurse on a specific date
      */
     @Transactional
     public NurseSchedule getOrGenerateSchedule(String nurseId, LocalDate date) {
-        System.out.println("Getting or generating schedule for nurse " + nurseId + " on " + date);
+        log.debug("Getting or generating schedule for nurse {} on {}", nurseId, date);
         
         // Check if schedule already exists
         NurseSchedule existingSchedule = nurseScheduleRepository.findByNurseIdAndScheduleDate(nurseId, date);
         if (existingSchedule != null) {
-            System.out.println("Found existing schedule with ID " + existingSchedule.getId());
+            log.debug("Found existing schedule with ID {}", existingSchedule.getId());
             return existingSchedule;
         }
         
-        System.out.println("No existing schedule found, generating new schedule");
+        log.debug("No existing schedule found, generating new schedule");
         // Generate a new schedule
         return generateSchedule(nurseId, date);
     }
@@ -69,7 +127,11 @@ public class NurseScheduleService {
      */
     @Transactional
     public NurseSchedule generateSchedule(String nurseId, LocalDate date) {
-        System.out.println("Generating new schedule for nurse " + nurseId + " on " + date);
+        return timed("generate", () -> generateScheduleUntimed(nurseId, date));
+    }
+    
+    private NurseSchedule generateScheduleUntimed(String nurseId, LocalDate date) {
+        log.debug("Generating new schedule for nurse {} on {}", nurseId, date);
         
         // Find the nurse
         Nurse nurse = null;
@@ -81,35 +143,34 @@ public class NurseScheduleService {
         }
         
         if (nurse == null) {
-            System.err.println("Nurse not found with ID: " + nurseId);
+            log.warn("Nurse not found with ID: {}", nurseId);
             throw new RuntimeException("Nurse not found with ID: " + nurseId);
         }
         
-        System.out.println("Found nurse: " + nurse.getName() + " (ID: " + nurse.getId() + ")");
+        log.debug("Found nurse: {} (ID: {})", nurse.getName(), nurse.getId());
         
         // Find appointments for the nurse on the specified date
         LocalDateTime startOfDay = date.atStartOfDay();
         LocalDateTime endOfDay = date.plusDays(1).atStartOfDay();
         
-        System.out.println("Looking for appointments between " + startOfDay + " and " + endOfDay);
-        System.out.println("Nurse ID for appointment lookup: " + nurseId);
+        log.debug("Looking for appointments between {} and {}", startOfDay, endOfDay);
         
         List<Appointment> appointments = appointmentRepository.findByPractitionerIdAndAppointmentDateBetween(
                 nurseId, startOfDay, endOfDay);
         
-        System.out.println("Found " + appointments.size() + " appointments for nurse on " + date);
+        log.debug("Found {} appointments for nurse on {}", appointments.size(), date);
         
         if (appointments.isEmpty()) {
             // No appointments for this date
-            System.out.println("No appointments found, creating empty schedule");
+            log.debug("No appointments found, creating empty schedule");
             return createEmptySchedule(nurseId, date);
         }
         
         // Display appointment details for debugging
-        for (Appointment appt : appointments) {
-            System.out.println("Appointment: ID=" + appt.getAppointmentId() + 
-                               ", Patient=" + appt.getPatientId() + 
-                               ", Date=" + appt.getAppointmentDate());
+        if (log.isDebugEnabled()) {
+            for (Appointment appt : appointments) {
+                log.debug("Appointment: ID={}, Patient={}, Date={}", appt.getAppointmentId(), appt.getPatientId(), appt.getAppointmentDate());
+            }
         }
         
         // Find patients for these appointments
@@ -117,108 +178,632 @@ public class NurseScheduleService {
                 .map(Appointment::getPatientId)
                 .collect(Collectors.toList());
         
-        System.out.println("Patient IDs from appointments: " + patientIds);
+        log.debug("Patient IDs from appointments: {}", patientIds);
         
         List<Patient> patients = new ArrayList<>();
-        for (String patientId : patientIds) {
+        List<Appointment> patientAppointments = new ArrayList<>();
+        for (Appointment appointment : appointments) {
+            String patientId = appointment.getPatientId();
             Long numericId = Long.parseLong(Math.abs(patientId.hashCode()) + "");
-            System.out.println("Looking for patient with numeric ID " + numericId + 
-                               " (from original ID " + patientId + ")");
+            log.debug("Looking for patient with numeric ID {} (from original ID {})", numericId, patientId);
             
             patientRepository.findById(numericId).ifPresent(patient -> {
-                System.out.println("Found patient: " + patient.getName());
+                log.debug("Found patient {}", patient.getId());
                 patients.add(patient);
+                patientAppointments.add(appointment);
             });
         }
         
-        System.out.println("Found " + patients.size() + " patients out of " + patientIds.size() + " appointments");
+        log.debug("Found {} patients out of {} appointments", patients.size(), patientIds.size());
         
         if (patients.isEmpty()) {
-            System.out.println("No patients found for appointments, creating empty schedule");
+            log.info("No patients found for appointments, creating empty schedule");
             return createEmptySchedule(nurseId, date);
         }
         
         // Build coordinates list for route calculation
         List<double[]> points = new ArrayList<>();
+        List<GraphHopperService.VisitWindow> visits = new ArrayList<>();
+        List<String> routedPatientIds = new ArrayList<>();
+        List<String> unroutedPatientIds = new ArrayList<>();
         
         // Start at nurse's home
         points.add(new double[]{nurse.getLatitude(), nurse.getLongitude()});
-        System.out.println("Added nurse location: " + nurse.getLatitude() + ", " + nurse.getLongitude());
+        log.debug("Added nurse location: {}, {}", nurse.getLatitude(), nurse.getLongitude());
         
         // Add patient locations
-        for (Patient patient : patients) {
+        for (int i = 0; i < patients.size(); i++) {
+            Patient patient = patients.get(i);
             if (patient.getLatitude() != 0 && patient.getLongitude() != 0) {
                 points.add(new double[]{patient.getLatitude(), patient.getLongitude()});
-                System.out.println("Added patient location: " + patient.getLatitude() + ", " + patient.getLongitude());
+                visits.add(buildVisitWindow(patientAppointments.get(i), patient));
+                routedPatientIds.add(patientAppointments.get(i).getPatientId());
+                log.debug("Added patient location: {}, {}", patient.getLatitude(), patient.getLongitude());
             } else {
-                System.out.println("Warning: Patient " + patient.getName() + " has no coordinates");
+                log.warn("Patient {} has no coordinates and is left off the route", patient.getId());
+                unroutedPatientIds.add(patientAppointments.get(i).getPatientId());
             }
         }
-        
+
+        // Nothing to route: don't send GraphHopper a trip from home to home
+        if (routedPatientIds.isEmpty()) {
+            log.warn("None of the {} patients of nurse {} on {} has coordinates; saving an empty schedule",
+                    unroutedPatientIds.size(), nurseId, date);
+            return createEmptySchedule(nurseId, date);
+        }
+
         // End at nurse's home (return to start)
         points.add(new double[]{nurse.getLatitude(), nurse.getLongitude()});
         
         // Calculate optimal route
-        System.out.println("Calculating route with " + points.size() + " points");
+        log.debug("Calculating route with {} points", points.size());
         GraphHopperService.RouteResponse routeResponse;
         try {
-            routeResponse = graphHopperService.calculateRoute(points);
-            System.out.println("Route calculation successful. Distance: " + routeResponse.getDistance() + "m");
+            List<Integer> seedOrder = findSeedOrder(nurseId, date, routedPatientIds);
+            routeResponse = graphHopperService.calculateRoute(points, visits, getShiftStartSeconds(), getShiftEndSeconds(), seedOrder);
+            log.debug("Route calculation successful. Distance: {}m", routeResponse.getDistance());
         } catch (Exception e) {
-            System.err.println("Error calculating route: " + e.getMessage());
-            e.printStackTrace();
+            log.error("Error calculating route for nurse {} on {}", nurseId, date, e);
             // Create a schedule without route data
             return createEmptySchedule(nurseId, date);
         }
         
-        // Create a new schedule entity
-        NurseSchedule schedule = new NurseSchedule();
-        schedule.setNurseId(nurseId);
-        schedule.setScheduleDate(date);
-        schedule.setTotalDistance(routeResponse.getDistance());
+        // Reuse the existing schedule for this day so regeneration never leaves duplicates
+        NurseSchedule schedule = findOrCreateSchedule(nurseId, date);
         
-        // Estimate travel time (assuming 50 km/h average speed)
-        double distanceKm = routeResponse.getDistance() / 1000.0;
-        int travelTimeMinutes = (int) (distanceKm / 50.0 * 60.0);
-        schedule.setTotalTravelTime(travelTimeMinutes);
+        // Store the optimized visit order with per-stop timings
+        List<String> orderedPatientIds = new ArrayList<>();
+        for (GraphHopperService.StopTiming timing : routeResponse.getStopTimings()) {
+            orderedPatientIds.add(routedPatientIds.get(timing.getStopIndex() - 1));
+        }
+        applyRoute(schedule, orderedPatientIds, routeResponse.getStopTimings(), routeResponse.getLegs(), unroutedPatientIds);
         
-        // Set patient visit order
-        schedule.setPatientVisitOrder(patientIds);
+        schedule.setStatus("GENERATED");
+        schedule.setGeneratedDate(LocalDate.now());
         
-        // Convert route coordinates to JSON string
+        // Save and return the schedule
+        NurseSchedule savedSchedule = nurseScheduleRepository.save(schedule);
+        mileageRollupService.scheduleSaved(savedSchedule);
+        log.info("Saved schedule {} for nurse {} on {}: {} stops, {} m", savedSchedule.getId(), nurseId, date,
+                orderedPatientIds.size(), Math.round(routeResponse.getDistance()));
+        return savedSchedule;
+    }
+    
+    /**
+     * Time one schedule operation end to end and count it as active while it runs
+     */
+    private NurseSchedule timed(String operation, Supplier<NurseSchedule> work) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "error";
+        activeGenerations.incrementAndGet();
         try {
-            String routeCoordinatesJson = objectMapper.writeValueAsString(routeResponse.getCoordinates());
-            schedule.setRouteCoordinates(routeCoordinatesJson);
-        } catch (JsonProcessingException e) {
-            System.err.println("Error serializing route coordinates: " + e.getMessage());
-            throw new RuntimeException("Error serializing route coordinates", e);
+            NurseSchedule schedule = work.get();
+            outcome = "success";
+            return schedule;
+        } finally {
+            activeGenerations.decrementAndGet();
+            sample.stop(meterRegistry.timer("scheduler.schedule", "operation", operation, "outcome", outcome));
+        }
+    }
+    
+    /**
+     * Find a starting visit order from the nurse's most recent schedule with the same patients
+     * Patients are matched by ID; today's patients missing from that order are left for the optimizer to place
+     *
+     * @return stop indices (1-based, matching routedPatientIds) in the previous order, or null if no schedule overlaps enough
+     */
+    private List<Integer> findSeedOrder(String nurseId, LocalDate date, List<String> routedPatientIds) {
+        if (warmStartLookbackDays <= 0 || routedPatientIds.isEmpty()) {
+            return null;
         }
         
-        schedule.setStatus("GENERATED");
+        List<NurseSchedule> previousSchedules = nurseScheduleRepository.findByNurseIdAndScheduleDateBetween(
+                nurseId, date.minusDays(warmStartLookbackDays), date.minusDays(1));
+        
+        NurseSchedule best = null;
+        long bestOverlap = 0;
+        for (NurseSchedule previous : previousSchedules) {
+            if (previous.getPatientVisitOrder() == null) {
+                continue;
+            }
+            long overlap = previous.getPatientVisitOrder().stream().distinct().filter(routedPatientIds::contains).count();
+            // Prefer the larger overlap, then the more recent day
+            if (overlap > bestOverlap || (overlap == bestOverlap && best != null
+                    && previous.getScheduleDate().isAfter(best.getScheduleDate()))) {
+                best = previous;
+                bestOverlap = overlap;
+            }
+        }
+        
+        if (best == null || bestOverlap < warmStartMinOverlap * routedPatientIds.size()) {
+            return null;
+        }
+        
+        List<Integer> seedOrder = new ArrayList<>();
+        for (String patientId : best.getPatientVisitOrder()) {
+            int index = routedPatientIds.indexOf(patientId);
+            if (index >= 0 && !seedOrder.contains(index + 1)) {
+                seedOrder.add(index + 1);
+            }
+        }
+        log.debug("Warm-starting route for nurse {} from schedule of {} ({} of {} patients)",
+                nurseId, best.getScheduleDate(), seedOrder.size(), routedPatientIds.size());
+        return seedOrder;
+    }
+    
+    /**
+     * Add a visit to a nurse's day without a full re-solve
+     * Creates (or re-times) the appointment, then places the stop by cheapest insertion
+     */
+    @Transactional
+    public NurseSchedule addVisit(String nurseId, LocalDate date, String patientId, LocalTime time, String visitType) {
+        // A visit that cannot be routed would only end up unassigned, so refuse it up front
+        Patient patient = patientRepository.findById(toPatientKey(patientId))
+                .orElseThrow(() -> new RuntimeException("Patient not found with ID: " + patientId));
+        if (patient.getLatitude() == 0 || patient.getLongitude() == 0) {
+            throw new RuntimeException("Patient " + patientId + " has no coordinates");
+        }
+        
+        Appointment appointment = findAppointment(nurseId, date, patientId);
+        if (appointment == null) {
+            appointment = new Appointment();
+            appointment.setAppointmentId(UUID.randomUUID().toString());
+            appointment.setPatientId(patientId);
+            appointment.setPractitionerId(nurseId);
+            appointment.setVisitType(visitType);
+        }
+        appointment.setAppointmentDate(date.atTime(time != null ? time : LocalTime.parse(shiftStart)));
+        appointmentRepository.save(appointment);
+        
+        return updateRouteIncrementally(nurseId, date, patientId, true);
+    }
+    
+    /**
+     * Cancel a visit and close the gap in the route
+     */
+    @Transactional
+    public NurseSchedule cancelVisit(String nurseId, LocalDate date, String patientId) {
+        Appointment appointment = findAppointment(nurseId, date, patientId);
+        if (appointment == null) {
+            throw new RuntimeException("No appointment for patient " + patientId + " on " + date);
+        }
+        appointmentRepository.delete(appointment);
+        
+        return updateRouteIncrementally(nurseId, date, patientId, false);
+    }
+    
+    /**
+     * Move a visit to a new time and re-place it in the route
+     */
+    @Transactional
+    public NurseSchedule moveVisit(String nurseId, LocalDate date, String patientId, LocalTime time) {
+        Appointment appointment = findAppointment(nurseId, date, patientId);
+        if (appointment == null) {
+            throw new RuntimeException("No appointment for patient " + patientId + " on " + date);
+        }
+        appointment.setAppointmentDate(date.atTime(time));
+        appointmentRepository.save(appointment);
+        
+        return updateRouteIncrementally(nurseId, date, patientId, true);
+    }
+    
+    /**
+     * Re-optimize a stored schedule around one changed patient
+     * The stored order is the starting solution: the changed stop is removed, optionally re-inserted
+     * at its cheapest position, and a short relocate search polishes the order. Only legs between
+     * stop pairs that are not already in the stored route are fetched from GraphHopper.
+     */
+    private NurseSchedule updateRouteIncrementally(String nurseId, LocalDate date, String changedPatientId, boolean insert) {
+        return timed("update", () -> updateRouteIncrementallyUntimed(nurseId, date, changedPatientId, insert));
+    }
+    
+    private NurseSchedule updateRouteIncrementallyUntimed(String nurseId, LocalDate date, String changedPatientId, boolean insert) {
+        NurseSchedule schedule = nurseScheduleRepository.findByNurseIdAndScheduleDate(nurseId, date);
+        
+        // Current appointments define which stops remain and their windows
+        Map<String, Appointment> appointmentsByPatient = new HashMap<>();
+        for (Appointment appointment : appointmentRepository.findByPractitionerIdAndAppointmentDateBetween(
+                nurseId, date.atStartOfDay(), date.plusDays(1).atStartOfDay())) {
+            appointmentsByPatient.putIfAbsent(appointment.getPatientId(), appointment);
+        }
+        
+        // Falls back within the "update" timing; the full generation is not timed a second time
+        if (schedule == null || !canUpdateIncrementally(schedule, appointmentsByPatient.keySet(), changedPatientId)) {
+            return generateScheduleUntimed(nurseId, date);
+        }
+        
+        Nurse nurse = nurseRepository.findById(Long.parseLong(nurseId))
+                .orElseThrow(() -> new RuntimeException("Nurse not found with ID: " + nurseId));
+        double[] home = new double[]{nurse.getLatitude(), nurse.getLongitude()};
+        
+        Set<Long> patientKeys = new HashSet<>();
+        schedule.getPatientVisitOrder().forEach(id -> patientKeys.add(toPatientKey(id)));
+        patientKeys.add(toPatientKey(changedPatientId));
+        Map<Long, Patient> patients = new HashMap<>();
+        patientRepository.findAllById(patientKeys).forEach(patient -> patients.put(patient.getId(), patient));
+        
+        // Start from the stored order without the changed patient
+        List<RouteStop> stops = new ArrayList<>();
+        for (ScheduledVisit visit : schedule.getVisits()) {
+            RouteStop stop = toRouteStop(visit.getPatientId(), appointmentsByPatient, patients);
+            if (stop != null && !visit.getPatientId().equals(changedPatientId)) {
+                stops.add(stop);
+            }
+        }
+        List<String> unroutedPatientIds = new ArrayList<>();
+        for (String patientId : schedule.getPatientVisitOrder().subList(schedule.getVisits().size(), schedule.getPatientVisitOrder().size())) {
+            if (!patientId.equals(changedPatientId) && appointmentsByPatient.containsKey(patientId)) {
+                unroutedPatientIds.add(patientId);
+            }
+        }
+        
+        if (insert) {
+            RouteStop changed = toRouteStop(changedPatientId, appointmentsByPatient, patients);
+            if (changed != null) {
+                insertCheapest(stops, changed, home);
+            } else if (appointmentsByPatient.containsKey(changedPatientId)) {
+                unroutedPatientIds.add(changedPatientId);
+            }
+        }
+        improveOrder(stops, home);
+
+        // Last routed visit gone: as in full generation, don't send GraphHopper a trip from home to home
+        if (stops.isEmpty()) {
+            log.info("No routable visits left for nurse {} on {} ({} without coordinates); saving an empty schedule",
+                    nurseId, date, unroutedPatientIds.size());
+            return createEmptySchedule(nurseId, date);
+        }
+
+        // Reuse stored legs and fetch only new stop pairs
+        Map<String, GraphHopperService.RouteLeg> storedLegs = splitStoredLegs(schedule);
+        List<GraphHopperService.RouteLeg> legs = new ArrayList<>();
+        int fetched = 0;
+        for (int k = 0; k <= stops.size(); k++) {
+            String fromId = k == 0 ? HOME : stops.get(k - 1).patientId;
+            String toId = k == stops.size() ? HOME : stops.get(k).patientId;
+            GraphHopperService.RouteLeg leg = storedLegs.get(legKey(fromId, toId));
+            if (leg == null) {
+                double[] from = k == 0 ? home : stops.get(k - 1).point;
+                double[] to = k == stops.size() ? home : stops.get(k).point;
+                leg = graphHopperService.fetchLeg(k, from, k == stops.size() ? 0 : k + 1, to);
+                fetched++;
+            }
+            legs.add(leg);
+        }
+        
+        List<Integer> stopOrder = new ArrayList<>();
+        List<GraphHopperService.VisitWindow> windows = new ArrayList<>();
+        List<String> orderedPatientIds = new ArrayList<>();
+        for (int k = 0; k < stops.size(); k++) {
+            stopOrder.add(k + 1);
+            windows.add(stops.get(k).window);
+            orderedPatientIds.add(stops.get(k).patientId);
+        }
+        List<GraphHopperService.StopTiming> timings = GraphHopperService.calculateStopTimings(
+                stopOrder, windows, getShiftStartSeconds(), getShiftEndSeconds(), legs);
+        
+        applyRoute(schedule, orderedPatientIds, timings, legs, unroutedPatientIds);
         schedule.setGeneratedDate(LocalDate.now());
         
-        // Save and return the schedule
+        log.info("Incremental update for nurse {} on {}: {} stops, fetched {} of {} legs",
+                nurseId, date, stops.size(), fetched, legs.size());
         NurseSchedule savedSchedule = nurseScheduleRepository.save(schedule);
-        System.out.println("Saved new schedule with ID " + savedSchedule.getId());
+        mileageRollupService.scheduleSaved(savedSchedule);
         return savedSchedule;
     }
     
+    /**
+     * Place a stop where it adds the least estimated cost
+     */
+    private void insertCheapest(List<RouteStop> stops, RouteStop stop, double[] home) {
+        int bestPosition = 0;
+        double bestCost = Double.MAX_VALUE;
+        for (int position = 0; position <= stops.size(); position++) {
+            stops.add(position, stop);
+            double cost = estimateCost(stops, home);
+            stops.remove(position);
+            if (cost < bestCost) {
+                bestCost = cost;
+                bestPosition = position;
+            }
+        }
+        stops.add(bestPosition, stop);
+    }
+    
+    /**
+     * First-improvement relocate search, bounded by schedule.incremental.max-moves
+     */
+    private void improveOrder(List<RouteStop> stops, double[] home) {
+        double bestCost = estimateCost(stops, home);
+        int moves = 0;
+        boolean improved = true;
+        while (improved && moves < maxLocalSearchMoves) {
+            improved = false;
+            search:
+            for (int from = 0; from < stops.size(); from++) {
+                for (int to = 0; to < stops.size(); to++) {
+                    if (from == to) {
+                        continue;
+                    }
+                    RouteStop stop = stops.remove(from);
+                    stops.add(to, stop);
+                    double cost = estimateCost(stops, home);
+                    if (cost < bestCost - 1e-6) {
+                        bestCost = cost;
+                        moves++;
+                        improved = true;
+                        break search;
+                    }
+                    stops.remove(to);
+                    stops.add(from, stop);
+                }
+            }
+        }
+    }
+    
+    /**
+     * Straight-line distance plus a heavy penalty per second of missed window or overtime
+     */
+    private double estimateCost(List<RouteStop> stops, double[] home) {
+        double time = getShiftStartSeconds();
+        double distance = 0;
+        double lateness = 0;
+        double[] previous = home;
+        for (RouteStop stop : stops) {
+            double leg = GraphHopperService.straightLineDistance(previous, stop.point);
+            distance += leg;
+            double start = time + leg / GraphHopperService.AVERAGE_SPEED_MPS;
+            if (stop.window.hasTimeWindow()) {
+                start = Math.max(start, stop.window.getEarliestStart());
+                lateness += Math.max(0, start - stop.window.getLatestStart());
+            }
+            time = start + stop.window.getServiceTime();
+            previous = stop.point;
+        }
+        double leg = GraphHopperService.straightLineDistance(previous, home);
+        distance += leg;
+        lateness += Math.max(0, time + leg / GraphHopperService.AVERAGE_SPEED_MPS - getShiftEndSeconds());
+        return distance + GraphHopperService.LATENESS_PENALTY * lateness;
+    }
+    
+    /**
+     * Cut the stored route geometry back into its legs, keyed by stop pair
+     */
+    private Map<String, GraphHopperService.RouteLeg> splitStoredLegs(NurseSchedule schedule) {
+        Map<String, GraphHopperService.RouteLeg> legs = new HashMap<>();
+        List<double[]> coordinates = parseCoordinates(schedule.getRouteCoordinates());
+        int offset = 0;
+        String previous = HOME;
+        for (ScheduledVisit visit : schedule.getVisits()) {
+            int end = Math.min(coordinates.size(), offset + visit.getLegPointCount());
+            legs.put(legKey(previous, visit.getPatientId()), new GraphHopperService.RouteLeg(0, 0,
+                    visit.getLegDistance(), visit.getLegTravelSeconds(), new ArrayList<>(coordinates.subList(offset, end))));
+            offset = end;
+            previous = visit.getPatientId();
+        }
+        if (!schedule.getVisits().isEmpty()) {
+            legs.put(legKey(previous, HOME), new GraphHopperService.RouteLeg(0, 0, schedule.getReturnLegDistance(),
+                    schedule.getReturnLegTravelSeconds(), new ArrayList<>(coordinates.subList(offset, coordinates.size()))));
+        }
+        return legs;
+    }
+    
+    /**
+     * Whether a stored schedule can be the starting point of an incremental update
+     * Empty schedules, schedules saved before per-leg point counts were recorded (their legs cannot be
+     * split) and schedules missing one of the day's other appointments are regenerated instead, since
+     * the update only moves the changed patient.
+     */
+    private boolean canUpdateIncrementally(NurseSchedule schedule, Set<String> appointedPatientIds, String changedPatientId) {
+        if (schedule.getVisits() == null || schedule.getPatientVisitOrder() == null || schedule.getVisits().isEmpty()) {
+            return false;
+        }
+        if (schedule.getVisits().stream().noneMatch(visit -> visit.getLegPointCount() > 0)) {
+            return false;
+        }
+        Set<String> scheduledPatientIds = new HashSet<>(schedule.getPatientVisitOrder());
+        for (String patientId : appointedPatientIds) {
+            if (!patientId.equals(changedPatientId) && !scheduledPatientIds.contains(patientId)) {
+                log.debug("Schedule {} is missing patient {}, regenerating", schedule.getId(), patientId);
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    List<double[]> parseCoordinates(String routeCoordinates) {
+        if (routeCoordinates == null || routeCoordinates.isEmpty()) {
+            return new ArrayList<>();
+        }
+        try {
+            return new ArrayList<>(Arrays.asList(objectMapper.readValue(routeCoordinates, double[][].class)));
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Error parsing stored route coordinates", e);
+        }
+    }
+    
+    private RouteStop toRouteStop(String patientId, Map<String, Appointment> appointmentsByPatient, Map<Long, Patient> patients) {
+        Appointment appointment = appointmentsByPatient.get(patientId);
+        Patient patient = patients.get(toPatientKey(patientId));
+        if (appointment == null || patient == null || patient.getLatitude() == 0 || patient.getLongitude() == 0) {
+            return null;
+        }
+        return new RouteStop(patientId, new double[]{patient.getLatitude(), patient.getLongitude()},
+                buildVisitWindow(appointment, patient));
+    }
+    
+    private Appointment findAppointment(String nurseId, LocalDate date, String patientId) {
+        return appointmentRepository.findByPractitionerIdAndAppointmentDateBetween(
+                nurseId, date.atStartOfDay(), date.plusDays(1).atStartOfDay()).stream()
+                .filter(appointment -> patientId.equals(appointment.getPatientId()))
+                .findFirst()
+                .orElse(null);
+    }
+    
+    private static String legKey(String fromPatientId, String toPatientId) {
+        return fromPatientId + "->" + toPatientId;
+    }
+    
+    private static Long toPatientKey(String patientId) {
+        return Long.parseLong(Math.abs(patientId.hashCode()) + "");
+    }
+    
+    /**
+     * A routable stop during incremental re-optimization
+     */
+    private static class RouteStop {
+        private final String patientId;
+        private final double[] point;
+        private final GraphHopperService.VisitWindow window;
+        
+        RouteStop(String patientId, double[] point, GraphHopperService.VisitWindow window) {
+            this.patientId = patientId;
+            this.point = point;
+            this.window = window;
+        }
+    }
+    
+    /**
+     * Write a solved route onto a schedule: visit order, per-stop timings, leg breakdown and geometry
+     *
+     * @param orderedPatientIds Routed patients in visit order, aligned with stopTimings
+     * @param legs One leg into each stop plus the final leg home
+     * @param unroutedPatientIds Patients without coordinates, kept at the end of the visit order
+     */
+    private void applyRoute(NurseSchedule schedule, List<String> orderedPatientIds,
+            List<GraphHopperService.StopTiming> stopTimings, List<GraphHopperService.RouteLeg> legs,
+            List<String> unroutedPatientIds) {
+        List<String> visitOrder = new ArrayList<>(orderedPatientIds);
+        List<ScheduledVisit> scheduledVisits = new ArrayList<>();
+        List<double[]> coordinates = new ArrayList<>();
+        double totalDistance = 0;
+        double totalSeconds = 0;
+        
+        for (int k = 0; k < legs.size(); k++) {
+            GraphHopperService.RouteLeg leg = legs.get(k);
+            coordinates.addAll(leg.getCoordinates());
+            totalDistance += leg.getDistance();
+            totalSeconds += leg.getTime();
+            
+            if (k < stopTimings.size()) {
+                scheduledVisits.add(toScheduledVisit(orderedPatientIds.get(k), stopTimings.get(k), leg));
+            } else {
+                schedule.setReturnLegDistance(leg.getDistance());
+                schedule.setReturnLegTravelSeconds((int) Math.round(leg.getTime()));
+            }
+        }
+        
+        // Patients without coordinates cannot be routed; keep them at the end of the order
+        visitOrder.addAll(unroutedPatientIds);
+        schedule.setPatientVisitOrder(visitOrder);
+        schedule.setVisits(scheduledVisits);
+        schedule.setTotalDistance(totalDistance);
+        
+        // Driving time as reported by the road legs
+        schedule.setTotalTravelTime((int) Math.round(totalSeconds / 60.0));
+        
+        schedule.setRouteCoordinates(writeCoordinates(coordinates));
+    }
+    
+    /**
+     * Route geometry as the stored JSON array of [lat, lon] pairs
+     */
+    String writeCoordinates(List<double[]> coordinates) {
+        try {
+            return objectMapper.writeValueAsString(coordinates);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Error serializing route coordinates", e);
+        }
+    }
+    
+    /**
+     * Load the schedule for a nurse and day, or start a new one
+     */
+    private NurseSchedule findOrCreateSchedule(String nurseId, LocalDate date) {
+        NurseSchedule schedule = nurseScheduleRepository.findByNurseIdAndScheduleDate(nurseId, date);
+        if (schedule == null) {
+            schedule = new NurseSchedule();
+            schedule.setNurseId(nurseId);
+            schedule.setScheduleDate(date);
+        }
+        return schedule;
+    }
+    
+    /**
+     * Build the time window for a visit around its appointment time
+     * The window is widened to the shift start if the appointment is earlier than the shift
+     */
+    public GraphHopperService.VisitWindow buildVisitWindow(Appointment appointment, Patient patient) {
+        double serviceTime = Math.max(patient.getDuration(), 0) * 60.0;
+        if (appointment.getAppointmentDate() == null) {
+            return new GraphHopperService.VisitWindow(0, Double.MAX_VALUE, serviceTime);
+        }
+        
+        double appointmentTime = toSecondOfDay(appointment.getAppointmentDate().toLocalTime());
+        double tolerance = visitWindowMinutes * 60.0;
+        double earliest = Math.max(0, appointmentTime - tolerance);
+        double latest = Math.max(appointmentTime + tolerance, getShiftStartSeconds());
+        return new GraphHopperService.VisitWindow(earliest, latest, serviceTime);
+    }
+    
+    /**
+     * Configured shift start, in seconds since midnight
+     */
+    public double getShiftStartSeconds() {
+        return toSecondOfDay(LocalTime.parse(shiftStart));
+    }
+    
+    /**
+     * Configured shift end, in seconds since midnight
+     */
+    public double getShiftEndSeconds() {
+        return toSecondOfDay(LocalTime.parse(shiftEnd));
+    }
+    
+    private static double toSecondOfDay(LocalTime time) {
+        return time.toSecondOfDay();
+    }
+    
+    /**
+     * Convert solver seconds-since-midnight to a time of day (clamped to the same day)
+     */
+    static LocalTime toLocalTime(double secondOfDay) {
+        long seconds = Math.round(secondOfDay);
+        return LocalTime.ofSecondOfDay(Math.max(0, Math.min(seconds, LocalTime.MAX.toSecondOfDay())));
+    }
+    
+    private static ScheduledVisit toScheduledVisit(String patientId, GraphHopperService.StopTiming timing,
+            GraphHopperService.RouteLeg leg) {
+        ScheduledVisit visit = new ScheduledVisit();
+        visit.setPatientId(patientId);
+        visit.setArrivalTime(toLocalTime(timing.getArrivalTime()));
+        visit.setStartTime(toLocalTime(timing.getStartTime()));
+        visit.setDepartureTime(toLocalTime(timing.getDepartureTime()));
+        visit.setSlackMinutes((int) Math.floor(timing.getSlack() / 60.0));
+        visit.setLegDistance(leg.getDistance());
+        visit.setLegTravelSeconds((int) Math.round(leg.getTime()));
+        visit.setLegPointCount(leg.getCoordinates().size());
+        return visit;
+    }
+    
     /**
      * Create an empty schedule when no appointments are found
      */
     private NurseSchedule createEmptySchedule(String nurseId, LocalDate date) {
-        NurseSchedule schedule = new NurseSchedule();
-        schedule.setNurseId(nurseId);
-        schedule.setScheduleDate(date);
+        NurseSchedule schedule = findOrCreateSchedule(nurseId, date);
         schedule.setTotalDistance(0);
         schedule.setTotalTravelTime(0);
         schedule.setPatientVisitOrder(new ArrayList<>());
+        schedule.setVisits(new ArrayList<>());
+        schedule.setReturnLegDistance(0);
+        schedule.setReturnLegTravelSeconds(0);
         schedule.setRouteCoordinates("[]");
         schedule.setStatus("EMPTY");
         schedule.setGeneratedDate(LocalDate.now());
         
         NurseSchedule savedSchedule = nurseScheduleRepository.save(schedule);
-        System.out.println("Saved empty schedule with ID " + savedSchedule.getId());
+        mileageRollupService.scheduleSaved(savedSchedule);
+        log.info("Saved empty schedule {} for nurse {} on {}", savedSchedule.getId(), nurseId, date);
         return savedSchedule;
     }
     
@@ -236,6 +821,24 @@ public class NurseScheduleService {
         return nurseScheduleRepository.findByScheduleDate(date);
     }
     
+    /**
+     * Find the stored schedules of several nurses for a date, with visit order and visits loaded
+     * A few queries however many nurses (the collections are batch fetched); nurses without a schedule
+     * are simply absent from the result.
+     */
+    @Transactional(readOnly = true)
+    public List<NurseSchedule> getSchedulesForDate(LocalDate date, Collection<String> nurseIds) {
+        if (nurseIds.isEmpty()) {
+            return new ArrayList<>();
+        }
+        List<NurseSchedule> schedules = nurseScheduleRepository.findByScheduleDateAndNurseIdIn(date, nurseIds);
+        for (NurseSchedule schedule : schedules) {
+            schedule.getPatientVisitOrder().size();
+            schedule.getVisits().size();
+        }
+        return schedules;
+    }
+    
     /**
      * Update the status of a schedule
      */
@@ -253,17 +856,16 @@ public class NurseScheduleService {
      */
     @Transactional
     public void generateSchedulesForAllNurses(LocalDate date) {
-        System.out.println("Generating schedules for all nurses on " + date);
+        log.info("Generating schedules for all nurses on {}", date);
         List<Nurse> nurses = nurseRepository.findAll();
         
         for (Nurse nurse : nurses) {
             try {
                 String nurseId = String.valueOf(nurse.getId());
                 NurseSchedule schedule = generateSchedule(nurseId, date);
-                System.out.println("Generated schedule for nurse " + nurse.getName() + " with " + 
-                                  schedule.getPatientVisitOrder().size() + " patients");
+                log.debug("Generated schedule for nurse {} with {} patients", nurse.getId(), schedule.getPatientVisitOrder().size());
             } catch (Exception e) {
-                System.err.println("Error generating schedule for nurse " + nurse.getName() + ": " + e.getMessage());
+                log.warn("Error generating schedule for nurse {}: {}", nurse.getId(), e.getMessage());
             }
         }
     }
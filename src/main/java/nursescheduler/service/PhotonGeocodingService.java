@@ -1,5 +1,10 @@
 package nursescheduler.service;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
@@ -17,12 +22,17 @@ import java.util.Map;
 @Service
 public class PhotonGeocodingService {
 
+    private static final Logger log = LoggerFactory.getLogger(PhotonGeocodingService.class);
+
     @Value("${geocoding.photon.url:http://localhost:2322}")
     private String photonUrl;
 
     @Value("${geocoding.photon.limit:5}")
     private int limit;
 
+    @Autowired
+    private MeterRegistry meterRegistry;
+
     private final RestTemplate restTemplate = new RestTemplate();
     
     // Cache for previously geocoded addresses to improve performance
@@ -37,9 +47,13 @@ public class PhotonGeocodingService {
     public GeocodingResult geocodeAddress(String address) {
         // Check cache first
         if (geocodeCache.containsKey(address)) {
+            meterRegistry.counter("scheduler.photon.cache", "result", "hit").increment();
             return geocodeCache.get(address);
         }
+        meterRegistry.counter("scheduler.photon.cache", "result", "miss").increment();
         
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "not_found";
         try {
             String url = String.format("%s/api?q=%s&limit=%d", 
                     photonUrl, 
@@ -70,14 +84,18 @@ public class PhotonGeocodingService {
                     // Cache the result
                     geocodeCache.put(address, result);
                     
+                    outcome = "found";
                     return result;
                 }
             }
             
             return null;
         } catch (Exception e) {
-            System.err.println("Geocoding error: " + e.getMessage());
+            outcome = "error";
+            log.warn("Geocoding error: {}", e.getMessage());
             return null;
+        } finally {
+            sample.stop(meterRegistry.timer("scheduler.photon.request", "operation", "geocode", "outcome", outcome));
         }
     }
     
@@ -89,6 +107,8 @@ public class PhotonGeocodingService {
      * @return String representation of the address or null if not found
      */
     public GeocodingResult reverseGeocode(double latitude, double longitude) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "not_found";
         try {
             String url = String.format("%s/reverse?lat=%f&lon=%f", 
                     photonUrl, 
@@ -108,14 +128,18 @@ public class PhotonGeocodingService {
                     // Construct formatted address from properties
                     String formattedAddress = constructFormattedAddress(properties);
                     
+                    outcome = "found";
                     return new GeocodingResult(latitude, longitude, formattedAddress);
                 }
             }
             
             return null;
         } catch (Exception e) {
-            System.err.println("Reverse geocoding error: " + e.getMessage());
+            outcome = "error";
+            log.warn("Reverse geocoding error: {}", e.getMessage());
             return null;
+        } finally {
+            sample.stop(meterRegistry.timer("scheduler.photon.request", "operation", "reverse", "outcome", outcome));
         }
     }
     
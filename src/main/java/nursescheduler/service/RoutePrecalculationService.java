@@ -1,93 +1,278 @@
 package nursescheduler.service;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import nursescheduler.model.Appointment;
 import nursescheduler.model.Nurse;
 import nursescheduler.model.Patient;
+import nursescheduler.repository.AppointmentRepository;
 import nursescheduler.repository.NurseRepository;
 import nursescheduler.repository.PatientRepository;
 
+/**
+ * Background warm-up of each nurse's route for today
+ * Starts once the application is ready so a slow or unavailable GraphHopper never blocks startup
+ */
 @Service
 public class RoutePrecalculationService {
 
+    private static final Logger log = LoggerFactory.getLogger(RoutePrecalculationService.class);
+
     @Autowired
     private NurseRepository nurseRepository;
 
     @Autowired
     private PatientRepository patientRepository;
 
+    @Autowired
+    private AppointmentRepository appointmentRepository;
+
     @Autowired
     private GraphHopperService graphHopperService;
 
-    private final Map<String, GraphHopperService.RouteResponse> routeCache = new HashMap<>();
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private DataVersionService dataVersionService;
+
+    @Value("${routing.precalculation.enabled:true}")
+    private boolean enabled;
+
+    @Value("${routing.precalculation.threads:4}")
+    private int threadCount;
+
+    // Routes of the last run only, by nurse; each is dropped once the nurse's schedule for its day, or the
+    // patients and appointments it was built from, change
+    private final Map<String, CachedRoute> routeCache = new ConcurrentHashMap<>();
+
+    private final AtomicInteger totalNurses = new AtomicInteger(0);
+    private final AtomicInteger completedNurses = new AtomicInteger(0);
+    private final AtomicInteger failedNurses = new AtomicInteger(0);
+    private volatile String state = "IDLE";
+
+    private ExecutorService executor;
 
     @PostConstruct
-    public void precalculateRoutes() {
+    public void registerMetrics() {
+        meterRegistry.gauge("scheduler.precalculation.routes", routeCache, Map::size);
+        meterRegistry.gauge("scheduler.precalculation.pending", this,
+            service -> service.totalNurses.get() - service.completedNurses.get());
+    }
+
+    /**
+     * Kick off precalculation after startup (DataInitializer has run by now)
+     * Returns immediately; routes are calculated on a bounded worker pool
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void startPrecalculation() {
+        if (!enabled) {
+            state = "DISABLED";
+            return;
+        }
+        precalculateRoutes();
+    }
+
+    /**
+     * Calculate today's route for every field nurse in the background
+     *
+     * @return future that completes when all nurses have been processed
+     */
+    public synchronized CompletableFuture<Void> precalculateRoutes() {
+        if ("RUNNING".equals(state)) {
+            return CompletableFuture.completedFuture(null);
+        }
+
+        if (executor == null) {
+            executor = Executors.newFixedThreadPool(Math.max(1, threadCount), runnable -> {
+                Thread thread = new Thread(runnable, "route-precalc");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+
+        state = "RUNNING";
+        routeCache.clear();
+        completedNurses.set(0);
+        failedNurses.set(0);
+        Timer.Sample runSample = Timer.start(meterRegistry);
+
+        List<Nurse> nurses;
         try {
-            // Get all nurses from the database
-            List<Nurse> nurses = nurseRepository.findAll();
-            
-            // List to store nurses with missing coordinates
-            List<String> nursesMissingCoords = new ArrayList<>();
-
-            // For each nurse, calculate a route for their patients
-            for (Nurse nurse : nurses) {
-                String nurseId = String.valueOf(nurse.getId());
-                String nurseName = nurse.getName();
-                
-                // Check if nurse has coordinates
-                if (nurse.getLatitude() == 0 || nurse.getLongitude() == 0) {
-                    nursesMissingCoords.add("Nurse ID: " + nurseId + ", Name: " + nurseName);
-                    continue; // Skip this nurse if coordinates are missing
-                }
-                
-                // Get all patients (in a real app, you would filter by assigned patients)
-                List<Patient> patients = patientRepository.findAll();
-                
-                // Build coordinate list: [nurse, patients, nurse]
-                List<double[]> points = new ArrayList<>();
-                points.add(new double[]{nurse.getLatitude(), nurse.getLongitude()});
-                
-                for (Patient patient : patients) {
-                    if (patient.getLatitude() != 0 && patient.getLongitude() != 0) {
-                        points.add(new double[]{patient.getLatitude(), patient.getLongitude()});
-                    }
-                }
-                
-                // Add nurse's location again as the end point
-                if (!patients.isEmpty()) {
-                    points.add(new double[]{nurse.getLatitude(), nurse.getLongitude()});
-                }
-                
-                // Calculate route if there are patients
-                if (points.size() > 1) {
-                    GraphHopperService.RouteResponse route = graphHopperService.calculateRoute(points);
-                    routeCache.put(nurseId, route);
+            nurses = nurseRepository.findAll();
+        } catch (Exception e) {
+            log.warn("Route precalculation could not load nurses: {}", e.getMessage());
+            state = "FAILED";
+            return CompletableFuture.completedFuture(null);
+        }
+
+        // List to store nurses with missing coordinates
+        List<String> nursesMissingCoords = Collections.synchronizedList(new ArrayList<>());
+        LocalDate today = LocalDate.now();
+
+        totalNurses.set(nurses.size());
+        List<CompletableFuture<Void>> tasks = new ArrayList<>();
+        for (Nurse nurse : nurses) {
+            tasks.add(CompletableFuture.runAsync(() -> {
+                try {
+                    precalculateRoute(nurse, today, nursesMissingCoords);
+                } catch (Exception e) {
+                    failedNurses.incrementAndGet();
+                    meterRegistry.counter("scheduler.precalculation.failures").increment();
+                    log.warn("Failed to precalculate route for nurse {}: {}", nurse.getId(), e.getMessage());
+                } finally {
+                    completedNurses.incrementAndGet();
                 }
-            }
-            
-            // Log nurses with missing coordinates
-            if (!nursesMissingCoords.isEmpty()) {
-                System.out.println("Nurses with missing coordinates:");
-                for (String nurseInfo : nursesMissingCoords) {
-                    System.out.println(nurseInfo);
+            }, executor));
+        }
+
+        return CompletableFuture.allOf(tasks.toArray(new CompletableFuture<?>[0]))
+            .whenComplete((result, error) -> {
+                // Log nurses with missing coordinates
+                if (!nursesMissingCoords.isEmpty()) {
+                    log.warn("Nurses with missing coordinates: {}", nursesMissingCoords);
                 }
-            } else {
-                System.out.println("All nurses have valid coordinates.");
+                log.info("Route precalculation finished: {} routes cached, {} failures", routeCache.size(), failedNurses.get());
+                runSample.stop(meterRegistry.timer("scheduler.precalculation"));
+                state = "READY";
+            });
+    }
+
+    /**
+     * Route a single nurse through the patients on their own appointments for the given day
+     */
+    private void precalculateRoute(Nurse nurse, LocalDate date, List<String> nursesMissingCoords) {
+        String nurseId = String.valueOf(nurse.getId());
+
+        // Office staff have no visits to route
+        if (Boolean.FALSE.equals(nurse.getFieldStaff())) {
+            return;
+        }
+
+        // Check if nurse has coordinates
+        if (nurse.getLatitude() == null || nurse.getLongitude() == null
+                || nurse.getLatitude() == 0 || nurse.getLongitude() == 0) {
+            nursesMissingCoords.add("Nurse ID: " + nurseId + ", Name: " + nurse.getName());
+            return;
+        }
+
+        LocalDateTime startOfDay = date.atStartOfDay();
+        LocalDateTime endOfDay = date.plusDays(1).atStartOfDay();
+        List<Appointment> appointments = appointmentRepository.findByPractitionerIdAndAppointmentDateBetween(
+                nurseId, startOfDay, endOfDay);
+
+        if (appointments.isEmpty()) {
+            return;
+        }
+
+        // Load all of the nurse's patients in one query
+        List<Long> patientIds = appointments.stream()
+            .map(appointment -> Long.parseLong(Math.abs(appointment.getPatientId().hashCode()) + ""))
+            .distinct()
+            .collect(Collectors.toList());
+        List<Patient> patients = patientRepository.findAllById(patientIds);
+
+        // Build coordinate list: [nurse, patients, nurse]
+        List<double[]> points = new ArrayList<>();
+        points.add(new double[]{nurse.getLatitude(), nurse.getLongitude()});
+
+        for (Patient patient : patients) {
+            if (patient.getLatitude() != 0 && patient.getLongitude() != 0) {
+                points.add(new double[]{patient.getLatitude(), patient.getLongitude()});
             }
-            
-        } catch (Exception e) {
-            throw new RuntimeException("Failed to precalculate routes: " + e.getMessage(), e);
+        }
+
+        // Calculate route if there are patients
+        if (points.size() > 1) {
+            points.add(new double[]{nurse.getLatitude(), nurse.getLongitude()});
+            String version = routeVersion(nurseId, date);
+            GraphHopperService.RouteResponse route = graphHopperService.calculateRoute(points);
+            routeCache.put(nurseId, new CachedRoute(route, date, version));
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (executor != null) {
+            executor.shutdownNow();
         }
     }
 
     public GraphHopperService.RouteResponse getRoute(String workerId) {
-        return routeCache.get(workerId);
+        CachedRoute cached = routeCache.get(workerId);
+        if (cached == null) {
+            return null;
+        }
+        if (!cached.version.equals(routeVersion(workerId, cached.date))) {
+            routeCache.remove(workerId, cached);
+            return null;
+        }
+        return cached.route;
     }
 
     public Map<String, GraphHopperService.RouteResponse> getAllRoutes() {
-        return new HashMap<>(routeCache);
+        Map<String, GraphHopperService.RouteResponse> routes = new HashMap<>();
+        for (String workerId : new ArrayList<>(routeCache.keySet())) {
+            GraphHopperService.RouteResponse route = getRoute(workerId);
+            if (route != null) {
+                routes.put(workerId, route);
+            }
+        }
+        return routes;
+    }
+
+    public boolean isReady() {
+        return "READY".equals(state);
+    }
+
+    /**
+     * Snapshot of the precalculation progress
+     */
+    public Map<String, Object> getStatus() {
+        Map<String, Object> status = new HashMap<>();
+        status.put("state", state);
+        status.put("ready", isReady());
+        status.put("totalNurses", totalNurses.get());
+        status.put("completedNurses", completedNurses.get());
+        status.put("failedNurses", failedNurses.get());
+        status.put("cachedRoutes", routeCache.size());
+        return status;
+    }
+
+    private String routeVersion(String nurseId, LocalDate date) {
+        return dataVersionService.scheduleVersion(nurseId, date) + "-" + dataVersionService.patientsVersion(true);
+    }
+
+    /**
+     * A precalculated route and the version of the data it was calculated from
+     */
+    private static class CachedRoute {
+        final GraphHopperService.RouteResponse route;
+        final LocalDate date;
+        final String version;
+
+        CachedRoute(GraphHopperService.RouteResponse route, LocalDate date, String version) {
+            this.route = route;
+            this.date = date;
+            this.version = version;
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,35 @@
+package nursescheduler.service;
+
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Component;
+
+import nursescheduler.model.NurseSchedule;
+
+import java.time.LocalDate;
+import java.util.HashSet;
+
+/**
+ * JPA entity listener that tells the vector tile service when a day's schedules change
+ * Inside a transaction the tiles are invalidated once it commits; invalidating earlier would let a tile
+ * drawn from the old, still committed routes be cached again before the change becomes visible.
+ */
+@Component
+public class ScheduleChangeListener {
+
+    @Autowired
+    @Lazy
+    private VectorTileService vectorTileService;
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    public void afterChange(NurseSchedule schedule) {
+        LocalDate date = schedule.getScheduleDate();
+        AfterCommit.record(this, HashSet<LocalDate>::new, dates -> dates.add(date),
+            dates -> dates.forEach(vectorTileService::invalidate));
+    }
+}
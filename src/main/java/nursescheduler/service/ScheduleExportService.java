@@ -0,0 +1,260 @@
+package nursescheduler.service;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import nursescheduler.model.Nurse;
+import nursescheduler.model.NurseSchedule;
+import nursescheduler.model.ScheduledVisit;
+import nursescheduler.repository.NurseRepository;
+import nursescheduler.repository.NurseScheduleRepository;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Streams stored schedules out as NDJSON or CSV (payroll mileage, EVV reconciliation)
+ * Schedules are read a page at a time with a keyset cursor and the persistence context is cleared after
+ * each page, so memory use does not grow with the size of the export.
+ */
+@Service
+public class ScheduleExportService {
+
+    private static final JsonFactory JSON = new JsonFactory();
+
+    private static final String CSV_HEADER = "schedule_id,nurse_id,nurse_name,date,status,visits,"
+        + "total_distance_m,travel_time_min,return_leg_distance_m,return_leg_travel_s,generated_date";
+
+    @Autowired
+    private NurseScheduleRepository nurseScheduleRepository;
+
+    @Autowired
+    private NurseRepository nurseRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final TransactionTemplate readOnly;
+
+    @Value("${schedule.export.page-size:200}")
+    private int pageSize;
+
+    public ScheduleExportService(PlatformTransactionManager transactionManager) {
+        this.readOnly = new TransactionTemplate(transactionManager);
+        this.readOnly.setReadOnly(true);
+    }
+
+    /**
+     * Write one JSON object per schedule and line, with its visits (and route geometry when asked for),
+     * followed by a last line holding the totals: {"totals": {"schedules": n, "visits": n, ...}}
+     */
+    public void writeNdjson(OutputStream out, LocalDate from, LocalDate to, String nurseId, boolean includeRoute)
+            throws IOException {
+        long schedules = 0;
+        long visits = 0;
+        double distance = 0;
+        long travelTime = 0;
+        try (JsonGenerator gen = JSON.createGenerator(out)) {
+            gen.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            gen.setRootValueSeparator(null);
+            ExportPage page = null;
+            while ((page = nextPage(from, to, nurseId, page)) != null) {
+                for (NurseSchedule schedule : page.schedules) {
+                    writeJson(gen, schedule, page.nurseNames.get(schedule.getNurseId()), includeRoute);
+                    gen.writeRaw('\n');
+                    schedules++;
+                    visits += visitCount(schedule);
+                    distance += schedule.getTotalDistance();
+                    travelTime += schedule.getTotalTravelTime();
+                }
+                gen.flush();
+            }
+            gen.writeStartObject();
+            gen.writeObjectFieldStart("totals");
+            gen.writeNumberField("schedules", schedules);
+            gen.writeNumberField("visits", visits);
+            gen.writeNumberField("totalDistance", distance);
+            gen.writeNumberField("travelTime", travelTime);
+            gen.writeEndObject();
+            gen.writeEndObject();
+            gen.writeRaw('\n');
+        }
+        meterRegistry.counter("scheduler.export.schedules", "format", "ndjson").increment(schedules);
+    }
+
+    /**
+     * Write one CSV row per schedule with its totals (distances in meters, travel time in minutes)
+     */
+    public void writeCsv(OutputStream out, LocalDate from, LocalDate to, String nurseId) throws IOException {
+        long schedules = 0;
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        writer.write(CSV_HEADER);
+        writer.write("\r\n");
+        ExportPage page = null;
+        while ((page = nextPage(from, to, nurseId, page)) != null) {
+            for (NurseSchedule schedule : page.schedules) {
+                writer.write(String.valueOf(schedule.getId()));
+                writer.write(',');
+                writer.write(csv(schedule.getNurseId()));
+                writer.write(',');
+                writer.write(csv(page.nurseNames.get(schedule.getNurseId())));
+                writer.write(',');
+                writer.write(String.valueOf(schedule.getScheduleDate()));
+                writer.write(',');
+                writer.write(csv(schedule.getStatus()));
+                writer.write(',');
+                writer.write(String.valueOf(visitCount(schedule)));
+                writer.write(',');
+                writer.write(String.valueOf(schedule.getTotalDistance()));
+                writer.write(',');
+                writer.write(String.valueOf(schedule.getTotalTravelTime()));
+                writer.write(',');
+                writer.write(String.valueOf(schedule.getReturnLegDistance()));
+                writer.write(',');
+                writer.write(String.valueOf(schedule.getReturnLegTravelSeconds()));
+                writer.write(',');
+                writer.write(schedule.getGeneratedDate() != null ? schedule.getGeneratedDate().toString() : "");
+                writer.write("\r\n");
+                schedules++;
+            }
+            writer.flush();
+        }
+        writer.flush();
+        meterRegistry.counter("scheduler.export.schedules", "format", "csv").increment(schedules);
+    }
+
+    /**
+     * Read the page after the given one (null for the first) with its visits and nurse names, in three
+     * queries (visits are batch fetched); null once there are no more schedules
+     */
+    private ExportPage nextPage(LocalDate from, LocalDate to, String nurseId, ExportPage previous) {
+        if (previous != null && previous.schedules.size() < pageSize) {
+            return null;
+        }
+        NurseSchedule last = previous != null ? previous.schedules.get(previous.schedules.size() - 1) : null;
+        return readOnly.execute(status -> {
+            List<NurseSchedule> schedules = nurseScheduleRepository.findPage(from, to, nurseId,
+                last != null ? last.getScheduleDate() : null, last != null ? last.getId() : null,
+                PageRequest.of(0, pageSize));
+            if (schedules.isEmpty()) {
+                return null;
+            }
+
+            Set<Long> nurseIds = new HashSet<>();
+            for (NurseSchedule schedule : schedules) {
+                // Batch fetched for the whole page by the first call
+                schedule.getVisits().size();
+                try {
+                    nurseIds.add(Long.parseLong(schedule.getNurseId()));
+                } catch (NumberFormatException e) {
+                    // Not a nurse entity ID; exported without a name
+                }
+            }
+            Map<String, String> nurseNames = new HashMap<>();
+            for (Nurse nurse : nurseRepository.findAllById(nurseIds)) {
+                nurseNames.put(String.valueOf(nurse.getId()), nurse.getName());
+            }
+
+            // The page is written from detached copies; nothing of it stays in the persistence context
+            // (which lives as long as the request when open-in-view is on)
+            entityManager.clear();
+            return new ExportPage(schedules, nurseNames);
+        });
+    }
+
+    private void writeJson(JsonGenerator gen, NurseSchedule schedule, String nurseName, boolean includeRoute)
+            throws IOException {
+        gen.writeStartObject();
+        gen.writeNumberField("scheduleId", schedule.getId());
+        gen.writeStringField("nurseId", schedule.getNurseId());
+        if (nurseName != null) {
+            gen.writeStringField("nurseName", nurseName);
+        }
+        gen.writeStringField("date", String.valueOf(schedule.getScheduleDate()));
+        if (schedule.getStatus() != null) {
+            gen.writeStringField("status", schedule.getStatus());
+        }
+        gen.writeNumberField("totalDistance", schedule.getTotalDistance());
+        gen.writeNumberField("travelTime", schedule.getTotalTravelTime());
+        gen.writeNumberField("returnLegDistance", schedule.getReturnLegDistance());
+        gen.writeNumberField("returnLegTravelSeconds", schedule.getReturnLegTravelSeconds());
+        if (schedule.getGeneratedDate() != null) {
+            gen.writeStringField("generatedDate", schedule.getGeneratedDate().toString());
+        }
+        gen.writeArrayFieldStart("visits");
+        if (schedule.getVisits() != null) {
+            for (ScheduledVisit visit : schedule.getVisits()) {
+                gen.writeStartObject();
+                gen.writeStringField("patientId", visit.getPatientId());
+                writeTime(gen, "arrivalTime", visit.getArrivalTime());
+                writeTime(gen, "startTime", visit.getStartTime());
+                writeTime(gen, "departureTime", visit.getDepartureTime());
+                gen.writeNumberField("slackMinutes", visit.getSlackMinutes());
+                gen.writeNumberField("legDistance", visit.getLegDistance());
+                gen.writeNumberField("legTravelSeconds", visit.getLegTravelSeconds());
+                gen.writeEndObject();
+            }
+        }
+        gen.writeEndArray();
+        String coordinates = schedule.getRouteCoordinates();
+        if (includeRoute && coordinates != null && !coordinates.isBlank()) {
+            // Already a JSON array
+            gen.writeFieldName("routeCoordinates");
+            gen.writeRawValue(coordinates);
+        }
+        gen.writeEndObject();
+    }
+
+    private static void writeTime(JsonGenerator gen, String field, LocalTime time) throws IOException {
+        if (time != null) {
+            gen.writeStringField(field, time.toString());
+        }
+    }
+
+    private static int visitCount(NurseSchedule schedule) {
+        return schedule.getVisits() != null ? schedule.getVisits().size() : 0;
+    }
+
+    // RFC 4180 quoting, only where needed
+    private static String csv(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return "\"" + value.replace("\"", "\"\"") + "\"";
+    }
+
+    private static class ExportPage {
+        final List<NurseSchedule> schedules;
+        final Map<String, String> nurseNames;
+
+        ExportPage(List<NurseSchedule> schedules, Map<String, String> nurseNames) {
+            this.schedules = schedules;
+            this.nurseNames = nurseNames;
+        }
+    }
+}
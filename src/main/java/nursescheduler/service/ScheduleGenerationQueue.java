@@ -0,0 +1,111 @@
+package nursescheduler.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Background generation of schedules that a read found missing
+ * Reads such as the dashboard batch endpoint answer straight away and queue the missing schedules here
+ * instead of optimizing routes inline; a schedule that is already queued is not queued twice, and once
+ * schedule.generation.queue.capacity schedules are waiting further ones are turned away until the queue
+ * drains. Finished schedules bump the date's version, so clients polling with If-None-Match pick them up.
+ */
+@Service
+public class ScheduleGenerationQueue {
+
+    private static final Logger log = LoggerFactory.getLogger(ScheduleGenerationQueue.class);
+
+    @Autowired
+    private NurseScheduleService nurseScheduleService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${schedule.generation.queue.threads:2}")
+    private int threadCount;
+
+    @Value("${schedule.generation.queue.capacity:500}")
+    private int capacity;
+
+    // "nurseId/date" of every schedule waiting or being generated
+    private final Set<String> queued = ConcurrentHashMap.newKeySet();
+
+    private ExecutorService executor;
+
+    @PostConstruct
+    public void registerMetrics() {
+        meterRegistry.gauge("scheduler.schedule.generation.queued", queued, Set::size);
+    }
+
+    /**
+     * Queue generation of a nurse's schedule for a date, unless it is queued already
+     *
+     * @return false if the queue is full and the schedule was not queued
+     */
+    public boolean enqueue(String nurseId, LocalDate date) {
+        String key = nurseId + "/" + date;
+        if (!queued.add(key)) {
+            return true;
+        }
+        try {
+            getExecutor().execute(() -> {
+                try {
+                    nurseScheduleService.getOrGenerateSchedule(nurseId, date);
+                } catch (Exception e) {
+                    meterRegistry.counter("scheduler.schedule.generation.queue.failures").increment();
+                    log.warn("Background generation of schedule for nurse {} on {} failed: {}", nurseId, date, e.getMessage());
+                } finally {
+                    queued.remove(key);
+                }
+            });
+            return true;
+        } catch (RejectedExecutionException e) {
+            queued.remove(key);
+            meterRegistry.counter("scheduler.schedule.generation.queue.rejected").increment();
+            log.debug("Generation queue full, not queuing schedule for nurse {} on {}", nurseId, date);
+            return false;
+        }
+    }
+
+    /**
+     * Whether a nurse's schedule for a date is waiting or being generated
+     */
+    public boolean isQueued(String nurseId, LocalDate date) {
+        return queued.contains(nurseId + "/" + date);
+    }
+
+    private synchronized ExecutorService getExecutor() {
+        if (executor == null) {
+            int threads = Math.max(1, threadCount);
+            executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, capacity)), runnable -> {
+                    Thread thread = new Thread(runnable, "schedule-generation");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        }
+        return executor;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+}
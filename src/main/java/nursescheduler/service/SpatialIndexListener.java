@@ -0,0 +1,58 @@
+package nursescheduler.service;
+
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Component;
+
+import nursescheduler.model.Nurse;
+import nursescheduler.model.Patient;
+
+import java.util.LinkedHashMap;
+
+/**
+ * JPA entity listener that keeps the spatial index in step with nurse and patient writes
+ * Hibernate obtains this listener from the Spring context, so it can be injected. Inside a transaction
+ * the index is only updated once it commits (with each entity's last change), so a rolled back write
+ * never shows up in spatial queries.
+ */
+@Component
+public class SpatialIndexListener {
+
+    @Autowired
+    @Lazy
+    private SpatialIndexService spatialIndexService;
+
+    @PostPersist
+    @PostUpdate
+    public void afterSave(Object entity) {
+        if (entity instanceof Nurse) {
+            Nurse nurse = (Nurse) entity;
+            apply("nurse/" + nurse.getId(), () -> spatialIndexService.indexNurse(nurse));
+        } else if (entity instanceof Patient) {
+            Patient patient = (Patient) entity;
+            apply("patient/" + patient.getId(), () -> spatialIndexService.indexPatient(patient));
+        }
+    }
+
+    @PostRemove
+    public void afterRemove(Object entity) {
+        if (entity instanceof Nurse) {
+            Long id = ((Nurse) entity).getId();
+            apply("nurse/" + id, () -> spatialIndexService.removeNurse(id));
+        } else if (entity instanceof Patient) {
+            Long id = ((Patient) entity).getId();
+            apply("patient/" + id, () -> spatialIndexService.removePatient(id));
+        }
+    }
+
+    private void apply(String key, Runnable update) {
+        AfterCommit.record(this, LinkedHashMap<String, Runnable>::new, updates -> {
+            // The entity's last change wins
+            updates.remove(key);
+            updates.put(key, update);
+        }, updates -> updates.values().forEach(Runnable::run));
+    }
+}
@@ -0,0 +1,445 @@
+package nursescheduler.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import nursescheduler.model.Nurse;
+import nursescheduler.model.Patient;
+import nursescheduler.repository.NurseRepository;
+import nursescheduler.repository.PatientRepository;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Predicate;
+
+/**
+ * In-memory spatial index over nurse homes and patient locations
+ * Points are bucketed into a fixed lat/lon grid so nearest and area queries only touch nearby cells.
+ * Kept in sync with repository writes by SpatialIndexListener.
+ */
+@Service
+public class SpatialIndexService {
+
+    private static final Logger log = LoggerFactory.getLogger(SpatialIndexService.class);
+
+    @Autowired
+    private NurseRepository nurseRepository;
+
+    @Autowired
+    private PatientRepository patientRepository;
+
+    // Grid cell size in degrees (0.05 is roughly 5 km in Texas)
+    @Value("${spatial.index.cell-degrees:0.05}")
+    private double cellDegrees = 0.05;
+
+    private volatile GridIndex nurseIndex;
+    private volatile GridIndex patientIndex;
+
+    // Bumped on every change, so derived data (e.g. cached vector tiles) can tell it is stale
+    private final AtomicLong version = new AtomicLong();
+
+    private static final double EARTH_RADIUS_METERS = 6371000;
+
+    /**
+     * Load everything already in the database (data initialization has finished by now)
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        GridIndex nurses = new GridIndex(cellDegrees);
+        for (Nurse nurse : nurseRepository.findAll()) {
+            IndexedPoint point = toPoint(nurse);
+            if (point != null) {
+                nurses.put(point);
+            }
+        }
+
+        GridIndex patients = new GridIndex(cellDegrees);
+        for (Patient patient : patientRepository.findAll()) {
+            IndexedPoint point = toPoint(patient);
+            if (point != null) {
+                patients.put(point);
+            }
+        }
+
+        nurseIndex = nurses;
+        patientIndex = patients;
+        version.incrementAndGet();
+        log.info("Spatial index built: {} nurses, {} patients", nurses.size(), patients.size());
+    }
+
+    public void indexNurse(Nurse nurse) {
+        IndexedPoint point = toPoint(nurse);
+        if (point != null) {
+            nurses().put(point);
+        } else {
+            nurses().remove(nurse.getId());
+        }
+        version.incrementAndGet();
+    }
+
+    public void removeNurse(Long nurseId) {
+        nurses().remove(nurseId);
+        version.incrementAndGet();
+    }
+
+    public void indexPatient(Patient patient) {
+        IndexedPoint point = toPoint(patient);
+        if (point != null) {
+            patients().put(point);
+        } else {
+            patients().remove(patient.getId());
+        }
+        version.incrementAndGet();
+    }
+
+    public void removePatient(Long patientId) {
+        patients().remove(patientId);
+        version.incrementAndGet();
+    }
+
+    public long getVersion() {
+        return version.get();
+    }
+
+    /**
+     * Find the k nurses whose home is closest to a point
+     */
+    public List<Neighbor> nearestNurses(double latitude, double longitude, int k, boolean fieldStaffOnly) {
+        return nurses().nearest(latitude, longitude, k, point -> !fieldStaffOnly || point.isActive());
+    }
+
+    /**
+     * Find the k patients closest to a point
+     */
+    public List<Neighbor> nearestPatients(double latitude, double longitude, int k) {
+        return patients().nearest(latitude, longitude, k, point -> true);
+    }
+
+    /**
+     * Find patients within a radius of a point, nearest first
+     */
+    public List<Neighbor> patientsWithinRadius(double latitude, double longitude, double radiusMeters) {
+        return patients().withinRadius(latitude, longitude, radiusMeters);
+    }
+
+    /**
+     * Find patients inside a bounding box
+     */
+    public List<IndexedPoint> patientsInBox(double minLat, double minLon, double maxLat, double maxLon) {
+        return patients().inBox(minLat, minLon, maxLat, maxLon);
+    }
+
+    /**
+     * Find nurse homes inside a bounding box
+     */
+    public List<IndexedPoint> nursesInBox(double minLat, double minLon, double maxLat, double maxLon) {
+        return nurses().inBox(minLat, minLon, maxLat, maxLon);
+    }
+
+    private synchronized GridIndex nurses() {
+        if (nurseIndex == null) {
+            nurseIndex = new GridIndex(cellDegrees);
+        }
+        return nurseIndex;
+    }
+
+    private synchronized GridIndex patients() {
+        if (patientIndex == null) {
+            patientIndex = new GridIndex(cellDegrees);
+        }
+        return patientIndex;
+    }
+
+    private static IndexedPoint toPoint(Nurse nurse) {
+        if (nurse.getId() == null || nurse.getLatitude() == null || nurse.getLongitude() == null
+                || (nurse.getLatitude() == 0 && nurse.getLongitude() == 0)) {
+            return null;
+        }
+        return new IndexedPoint(nurse.getId(), nurse.getName(), nurse.getLatitude(), nurse.getLongitude(),
+            !Boolean.FALSE.equals(nurse.getFieldStaff()));
+    }
+
+    private static IndexedPoint toPoint(Patient patient) {
+        if (patient.getId() == null || (patient.getLatitude() == 0 && patient.getLongitude() == 0)) {
+            return null;
+        }
+        return new IndexedPoint(patient.getId(), patient.getName(), patient.getLatitude(), patient.getLongitude(), true);
+    }
+
+    /**
+     * Great-circle distance in meters
+     */
+    public static double haversineDistance(double lat1, double lon1, double lat2, double lon2) {
+        double dLat = Math.toRadians(lat2 - lat1);
+        double dLon = Math.toRadians(lon2 - lon1);
+        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+            + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2)) * Math.sin(dLon / 2) * Math.sin(dLon / 2);
+        return 2 * EARTH_RADIUS_METERS * Math.asin(Math.min(1, Math.sqrt(a)));
+    }
+
+    /**
+     * Uniform lat/lon grid; each cell holds the points that fall inside it
+     */
+    private static class GridIndex {
+        private final double cellDegrees;
+        private final Map<Long, List<IndexedPoint>> cells = new HashMap<>();
+        private final Map<Long, IndexedPoint> points = new HashMap<>();
+        private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+        // Occupied extent of the grid, used to bound ring searches
+        private int minRow = Integer.MAX_VALUE;
+        private int maxRow = Integer.MIN_VALUE;
+        private int minColumn = Integer.MAX_VALUE;
+        private int maxColumn = Integer.MIN_VALUE;
+
+        GridIndex(double cellDegrees) {
+            this.cellDegrees = cellDegrees;
+        }
+
+        void put(IndexedPoint point) {
+            lock.writeLock().lock();
+            try {
+                removeUnlocked(point.getId());
+                points.put(point.getId(), point);
+                int row = row(point.getLatitude());
+                int column = column(point.getLongitude());
+                cells.computeIfAbsent(cellKey(row, column), key -> new ArrayList<>()).add(point);
+                minRow = Math.min(minRow, row);
+                maxRow = Math.max(maxRow, row);
+                minColumn = Math.min(minColumn, column);
+                maxColumn = Math.max(maxColumn, column);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        void remove(Long id) {
+            lock.writeLock().lock();
+            try {
+                removeUnlocked(id);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        private void removeUnlocked(Long id) {
+            IndexedPoint existing = points.remove(id);
+            if (existing != null) {
+                long key = cellKey(row(existing.getLatitude()), column(existing.getLongitude()));
+                List<IndexedPoint> cell = cells.get(key);
+                if (cell != null) {
+                    cell.removeIf(point -> point.getId().equals(id));
+                    if (cell.isEmpty()) {
+                        cells.remove(key);
+                    }
+                }
+            }
+        }
+
+        int size() {
+            lock.readLock().lock();
+            try {
+                return points.size();
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        /**
+         * Search rings of cells outward from the query cell until the k-th best distance
+         * is closer than anything an unvisited ring could contain
+         */
+        List<Neighbor> nearest(double latitude, double longitude, int k, Predicate<IndexedPoint> filter) {
+            List<Neighbor> result = new ArrayList<>();
+            if (k <= 0) {
+                return result;
+            }
+
+            lock.readLock().lock();
+            try {
+                PriorityQueue<Neighbor> best = new PriorityQueue<>(Comparator.comparingDouble(Neighbor::getDistance).reversed());
+                int centerRow = row(latitude);
+                int centerColumn = column(longitude);
+                int maxRing = maxRing(centerRow, centerColumn);
+
+                for (int ring = 0; ring <= maxRing; ring++) {
+                    for (int r = centerRow - ring; r <= centerRow + ring; r++) {
+                        for (int c = centerColumn - ring; c <= centerColumn + ring; c++) {
+                            // Only the outer edge of the ring is new
+                            if (Math.abs(r - centerRow) != ring && Math.abs(c - centerColumn) != ring) {
+                                continue;
+                            }
+                            List<IndexedPoint> cell = cells.get(cellKey(r, c));
+                            if (cell == null) {
+                                continue;
+                            }
+                            for (IndexedPoint point : cell) {
+                                if (!filter.test(point)) {
+                                    continue;
+                                }
+                                double distance = haversineDistance(latitude, longitude, point.getLatitude(), point.getLongitude());
+                                if (best.size() < k) {
+                                    best.add(new Neighbor(point, distance));
+                                } else if (distance < best.peek().getDistance()) {
+                                    best.poll();
+                                    best.add(new Neighbor(point, distance));
+                                }
+                            }
+                        }
+                    }
+
+                    // Anything in ring + 1 is at least `ring` whole cells away
+                    if (best.size() == k && best.peek().getDistance() <= minRingDistance(latitude, ring)) {
+                        break;
+                    }
+                }
+
+                result.addAll(best);
+            } finally {
+                lock.readLock().unlock();
+            }
+            result.sort(Comparator.comparingDouble(Neighbor::getDistance));
+            return result;
+        }
+
+        List<Neighbor> withinRadius(double latitude, double longitude, double radiusMeters) {
+            double latDelta = Math.toDegrees(radiusMeters / EARTH_RADIUS_METERS);
+            double lonDelta = latDelta / Math.max(0.01, Math.cos(Math.toRadians(latitude)));
+
+            List<Neighbor> result = new ArrayList<>();
+            for (IndexedPoint point : inBox(latitude - latDelta, longitude - lonDelta, latitude + latDelta, longitude + lonDelta)) {
+                double distance = haversineDistance(latitude, longitude, point.getLatitude(), point.getLongitude());
+                if (distance <= radiusMeters) {
+                    result.add(new Neighbor(point, distance));
+                }
+            }
+            result.sort(Comparator.comparingDouble(Neighbor::getDistance));
+            return result;
+        }
+
+        List<IndexedPoint> inBox(double minLat, double minLon, double maxLat, double maxLon) {
+            List<IndexedPoint> result = new ArrayList<>();
+            lock.readLock().lock();
+            try {
+                for (int r = row(minLat); r <= row(maxLat); r++) {
+                    for (int c = column(minLon); c <= column(maxLon); c++) {
+                        List<IndexedPoint> cell = cells.get(cellKey(r, c));
+                        if (cell == null) {
+                            continue;
+                        }
+                        for (IndexedPoint point : cell) {
+                            if (point.getLatitude() >= minLat && point.getLatitude() <= maxLat
+                                    && point.getLongitude() >= minLon && point.getLongitude() <= maxLon) {
+                                result.add(point);
+                            }
+                        }
+                    }
+                }
+            } finally {
+                lock.readLock().unlock();
+            }
+            return result;
+        }
+
+        // Lower bound on the distance from the query point to any cell beyond the given ring
+        private double minRingDistance(double latitude, int ring) {
+            double degrees = ring * cellDegrees;
+            double latMeters = Math.toRadians(degrees) * EARTH_RADIUS_METERS;
+            return latMeters * Math.cos(Math.toRadians(Math.min(89, Math.abs(latitude) + degrees)));
+        }
+
+        // Stop expanding once the rings cover every occupied cell
+        private int maxRing(int centerRow, int centerColumn) {
+            if (points.isEmpty()) {
+                return -1;
+            }
+            return Math.max(Math.max(centerRow - minRow, maxRow - centerRow),
+                Math.max(centerColumn - minColumn, maxColumn - centerColumn));
+        }
+
+        private int row(double latitude) {
+            return (int) Math.floor((latitude + 90) / cellDegrees);
+        }
+
+        private int column(double longitude) {
+            return (int) Math.floor((longitude + 180) / cellDegrees);
+        }
+
+        private static long cellKey(int row, int column) {
+            return ((long) row << 32) | (column & 0xffffffffL);
+        }
+    }
+
+    /**
+     * Lightweight copy of an indexed entity's location
+     */
+    public static class IndexedPoint {
+        private final Long id;
+        private final String name;
+        private final double latitude;
+        private final double longitude;
+        private final boolean active;
+
+        public IndexedPoint(Long id, String name, double latitude, double longitude, boolean active) {
+            this.id = id;
+            this.name = name;
+            this.latitude = latitude;
+            this.longitude = longitude;
+            this.active = active;
+        }
+
+        public Long getId() {
+            return id;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public double getLatitude() {
+            return latitude;
+        }
+
+        public double getLongitude() {
+            return longitude;
+        }
+
+        // For nurses: whether they are field staff
+        public boolean isActive() {
+            return active;
+        }
+    }
+
+    /**
+     * An indexed point with its distance in meters from the query location
+     */
+    public static class Neighbor {
+        private final IndexedPoint point;
+        private final double distance;
+
+        public Neighbor(IndexedPoint point, double distance) {
+            this.point = point;
+            this.distance = distance;
+        }
+
+        public IndexedPoint getPoint() {
+            return point;
+        }
+
+        public double getDistance() {
+            return distance;
+        }
+    }
+}
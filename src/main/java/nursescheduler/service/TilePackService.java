@@ -0,0 +1,237 @@
+package nursescheduler.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import nursescheduler.utility.LruByteCache;
+import nursescheduler.utility.LruByteCacheMetrics;
+import nursescheduler.utility.TilePack;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Serves map tiles from the offline tile pack written by TileDownloader
+ * The pack is opened lazily and reopened when the downloader finishes a new version of the file.
+ * The hottest tiles are kept in a byte-bounded cache of direct buffers, off the Java heap.
+ */
+@Service
+public class TilePackService {
+
+    private static final Logger log = LoggerFactory.getLogger(TilePackService.class);
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${tiles.pack.file:data/tiles/texas.tilepack}")
+    private String packFile = "data/tiles/texas.tilepack";
+
+    @Value("${tiles.cache.max-bytes:67108864}")
+    private long cacheMaxBytes = 64L << 20;
+
+    @Value("${tiles.cache.max-tile-bytes:1048576}")
+    private long cacheMaxTileBytes = 1L << 20;
+
+    // How often to check whether the pack file was replaced
+    private static final long RELOAD_CHECK_MILLIS = 10_000;
+
+    private LruByteCache<Long, Tile> cache;
+
+    private volatile TilePack pack;
+    private volatile long packModified;
+    private volatile long lastCheck;
+
+    /**
+     * A tile ready to be written to a response
+     */
+    public static class Tile {
+        private final ByteBuffer data;
+        private final String eTag;
+        private final String contentType;
+        private final long lastModified;
+        // The pack this tile was read from, so tiles cached from a replaced pack are not served
+        private final TilePack source;
+        // Where the bytes sit in the pack file
+        private final long offset;
+
+        Tile(ByteBuffer data, String eTag, String contentType, long lastModified, TilePack source, long offset) {
+            this.data = data;
+            this.eTag = eTag;
+            this.contentType = contentType;
+            this.lastModified = lastModified;
+            this.source = source;
+            this.offset = offset;
+        }
+
+        /**
+         * A read-only view of the tile bytes with its own position, safe to drain
+         */
+        public ByteBuffer getData() {
+            return data.duplicate();
+        }
+
+        public String getETag() {
+            return eTag;
+        }
+
+        public int getLength() {
+            return data.remaining();
+        }
+
+        /**
+         * The pack file holding the tile, at getOffset(), for sending it without reading it into memory
+         * Only valid while isFileCurrent(); a replaced file can hold other bytes at that offset.
+         */
+        public Path getFile() {
+            return source.getFile();
+        }
+
+        public boolean isFileCurrent() {
+            return source.isFileCurrent();
+        }
+
+        public long getOffset() {
+            return offset;
+        }
+
+        public String getContentType() {
+            return contentType;
+        }
+
+        /**
+         * When the pack holding this tile was written, in epoch milliseconds
+         */
+        public long getLastModified() {
+            return lastModified;
+        }
+    }
+
+    @PostConstruct
+    public void init() {
+        cache = new LruByteCache<>(cacheMaxBytes, cacheMaxTileBytes);
+        new LruByteCacheMetrics(cache, "tiles.raster").bindTo(meterRegistry);
+    }
+
+    /**
+     * Look up a tile
+     *
+     * @return the tile, or null if there is no pack or the pack does not have it
+     */
+    public Tile getTile(int z, int x, int y) {
+        TilePack current = currentPack();
+        if (current == null) {
+            return null;
+        }
+        long key = TilePack.key(z, x, y);
+        // Tiles cached from a replaced pack are dropped and counted as misses
+        Tile cached = cache.get(key, tile -> tile.source == current);
+        if (cached != null) {
+            return cached;
+        }
+
+        TilePack.Entry entry = current.find(z, x, y);
+        if (entry == null) {
+            return null;
+        }
+
+        ByteBuffer mapped = current.data(entry);
+        if (entry.getLength() > cacheMaxTileBytes) {
+            return new Tile(mapped, entry.getETag(), contentType(current.getFormat()), packModified, current,
+                entry.getOffset());
+        }
+
+        // Copy out of the mapping once, so repeat requests don't touch the file's pages at all
+        ByteBuffer copy = ByteBuffer.allocateDirect(mapped.remaining());
+        copy.put(mapped).flip();
+        Tile tile = new Tile(copy.asReadOnlyBuffer(), entry.getETag(), contentType(current.getFormat()), packModified, current,
+            entry.getOffset());
+        cache.put(key, tile, entry.getLength());
+        return tile;
+    }
+
+    public Map<String, Object> getStatus() {
+        TilePack current = currentPack();
+        Map<String, Object> status = new HashMap<>();
+        status.put("file", packFile);
+        status.put("available", current != null);
+        status.put("tiles", current != null ? current.size() : 0);
+        status.put("cache", cache.getStats());
+        return status;
+    }
+
+    @PreDestroy
+    public synchronized void close() {
+        if (pack != null) {
+            try {
+                pack.close();
+            } catch (IOException e) {
+                log.warn("Error closing tile pack: {}", e.getMessage());
+            }
+            pack = null;
+        }
+    }
+
+    private TilePack currentPack() {
+        long now = System.currentTimeMillis();
+        if (now - lastCheck >= RELOAD_CHECK_MILLIS) {
+            reloadIfChanged(now);
+        }
+        return pack;
+    }
+
+    private synchronized void reloadIfChanged(long now) {
+        if (now - lastCheck < RELOAD_CHECK_MILLIS) {
+            return;
+        }
+        lastCheck = now;
+        Path file = Paths.get(packFile);
+        try {
+            if (!Files.exists(file)) {
+                return;
+            }
+            long modified = Files.getLastModifiedTime(file).toMillis();
+            if (pack != null && modified == packModified) {
+                return;
+            }
+            TilePack reopened = new TilePack(file);
+            TilePack previous = pack;
+            packModified = modified;
+            pack = reopened;
+            if (previous != null) {
+                // Mapped pages outlive the channel, so requests still reading the old version are unaffected
+                previous.close();
+            }
+            cache.clear();
+            log.info("Opened tile pack {} with {} tiles", file, reopened.size());
+        } catch (IOException e) {
+            // Usually the downloader is still writing; keep serving the previous version
+            log.warn("Could not open tile pack {}: {}", file, e.getMessage());
+        }
+    }
+
+    private static String contentType(String format) {
+        switch (format) {
+            case "jpg":
+            case "jpeg":
+                return "image/jpeg";
+            case "webp":
+                return "image/webp";
+            case "pbf":
+            case "mvt":
+                return "application/vnd.mapbox-vector-tile";
+            default:
+                return "image/png";
+        }
+    }
+}
@@ -0,0 +1,253 @@
+package nursescheduler.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import nursescheduler.model.Nurse;
+import nursescheduler.model.Patient;
+import nursescheduler.repository.NurseRepository;
+import nursescheduler.repository.NurseScheduleRepository;
+import nursescheduler.repository.PatientRepository;
+import nursescheduler.utility.BufferTileSet;
+import nursescheduler.utility.PolygonTileSet;
+import nursescheduler.utility.TilePack;
+import nursescheduler.utility.TileDownloader;
+import nursescheduler.utility.TileSet;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.URI;
+import java.net.UnknownHostException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Fills the offline tile pack with just the tiles the schedulers actually look at:
+ * tiles around nurses and patients, along scheduled routes, or inside a service-area polygon.
+ * One seeding job runs at a time, in the background, into the same pack TilePackService serves.
+ */
+@Service
+public class TileSeedingService {
+
+    private static final Logger log = LoggerFactory.getLogger(TileSeedingService.class);
+
+    @Autowired
+    private NurseRepository nurseRepository;
+
+    @Autowired
+    private PatientRepository patientRepository;
+
+    @Autowired
+    private NurseScheduleRepository nurseScheduleRepository;
+
+    // The local tile server unless configured otherwise; see checkSource
+    @Value("${tiles.source.url:http://localhost:8081/data/texas/{z}/{x}/{y}.png}")
+    private String sourceUrl;
+
+    @Value("${tiles.source.allow-external:false}")
+    private boolean allowExternalSource;
+
+    @Value("${tiles.pack.file:data/tiles/texas.tilepack}")
+    private String packFile;
+
+    @Value("${tiles.seed.threads:4}")
+    private int threads;
+
+    @Value("${tiles.seed.tiles-per-second:20}")
+    private double tilesPerSecond;
+
+    @Value("${tiles.seed.max-attempts:5}")
+    private int maxAttempts;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    // The running (or last finished) job, guarded by this
+    private TileDownloader downloader;
+    private Thread worker;
+    private String jobDescription;
+    private long jobTiles;
+    private LocalDateTime jobStarted;
+    private LocalDateTime jobFinished;
+
+    /**
+     * Seed tiles within a radius of every nurse and patient
+     *
+     * @return the job status, or null if another job is still running
+     */
+    public Map<String, Object> seedPoints(double radiusMeters, int minZoom, int maxZoom) {
+        checkRadius(radiusMeters);
+        checkZooms(minZoom, maxZoom);
+        List<double[]> points = new ArrayList<>();
+        // 0/0 marks a missing location
+        for (Nurse nurse : nurseRepository.findAll()) {
+            if (nurse.getLatitude() != null && nurse.getLongitude() != null
+                    && !(nurse.getLatitude() == 0 && nurse.getLongitude() == 0)) {
+                points.add(new double[]{nurse.getLatitude(), nurse.getLongitude()});
+            }
+        }
+        for (Patient patient : patientRepository.findAll()) {
+            if (!(patient.getLatitude() == 0 && patient.getLongitude() == 0)) {
+                points.add(new double[]{patient.getLatitude(), patient.getLongitude()});
+            }
+        }
+        if (points.isEmpty()) {
+            throw new IllegalArgumentException("No nurse or patient locations to seed around");
+        }
+        return start(new BufferTileSet(points, radiusMeters, minZoom, maxZoom));
+    }
+
+    /**
+     * Seed a corridor along every stored route scheduled in the date range
+     *
+     * @return the job status, or null if another job is still running
+     */
+    public Map<String, Object> seedRoutes(LocalDate startDate, LocalDate endDate, double radiusMeters, int minZoom, int maxZoom) {
+        checkRadius(radiusMeters);
+        checkZooms(minZoom, maxZoom);
+        if (endDate.isBefore(startDate)) {
+            throw new IllegalArgumentException("endDate is before startDate");
+        }
+        List<List<double[]>> routes = new ArrayList<>();
+        for (Object[] row : nurseScheduleRepository.findRouteCoordinates(startDate, endDate)) {
+            String coordinates = (String) row[1];
+            if (coordinates.isEmpty() || coordinates.equals("[]")) {
+                continue;
+            }
+            try {
+                routes.add(Arrays.asList(objectMapper.readValue(coordinates, double[][].class)));
+            } catch (JsonProcessingException e) {
+                log.warn("Skipping unreadable route for schedule {}: {}", row[0], e.getMessage());
+            }
+        }
+        if (routes.isEmpty()) {
+            throw new IllegalArgumentException("No routes scheduled between " + startDate + " and " + endDate);
+        }
+        return start(BufferTileSet.corridor(routes, radiusMeters, minZoom, maxZoom));
+    }
+
+    /**
+     * Seed every tile touching the Polygon/MultiPolygon geometries in a GeoJSON document
+     *
+     * @return the job status, or null if another job is still running
+     */
+    public Map<String, Object> seedPolygon(String geoJson, int minZoom, int maxZoom) throws IOException {
+        checkZooms(minZoom, maxZoom);
+        return start(PolygonTileSet.fromGeoJson(geoJson, minZoom, maxZoom));
+    }
+
+    /**
+     * Ask the running job to stop; the tiles downloaded so far stay in the pack
+     */
+    public synchronized boolean stop() {
+        if (worker == null || !worker.isAlive()) {
+            return false;
+        }
+        downloader.stop();
+        return true;
+    }
+
+    public synchronized Map<String, Object> getStatus() {
+        Map<String, Object> status = new HashMap<>();
+        status.put("running", worker != null && worker.isAlive());
+        status.put("source", sourceUrl);
+        if (downloader != null) {
+            status.put("job", jobDescription);
+            status.put("tiles", jobTiles);
+            status.put("downloaded", downloader.getDownloadedCount());
+            status.put("skipped", downloader.getSkippedCount());
+            status.put("missing", downloader.getMissingCount());
+            status.put("failed", downloader.getFailedCount());
+            status.put("started", jobStarted);
+            status.put("finished", jobFinished);
+        }
+        return status;
+    }
+
+    private Map<String, Object> start(TileSet tileSet) {
+        checkSource();
+        // Counting walks the whole set, so it is done once and without holding the lock
+        long tiles = tileSet.size();
+        if (tiles > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Tile set too large: " + tiles + " tiles");
+        }
+        return startJob(tileSet, tiles);
+    }
+
+    private synchronized Map<String, Object> startJob(TileSet tileSet, long tiles) {
+        if (worker != null && worker.isAlive()) {
+            return null;
+        }
+
+        TileDownloader job = new TileDownloader(sourceUrl, packFile, threads, tilesPerSecond, maxAttempts);
+        downloader = job;
+        jobDescription = tileSet.describe();
+        jobTiles = tiles;
+        jobStarted = LocalDateTime.now();
+        jobFinished = null;
+
+        worker = new Thread(() -> {
+            try {
+                job.download(tileSet);
+            } catch (RuntimeException e) {
+                log.error("Tile seeding failed", e);
+            } finally {
+                synchronized (this) {
+                    jobFinished = LocalDateTime.now();
+                }
+            }
+        }, "tile-seed");
+        worker.setDaemon(true);
+        worker.start();
+        log.info("Started tile seeding: {} tiles ({})", jobTiles, jobDescription);
+        return getStatus();
+    }
+
+    /**
+     * Refuse to seed from a tile server outside the local network unless that was explicitly allowed:
+     * the tiles requested trace patient homes and routes
+     */
+    private void checkSource() {
+        if (allowExternalSource) {
+            return;
+        }
+        String host = URI.create(sourceUrl.replace("{z}", "0").replace("{x}", "0").replace("{y}", "0")).getHost();
+        boolean local = false;
+        try {
+            if (host != null) {
+                InetAddress address = InetAddress.getByName(host);
+                local = address.isLoopbackAddress() || address.isSiteLocalAddress() || address.isLinkLocalAddress();
+            }
+        } catch (UnknownHostException e) {
+            throw new IllegalArgumentException("Unknown tile source host: " + host);
+        }
+        if (!local) {
+            throw new IllegalArgumentException("Tile source " + host + " is outside the local network;"
+                + " set tiles.source.allow-external=true to seed from it");
+        }
+    }
+
+    private static void checkRadius(double radiusMeters) {
+        if (!(radiusMeters >= 0)) {
+            throw new IllegalArgumentException("radiusMeters must not be negative");
+        }
+    }
+
+    private static void checkZooms(int minZoom, int maxZoom) {
+        if (minZoom < 0 || maxZoom > TilePack.MAX_ZOOM) {
+            throw new IllegalArgumentException("Zoom levels must be between 0 and " + TilePack.MAX_ZOOM);
+        }
+        if (minZoom > maxZoom) {
+            throw new IllegalArgumentException("minZoom is greater than maxZoom");
+        }
+    }
+}
@@ -0,0 +1,471 @@
+package nursescheduler.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import nursescheduler.model.NurseSchedule;
+import nursescheduler.repository.NurseScheduleRepository;
+import nursescheduler.utility.LruByteCache;
+import nursescheduler.utility.LruByteCacheMetrics;
+import nursescheduler.utility.VectorTileEncoder;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.zip.CRC32;
+
+/**
+ * Builds Mapbox Vector Tiles of a day's scheduled routes and of nurse and patient locations
+ * Routes for a date are projected once, simplified once per zoom level, then clipped per tile, so an
+ * agency-wide overview is drawn by the browser from small tiles instead of thousands of Leaflet layers.
+ * Encoded tiles are cached until the day's schedules or the indexed locations change.
+ */
+@Service
+public class VectorTileService {
+
+    private static final Logger log = LoggerFactory.getLogger(VectorTileService.class);
+
+    public static final String ROUTES_LAYER = "routes";
+    public static final String PATIENTS_LAYER = "patients";
+    public static final String NURSES_LAYER = "nurses";
+
+    private static final int MAX_ZOOM = 22;
+
+    @Autowired
+    private NurseScheduleRepository nurseScheduleRepository;
+
+    @Autowired
+    private SpatialIndexService spatialIndexService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${tiles.vector.extent:4096}")
+    private int extent = 4096;
+
+    // Geometry drawn this far past the tile edge (in tile units) so lines join cleanly across tiles
+    @Value("${tiles.vector.buffer:64}")
+    private int buffer = 64;
+
+    // Douglas-Peucker tolerance in tile units; 4096 units span 256 pixels, so 8 is half a pixel
+    @Value("${tiles.vector.simplify-tolerance:8}")
+    private double simplifyTolerance = 8;
+
+    // Below this zoom tiles carry routes only; markers would be too dense to read
+    @Value("${tiles.vector.points-min-zoom:9}")
+    private int pointsMinZoom = 9;
+
+    @Value("${tiles.vector.cache.max-bytes:33554432}")
+    private long cacheMaxBytes = 32L << 20;
+
+    // Dates whose projected routes are kept; the least recently drawn date is dropped first
+    @Value("${tiles.vector.route-dates:14}")
+    private int maxRouteDates = 14;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private LruByteCache<String, VectorTile> cache;
+    private Map<LocalDate, List<Route>> routeSets;
+    private final Map<LocalDate, AtomicLong> routeVersions = new ConcurrentHashMap<>();
+
+    /**
+     * An encoded tile and its validator
+     */
+    public static class VectorTile {
+        private final byte[] data;
+        private final String eTag;
+
+        VectorTile(byte[] data) {
+            CRC32 crc = new CRC32();
+            crc.update(data);
+            this.data = data;
+            this.eTag = "\"" + Long.toHexString(crc.getValue()) + "-" + Integer.toHexString(data.length) + "\"";
+        }
+
+        public byte[] getData() {
+            return data;
+        }
+
+        public String getETag() {
+            return eTag;
+        }
+    }
+
+    @PostConstruct
+    public void init() {
+        cache = new LruByteCache<>(cacheMaxBytes, cacheMaxBytes / 16);
+        routeSets = Collections.synchronizedMap(new LinkedHashMap<LocalDate, List<Route>>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<LocalDate, List<Route>> eldest) {
+                return size() > maxRouteDates;
+            }
+        });
+        new LruByteCacheMetrics(cache, "tiles.vector").bindTo(meterRegistry);
+    }
+
+    /**
+     * Get the vector tile for a date's routes plus current nurse and patient locations
+     */
+    public VectorTile getTile(LocalDate date, int z, int x, int y) {
+        if (z < 0 || z > MAX_ZOOM || x < 0 || y < 0 || x >= (1 << z) || y >= (1 << z)) {
+            throw new IllegalArgumentException("Invalid tile " + z + "/" + x + "/" + y);
+        }
+        String key = date + "/" + routeVersion(date).get() + "/" + spatialIndexService.getVersion()
+                + "/" + z + "/" + x + "/" + y;
+        VectorTile cached = cache.get(key);
+        if (cached != null) {
+            return cached;
+        }
+
+        VectorTileEncoder encoder = new VectorTileEncoder(extent);
+        addRoutes(encoder, routes(date), z, x, y);
+        if (z >= pointsMinZoom) {
+            addPoints(encoder, z, x, y);
+        }
+        VectorTile tile = new VectorTile(encoder.encode());
+        cache.put(key, tile, tile.getData().length);
+        return tile;
+    }
+
+    /**
+     * Drop the projected routes and cached tiles for a date whose schedules changed
+     */
+    public void invalidate(LocalDate date) {
+        if (date == null) {
+            return;
+        }
+        routeVersion(date).incrementAndGet();
+        routeSets.remove(date);
+    }
+
+    public Map<String, Object> getStatus() {
+        Map<String, Object> status = new HashMap<>();
+        status.put("datesLoaded", routeSets.size());
+        status.put("cache", cache.getStats());
+        return status;
+    }
+
+    private AtomicLong routeVersion(LocalDate date) {
+        return routeVersions.computeIfAbsent(date, d -> new AtomicLong());
+    }
+
+    private List<Route> routes(LocalDate date) {
+        List<Route> routes = routeSets.get(date);
+        if (routes == null) {
+            long version = routeVersion(date).get();
+            routes = loadRoutes(date);
+            // Don't keep routes loaded while the day's schedules were being changed
+            if (routeVersion(date).get() == version) {
+                routeSets.put(date, routes);
+            }
+        }
+        return routes;
+    }
+
+    private List<Route> loadRoutes(LocalDate date) {
+        List<Route> routes = new ArrayList<>();
+        for (NurseSchedule schedule : nurseScheduleRepository.findByScheduleDate(date)) {
+            String coordinates = schedule.getRouteCoordinates();
+            if (coordinates == null || coordinates.isEmpty() || coordinates.equals("[]")) {
+                continue;
+            }
+            double[][] latLon;
+            try {
+                latLon = objectMapper.readValue(coordinates, double[][].class);
+            } catch (IOException e) {
+                log.warn("Skipping unreadable route for schedule {}: {}", schedule.getId(), e.getMessage());
+                continue;
+            }
+            if (latLon.length < 2) {
+                continue;
+            }
+
+            Map<String, Object> attributes = new LinkedHashMap<>();
+            attributes.put("scheduleId", schedule.getId());
+            attributes.put("nurseId", schedule.getNurseId());
+            attributes.put("status", schedule.getStatus());
+            attributes.put("distance", schedule.getTotalDistance());
+            attributes.put("visits", schedule.getPatientVisitOrder() != null ? schedule.getPatientVisitOrder().size() : 0);
+            routes.add(new Route(schedule.getId(), attributes, latLon));
+        }
+        return routes;
+    }
+
+    private void addRoutes(VectorTileEncoder encoder, List<Route> routes, int z, int x, int y) {
+        double scale = 1 << z;
+        double margin = buffer / (double) extent;
+        double minX = (x - margin) / scale;
+        double maxX = (x + 1 + margin) / scale;
+        double minY = (y - margin) / scale;
+        double maxY = (y + 1 + margin) / scale;
+
+        for (Route route : routes) {
+            if (route.maxX < minX || route.minX > maxX || route.maxY < minY || route.minY > maxY) {
+                continue;
+            }
+            double[] points = route.simplified(z, simplifyTolerance / (extent * scale));
+            List<int[]> parts = clip(points, scale, x, y);
+            if (!parts.isEmpty()) {
+                encoder.addLineString(ROUTES_LAYER, parts, route.id, route.attributes);
+            }
+        }
+    }
+
+    private void addPoints(VectorTileEncoder encoder, int z, int x, int y) {
+        double scale = 1 << z;
+        double margin = buffer / (double) extent;
+        double west = worldXToLon((x - margin) / scale);
+        double east = worldXToLon((x + 1 + margin) / scale);
+        double north = worldYToLat((y - margin) / scale);
+        double south = worldYToLat((y + 1 + margin) / scale);
+
+        for (SpatialIndexService.IndexedPoint patient : spatialIndexService.patientsInBox(south, west, north, east)) {
+            Map<String, Object> attributes = new LinkedHashMap<>();
+            attributes.put("id", patient.getId());
+            attributes.put("name", patient.getName());
+            encoder.addPoint(PATIENTS_LAYER, tileX(lonToWorldX(patient.getLongitude()), scale, x),
+                tileY(latToWorldY(patient.getLatitude()), scale, y), patient.getId(), attributes);
+        }
+        for (SpatialIndexService.IndexedPoint nurse : spatialIndexService.nursesInBox(south, west, north, east)) {
+            Map<String, Object> attributes = new LinkedHashMap<>();
+            attributes.put("id", nurse.getId());
+            attributes.put("name", nurse.getName());
+            attributes.put("fieldStaff", nurse.isActive());
+            encoder.addPoint(NURSES_LAYER, tileX(lonToWorldX(nurse.getLongitude()), scale, x),
+                tileY(latToWorldY(nurse.getLatitude()), scale, y), nurse.getId(), attributes);
+        }
+    }
+
+    /**
+     * Clip a polyline (world coordinates) to the buffered tile, splitting it wherever it leaves and re-enters
+     *
+     * @return line parts in tile coordinates, each with at least two distinct points
+     */
+    private List<int[]> clip(double[] points, double scale, int x, int y) {
+        double low = -buffer;
+        double high = extent + buffer;
+        List<int[]> parts = new ArrayList<>();
+        int[] part = new int[16];
+        int length = 0;
+
+        for (int i = 0; i + 3 < points.length; i += 2) {
+            double ax = (points[i] * scale - x) * extent;
+            double ay = (points[i + 1] * scale - y) * extent;
+            double bx = (points[i + 2] * scale - x) * extent;
+            double by = (points[i + 3] * scale - y) * extent;
+
+            // Liang-Barsky against the square [low, high]
+            double t0 = 0;
+            double t1 = 1;
+            double dx = bx - ax;
+            double dy = by - ay;
+            double[] p = {-dx, dx, -dy, dy};
+            double[] q = {ax - low, high - ax, ay - low, high - ay};
+            boolean visible = true;
+            for (int k = 0; k < 4 && visible; k++) {
+                if (p[k] == 0) {
+                    visible = q[k] >= 0;
+                } else {
+                    double t = q[k] / p[k];
+                    if (p[k] < 0) {
+                        t0 = Math.max(t0, t);
+                    } else {
+                        t1 = Math.min(t1, t);
+                    }
+                    visible = t0 <= t1;
+                }
+            }
+            if (!visible) {
+                length = flushPart(parts, part, length);
+                continue;
+            }
+
+            int startX = (int) Math.round(ax + t0 * dx);
+            int startY = (int) Math.round(ay + t0 * dy);
+            int endX = (int) Math.round(ax + t1 * dx);
+            int endY = (int) Math.round(ay + t1 * dy);
+            if (length > 0 && (t0 > 0 || part[length - 2] != startX || part[length - 1] != startY)) {
+                length = flushPart(parts, part, length);
+            }
+            if (length + 4 > part.length) {
+                part = Arrays.copyOf(part, part.length * 2);
+            }
+            if (length == 0) {
+                part[length++] = startX;
+                part[length++] = startY;
+            }
+            if (part[length - 2] != endX || part[length - 1] != endY) {
+                part[length++] = endX;
+                part[length++] = endY;
+            }
+            if (t1 < 1) {
+                length = flushPart(parts, part, length);
+            }
+        }
+        flushPart(parts, part, length);
+        return parts;
+    }
+
+    private static int flushPart(List<int[]> parts, int[] part, int length) {
+        if (length >= 4) {
+            parts.add(Arrays.copyOf(part, length));
+        }
+        return 0;
+    }
+
+    private int tileX(double worldX, double scale, int x) {
+        return (int) Math.round((worldX * scale - x) * extent);
+    }
+
+    private int tileY(double worldY, double scale, int y) {
+        return (int) Math.round((worldY * scale - y) * extent);
+    }
+
+    /**
+     * Web Mercator, normalized so the world is the unit square with y growing southward
+     */
+    private static double lonToWorldX(double lon) {
+        return (lon + 180) / 360;
+    }
+
+    private static double latToWorldY(double lat) {
+        double clamped = Math.max(-85.05112878, Math.min(85.05112878, lat));
+        double sin = Math.sin(Math.toRadians(clamped));
+        return 0.5 - Math.log((1 + sin) / (1 - sin)) / (4 * Math.PI);
+    }
+
+    private static double worldXToLon(double worldX) {
+        return worldX * 360 - 180;
+    }
+
+    private static double worldYToLat(double worldY) {
+        return Math.toDegrees(Math.atan(Math.sinh(Math.PI * (1 - 2 * worldY))));
+    }
+
+    /**
+     * One schedule's route in world coordinates, with its simplified forms computed per zoom on demand
+     */
+    private static class Route {
+        private final Long id;
+        private final Map<String, Object> attributes;
+        // x0, y0, x1, y1, ... in world coordinates
+        private final double[] points;
+        private final AtomicReferenceArray<double[]> byZoom = new AtomicReferenceArray<>(MAX_ZOOM + 1);
+        private final double minX;
+        private final double maxX;
+        private final double minY;
+        private final double maxY;
+
+        Route(Long id, Map<String, Object> attributes, double[][] latLon) {
+            this.id = id;
+            this.attributes = attributes;
+            this.points = new double[latLon.length * 2];
+            double west = Double.MAX_VALUE, east = -Double.MAX_VALUE, north = Double.MAX_VALUE, south = -Double.MAX_VALUE;
+            for (int i = 0; i < latLon.length; i++) {
+                double wx = lonToWorldX(latLon[i][1]);
+                double wy = latToWorldY(latLon[i][0]);
+                points[2 * i] = wx;
+                points[2 * i + 1] = wy;
+                west = Math.min(west, wx);
+                east = Math.max(east, wx);
+                north = Math.min(north, wy);
+                south = Math.max(south, wy);
+            }
+            this.minX = west;
+            this.maxX = east;
+            this.minY = north;
+            this.maxY = south;
+        }
+
+        double[] simplified(int zoom, double tolerance) {
+            double[] result = byZoom.get(zoom);
+            if (result == null) {
+                result = simplify(points, tolerance);
+                byZoom.set(zoom, result);
+            }
+            return result;
+        }
+
+        /**
+         * Douglas-Peucker with an explicit stack, keeping the first and last points
+         */
+        private static double[] simplify(double[] points, double tolerance) {
+            int count = points.length / 2;
+            if (count <= 2) {
+                return points;
+            }
+            boolean[] keep = new boolean[count];
+            keep[0] = true;
+            keep[count - 1] = true;
+            double toleranceSquared = tolerance * tolerance;
+            int[] stack = new int[2 * count];
+            int top = 0;
+            stack[top++] = 0;
+            stack[top++] = count - 1;
+            while (top > 0) {
+                int last = stack[--top];
+                int first = stack[--top];
+                double maxDistance = -1;
+                int farthest = -1;
+                for (int i = first + 1; i < last; i++) {
+                    double d = segmentDistanceSquared(points, i, first, last);
+                    if (d > maxDistance) {
+                        maxDistance = d;
+                        farthest = i;
+                    }
+                }
+                if (farthest >= 0 && maxDistance > toleranceSquared) {
+                    keep[farthest] = true;
+                    stack[top++] = first;
+                    stack[top++] = farthest;
+                    stack[top++] = farthest;
+                    stack[top++] = last;
+                }
+            }
+
+            int kept = 0;
+            for (boolean k : keep) {
+                if (k) {
+                    kept++;
+                }
+            }
+            double[] result = new double[kept * 2];
+            int n = 0;
+            for (int i = 0; i < count; i++) {
+                if (keep[i]) {
+                    result[n++] = points[2 * i];
+                    result[n++] = points[2 * i + 1];
+                }
+            }
+            return result;
+        }
+
+        private static double segmentDistanceSquared(double[] points, int i, int first, int last) {
+            double px = points[2 * i], py = points[2 * i + 1];
+            double ax = points[2 * first], ay = points[2 * first + 1];
+            double bx = points[2 * last], by = points[2 * last + 1];
+            double dx = bx - ax;
+            double dy = by - ay;
+            double lengthSquared = dx * dx + dy * dy;
+            double t = lengthSquared == 0 ? 0 : Math.max(0, Math.min(1, ((px - ax) * dx + (py - ay) * dy) / lengthSquared));
+            double ex = ax + t * dx - px;
+            double ey = ay + t * dy - py;
+            return ex * ex + ey * ey;
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package nursescheduler.utility;
+
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+
+/**
+ * Every tile covering a lat/lon box over a range of zoom levels, zoom by zoom, column by column
+ */
+public class BoundingBoxTileSet implements TileSet {
+
+    private final double minLat;
+    private final double maxLat;
+    private final double minLon;
+    private final double maxLon;
+    private final int minZoom;
+    private final int maxZoom;
+
+    public BoundingBoxTileSet(double minLat, double maxLat, double minLon, double maxLon, int minZoom, int maxZoom) {
+        this.minLat = minLat;
+        this.maxLat = maxLat;
+        this.minLon = minLon;
+        this.maxLon = maxLon;
+        this.minZoom = minZoom;
+        this.maxZoom = maxZoom;
+    }
+
+    @Override
+    public long size() {
+        long total = 0;
+        for (int z = minZoom; z <= maxZoom; z++) {
+            total += (long) (x2(z) - x1(z) + 1) * (y2(z) - y1(z) + 1);
+        }
+        return total;
+    }
+
+    @Override
+    public PrimitiveIterator.OfLong iterator() {
+        return new PrimitiveIterator.OfLong() {
+            private int z = minZoom;
+            private int x = x1(minZoom);
+            private int y = y1(minZoom);
+
+            @Override
+            public boolean hasNext() {
+                return z <= maxZoom;
+            }
+
+            @Override
+            public long nextLong() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                long key = TilePack.key(z, x, y);
+                if (++y > y2(z)) {
+                    y = y1(z);
+                    if (++x > x2(z)) {
+                        z++;
+                        if (z <= maxZoom) {
+                            x = x1(z);
+                            y = y1(z);
+                        }
+                    }
+                }
+                return key;
+            }
+        };
+    }
+
+    @Override
+    public String describe() {
+        return "bbox " + minLat + " " + maxLat + " " + minLon + " " + maxLon + " z" + minZoom + "-" + maxZoom;
+    }
+
+    private int x1(int zoom) {
+        return TileSet.lonToTileX(minLon, zoom);
+    }
+
+    private int x2(int zoom) {
+        return TileSet.lonToTileX(maxLon, zoom);
+    }
+
+    // Note: y is inverted in tile coordinates
+    private int y1(int zoom) {
+        return TileSet.latToTileY(maxLat, zoom);
+    }
+
+    private int y2(int zoom) {
+        return TileSet.latToTileY(minLat, zoom);
+    }
+}
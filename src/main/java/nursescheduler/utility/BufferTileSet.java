@@ -0,0 +1,162 @@
+package nursescheduler.utility;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+
+/**
+ * Tiles within a radius of a set of points, or of a set of routes (a corridor)
+ * Tiles are computed one zoom level at a time from the points' own neighborhoods, so an area full
+ * of empty land between patients is never enumerated.
+ */
+public class BufferTileSet implements TileSet {
+
+    private static final double METERS_PER_DEGREE = 111320;
+
+    // [lat, lon] points
+    private final double[][] points;
+    private final double radiusMeters;
+    private final int minZoom;
+    private final int maxZoom;
+    private long size = -1;
+
+    /**
+     * @param points [lat, lon] points to cover
+     * @param radiusMeters Buffer around each point
+     */
+    public BufferTileSet(List<double[]> points, double radiusMeters, int minZoom, int maxZoom) {
+        this.points = points.toArray(new double[0][]);
+        this.radiusMeters = radiusMeters;
+        this.minZoom = minZoom;
+        this.maxZoom = maxZoom;
+    }
+
+    /**
+     * Tiles within a distance of any of the given routes
+     * Routes are densified so consecutive buffer circles overlap and leave no gaps along the corridor
+     *
+     * @param routes Polylines of [lat, lon] points
+     * @param radiusMeters Corridor half-width
+     */
+    public static BufferTileSet corridor(List<List<double[]>> routes, double radiusMeters, int minZoom, int maxZoom) {
+        double spacing = Math.max(1, radiusMeters / 2);
+        List<double[]> points = new ArrayList<>();
+        for (List<double[]> route : routes) {
+            for (int i = 0; i < route.size(); i++) {
+                double[] a = route.get(i);
+                points.add(a);
+                if (i + 1 < route.size()) {
+                    double[] b = route.get(i + 1);
+                    int steps = (int) Math.ceil(distanceMeters(a, b) / spacing);
+                    for (int step = 1; step < steps; step++) {
+                        double t = step / (double) steps;
+                        points.add(new double[]{a[0] + (b[0] - a[0]) * t, a[1] + (b[1] - a[1]) * t});
+                    }
+                }
+            }
+        }
+        return new BufferTileSet(points, radiusMeters, minZoom, maxZoom);
+    }
+
+    @Override
+    public synchronized long size() {
+        if (size < 0) {
+            long count = 0;
+            for (int z = minZoom; z <= maxZoom; z++) {
+                count += tilesAtZoom(z).length;
+            }
+            size = count;
+        }
+        return size;
+    }
+
+    @Override
+    public PrimitiveIterator.OfLong iterator() {
+        return new PrimitiveIterator.OfLong() {
+            private int zoom = minZoom;
+            private long[] tiles = zoom <= maxZoom ? tilesAtZoom(zoom) : new long[0];
+            private int index;
+
+            @Override
+            public boolean hasNext() {
+                while (index >= tiles.length && zoom < maxZoom) {
+                    zoom++;
+                    tiles = tilesAtZoom(zoom);
+                    index = 0;
+                }
+                return index < tiles.length;
+            }
+
+            @Override
+            public long nextLong() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return tiles[index++];
+            }
+        };
+    }
+
+    @Override
+    public String describe() {
+        return "buffer " + points.length + " points " + Integer.toHexString(Arrays.deepHashCode(points))
+                + " r" + radiusMeters + " z" + minZoom + "-" + maxZoom;
+    }
+
+    /**
+     * Sorted, de-duplicated keys of every tile at this zoom within the radius of some point
+     */
+    private long[] tilesAtZoom(int zoom) {
+        long[] keys = new long[Math.max(16, points.length * 4)];
+        int count = 0;
+        for (double[] point : points) {
+            double dLat = radiusMeters / METERS_PER_DEGREE;
+            double dLon = radiusMeters / (METERS_PER_DEGREE * Math.max(0.01, Math.cos(Math.toRadians(point[0]))));
+            int x1 = TileSet.lonToTileX(point[1] - dLon, zoom);
+            int x2 = TileSet.lonToTileX(point[1] + dLon, zoom);
+            int y1 = TileSet.latToTileY(point[0] + dLat, zoom);
+            int y2 = TileSet.latToTileY(point[0] - dLat, zoom);
+            for (int x = x1; x <= x2; x++) {
+                for (int y = y1; y <= y2; y++) {
+                    if (!withinRadius(point, x, y, zoom)) {
+                        continue;
+                    }
+                    if (count == keys.length) {
+                        keys = Arrays.copyOf(keys, keys.length * 2);
+                    }
+                    keys[count++] = TilePack.key(zoom, x, y);
+                }
+            }
+        }
+
+        Arrays.sort(keys, 0, count);
+        int unique = 0;
+        for (int i = 0; i < count; i++) {
+            if (unique == 0 || keys[i] != keys[unique - 1]) {
+                keys[unique++] = keys[i];
+            }
+        }
+        return Arrays.copyOf(keys, unique);
+    }
+
+    /**
+     * Distance from the point to the nearest part of the tile, on a local flat approximation
+     */
+    private boolean withinRadius(double[] point, int x, int y, int zoom) {
+        double west = PolygonTileSet.tileLon(x, zoom);
+        double east = PolygonTileSet.tileLon(x + 1, zoom);
+        double north = PolygonTileSet.tileLat(y, zoom);
+        double south = PolygonTileSet.tileLat(y + 1, zoom);
+        double nearestLat = Math.max(south, Math.min(north, point[0]));
+        double nearestLon = Math.max(west, Math.min(east, point[1]));
+        return distanceMeters(point, new double[]{nearestLat, nearestLon}) <= radiusMeters;
+    }
+
+    private static double distanceMeters(double[] a, double[] b) {
+        double dLat = (b[0] - a[0]) * METERS_PER_DEGREE;
+        double dLon = (b[1] - a[1]) * METERS_PER_DEGREE * Math.cos(Math.toRadians((a[0] + b[0]) / 2));
+        return Math.sqrt(dLat * dLat + dLon * dLon);
+    }
+}
@@ -0,0 +1,143 @@
+package nursescheduler.utility;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+
+/**
+ * Least-recently-used cache bounded by the total byte size of its values rather than their count
+ * A few large tiles can't crowd the cache the way a count-bounded cache would let them, and the
+ * memory it holds is predictable.
+ */
+public class LruByteCache<K, V> {
+
+    private final long maxBytes;
+    private final long maxEntryBytes;
+
+    // Access-ordered, so iteration starts at the least recently used entry; guarded by this
+    private final LinkedHashMap<K, Sized<V>> entries = new LinkedHashMap<>(256, 0.75f, true);
+    private long bytes;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    /**
+     * @param maxBytes Total size of cached values
+     * @param maxEntryBytes Values larger than this are never cached
+     */
+    public LruByteCache(long maxBytes, long maxEntryBytes) {
+        this.maxBytes = maxBytes;
+        this.maxEntryBytes = Math.min(maxEntryBytes, maxBytes);
+    }
+
+    /**
+     * @return the cached value, or null on a miss
+     */
+    public V get(K key) {
+        return get(key, value -> true);
+    }
+
+    /**
+     * @return the cached value if it is still current, or null on a miss; a value that is no longer
+     *         current is dropped and counts as a miss
+     */
+    public V get(K key, Predicate<? super V> current) {
+        Sized<V> entry;
+        synchronized (this) {
+            entry = entries.get(key);
+            if (entry != null && !current.test(entry.value)) {
+                entries.remove(key);
+                bytes -= entry.size;
+                entry = null;
+            }
+        }
+        if (entry == null) {
+            misses.incrementAndGet();
+            return null;
+        }
+        hits.incrementAndGet();
+        return entry.value;
+    }
+
+    /**
+     * Add or replace a value, evicting least recently used values until it fits
+     *
+     * @return false if the value is too large to cache
+     */
+    public synchronized boolean put(K key, V value, long size) {
+        if (size > maxEntryBytes) {
+            return false;
+        }
+        Sized<V> previous = entries.put(key, new Sized<>(value, size));
+        if (previous != null) {
+            bytes -= previous.size;
+        }
+        bytes += size;
+
+        Iterator<Sized<V>> eldest = entries.values().iterator();
+        while (bytes > maxBytes && eldest.hasNext()) {
+            Sized<V> evicted = eldest.next();
+            eldest.remove();
+            bytes -= evicted.size;
+            evictions.incrementAndGet();
+        }
+        return true;
+    }
+
+    public synchronized void remove(K key) {
+        Sized<V> removed = entries.remove(key);
+        if (removed != null) {
+            bytes -= removed.size;
+        }
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+        bytes = 0;
+    }
+
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    public long getEvictionCount() {
+        return evictions.get();
+    }
+
+    public synchronized long getBytes() {
+        return bytes;
+    }
+
+    public Map<String, Object> getStats() {
+        long hitCount = hits.get();
+        long missCount = misses.get();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        synchronized (this) {
+            stats.put("entries", entries.size());
+            stats.put("bytes", bytes);
+        }
+        stats.put("maxBytes", maxBytes);
+        stats.put("hits", hitCount);
+        stats.put("misses", missCount);
+        stats.put("hitRatio", hitCount + missCount == 0 ? 0.0 : hitCount / (double) (hitCount + missCount));
+        stats.put("evictions", evictions.get());
+        return stats;
+    }
+
+    private static class Sized<V> {
+        private final V value;
+        private final long size;
+
+        Sized(V value, long size) {
+            this.value = value;
+            this.size = size;
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package nursescheduler.utility;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+/**
+ * Publishes an LruByteCache's hits, misses, evictions and size, in the style of Micrometer's cache binders
+ * Hit ratio is derived at query time, e.g. rate(hits) / (rate(hits) + rate(misses)).
+ */
+public class LruByteCacheMetrics implements MeterBinder {
+
+    private final LruByteCache<?, ?> cache;
+    private final String name;
+
+    public LruByteCacheMetrics(LruByteCache<?, ?> cache, String name) {
+        this.cache = cache;
+        this.name = name;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("cache.gets", cache, LruByteCache::getHitCount)
+            .tag("cache", name).tag("result", "hit")
+            .description("Cache lookups that found a value")
+            .register(registry);
+        FunctionCounter.builder("cache.gets", cache, LruByteCache::getMissCount)
+            .tag("cache", name).tag("result", "miss")
+            .description("Cache lookups that found nothing")
+            .register(registry);
+        FunctionCounter.builder("cache.evictions", cache, LruByteCache::getEvictionCount)
+            .tag("cache", name)
+            .register(registry);
+        Gauge.builder("cache.size.bytes", cache, LruByteCache::getBytes)
+            .tag("cache", name)
+            .baseUnit("bytes")
+            .register(registry);
+    }
+}
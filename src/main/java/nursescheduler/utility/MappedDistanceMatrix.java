@@ -0,0 +1,240 @@
+package nursescheduler.utility;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Sparse road distance/time matrix stored in a memory-mapped file
+ * An open-addressing hash table keyed by (from, to) location IDs, so only pairs that have actually
+ * been routed take space and the table survives restarts without being loaded onto the heap.
+ *
+ * Layout: a 16-byte header (magic, capacity, size) followed by 16-byte slots of
+ * [long key][float distance meters][float travel seconds]. Not thread-safe; callers synchronize.
+ */
+public class MappedDistanceMatrix implements Closeable {
+
+    private static final int MAGIC = 0x444d5431; // "DMT1"
+    private static final int HEADER_BYTES = 16;
+    private static final int SLOT_BYTES = 16;
+    private static final long EMPTY = 0L;
+    private static final long DELETED = -1L;
+
+    // Stop accepting new pairs beyond this load so probe chains stay short
+    private static final double MAX_LOAD = 0.7;
+
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final int capacity;
+    private final int mask;
+    private int size;
+    private int deleted;
+
+    /**
+     * Open the matrix file, creating it if needed
+     * A file written with a different capacity is discarded and started fresh
+     *
+     * @param file Backing file
+     * @param capacity Number of slots, rounded up to a power of two
+     */
+    public MappedDistanceMatrix(Path file, int capacity) throws IOException {
+        this.capacity = Integer.highestOneBit(Math.max(16, capacity - 1)) << 1;
+        this.mask = this.capacity - 1;
+
+        if (file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }
+        long bytes = HEADER_BYTES + (long) this.capacity * SLOT_BYTES;
+        boolean reuse = Files.exists(file) && Files.size(file) == bytes;
+
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, bytes);
+
+        if (reuse && buffer.getInt(0) == MAGIC && buffer.getInt(4) == this.capacity) {
+            size = buffer.getInt(8);
+            for (int slot = 0; slot < this.capacity; slot++) {
+                if (keyAt(slot) == DELETED) {
+                    deleted++;
+                }
+            }
+        } else {
+            clear();
+        }
+    }
+
+    /**
+     * Pack a pair of location IDs (both at least 1) into a table key
+     */
+    public static long key(int fromId, int toId) {
+        return ((long) fromId << 32) | (toId & 0xffffffffL);
+    }
+
+    /**
+     * @return slot index holding the pair, or -1 if it is not stored
+     */
+    public int find(int fromId, int toId) {
+        long key = key(fromId, toId);
+        int slot = hash(key);
+        for (int probes = 0; probes < capacity; probes++) {
+            long current = keyAt(slot);
+            if (current == EMPTY) {
+                return -1;
+            }
+            if (current == key) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    public float distanceAt(int slot) {
+        return buffer.getFloat(offset(slot) + 8);
+    }
+
+    public float timeAt(int slot) {
+        return buffer.getFloat(offset(slot) + 12);
+    }
+
+    /**
+     * Store or overwrite a pair
+     *
+     * @return false if the table is full and the pair was not stored
+     */
+    public boolean put(int fromId, int toId, double distance, double seconds) {
+        long key = key(fromId, toId);
+        int existing = find(fromId, toId);
+        if (existing >= 0) {
+            write(existing, key, distance, seconds);
+            return true;
+        }
+        if (size + deleted + 1 > capacity * MAX_LOAD) {
+            if (deleted == 0) {
+                return false;
+            }
+            compact();
+        }
+
+        int slot = hash(key);
+        while (keyAt(slot) != EMPTY && keyAt(slot) != DELETED) {
+            slot = (slot + 1) & mask;
+        }
+        if (keyAt(slot) == DELETED) {
+            deleted--;
+        }
+        write(slot, key, distance, seconds);
+        size++;
+        buffer.putInt(8, size);
+        return true;
+    }
+
+    /**
+     * Drop every pair that starts or ends at the given location
+     * A full scan, which is fine for the rare case of a patient or nurse moving
+     *
+     * @return number of pairs removed
+     */
+    public int removeLocation(int locationId) {
+        int removed = 0;
+        for (int slot = 0; slot < capacity; slot++) {
+            long key = keyAt(slot);
+            if (key == EMPTY || key == DELETED) {
+                continue;
+            }
+            if ((int) (key >>> 32) == locationId || (int) key == locationId) {
+                buffer.putLong(offset(slot), DELETED);
+                removed++;
+            }
+        }
+        size -= removed;
+        deleted += removed;
+        buffer.putInt(8, size);
+        return removed;
+    }
+
+    public void clear() {
+        for (int slot = 0; slot < capacity; slot++) {
+            buffer.putLong(offset(slot), EMPTY);
+        }
+        buffer.putInt(0, MAGIC);
+        buffer.putInt(4, capacity);
+        buffer.putInt(8, 0);
+        size = 0;
+        deleted = 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    /**
+     * Flush dirty pages to disk
+     */
+    public void force() {
+        buffer.force();
+    }
+
+    @Override
+    public void close() throws IOException {
+        force();
+        channel.close();
+    }
+
+    /**
+     * Re-insert live entries to clear out tombstones
+     */
+    private void compact() {
+        int live = size;
+        long[] keys = new long[live];
+        float[] distances = new float[live];
+        float[] times = new float[live];
+        int count = 0;
+        for (int slot = 0; slot < capacity; slot++) {
+            long key = keyAt(slot);
+            if (key != EMPTY && key != DELETED) {
+                keys[count] = key;
+                distances[count] = distanceAt(slot);
+                times[count] = timeAt(slot);
+                count++;
+            }
+        }
+        clear();
+        for (int i = 0; i < count; i++) {
+            put((int) (keys[i] >>> 32), (int) keys[i], distances[i], times[i]);
+        }
+    }
+
+    private void write(int slot, long key, double distance, double seconds) {
+        int offset = offset(slot);
+        buffer.putFloat(offset + 8, (float) distance);
+        buffer.putFloat(offset + 12, (float) seconds);
+        // Key last, so a torn write never exposes a key with stale values
+        buffer.putLong(offset, key);
+    }
+
+    private long keyAt(int slot) {
+        return buffer.getLong(offset(slot));
+    }
+
+    private int offset(int slot) {
+        return HEADER_BYTES + slot * SLOT_BYTES;
+    }
+
+    private int hash(long key) {
+        // 64-bit finalizer from MurmurHash3 to spread sequential IDs
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        key *= 0xc4ceb9fe1a85ec53L;
+        key ^= key >>> 33;
+        return (int) key & mask;
+    }
+}
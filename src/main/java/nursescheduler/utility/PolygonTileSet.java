@@ -0,0 +1,270 @@
+package nursescheduler.utility;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+
+/**
+ * Tiles intersecting one or more polygons (e.g. county boundaries)
+ * Walks the tile quadtree from zoom 0, pruning any tile that misses every polygon, so tiles outside
+ * the area are never even enumerated; once a tile lies wholly inside, its descendants need no more tests.
+ */
+public class PolygonTileSet implements TileSet {
+
+    private static final int OUTSIDE = 0;
+    private static final int PARTIAL = 1;
+    private static final int INSIDE = 2;
+
+    // Each polygon is an outer ring followed by its holes; each ring is a closed list of [lat, lon]
+    private final List<double[][][]> polygons;
+    private final int minZoom;
+    private final int maxZoom;
+    private final double minLat;
+    private final double maxLat;
+    private final double minLon;
+    private final double maxLon;
+    private long size = -1;
+
+    /**
+     * @param polygons Polygons as lists of rings (outer ring first, then holes), each ring a list of [lat, lon]
+     */
+    public PolygonTileSet(List<List<List<double[]>>> polygons, int minZoom, int maxZoom) {
+        this.polygons = new ArrayList<>();
+        double south = Double.MAX_VALUE, north = -Double.MAX_VALUE, west = Double.MAX_VALUE, east = -Double.MAX_VALUE;
+        for (List<List<double[]>> polygon : polygons) {
+            double[][][] rings = new double[polygon.size()][][];
+            for (int i = 0; i < polygon.size(); i++) {
+                rings[i] = polygon.get(i).toArray(new double[0][]);
+                for (double[] point : rings[i]) {
+                    south = Math.min(south, point[0]);
+                    north = Math.max(north, point[0]);
+                    west = Math.min(west, point[1]);
+                    east = Math.max(east, point[1]);
+                }
+            }
+            this.polygons.add(rings);
+        }
+        this.minLat = south;
+        this.maxLat = north;
+        this.minLon = west;
+        this.maxLon = east;
+        this.minZoom = minZoom;
+        this.maxZoom = maxZoom;
+    }
+
+    /**
+     * Read Polygon and MultiPolygon geometries from GeoJSON (a geometry, Feature or FeatureCollection)
+     */
+    public static PolygonTileSet fromGeoJson(String geoJson, int minZoom, int maxZoom) throws IOException {
+        List<List<List<double[]>>> polygons = new ArrayList<>();
+        collectPolygons(new ObjectMapper().readTree(geoJson), polygons);
+        if (polygons.isEmpty()) {
+            throw new IOException("GeoJSON contains no Polygon or MultiPolygon geometry");
+        }
+        return new PolygonTileSet(polygons, minZoom, maxZoom);
+    }
+
+    private static void collectPolygons(JsonNode node, List<List<List<double[]>>> polygons) {
+        String type = node.path("type").asText();
+        switch (type) {
+            case "FeatureCollection":
+                node.path("features").forEach(feature -> collectPolygons(feature, polygons));
+                break;
+            case "Feature":
+                collectPolygons(node.path("geometry"), polygons);
+                break;
+            case "GeometryCollection":
+                node.path("geometries").forEach(geometry -> collectPolygons(geometry, polygons));
+                break;
+            case "Polygon":
+                polygons.add(readRings(node.path("coordinates")));
+                break;
+            case "MultiPolygon":
+                node.path("coordinates").forEach(polygon -> polygons.add(readRings(polygon)));
+                break;
+            default:
+                break;
+        }
+    }
+
+    private static List<List<double[]>> readRings(JsonNode rings) {
+        List<List<double[]>> result = new ArrayList<>();
+        for (JsonNode ring : rings) {
+            List<double[]> points = new ArrayList<>();
+            // GeoJSON positions are [lon, lat]
+            ring.forEach(position -> points.add(new double[]{position.get(1).asDouble(), position.get(0).asDouble()}));
+            result.add(points);
+        }
+        return result;
+    }
+
+    @Override
+    public synchronized long size() {
+        if (size < 0) {
+            long count = 0;
+            PrimitiveIterator.OfLong tiles = iterator();
+            while (tiles.hasNext()) {
+                tiles.nextLong();
+                count++;
+            }
+            size = count;
+        }
+        return size;
+    }
+
+    @Override
+    public PrimitiveIterator.OfLong iterator() {
+        return new PrimitiveIterator.OfLong() {
+            // Depth-first over the quadtree: {z, x, y, known to be inside}
+            private final Deque<int[]> stack = new ArrayDeque<>(List.of(new int[]{0, 0, 0, 0}));
+            private long next = advance();
+
+            private long advance() {
+                while (!stack.isEmpty()) {
+                    int[] tile = stack.pop();
+                    int z = tile[0], x = tile[1], y = tile[2];
+                    boolean inside = tile[3] == 1;
+                    if (!inside) {
+                        int relation = classify(z, x, y);
+                        if (relation == OUTSIDE) {
+                            continue;
+                        }
+                        inside = relation == INSIDE;
+                    }
+                    if (z < maxZoom) {
+                        int flag = inside ? 1 : 0;
+                        // Pushed in reverse so children come off the stack in x, y order
+                        stack.push(new int[]{z + 1, 2 * x + 1, 2 * y + 1, flag});
+                        stack.push(new int[]{z + 1, 2 * x + 1, 2 * y, flag});
+                        stack.push(new int[]{z + 1, 2 * x, 2 * y + 1, flag});
+                        stack.push(new int[]{z + 1, 2 * x, 2 * y, flag});
+                    }
+                    if (z >= minZoom) {
+                        return TilePack.key(z, x, y);
+                    }
+                }
+                return -1;
+            }
+
+            @Override
+            public boolean hasNext() {
+                return next >= 0;
+            }
+
+            @Override
+            public long nextLong() {
+                if (next < 0) {
+                    throw new NoSuchElementException();
+                }
+                long current = next;
+                next = advance();
+                return current;
+            }
+        };
+    }
+
+    @Override
+    public String describe() {
+        return "polygon " + polygons.size() + " parts " + Integer.toHexString(Arrays.deepHashCode(polygons.toArray()))
+                + " z" + minZoom + "-" + maxZoom;
+    }
+
+    /**
+     * How a tile relates to the polygons
+     */
+    private int classify(int z, int x, int y) {
+        double west = tileLon(x, z);
+        double east = tileLon(x + 1, z);
+        double north = tileLat(y, z);
+        double south = tileLat(y + 1, z);
+        if (east < minLon || west > maxLon || north < minLat || south > maxLat) {
+            return OUTSIDE;
+        }
+
+        // An edge crossing the tile (or a vertex inside it) means partial coverage
+        for (double[][][] rings : polygons) {
+            for (double[][] ring : rings) {
+                for (int i = 0; i + 1 < ring.length; i++) {
+                    if (segmentIntersectsRect(ring[i], ring[i + 1], south, north, west, east)) {
+                        return PARTIAL;
+                    }
+                }
+            }
+        }
+
+        // No boundary inside the tile: it is either wholly inside a polygon or wholly outside all of them
+        double centerLat = (south + north) / 2;
+        double centerLon = (west + east) / 2;
+        for (double[][][] rings : polygons) {
+            if (containsPoint(rings, centerLat, centerLon)) {
+                return INSIDE;
+            }
+        }
+        return OUTSIDE;
+    }
+
+    /**
+     * Even-odd test over a polygon's outer ring and holes
+     */
+    private static boolean containsPoint(double[][][] rings, double lat, double lon) {
+        boolean inside = false;
+        for (double[][] ring : rings) {
+            for (int i = 0, j = ring.length - 1; i < ring.length; j = i++) {
+                double[] a = ring[i];
+                double[] b = ring[j];
+                if ((a[0] > lat) != (b[0] > lat)
+                        && lon < (b[1] - a[1]) * (lat - a[0]) / (b[0] - a[0]) + a[1]) {
+                    inside = !inside;
+                }
+            }
+        }
+        return inside;
+    }
+
+    /**
+     * Liang-Barsky clip of segment a-b ([lat, lon]) against the rectangle
+     */
+    private static boolean segmentIntersectsRect(double[] a, double[] b, double south, double north, double west, double east) {
+        double t0 = 0;
+        double t1 = 1;
+        double dLon = b[1] - a[1];
+        double dLat = b[0] - a[0];
+        double[] p = {-dLon, dLon, -dLat, dLat};
+        double[] q = {a[1] - west, east - a[1], a[0] - south, north - a[0]};
+        for (int i = 0; i < 4; i++) {
+            if (p[i] == 0) {
+                if (q[i] < 0) {
+                    return false;
+                }
+            } else {
+                double t = q[i] / p[i];
+                if (p[i] < 0) {
+                    t0 = Math.max(t0, t);
+                } else {
+                    t1 = Math.min(t1, t);
+                }
+                if (t0 > t1) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    static double tileLon(int x, int zoom) {
+        return x / (double) (1 << zoom) * 360 - 180;
+    }
+
+    static double tileLat(int y, int zoom) {
+        double n = Math.PI * (1 - 2 * y / (double) (1 << zoom));
+        return Math.toDegrees(Math.atan(Math.sinh(n)));
+    }
+}
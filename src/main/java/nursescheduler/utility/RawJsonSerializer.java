@@ -0,0 +1,40 @@
+package nursescheduler.utility;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+import java.io.IOException;
+
+/**
+ * Writes a String that already holds JSON (such as NurseSchedule.routeCoordinates) as that JSON value
+ * instead of an escaped string
+ * JSON output copies the text through untouched; binary formats (Smile, CBOR) cannot take raw text,
+ * so there the value is parsed and re-encoded token by token.
+ */
+public class RawJsonSerializer extends StdSerializer<String> {
+
+    private static final JsonFactory JSON = new JsonFactory();
+
+    public RawJsonSerializer() {
+        super(String.class);
+    }
+
+    @Override
+    public void serialize(String json, JsonGenerator gen, SerializerProvider provider) throws IOException {
+        if (json.isBlank()) {
+            gen.writeNull();
+            return;
+        }
+        if (!gen.canWriteBinaryNatively()) {
+            gen.writeRawValue(json);
+            return;
+        }
+        try (JsonParser parser = JSON.createParser(json)) {
+            parser.nextToken();
+            gen.copyCurrentStructure(parser);
+        }
+    }
+}
@@ -0,0 +1,570 @@
+package nursescheduler.utility;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Generates a synthetic home-health agency in the JSON files DataInitializer loads:
+ * workers.json, patients.json and appointments.json
+ *
+ * Patients and nurse homes are clustered around Texas cities in proportion to their size. Each field
+ * nurse works a panel in their own city, hospice nurses visit hospice patients (including weekends),
+ * and visits fall on quarter hours between 8:00 and 17:00 local time. Output is streamed, so
+ * million-appointment files need no more memory than the patient list, and the same seed always
+ * produces the same files.
+ */
+public class SyntheticDataGenerator {
+
+    private static final Logger log = LoggerFactory.getLogger(SyntheticDataGenerator.class);
+
+    private static final ZoneId CENTRAL = ZoneId.of("America/Chicago");
+    private static final ZoneId MOUNTAIN = ZoneId.of("America/Denver");
+
+    // name, latitude, longitude, relative size, spread (degrees), zip prefix, county
+    private static final City[] CITIES = {
+        new City("Houston", 29.7604, -95.3698, 23.0, 0.22, "770", "Harris", CENTRAL),
+        new City("San Antonio", 29.4241, -98.4936, 14.5, 0.16, "782", "Bexar", CENTRAL),
+        new City("Dallas", 32.7767, -96.7970, 13.0, 0.17, "752", "Dallas", CENTRAL),
+        new City("Austin", 30.2672, -97.7431, 9.7, 0.13, "787", "Travis", CENTRAL),
+        new City("Fort Worth", 32.7555, -97.3308, 9.4, 0.14, "761", "Tarrant", CENTRAL),
+        new City("El Paso", 31.7619, -106.4850, 6.8, 0.10, "799", "El Paso", MOUNTAIN),
+        new City("Arlington", 32.7357, -97.1081, 4.0, 0.06, "760", "Tarrant", CENTRAL),
+        new City("Corpus Christi", 27.8006, -97.3964, 3.2, 0.08, "784", "Nueces", CENTRAL),
+        new City("Plano", 33.0198, -96.6989, 2.9, 0.05, "750", "Collin", CENTRAL),
+        new City("Lubbock", 33.5779, -101.8552, 2.6, 0.06, "794", "Lubbock", CENTRAL),
+        new City("Laredo", 27.5306, -99.4803, 2.6, 0.05, "780", "Webb", CENTRAL),
+        new City("Amarillo", 35.2220, -101.8313, 2.0, 0.06, "791", "Potter", CENTRAL),
+        new City("McAllen", 26.2034, -98.2300, 1.4, 0.07, "785", "Hidalgo", CENTRAL),
+        new City("Brownsville", 25.9017, -97.4975, 1.9, 0.05, "785", "Cameron", CENTRAL),
+        new City("Waco", 31.5493, -97.1467, 1.4, 0.05, "767", "McLennan", CENTRAL),
+        new City("Midland", 31.9973, -102.0779, 1.3, 0.05, "797", "Midland", CENTRAL),
+        new City("Abilene", 32.4487, -99.7331, 1.3, 0.05, "796", "Taylor", CENTRAL),
+        new City("Beaumont", 30.0802, -94.1266, 1.1, 0.05, "777", "Jefferson", CENTRAL),
+        new City("Tyler", 32.3513, -95.3011, 1.1, 0.05, "757", "Smith", CENTRAL)
+    };
+
+    private static final String[] FIRST_NAMES = {
+        "Maria", "James", "Linda", "Robert", "Patricia", "Jose", "Jennifer", "Michael", "Elizabeth", "David",
+        "Barbara", "Juan", "Susan", "William", "Jessica", "Carlos", "Sarah", "Richard", "Karen", "Luis",
+        "Nancy", "Thomas", "Lisa", "Daniel", "Betty", "Jorge", "Margaret", "Charles", "Sandra", "Miguel",
+        "Ashley", "Christopher", "Dorothy", "Francisco", "Kimberly", "Matthew", "Emily", "Anthony", "Donna", "Ana"
+    };
+
+    private static final String[] LAST_NAMES = {
+        "Garcia", "Smith", "Martinez", "Johnson", "Hernandez", "Williams", "Lopez", "Brown", "Gonzalez", "Jones",
+        "Rodriguez", "Davis", "Perez", "Miller", "Sanchez", "Wilson", "Ramirez", "Anderson", "Torres", "Taylor",
+        "Flores", "Thomas", "Rivera", "Moore", "Gomez", "Jackson", "Diaz", "Martin", "Reyes", "Lee",
+        "Cruz", "Thompson", "Morales", "White", "Ortiz", "Harris", "Gutierrez", "Clark", "Chavez", "Lewis"
+    };
+
+    private static final String[] STREETS = {
+        "Main St", "Oak St", "Pecan St", "Elm St", "Cedar Ln", "Mesquite Dr", "Bluebonnet Ln", "Live Oak Dr",
+        "Ranch Rd", "Lamar Blvd", "Congress Ave", "Guadalupe St", "Travis St", "Houston St", "Lone Star Dr",
+        "Magnolia Ave", "Cypress Creek Rd", "Sunset Dr", "Park Pl", "Church St", "Mockingbird Ln", "Alamo St"
+    };
+
+    // Standard home health visit mix, weights sum to 100
+    private static final String[] STANDARD_VISIT_TYPES = {"ROUTINE", "ADMISSION", "RECERTIFICATION", "RESUMPTION_OF_CARE", "DISCHARGE"};
+    private static final int[] STANDARD_VISIT_WEIGHTS = {70, 8, 10, 5, 7};
+    private static final String[] HOSPICE_VISIT_TYPES = {"HOSPICE_ROUTINE", "HOSPICE_ADMISSION", "HOSPICE_CONTINUOUS_CARE"};
+    private static final int[] HOSPICE_VISIT_WEIGHTS = {88, 7, 5};
+    private static final String STANDARD_SERVICE_CODE = "G0299";
+    private static final String HOSPICE_SERVICE_CODE = "Q5001";
+
+    // Quarter-hour visit slots from 8:00 to 16:45
+    private static final int FIRST_SLOT_MINUTES = 8 * 60;
+    private static final int SLOT_COUNT = 36;
+
+    private final int nurseCount;
+    private final int patientCount;
+    private final int days;
+    private final LocalDate startDate;
+    private final long seed;
+
+    private double visitsPerDay = 6;
+    private double hospiceShare = 0.15;
+    private double fieldShare = 0.9;
+    private double missingCoordinatesShare = 0;
+    private long appointmentLimit = 0;
+
+    // Who lives and works where, fixed by the seed before anything is written
+    private int[] nurseCity;
+    private boolean[] nurseField;
+    private boolean[] nurseHospice;
+    private int[] patientCity;
+    private int[][] standardPatientsByCity;
+    private int[][] hospicePatientsByCity;
+
+    /**
+     * @param nurseCount Nurses (field and office staff)
+     * @param patientCount Patients
+     * @param days Consecutive days of appointments starting at startDate
+     */
+    public SyntheticDataGenerator(int nurseCount, int patientCount, int days, LocalDate startDate, long seed) {
+        if (nurseCount < 1 || patientCount < 1 || days < 1) {
+            throw new IllegalArgumentException("Nurses, patients and days must all be at least 1");
+        }
+        this.nurseCount = nurseCount;
+        this.patientCount = patientCount;
+        this.days = days;
+        this.startDate = startDate;
+        this.seed = seed;
+    }
+
+    /**
+     * Average visits per field nurse per weekday (default 6); actual days vary by up to two either way
+     */
+    public void setVisitsPerDay(double visitsPerDay) {
+        this.visitsPerDay = visitsPerDay;
+        nurseCity = null;
+    }
+
+    /**
+     * Fraction of patients and of field nurses on hospice service (default 0.15)
+     */
+    public void setHospiceShare(double hospiceShare) {
+        this.hospiceShare = hospiceShare;
+        nurseCity = null;
+    }
+
+    /**
+     * Fraction of nurses who visit patients; the rest are office staff without appointments (default 0.9)
+     */
+    public void setFieldShare(double fieldShare) {
+        this.fieldShare = fieldShare;
+        nurseCity = null;
+    }
+
+    /**
+     * Fraction of patients written without coordinates, so DataInitializer has to geocode them (default 0)
+     */
+    public void setMissingCoordinatesShare(double missingCoordinatesShare) {
+        this.missingCoordinatesShare = missingCoordinatesShare;
+    }
+
+    /**
+     * Stop after this many appointments (0 for no limit)
+     */
+    public void setAppointmentLimit(long appointmentLimit) {
+        this.appointmentLimit = appointmentLimit;
+    }
+
+    /**
+     * Write workers.json, patients.json and appointments.json into a directory
+     * Each file is written under a temporary name and renamed when complete.
+     *
+     * @return number of appointments written
+     */
+    public long generate(Path directory) throws IOException {
+        Files.createDirectories(directory);
+        long started = System.currentTimeMillis();
+        writeFile(directory.resolve("workers.json"), this::writeWorkers);
+        writeFile(directory.resolve("patients.json"), this::writePatients);
+        long[] appointments = new long[1];
+        writeFile(directory.resolve("appointments.json"), out -> appointments[0] = writeAppointments(out));
+        log.info("Generated {} nurses, {} patients and {} appointments over {} days into {} in {} ms",
+            nurseCount, patientCount, appointments[0], days, directory, System.currentTimeMillis() - started);
+        return appointments[0];
+    }
+
+    /**
+     * {"workers": [{workerId, firstName, lastName, address: {street, city, state, zip, county}, coordinates: {latitude, longitude}}]}
+     */
+    public void writeWorkers(OutputStream out) throws IOException {
+        plan();
+        Random random = new Random(seed ^ 0x574F524BL);
+        try (JsonGenerator json = open(out)) {
+            json.writeStartObject();
+            json.writeArrayFieldStart("workers");
+            for (int i = 0; i < nurseCount; i++) {
+                City city = CITIES[nurseCity[i]];
+                double[] home = city.randomPoint(random);
+                json.writeStartObject();
+                json.writeStringField("workerId", workerId(i));
+                json.writeStringField("firstName", pick(FIRST_NAMES, random));
+                json.writeStringField("lastName", pick(LAST_NAMES, random));
+                json.writeObjectFieldStart("address");
+                writeAddressFields(json, city, random);
+                json.writeEndObject();
+                writeCoordinates(json, home);
+                json.writeEndObject();
+            }
+            json.writeEndArray();
+            json.writeEndObject();
+        }
+    }
+
+    /**
+     * {"patients": [{patientId, firstName, lastName, street, city, state, zip, county, coordinates: {latitude, longitude}}]}
+     */
+    public void writePatients(OutputStream out) throws IOException {
+        plan();
+        Random random = new Random(seed ^ 0x50415449L);
+        try (JsonGenerator json = open(out)) {
+            json.writeStartObject();
+            json.writeArrayFieldStart("patients");
+            for (int i = 0; i < patientCount; i++) {
+                City city = CITIES[patientCity[i]];
+                double[] home = city.randomPoint(random);
+                json.writeStartObject();
+                json.writeStringField("patientId", patientId(i));
+                json.writeStringField("firstName", pick(FIRST_NAMES, random));
+                json.writeStringField("lastName", pick(LAST_NAMES, random));
+                writeAddressFields(json, city, random);
+                if (random.nextDouble() >= missingCoordinatesShare) {
+                    writeCoordinates(json, home);
+                }
+                json.writeEndObject();
+            }
+            json.writeEndArray();
+            json.writeEndObject();
+        }
+    }
+
+    /**
+     * {"appointments": {"all": [{appointmentId, patientId, practitionerId, appointmentDate, visitType, serviceCode}]}}
+     *
+     * @return number of appointments written
+     */
+    public long writeAppointments(OutputStream out) throws IOException {
+        plan();
+        Random random = new Random(seed ^ 0x41505054L);
+        int[] slots = new int[SLOT_COUNT];
+        long count = 0;
+        try (JsonGenerator json = open(out)) {
+            json.writeStartObject();
+            json.writeObjectFieldStart("appointments");
+            json.writeArrayFieldStart("all");
+            generation:
+            for (int day = 0; day < days; day++) {
+                LocalDate date = startDate.plusDays(day);
+                boolean weekend = date.getDayOfWeek() == DayOfWeek.SATURDAY || date.getDayOfWeek() == DayOfWeek.SUNDAY;
+                for (int nurse = 0; nurse < nurseCount; nurse++) {
+                    // Only hospice runs a (lighter) weekend schedule
+                    if (!nurseField[nurse] || (weekend && !nurseHospice[nurse])) {
+                        continue;
+                    }
+                    boolean hospice = nurseHospice[nurse];
+                    int[] panel = hospice ? hospicePatientsByCity[nurseCity[nurse]] : standardPatientsByCity[nurseCity[nurse]];
+                    if (panel.length == 0) {
+                        panel = hospice ? standardPatientsByCity[nurseCity[nurse]] : hospicePatientsByCity[nurseCity[nurse]];
+                    }
+                    if (panel.length == 0) {
+                        continue;
+                    }
+
+                    double mean = weekend ? visitsPerDay / 2 : visitsPerDay;
+                    int visits = (int) Math.max(1, Math.min(SLOT_COUNT, Math.round(mean + random.nextInt(5) - 2)));
+                    chooseSlots(slots, visits, random);
+                    City city = CITIES[nurseCity[nurse]];
+                    for (int v = 0; v < visits; v++) {
+                        if (appointmentLimit > 0 && count >= appointmentLimit) {
+                            break generation;
+                        }
+                        int minutes = FIRST_SLOT_MINUTES + slots[v] * 15;
+                        json.writeStartObject();
+                        json.writeStringField("appointmentId", "APT-" + (count + 1));
+                        json.writeStringField("patientId", patientId(panel[random.nextInt(panel.length)]));
+                        json.writeStringField("practitionerId", workerId(nurse));
+                        json.writeStringField("appointmentDate", DateTimeFormatter.ISO_OFFSET_DATE_TIME.format(
+                            date.atTime(minutes / 60, minutes % 60).atZone(city.zone).toOffsetDateTime()));
+                        json.writeStringField("visitType", hospice
+                            ? pickWeighted(HOSPICE_VISIT_TYPES, HOSPICE_VISIT_WEIGHTS, random)
+                            : pickWeighted(STANDARD_VISIT_TYPES, STANDARD_VISIT_WEIGHTS, random));
+                        json.writeStringField("serviceCode", hospice ? HOSPICE_SERVICE_CODE : STANDARD_SERVICE_CODE);
+                        json.writeEndObject();
+                        count++;
+                    }
+                }
+            }
+            json.writeEndArray();
+            json.writeEndObject();
+            json.writeEndObject();
+        }
+        return count;
+    }
+
+    /**
+     * Assign every nurse and patient a city and a service line
+     */
+    private void plan() {
+        if (nurseCity != null) {
+            return;
+        }
+        Random random = new Random(seed);
+        nurseCity = allocate(nurseCount, random);
+        patientCity = allocate(patientCount, random);
+
+        nurseField = new boolean[nurseCount];
+        nurseHospice = new boolean[nurseCount];
+        for (int i = 0; i < nurseCount; i++) {
+            nurseField[i] = random.nextDouble() < fieldShare;
+            nurseHospice[i] = nurseField[i] && random.nextDouble() < hospiceShare;
+        }
+
+        int[] standardCounts = new int[CITIES.length];
+        int[] hospiceCounts = new int[CITIES.length];
+        boolean[] patientHospice = new boolean[patientCount];
+        for (int i = 0; i < patientCount; i++) {
+            patientHospice[i] = random.nextDouble() < hospiceShare;
+            if (patientHospice[i]) {
+                hospiceCounts[patientCity[i]]++;
+            } else {
+                standardCounts[patientCity[i]]++;
+            }
+        }
+        standardPatientsByCity = new int[CITIES.length][];
+        hospicePatientsByCity = new int[CITIES.length][];
+        for (int c = 0; c < CITIES.length; c++) {
+            standardPatientsByCity[c] = new int[standardCounts[c]];
+            hospicePatientsByCity[c] = new int[hospiceCounts[c]];
+        }
+        Arrays.fill(standardCounts, 0);
+        Arrays.fill(hospiceCounts, 0);
+        for (int i = 0; i < patientCount; i++) {
+            int c = patientCity[i];
+            if (patientHospice[i]) {
+                hospicePatientsByCity[c][hospiceCounts[c]++] = i;
+            } else {
+                standardPatientsByCity[c][standardCounts[c]++] = i;
+            }
+        }
+    }
+
+    /**
+     * Spread people over the cities in proportion to their size (largest remainder), in shuffled order
+     */
+    private static int[] allocate(int count, Random random) {
+        double totalSize = 0;
+        for (City city : CITIES) {
+            totalSize += city.size;
+        }
+        int[] perCity = new int[CITIES.length];
+        double[] remainders = new double[CITIES.length];
+        int assigned = 0;
+        for (int c = 0; c < CITIES.length; c++) {
+            double share = count * CITIES[c].size / totalSize;
+            perCity[c] = (int) share;
+            remainders[c] = share - perCity[c];
+            assigned += perCity[c];
+        }
+        while (assigned < count) {
+            int best = 0;
+            for (int c = 1; c < CITIES.length; c++) {
+                if (remainders[c] > remainders[best]) {
+                    best = c;
+                }
+            }
+            perCity[best]++;
+            remainders[best] = -1;
+            assigned++;
+        }
+
+        int[] cities = new int[count];
+        int n = 0;
+        for (int c = 0; c < CITIES.length; c++) {
+            for (int k = 0; k < perCity[c]; k++) {
+                cities[n++] = c;
+            }
+        }
+        for (int i = count - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int swap = cities[i];
+            cities[i] = cities[j];
+            cities[j] = swap;
+        }
+        return cities;
+    }
+
+    /**
+     * Put `count` distinct slot numbers, in time order, at the start of slots
+     */
+    private static void chooseSlots(int[] slots, int count, Random random) {
+        for (int i = 0; i < SLOT_COUNT; i++) {
+            slots[i] = i;
+        }
+        for (int i = 0; i < count; i++) {
+            int j = i + random.nextInt(SLOT_COUNT - i);
+            int swap = slots[i];
+            slots[i] = slots[j];
+            slots[j] = swap;
+        }
+        Arrays.sort(slots, 0, count);
+    }
+
+    private static void writeAddressFields(JsonGenerator json, City city, Random random) throws IOException {
+        json.writeStringField("street", (100 + random.nextInt(9900)) + " " + pick(STREETS, random));
+        json.writeStringField("city", city.name);
+        json.writeStringField("state", "TX");
+        json.writeStringField("zip", city.zipPrefix + String.format("%02d", random.nextInt(100)));
+        json.writeStringField("county", city.county);
+    }
+
+    private static void writeCoordinates(JsonGenerator json, double[] point) throws IOException {
+        json.writeObjectFieldStart("coordinates");
+        json.writeNumberField("latitude", Math.round(point[0] * 1e6) / 1e6);
+        json.writeNumberField("longitude", Math.round(point[1] * 1e6) / 1e6);
+        json.writeEndObject();
+    }
+
+    private static String workerId(int index) {
+        return String.format("WRK-%06d", index + 1);
+    }
+
+    private static String patientId(int index) {
+        return String.format("PAT-%07d", index + 1);
+    }
+
+    private static String pick(String[] values, Random random) {
+        return values[random.nextInt(values.length)];
+    }
+
+    private static String pickWeighted(String[] values, int[] weights, Random random) {
+        int roll = random.nextInt(100);
+        for (int i = 0; i < values.length; i++) {
+            roll -= weights[i];
+            if (roll < 0) {
+                return values[i];
+            }
+        }
+        return values[values.length - 1];
+    }
+
+    private static JsonGenerator open(OutputStream out) throws IOException {
+        JsonGenerator json = new JsonFactory().createGenerator(new BufferedOutputStream(out, 1 << 16), JsonEncoding.UTF8);
+        // The caller owns the stream
+        json.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        return json;
+    }
+
+    private interface FileWriter {
+        void write(OutputStream out) throws IOException;
+    }
+
+    private static void writeFile(Path file, FileWriter writer) throws IOException {
+        Path partial = file.resolveSibling(file.getFileName() + ".partial");
+        try (OutputStream out = Files.newOutputStream(partial)) {
+            writer.write(out);
+        }
+        Files.move(partial, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * A Texas city that people are clustered around
+     */
+    private static class City {
+        private final String name;
+        private final double latitude;
+        private final double longitude;
+        private final double size;
+        private final double spread;
+        private final String zipPrefix;
+        private final String county;
+        private final ZoneId zone;
+
+        City(String name, double latitude, double longitude, double size, double spread, String zipPrefix, String county,
+                ZoneId zone) {
+            this.name = name;
+            this.latitude = latitude;
+            this.longitude = longitude;
+            this.size = size;
+            this.spread = spread;
+            this.zipPrefix = zipPrefix;
+            this.county = county;
+            this.zone = zone;
+        }
+
+        /**
+         * A normally distributed [lat, lon] point around the center, cut off at three spreads
+         */
+        double[] randomPoint(Random random) {
+            double lat = Math.max(-3, Math.min(3, random.nextGaussian())) * spread;
+            double lon = Math.max(-3, Math.min(3, random.nextGaussian())) * spread / Math.cos(Math.toRadians(latitude));
+            return new double[]{latitude + lat, longitude + lon};
+        }
+    }
+
+    public static void main(String[] args) {
+        int nurses = 200;
+        int patients = 5000;
+        int days = 30;
+        LocalDate start = LocalDate.now().with(DayOfWeek.MONDAY);
+        long seed = 1;
+        String output = "data/generated";
+        SyntheticDataGenerator generator;
+        List<String> unknown = new ArrayList<>();
+        double visitsPerDay = 6;
+        double hospiceShare = 0.15;
+        double fieldShare = 0.9;
+        double missingCoordinates = 0;
+        long limit = 0;
+        try {
+            for (String arg : args) {
+                int equals = arg.indexOf('=');
+                String name = equals < 0 ? arg : arg.substring(0, equals);
+                String value = equals < 0 ? "" : arg.substring(equals + 1);
+                switch (name) {
+                    case "--nurses": nurses = Integer.parseInt(value); break;
+                    case "--patients": patients = Integer.parseInt(value); break;
+                    case "--days": days = Integer.parseInt(value); break;
+                    case "--start": start = LocalDate.parse(value); break;
+                    case "--seed": seed = Long.parseLong(value); break;
+                    case "--output": output = value; break;
+                    case "--visits-per-day": visitsPerDay = Double.parseDouble(value); break;
+                    case "--hospice-share": hospiceShare = Double.parseDouble(value); break;
+                    case "--field-share": fieldShare = Double.parseDouble(value); break;
+                    case "--missing-coordinates": missingCoordinates = Double.parseDouble(value); break;
+                    case "--appointments": limit = Long.parseLong(value); break;
+                    default: unknown.add(arg);
+                }
+            }
+            if (!unknown.isEmpty()) {
+                throw new IllegalArgumentException("Unknown arguments: " + unknown);
+            }
+            generator = new SyntheticDataGenerator(nurses, patients, days, start, seed);
+        } catch (RuntimeException e) {
+            System.err.println("Error parsing arguments: " + e.getMessage());
+            printUsage();
+            return;
+        }
+        generator.setVisitsPerDay(visitsPerDay);
+        generator.setHospiceShare(hospiceShare);
+        generator.setFieldShare(fieldShare);
+        generator.setMissingCoordinatesShare(missingCoordinates);
+        generator.setAppointmentLimit(limit);
+
+        try {
+            generator.generate(Paths.get(output));
+        } catch (IOException e) {
+            log.error("Failed to write synthetic data to {}", output, e);
+        }
+    }
+
+    private static void printUsage() {
+        System.out.println("Usage: SyntheticDataGenerator [--nurses=200] [--patients=5000] [--days=30] [--start=yyyy-MM-dd]");
+        System.out.println("                              [--visits-per-day=6] [--hospice-share=0.15] [--field-share=0.9]");
+        System.out.println("                              [--missing-coordinates=0] [--appointments=0] [--seed=1]");
+        System.out.println("                              [--output=data/generated]");
+        System.out.println("Load the result with data.initializer.location=file:data/generated/");
+        System.out.println("Example: 5000 nurses x 30 days x 6 visits is about 900,000 appointments");
+    }
+}
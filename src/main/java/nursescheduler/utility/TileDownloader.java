@@ -1,52 +1,108 @@
 package nursescheduler.utility;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.RestClientException;
 import org.springframework.web.client.RestTemplate;
 
-import java.io.File;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.util.concurrent.ExecutorService;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Deque;
+import java.util.List;
+import java.util.PrimitiveIterator;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Utility for pre-downloading map tiles for offline use
- * Downloads tiles from a tile server and caches them locally
+ * Downloads tiles from a tile server into a single-file tile pack (see TilePack).
+ *
+ * Tiles are enumerated lazily and pulled by a fixed set of worker threads, requests go through a
+ * token-bucket rate limiter, and transient failures are retried with exponential backoff.
+ * A progress journal next to the pack records how far the enumeration got and which tiles failed,
+ * so an interrupted run picks up where it stopped; tiles already in the pack are never fetched again.
  */
 public class TileDownloader {
 
+    private static final Logger log = LoggerFactory.getLogger(TileDownloader.class);
+
+    private static final double DEFAULT_TILES_PER_SECOND = 50;
+    private static final int DEFAULT_MAX_ATTEMPTS = 5;
+    private static final long INITIAL_BACKOFF_MILLIS = 500;
+    private static final long MAX_BACKOFF_MILLIS = 30_000;
+    private static final long REPORT_INTERVAL_SECONDS = 10;
+
     private final String tileServerUrl;
-    private final String outputDirectory;
+    private final Path packFile;
+    private final Path journalFile;
     private final int threadCount;
-    private final AtomicInteger downloadedCount = new AtomicInteger(0);
-    private final AtomicInteger failedCount = new AtomicInteger(0);
-    
+    private final int maxAttempts;
+    private final TokenBucket rateLimiter;
+
+    // RestTemplate is thread-safe; one instance reuses connections across tiles
+    private final RestTemplate restTemplate = new RestTemplate();
+
+    private final AtomicLong downloadedCount = new AtomicLong(0);
+    private final AtomicLong skippedCount = new AtomicLong(0);
+    private final AtomicLong missingCount = new AtomicLong(0);
+    private final AtomicLong failedCount = new AtomicLong(0);
+    private final AtomicLong downloadedBytes = new AtomicLong(0);
+
+    private TilePackWriter pack;
+    private volatile boolean stopping;
+
+    // Enumeration state shared by the workers, guarded by this
+    private PrimitiveIterator.OfLong tiles;
+    private long nextSequence;
+    private long resumeFrom;
+    private long watermark;
+    private BitSet completed;
+    private final Deque<Long> retryTiles = new ArrayDeque<>();
+
     /**
      * Constructor
-     * 
+     *
      * @param tileServerUrl The URL template for the tile server, with {z}, {x}, {y} placeholders
-     * @param outputDirectory The directory to save tiles to
+     * @param packFile The tile pack to write into (created if missing, extended if it exists)
      * @param threadCount Number of concurrent download threads
      */
-    public TileDownloader(String tileServerUrl, String outputDirectory, int threadCount) {
+    public TileDownloader(String tileServerUrl, String packFile, int threadCount) {
+        this(tileServerUrl, packFile, threadCount, DEFAULT_TILES_PER_SECOND, DEFAULT_MAX_ATTEMPTS);
+    }
+
+    /**
+     * Constructor
+     *
+     * @param tileServerUrl The URL template for the tile server, with {z}, {x}, {y} placeholders
+     * @param packFile The tile pack to write into (created if missing, extended if it exists)
+     * @param threadCount Number of concurrent download threads
+     * @param tilesPerSecond Sustained request rate across all threads; zero or less for no limit
+     * @param maxAttempts Attempts per tile before it is recorded as failed
+     */
+    public TileDownloader(String tileServerUrl, String packFile, int threadCount, double tilesPerSecond, int maxAttempts) {
         this.tileServerUrl = tileServerUrl;
-        this.outputDirectory = outputDirectory;
-        this.threadCount = threadCount;
-        
-        // Create output directory if it doesn't exist
-        File outputDir = new File(outputDirectory);
-        if (!outputDir.exists()) {
-            outputDir.mkdirs();
-        }
+        this.packFile = Paths.get(packFile);
+        this.journalFile = Paths.get(packFile + ".journal");
+        this.threadCount = Math.max(1, threadCount);
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.rateLimiter = new TokenBucket(tilesPerSecond, this.threadCount * 2);
     }
-    
+
     /**
      * Download tiles for a specified area and zoom levels
-     * 
+     *
      * @param minLat Minimum latitude (southern boundary)
      * @param maxLat Maximum latitude (northern boundary)
      * @param minLon Minimum longitude (western boundary)
@@ -55,122 +111,339 @@ public class TileDownloader {
      * @param maxZoom Maximum zoom level
      */
     public void downloadTiles(
-            double minLat, double maxLat, 
-            double minLon, double maxLon, 
+            double minLat, double maxLat,
+            double minLon, double maxLon,
             int minZoom, int maxZoom) {
-        
-        System.out.println("Starting tile download...");
-        System.out.println("Area: " + minLat + "," + minLon + " to " + maxLat + "," + maxLon);
-        System.out.println("Zoom levels: " + minZoom + " to " + maxZoom);
-        
-        // Create thread pool
-        ExecutorService executor = Executors.newFixedThreadPool(threadCount);
-        
-        // For each zoom level
-        for (int z = minZoom; z <= maxZoom; z++) {
-            final int zoom = z;
-            
-            // Calculate tile ranges for this zoom level
-            int x1 = lonToTileX(minLon, zoom);
-            int x2 = lonToTileX(maxLon, zoom);
-            int y1 = latToTileY(maxLat, zoom); // Note: y is inverted in tile coordinates
-            int y2 = latToTileY(minLat, zoom);
-            
-            int tilesAtZoom = (x2 - x1 + 1) * (y2 - y1 + 1);
-            System.out.println("Zoom level " + zoom + ": " + tilesAtZoom + " tiles to download");
-            
-            // Download each tile
-            for (int x = x1; x <= x2; x++) {
-                for (int y = y1; y <= y2; y++) {
-                    final int tileX = x;
-                    final int tileY = y;
-                    
-                    executor.submit(() -> downloadTile(zoom, tileX, tileY));
+
+        log.info("Area: {},{} to {},{}", minLat, minLon, maxLat, maxLon);
+        log.info("Zoom levels: {} to {}", minZoom, maxZoom);
+        download(new BoundingBoxTileSet(minLat, maxLat, minLon, maxLon, minZoom, maxZoom));
+    }
+
+    /**
+     * Download every tile in a tile set, resuming a previous run of the same set if its journal exists
+     */
+    public void download(TileSet tileSet) {
+        long total = tileSet.size();
+        if (total > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Tile set too large for one run: " + total + " tiles");
+        }
+        log.info("Starting tile download: {} tiles ({})", total, tileSet.describe());
+
+        try {
+            pack = new TilePackWriter(packFile, "png");
+            startJournal(tileSet);
+        } catch (IOException e) {
+            log.warn("Cannot open tile pack {}: {}", packFile, e.getMessage());
+            return;
+        }
+
+        // Skip what a previous run already covered; tiles it finished out of order are deduplicated by the pack
+        tiles = tileSet.iterator();
+        for (long i = 0; i < resumeFrom && tiles.hasNext(); i++) {
+            tiles.nextLong();
+        }
+        nextSequence = resumeFrom;
+        watermark = resumeFrom;
+        completed = new BitSet();
+        if (resumeFrom > 0 || !retryTiles.isEmpty()) {
+            log.info("Resuming after {} tiles, retrying {} earlier failures", resumeFrom, retryTiles.size());
+        }
+
+        List<Thread> workers = new ArrayList<>();
+        for (int i = 0; i < threadCount; i++) {
+            Thread worker = new Thread(this::runWorker, "tile-download-" + i);
+            worker.start();
+            workers.add(worker);
+        }
+
+        // Ctrl-C stops handing out tiles, lets in-flight ones finish and still writes the pack index
+        Thread shutdownHook = new Thread(() -> {
+            stopping = true;
+            joinAll(workers);
+            finish(total);
+        });
+        Runtime.getRuntime().addShutdownHook(shutdownHook);
+
+        long startNanos = System.nanoTime();
+        ScheduledExecutorService reporter = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "tile-download-progress");
+            thread.setDaemon(true);
+            return thread;
+        });
+        reporter.scheduleAtFixedRate(() -> {
+            report(total, startNanos);
+            journalWatermark();
+        }, REPORT_INTERVAL_SECONDS, REPORT_INTERVAL_SECONDS, TimeUnit.SECONDS);
+
+        joinAll(workers);
+        reporter.shutdownNow();
+
+        try {
+            Runtime.getRuntime().removeShutdownHook(shutdownHook);
+        } catch (IllegalStateException e) {
+            // Already shutting down; the hook finishes the pack
+            return;
+        }
+        report(total, startNanos);
+        finish(total);
+    }
+
+    /**
+     * Stop handing out tiles; in-flight tiles finish and the pack index is still written
+     */
+    public void stop() {
+        stopping = true;
+    }
+
+    public long getDownloadedCount() {
+        return downloadedCount.get();
+    }
+
+    public long getSkippedCount() {
+        return skippedCount.get();
+    }
+
+    public long getMissingCount() {
+        return missingCount.get();
+    }
+
+    public long getFailedCount() {
+        return failedCount.get();
+    }
+
+    /**
+     * Pull tiles until the set is exhausted or a stop is requested
+     */
+    private void runWorker() {
+        while (!stopping) {
+            long sequence;
+            long key;
+            synchronized (this) {
+                if (!retryTiles.isEmpty()) {
+                    sequence = -1;
+                    key = retryTiles.poll();
+                } else if (tiles.hasNext()) {
+                    sequence = nextSequence++;
+                    key = tiles.nextLong();
+                } else {
+                    return;
                 }
             }
+
+            try {
+                downloadTile(key);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+
+            if (sequence >= 0) {
+                markCompleted(sequence);
+            }
         }
-        
-        // Shutdown executor and wait for completion
-        executor.shutdown();
+    }
+
+    /**
+     * Download a single tile unless the pack already has it
+     */
+    private void downloadTile(long key) throws InterruptedException {
+        int z = (int) (key >>> 48);
+        int x = (int) ((key >>> 24) & 0xffffff);
+        int y = (int) (key & 0xffffff);
+
+        // Check if tile already exists
+        if (pack.contains(z, x, y)) {
+            skippedCount.incrementAndGet();
+            return;
+        }
+
         try {
-            executor.awaitTermination(1, TimeUnit.DAYS);
-        } catch (InterruptedException e) {
-            System.err.println("Download interrupted: " + e.getMessage());
+            byte[] data = fetchWithRetry(z, x, y);
+            if (data == null) {
+                missingCount.incrementAndGet();
+                return;
+            }
+            pack.put(z, x, y, data);
+            downloadedCount.incrementAndGet();
+            downloadedBytes.addAndGet(data.length);
+        } catch (IOException | RestClientException e) {
+            failedCount.incrementAndGet();
+            appendJournal("failed " + key);
+            log.warn("Error downloading tile {}/{}/{}: {}", z, x, y, e.getMessage());
         }
-        
-        System.out.println("Download complete!");
-        System.out.println("Downloaded: " + downloadedCount.get() + " tiles");
-        System.out.println("Failed: " + failedCount.get() + " tiles");
     }
-    
+
     /**
-     * Download a single tile
+     * Fetch a tile, retrying server errors, timeouts and 429s with exponential backoff and jitter
+     *
+     * @return tile bytes, or null if the server has no tile here (404/204)
      */
-    private void downloadTile(int z, int x, int y) {
-        try {
-            // Create directory structure
-            String tilePath = String.format("%s/%d/%d", outputDirectory, z, x);
-            Path directory = Paths.get(tilePath);
-            Files.createDirectories(directory);
-            
-            // Check if tile already exists
-            Path tileFile = Paths.get(tilePath + "/" + y + ".png");
-            if (Files.exists(tileFile)) {
-                return; // Skip if already downloaded
+    private byte[] fetchWithRetry(int z, int x, int y) throws InterruptedException {
+        // Construct URL
+        String url = tileServerUrl
+                .replace("{z}", String.valueOf(z))
+                .replace("{x}", String.valueOf(x))
+                .replace("{y}", String.valueOf(y));
+
+        long backoff = INITIAL_BACKOFF_MILLIS;
+        for (int attempt = 1; ; attempt++) {
+            rateLimiter.acquire();
+            try {
+                ResponseEntity<byte[]> response = restTemplate.getForEntity(url, byte[].class);
+                return response.getBody() != null && response.getBody().length > 0 ? response.getBody() : null;
+            } catch (HttpClientErrorException e) {
+                if (e.getStatusCode().value() == 404) {
+                    return null;
+                }
+                // Other client errors will not get better by retrying
+                if (e.getStatusCode().value() != 429 || attempt >= maxAttempts) {
+                    throw e;
+                }
+            } catch (RestClientException e) {
+                if (attempt >= maxAttempts || stopping) {
+                    throw e;
+                }
             }
-            
-            // Construct URL
-            String url = tileServerUrl
-                    .replace("{z}", String.valueOf(z))
-                    .replace("{x}", String.valueOf(x))
-                    .replace("{y}", String.valueOf(y));
-            
-            // Download tile
-            RestTemplate restTemplate = new RestTemplate();
-            ResponseEntity<byte[]> response = restTemplate.getForEntity(url, byte[].class);
-            
-            if (response.getStatusCode().is2xxSuccessful() && response.getBody() != null) {
-                // Save tile
-                Files.write(tileFile, response.getBody());
-                downloadedCount.incrementAndGet();
-                
-                // Print progress occasionally
-                int count = downloadedCount.get();
-                if (count % 100 == 0) {
-                    System.out.println("Downloaded " + count + " tiles...");
+            Thread.sleep(backoff + ThreadLocalRandom.current().nextLong(backoff / 2 + 1));
+            backoff = Math.min(backoff * 2, MAX_BACKOFF_MILLIS);
+        }
+    }
+
+    /**
+     * Advance the resume point past every tile finished in order
+     */
+    private synchronized void markCompleted(long sequence) {
+        completed.set((int) (sequence - resumeFrom));
+        while (completed.get((int) (watermark - resumeFrom))) {
+            watermark++;
+        }
+    }
+
+    /**
+     * Read the previous journal for this tile set, then start a fresh one carrying its progress forward
+     * Journal lines: "job <set> <url>", "done <tiles covered in order>", "failed <tile key>", "complete"
+     */
+    private void startJournal(TileSet tileSet) throws IOException {
+        String job = "job " + tileSet.describe() + " " + tileServerUrl;
+        resumeFrom = 0;
+        retryTiles.clear();
+
+        if (Files.exists(journalFile)) {
+            List<String> lines = Files.readAllLines(journalFile, StandardCharsets.UTF_8);
+            if (!lines.isEmpty() && lines.get(0).equals(job)) {
+                for (String line : lines) {
+                    if (line.startsWith("done ")) {
+                        resumeFrom = Long.parseLong(line.substring(5).trim());
+                    } else if (line.startsWith("failed ")) {
+                        retryTiles.add(Long.parseLong(line.substring(7).trim()));
+                    }
                 }
             } else {
-                failedCount.incrementAndGet();
+                log.info("Journal {} is for a different download; starting from the beginning", journalFile);
             }
-            
-            // Be nice to the server - add a small delay
-            Thread.sleep(50);
-            
-        } catch (IOException | InterruptedException e) {
-            failedCount.incrementAndGet();
-            System.err.println("Error downloading tile " + z + "/" + x + "/" + y + ": " + e.getMessage());
+        }
+
+        // Earlier failures stay listed until a run gets past them; once in the pack they are simply skipped
+        StringBuilder journal = new StringBuilder(job).append(System.lineSeparator())
+                .append("done ").append(resumeFrom).append(System.lineSeparator());
+        for (long key : retryTiles) {
+            journal.append("failed ").append(key).append(System.lineSeparator());
+        }
+        Files.writeString(journalFile, journal, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+    }
+
+    private void journalWatermark() {
+        long done;
+        synchronized (this) {
+            done = watermark;
+        }
+        appendJournal("done " + done);
+    }
+
+    private synchronized void appendJournal(String line) {
+        try {
+            Files.writeString(journalFile, line + System.lineSeparator(), StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            log.warn("Could not update download journal: {}", e.getMessage());
         }
     }
-    
+
     /**
-     * Convert longitude to tile X coordinate
+     * Record final progress and write the pack index
      */
-    private static int lonToTileX(double lon, int zoom) {
-        return (int) Math.floor((lon + 180) / 360 * (1 << zoom));
+    private synchronized void finish(long total) {
+        if (pack == null) {
+            return;
+        }
+        journalWatermark();
+        if (watermark >= total && !stopping) {
+            appendJournal("complete");
+        }
+
+        // Writing the index makes the pack readable by the tile endpoint
+        try {
+            pack.close();
+        } catch (IOException e) {
+            log.warn("Error finishing tile pack {}: {}", packFile, e.getMessage());
+        }
+
+        log.info("{}: downloaded {}, already present {}, not on server {}, failed {}; tile pack {} holds {} tiles",
+                stopping ? "Download stopped, run again to resume" : "Download complete",
+                downloadedCount.get(), skippedCount.get(), missingCount.get(), failedCount.get(), packFile, pack.size());
+        pack = null;
     }
-    
+
     /**
-     * Convert latitude to tile Y coordinate
+     * Log progress, throughput and estimated time remaining
      */
-    private static int latToTileY(double lat, int zoom) {
-        double latRad = Math.toRadians(lat);
-        return (int) Math.floor((1 - Math.log(Math.tan(latRad) + 1 / Math.cos(latRad)) / Math.PI) / 2 * (1 << zoom));
+    private void report(long total, long startNanos) {
+        if (!log.isInfoEnabled()) {
+            return;
+        }
+        long processed = downloadedCount.get() + skippedCount.get() + missingCount.get() + failedCount.get();
+        double seconds = Math.max(1e-3, (System.nanoTime() - startNanos) / 1e9);
+        double tilesPerSecond = processed / seconds;
+        long covered;
+        synchronized (this) {
+            covered = nextSequence;
+        }
+        long remaining = Math.max(0, total - covered);
+        String eta = tilesPerSecond > 0 ? formatDuration((long) (remaining / tilesPerSecond)) : "unknown";
+
+        log.info(String.format("Progress: %d/%d tiles (%.1f%%), %.1f tiles/s, %.2f MB/s, ETA %s "
+                        + "(downloaded %d, present %d, missing %d, failed %d)",
+                covered, total, total > 0 ? 100.0 * covered / total : 100.0, tilesPerSecond,
+                downloadedBytes.get() / seconds / (1024 * 1024), eta,
+                downloadedCount.get(), skippedCount.get(), missingCount.get(), failedCount.get()));
+    }
+
+    private static String formatDuration(long seconds) {
+        return String.format("%d:%02d:%02d", seconds / 3600, (seconds / 60) % 60, seconds % 60);
+    }
+
+    private static void joinAll(List<Thread> threads) {
+        for (Thread thread : threads) {
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
     }
-    
+
     /**
      * Main method for testing and CLI usage
      */
     public static void main(String[] args) {
+        if (args.length > 0 && args[0].equals("--polygon")) {
+            mainPolygon(args);
+            return;
+        }
+
         // Default values for Austin, TX area
         double minLat = 30.15;
         double maxLat = 30.35;
@@ -179,9 +452,10 @@ public class TileDownloader {
         int minZoom = 10;
         int maxZoom = 16;
         String tileUrl = "http://localhost:8081/data/texas/{z}/{x}/{y}.png";
-        String outputDir = "./tile-cache";
+        String packFile = "./tile-cache/texas.tilepack";
         int threads = 4;
-        
+        double tilesPerSecond = DEFAULT_TILES_PER_SECOND;
+
         // Parse command line arguments if provided
         if (args.length >= 8) {
             try {
@@ -192,28 +466,57 @@ public class TileDownloader {
                 minZoom = Integer.parseInt(args[4]);
                 maxZoom = Integer.parseInt(args[5]);
                 tileUrl = args[6];
-                outputDir = args[7];
-                
+                packFile = args[7];
+
                 if (args.length >= 9) {
                     threads = Integer.parseInt(args[8]);
                 }
+                if (args.length >= 10) {
+                    tilesPerSecond = Double.parseDouble(args[9]);
+                }
             } catch (NumberFormatException e) {
                 System.err.println("Error parsing arguments: " + e.getMessage());
                 printUsage();
                 return;
             }
         }
-        
+
         // Create downloader and start download
-        TileDownloader downloader = new TileDownloader(tileUrl, outputDir, threads);
+        TileDownloader downloader = new TileDownloader(tileUrl, packFile, threads, tilesPerSecond, DEFAULT_MAX_ATTEMPTS);
         downloader.downloadTiles(minLat, maxLat, minLon, maxLon, minZoom, maxZoom);
     }
-    
+
+    /**
+     * Seed only the tiles intersecting the polygons in a GeoJSON file (e.g. county boundaries)
+     */
+    private static void mainPolygon(String[] args) {
+        if (args.length < 6) {
+            printUsage();
+            return;
+        }
+        try {
+            String geoJson = Files.readString(Paths.get(args[1]), StandardCharsets.UTF_8);
+            int minZoom = Integer.parseInt(args[2]);
+            int maxZoom = Integer.parseInt(args[3]);
+            int threads = args.length >= 7 ? Integer.parseInt(args[6]) : 4;
+            double tilesPerSecond = args.length >= 8 ? Double.parseDouble(args[7]) : DEFAULT_TILES_PER_SECOND;
+
+            TileDownloader downloader = new TileDownloader(args[4], args[5], threads, tilesPerSecond, DEFAULT_MAX_ATTEMPTS);
+            downloader.download(PolygonTileSet.fromGeoJson(geoJson, minZoom, maxZoom));
+        } catch (IOException | NumberFormatException e) {
+            System.err.println("Error parsing arguments: " + e.getMessage());
+            printUsage();
+        }
+    }
+
     /**
      * Print usage instructions
      */
     private static void printUsage() {
-        System.out.println("Usage: TileDownloader [minLat maxLat minLon maxLon minZoom maxZoom tileUrl outputDir threads]");
+        System.out.println("Usage: TileDownloader [minLat maxLat minLon maxLon minZoom maxZoom tileUrl packFile threads tilesPerSecond]");
+        System.out.println("       TileDownloader --polygon boundaries.geojson minZoom maxZoom tileUrl packFile [threads tilesPerSecond]");
         System.out.println("  If no arguments are provided, defaults to Austin, TX area.");
+        System.out.println("  Buffers around patients/nurses and schedule route corridors are seeded from the running app (/api/tiles/seed/*).");
+        System.out.println("  An interrupted download resumes from its journal (packFile.journal) when run again.");
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,207 @@
+package nursescheduler.utility;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Arrays;
+
+/**
+ * Read-only, memory-mapped view of a single-file tile pack
+ * Replaces one-file-per-tile caches: a whole region lives in one file, the index is a sorted
+ * array searched in memory, and tile bytes are served straight from the mapped pages.
+ *
+ * Layout:
+ *   header  [int magic][int version][8 bytes format, e.g. "png"]
+ *   records [long key][int length][int crc32][tile bytes] ...
+ *   index   [long key][long data offset][int length][int crc32] ... sorted by key
+ *   footer  [long index offset][int count][int magic]
+ */
+public class TilePack implements Closeable {
+
+    static final int MAGIC = 0x54504b31; // "TPK1"
+    static final int VERSION = 1;
+    static final int HEADER_BYTES = 16;
+    static final int RECORD_HEADER_BYTES = 16;
+    static final int INDEX_ENTRY_BYTES = 24;
+    static final int FOOTER_BYTES = 16;
+
+    // Deepest zoom a key can hold: x and y get 24 bits each
+    public static final int MAX_ZOOM = 24;
+
+    // Files over 2 GB are mapped in overlapping segments so no tile straddles a mapping
+    private static final long SEGMENT_BYTES = 1L << 30;
+    private static final long SEGMENT_OVERLAP = 16L << 20;
+
+    private final Path file;
+    // Identity (inode) of the file that was opened, to tell whether the path still names it
+    private final Object fileKey;
+    private final FileChannel channel;
+    private final MappedByteBuffer[] segments;
+    private final String format;
+    private final long[] keys;
+    private final long[] offsets;
+    private final int[] lengths;
+    private final int[] crcs;
+
+    public TilePack(Path file) throws IOException {
+        this.file = file;
+        this.fileKey = Files.readAttributes(file, BasicFileAttributes.class).fileKey();
+        channel = FileChannel.open(file, StandardOpenOption.READ);
+        long size = channel.size();
+        if (size < HEADER_BYTES + FOOTER_BYTES) {
+            channel.close();
+            throw new IOException("Tile pack is too small: " + file);
+        }
+
+        ByteBuffer header = read(0, HEADER_BYTES);
+        if (header.getInt() != MAGIC) {
+            channel.close();
+            throw new IOException("Not a tile pack: " + file);
+        }
+        header.getInt();
+        byte[] formatBytes = new byte[HEADER_BYTES - 8];
+        header.get(formatBytes);
+        format = new String(formatBytes, StandardCharsets.US_ASCII).trim();
+
+        ByteBuffer footer = read(size - FOOTER_BYTES, FOOTER_BYTES);
+        long indexOffset = footer.getLong();
+        int count = footer.getInt();
+        if (footer.getInt() != MAGIC || indexOffset + (long) count * INDEX_ENTRY_BYTES + FOOTER_BYTES != size) {
+            channel.close();
+            throw new IOException("Tile pack has no index (still being written?): " + file);
+        }
+
+        keys = new long[count];
+        offsets = new long[count];
+        lengths = new int[count];
+        crcs = new int[count];
+        ByteBuffer index = read(indexOffset, count * INDEX_ENTRY_BYTES);
+        for (int i = 0; i < count; i++) {
+            keys[i] = index.getLong();
+            offsets[i] = index.getLong();
+            lengths[i] = index.getInt();
+            crcs[i] = index.getInt();
+        }
+
+        int segmentCount = (int) ((indexOffset + SEGMENT_BYTES - 1) / SEGMENT_BYTES);
+        segments = new MappedByteBuffer[Math.max(1, segmentCount)];
+        for (int i = 0; i < segments.length; i++) {
+            long start = i * SEGMENT_BYTES;
+            long length = Math.min(SEGMENT_BYTES + SEGMENT_OVERLAP, indexOffset - start);
+            segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.max(0, length));
+        }
+    }
+
+    /**
+     * Pack tile coordinates into one sortable key (zoom up to MAX_ZOOM)
+     */
+    public static long key(int z, int x, int y) {
+        return ((long) z << 48) | ((long) x << 24) | y;
+    }
+
+    /**
+     * @return the tile's index entry, or null if the pack does not have it
+     */
+    public Entry find(int z, int x, int y) {
+        int i = Arrays.binarySearch(keys, key(z, x, y));
+        return i < 0 ? null : new Entry(keys[i], offsets[i], lengths[i], crcs[i]);
+    }
+
+    /**
+     * A read-only view of the tile bytes in the mapped file; no copy is made
+     */
+    public ByteBuffer data(Entry entry) {
+        int segment = (int) (entry.getOffset() / SEGMENT_BYTES);
+        int position = (int) (entry.getOffset() - segment * SEGMENT_BYTES);
+        return segments[segment].asReadOnlyBuffer().position(position).limit(position + entry.getLength()).slice();
+    }
+
+    /**
+     * The pack file; entry offsets are positions in it, and the writer only appends, so they stay valid
+     */
+    public Path getFile() {
+        return file;
+    }
+
+    /**
+     * Whether the path still names the file that was opened, rather than a replacement or nothing
+     */
+    public boolean isFileCurrent() {
+        try {
+            return fileKey != null && fileKey.equals(Files.readAttributes(file, BasicFileAttributes.class).fileKey());
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    public String getFormat() {
+        return format;
+    }
+
+    public int size() {
+        return keys.length;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private ByteBuffer read(long at, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, at + buffer.position()) < 0) {
+                throw new IOException("Unexpected end of tile pack");
+            }
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    /**
+     * Location and checksum of one tile in the pack
+     */
+    public static class Entry {
+        private final long key;
+        private final long offset;
+        private final int length;
+        private final int crc;
+
+        public Entry(long key, long offset, int length, int crc) {
+            this.key = key;
+            this.offset = offset;
+            this.length = length;
+            this.crc = crc;
+        }
+
+        public long getKey() {
+            return key;
+        }
+
+        public long getOffset() {
+            return offset;
+        }
+
+        public int getLength() {
+            return length;
+        }
+
+        public int getCrc() {
+            return crc;
+        }
+
+        /**
+         * Strong validator derived from the tile's checksum and length
+         */
+        public String getETag() {
+            return "\"" + Integer.toHexString(crc) + "-" + Integer.toHexString(length) + "\"";
+        }
+    }
+}
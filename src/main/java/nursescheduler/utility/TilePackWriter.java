@@ -0,0 +1,185 @@
+package nursescheduler.utility;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * Appends map tiles to a single-file tile pack (see TilePack for the layout)
+ * Reopening an existing pack continues where it left off; if the previous writer never closed,
+ * the index is rebuilt by scanning the tile records. Safe for concurrent download threads.
+ */
+public class TilePackWriter implements Closeable {
+
+    private static final Logger log = LoggerFactory.getLogger(TilePackWriter.class);
+
+    private final FileChannel channel;
+    private final Map<Long, TilePack.Entry> index = new HashMap<>();
+    private long position;
+
+    /**
+     * Open or create a pack for writing
+     *
+     * @param file Pack file
+     * @param format Tile format stored in the header, e.g. "png"
+     */
+    public TilePackWriter(Path file, String format) throws IOException {
+        if (file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+        if (channel.size() < TilePack.HEADER_BYTES) {
+            writeHeader(format);
+            position = TilePack.HEADER_BYTES;
+        } else if (readFully(0, 4).getInt() != TilePack.MAGIC) {
+            throw new IOException("Not a tile pack: " + file);
+        } else if (!loadIndex()) {
+            recover();
+        }
+        // New tiles overwrite the old index; it is rewritten on close
+        channel.truncate(position);
+    }
+
+    public synchronized boolean contains(int z, int x, int y) {
+        return index.containsKey(TilePack.key(z, x, y));
+    }
+
+    public synchronized int size() {
+        return index.size();
+    }
+
+    /**
+     * Append a tile; a tile already in the pack is superseded by the new bytes
+     */
+    public synchronized void put(int z, int x, int y, byte[] data) throws IOException {
+        long key = TilePack.key(z, x, y);
+        CRC32 crc = new CRC32();
+        crc.update(data);
+
+        ByteBuffer record = ByteBuffer.allocate(TilePack.RECORD_HEADER_BYTES + data.length);
+        record.putLong(key).putInt(data.length).putInt((int) crc.getValue()).put(data).flip();
+        writeFully(record, position);
+
+        index.put(key, new TilePack.Entry(key, position + TilePack.RECORD_HEADER_BYTES, data.length, (int) crc.getValue()));
+        position += record.limit();
+    }
+
+    /**
+     * Write the sorted index and footer so readers can open the pack
+     */
+    public synchronized void flush() throws IOException {
+        List<TilePack.Entry> entries = new ArrayList<>(index.values());
+        entries.sort((a, b) -> Long.compare(a.getKey(), b.getKey()));
+
+        ByteBuffer buffer = ByteBuffer.allocate(entries.size() * TilePack.INDEX_ENTRY_BYTES + TilePack.FOOTER_BYTES);
+        for (TilePack.Entry entry : entries) {
+            buffer.putLong(entry.getKey()).putLong(entry.getOffset()).putInt(entry.getLength()).putInt(entry.getCrc());
+        }
+        buffer.putLong(position).putInt(entries.size()).putInt(TilePack.MAGIC).flip();
+
+        channel.truncate(position);
+        writeFully(buffer, position);
+        channel.force(false);
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        flush();
+        channel.close();
+    }
+
+    private void writeHeader(String format) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(TilePack.HEADER_BYTES);
+        header.putInt(TilePack.MAGIC).putInt(TilePack.VERSION);
+        byte[] formatBytes = format.getBytes(StandardCharsets.US_ASCII);
+        header.put(formatBytes, 0, Math.min(formatBytes.length, TilePack.HEADER_BYTES - 8));
+        header.position(TilePack.HEADER_BYTES).flip();
+        writeFully(header, 0);
+    }
+
+    /**
+     * Load the index written by a previous close
+     *
+     * @return false if the footer is missing or damaged
+     */
+    private boolean loadIndex() throws IOException {
+        long size = channel.size();
+        if (size < TilePack.HEADER_BYTES + TilePack.FOOTER_BYTES) {
+            return false;
+        }
+        ByteBuffer footer = readFully(size - TilePack.FOOTER_BYTES, TilePack.FOOTER_BYTES);
+        long indexOffset = footer.getLong();
+        int count = footer.getInt();
+        if (footer.getInt() != TilePack.MAGIC
+                || indexOffset + (long) count * TilePack.INDEX_ENTRY_BYTES + TilePack.FOOTER_BYTES != size) {
+            return false;
+        }
+
+        ByteBuffer entries = readFully(indexOffset, count * TilePack.INDEX_ENTRY_BYTES);
+        for (int i = 0; i < count; i++) {
+            TilePack.Entry entry = new TilePack.Entry(entries.getLong(), entries.getLong(), entries.getInt(), entries.getInt());
+            index.put(entry.getKey(), entry);
+        }
+        position = indexOffset;
+        return true;
+    }
+
+    /**
+     * Rebuild the index from the tile records, dropping a partially written last record
+     */
+    private void recover() throws IOException {
+        long size = channel.size();
+        long offset = TilePack.HEADER_BYTES;
+        while (offset + TilePack.RECORD_HEADER_BYTES <= size) {
+            ByteBuffer header = readFully(offset, TilePack.RECORD_HEADER_BYTES);
+            long key = header.getLong();
+            int length = header.getInt();
+            int crc = header.getInt();
+            long dataOffset = offset + TilePack.RECORD_HEADER_BYTES;
+            if (length < 0 || dataOffset + length > size) {
+                break;
+            }
+            // A torn or half-written index looks like garbage records; the checksum catches it
+            CRC32 check = new CRC32();
+            check.update(readFully(dataOffset, length));
+            if ((int) check.getValue() != crc) {
+                break;
+            }
+            index.put(key, new TilePack.Entry(key, dataOffset, length, crc));
+            offset = dataOffset + length;
+        }
+        position = offset;
+        log.info("Recovered tile pack index: {} tiles", index.size());
+    }
+
+    private void writeFully(ByteBuffer buffer, long at) throws IOException {
+        while (buffer.hasRemaining()) {
+            at += channel.write(buffer, at);
+        }
+    }
+
+    private ByteBuffer readFully(long at, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, at + buffer.position()) < 0) {
+                throw new IOException("Unexpected end of tile pack");
+            }
+        }
+        buffer.flip();
+        return buffer;
+    }
+}
@@ -0,0 +1,43 @@
+package nursescheduler.utility;
+
+import java.util.PrimitiveIterator;
+
+/**
+ * A deterministic, lazily enumerated set of map tiles to download
+ * Tiles are produced one at a time as TilePack keys, so seeding millions of tiles never
+ * materializes them all; the fixed order lets an interrupted download skip what it already covered.
+ */
+public interface TileSet {
+
+    /**
+     * Number of tiles, used for progress and ETA
+     */
+    long size();
+
+    /**
+     * A fresh iterator over the tile keys, always in the same order
+     */
+    PrimitiveIterator.OfLong iterator();
+
+    /**
+     * Stable description recorded in the download journal; a resumed run must describe the same set
+     */
+    String describe();
+
+    /**
+     * Convert longitude to tile X coordinate
+     */
+    static int lonToTileX(double lon, int zoom) {
+        int x = (int) Math.floor((lon + 180) / 360 * (1 << zoom));
+        return Math.max(0, Math.min((1 << zoom) - 1, x));
+    }
+
+    /**
+     * Convert latitude to tile Y coordinate
+     */
+    static int latToTileY(double lat, int zoom) {
+        double latRad = Math.toRadians(lat);
+        int y = (int) Math.floor((1 - Math.log(Math.tan(latRad) + 1 / Math.cos(latRad)) / Math.PI) / 2 * (1 << zoom));
+        return Math.max(0, Math.min((1 << zoom) - 1, y));
+    }
+}
@@ -0,0 +1,240 @@
+package nursescheduler.utility;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Minimal Mapbox Vector Tile (MVT 2.1) encoder
+ * Geometry is given in tile coordinates (0..extent); the caller projects, simplifies and clips.
+ * Writes the protobuf wire format directly, so no protobuf runtime or generated classes are needed.
+ */
+public class VectorTileEncoder {
+
+    // vector_tile.proto field numbers
+    private static final int TILE_LAYERS = 3;
+    private static final int LAYER_NAME = 1;
+    private static final int LAYER_FEATURES = 2;
+    private static final int LAYER_KEYS = 3;
+    private static final int LAYER_VALUES = 4;
+    private static final int LAYER_EXTENT = 5;
+    private static final int LAYER_VERSION = 15;
+    private static final int FEATURE_ID = 1;
+    private static final int FEATURE_TAGS = 2;
+    private static final int FEATURE_TYPE = 3;
+    private static final int FEATURE_GEOMETRY = 4;
+    private static final int VALUE_STRING = 1;
+    private static final int VALUE_DOUBLE = 3;
+    private static final int VALUE_SINT = 6;
+    private static final int VALUE_BOOL = 7;
+
+    private static final int TYPE_POINT = 1;
+    private static final int TYPE_LINESTRING = 2;
+
+    private static final int COMMAND_MOVE_TO = 1;
+    private static final int COMMAND_LINE_TO = 2;
+
+    private static final int WIRE_VARINT = 0;
+    private static final int WIRE_LENGTH_DELIMITED = 2;
+
+    private final int extent;
+    private final Map<String, Layer> layers = new LinkedHashMap<>();
+
+    public VectorTileEncoder(int extent) {
+        this.extent = extent;
+    }
+
+    /**
+     * Add a point feature
+     *
+     * @param id Feature id, or null
+     * @param attributes String, number or boolean attribute values; nulls are skipped
+     */
+    public void addPoint(String layerName, int x, int y, Long id, Map<String, Object> attributes) {
+        int[] geometry = {command(COMMAND_MOVE_TO, 1), zigZag(x), zigZag(y)};
+        layer(layerName).addFeature(id, attributes, TYPE_POINT, geometry, geometry.length);
+    }
+
+    /**
+     * Add a line feature made of one or more parts (a MultiLineString when more than one)
+     *
+     * @param parts Each part is x0, y0, x1, y1, ... with at least two points
+     */
+    public void addLineString(String layerName, List<int[]> parts, Long id, Map<String, Object> attributes) {
+        int length = 0;
+        for (int[] part : parts) {
+            length += 2 + part.length;
+        }
+        int[] geometry = new int[length];
+        int n = 0;
+        int cursorX = 0;
+        int cursorY = 0;
+        for (int[] part : parts) {
+            geometry[n++] = command(COMMAND_MOVE_TO, 1);
+            geometry[n++] = zigZag(part[0] - cursorX);
+            geometry[n++] = zigZag(part[1] - cursorY);
+            cursorX = part[0];
+            cursorY = part[1];
+            geometry[n++] = command(COMMAND_LINE_TO, part.length / 2 - 1);
+            for (int i = 2; i < part.length; i += 2) {
+                geometry[n++] = zigZag(part[i] - cursorX);
+                geometry[n++] = zigZag(part[i + 1] - cursorY);
+                cursorX = part[i];
+                cursorY = part[i + 1];
+            }
+        }
+        if (n > 0) {
+            layer(layerName).addFeature(id, attributes, TYPE_LINESTRING, geometry, n);
+        }
+    }
+
+    public boolean isEmpty() {
+        return layers.isEmpty();
+    }
+
+    /**
+     * Serialize the tile; layers without features are left out
+     */
+    public byte[] encode() {
+        ByteArrayOutputStream tile = new ByteArrayOutputStream();
+        for (Layer layer : layers.values()) {
+            writeBytes(tile, TILE_LAYERS, layer.encode());
+        }
+        return tile.toByteArray();
+    }
+
+    private Layer layer(String name) {
+        return layers.computeIfAbsent(name, Layer::new);
+    }
+
+    private static int command(int id, int count) {
+        return (id & 0x7) | (count << 3);
+    }
+
+    private static int zigZag(int n) {
+        return (n << 1) ^ (n >> 31);
+    }
+
+    /**
+     * Features of one layer plus its shared key and value tables
+     */
+    private class Layer {
+        private final String name;
+        private final Map<String, Integer> keys = new LinkedHashMap<>();
+        private final Map<Object, Integer> values = new LinkedHashMap<>();
+        private final ByteArrayOutputStream features = new ByteArrayOutputStream();
+
+        Layer(String name) {
+            this.name = name;
+        }
+
+        void addFeature(Long id, Map<String, Object> attributes, int type, int[] geometry, int geometryLength) {
+            ByteArrayOutputStream feature = new ByteArrayOutputStream();
+            if (id != null && id >= 0) {
+                writeTag(feature, FEATURE_ID, WIRE_VARINT);
+                writeVarint(feature, id);
+            }
+
+            ByteArrayOutputStream tags = new ByteArrayOutputStream();
+            if (attributes != null) {
+                for (Map.Entry<String, Object> attribute : attributes.entrySet()) {
+                    Object value = normalize(attribute.getValue());
+                    if (value == null) {
+                        continue;
+                    }
+                    writeVarint(tags, keys.computeIfAbsent(attribute.getKey(), key -> keys.size()));
+                    writeVarint(tags, values.computeIfAbsent(value, key -> values.size()));
+                }
+            }
+            if (tags.size() > 0) {
+                writeBytes(feature, FEATURE_TAGS, tags.toByteArray());
+            }
+
+            writeTag(feature, FEATURE_TYPE, WIRE_VARINT);
+            writeVarint(feature, type);
+
+            ByteArrayOutputStream packed = new ByteArrayOutputStream();
+            for (int i = 0; i < geometryLength; i++) {
+                writeVarint(packed, geometry[i] & 0xFFFFFFFFL);
+            }
+            writeBytes(feature, FEATURE_GEOMETRY, packed.toByteArray());
+
+            writeBytes(features, LAYER_FEATURES, feature.toByteArray());
+        }
+
+        byte[] encode() {
+            ByteArrayOutputStream layer = new ByteArrayOutputStream();
+            writeTag(layer, LAYER_VERSION, WIRE_VARINT);
+            writeVarint(layer, 2);
+            writeBytes(layer, LAYER_NAME, name.getBytes(StandardCharsets.UTF_8));
+            layer.writeBytes(features.toByteArray());
+            for (String key : keys.keySet()) {
+                writeBytes(layer, LAYER_KEYS, key.getBytes(StandardCharsets.UTF_8));
+            }
+            for (Object value : values.keySet()) {
+                writeBytes(layer, LAYER_VALUES, encodeValue(value));
+            }
+            writeTag(layer, LAYER_EXTENT, WIRE_VARINT);
+            writeVarint(layer, extent);
+            return layer.toByteArray();
+        }
+    }
+
+    /**
+     * Map attribute values onto the types a Value message can hold, so equal values share a table slot
+     */
+    private static Object normalize(Object value) {
+        if (value == null || value instanceof String || value instanceof Boolean) {
+            return value;
+        }
+        if (value instanceof Integer || value instanceof Long || value instanceof Short || value instanceof Byte) {
+            return ((Number) value).longValue();
+        }
+        if (value instanceof Number) {
+            return ((Number) value).doubleValue();
+        }
+        return value.toString();
+    }
+
+    private static byte[] encodeValue(Object value) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        if (value instanceof String) {
+            writeBytes(out, VALUE_STRING, ((String) value).getBytes(StandardCharsets.UTF_8));
+        } else if (value instanceof Boolean) {
+            writeTag(out, VALUE_BOOL, WIRE_VARINT);
+            writeVarint(out, (Boolean) value ? 1 : 0);
+        } else if (value instanceof Long) {
+            long n = (Long) value;
+            writeTag(out, VALUE_SINT, WIRE_VARINT);
+            writeVarint(out, (n << 1) ^ (n >> 63));
+        } else {
+            // 64-bit little-endian double
+            writeTag(out, VALUE_DOUBLE, 1);
+            long bits = Double.doubleToLongBits((Double) value);
+            for (int i = 0; i < 8; i++) {
+                out.write((int) (bits >>> (8 * i)) & 0xFF);
+            }
+        }
+        return out.toByteArray();
+    }
+
+    private static void writeTag(ByteArrayOutputStream out, int field, int wireType) {
+        writeVarint(out, ((long) field << 3) | wireType);
+    }
+
+    private static void writeBytes(ByteArrayOutputStream out, int field, byte[] bytes) {
+        writeTag(out, field, WIRE_LENGTH_DELIMITED);
+        writeVarint(out, bytes.length);
+        out.writeBytes(bytes);
+    }
+
+    private static void writeVarint(ByteArrayOutputStream out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+}
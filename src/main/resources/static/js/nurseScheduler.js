@@ -9,6 +9,7 @@ function nurseScheduler() {
       nurseMarker: null,
       patientMarkers: [],
       routeLayer: null,
+      overviewLayer: null,
       totalDistance: 0,
       loading: false,
       error: null,
@@ -82,15 +83,15 @@ function nurseScheduler() {
             markerZoomAnimation: true
           });
           
-          // Try GraphHopper tile server first
+          // Try the application's offline tile pack first
           var self = this;
-          var tileLayer = L.tileLayer("http://localhost:8989/maps/tile/{z}/{x}/{y}.png", {
+          var tileLayer = L.tileLayer("/tiles/{z}/{x}/{y}.png", {
             attribution: '© <a href="https://www.openstreetmap.org/copyright">OpenStreetMap</a> contributors',
             maxZoom: 18,
             tileSize: 256
           });
           
-          // Handle tile errors - fallback to OSM if GraphHopper tiles fail
+          // Handle tile errors - fallback to OSM if local tiles fail
           tileLayer.on('tileerror', function() {
             if (!self.tileRetryAttempted) {
               self.tileRetryAttempted = true;
@@ -121,11 +122,23 @@ function nurseScheduler() {
   
       async fetchNurses() {
         try {
-          const response = await fetch("/api/nurses");
-          const data = await response.json();
+          // The nurse list comes a page at a time; follow nextCursor until the last page
+          let nurses = [];
+          let cursor = null;
+          let data;
+          do {
+            const response = await fetch("/api/nurses?sort=name&limit=500" +
+              (cursor ? "&cursor=" + encodeURIComponent(cursor) : ""));
+            data = await response.json();
+            if (!data.success) {
+              break;
+            }
+            nurses = nurses.concat(data.nurses || []);
+            cursor = data.nextCursor;
+          } while (cursor);
   
           if (data.success) {
-            this.nurses = (data.nurses || []).sort(function(a, b) {
+            this.nurses = nurses.sort(function(a, b) {
               return a.name.localeCompare(b.name);
             });
             
@@ -221,13 +234,9 @@ function nurseScheduler() {
             this.totalDistance = data.schedule.totalDistance || 0;
   
             // Display route if available
-            if (data.schedule.routeCoordinates && data.schedule.routeCoordinates !== "[]") {
-              try {
-                const coordinates = JSON.parse(data.schedule.routeCoordinates);
-                this.displayRoute(coordinates);
-              } catch (e) {
-                console.error("Error parsing route coordinates:", e);
-              }
+            // routeCoordinates arrives as an array of [lat, lon] pairs
+            if (Array.isArray(data.schedule.routeCoordinates) && data.schedule.routeCoordinates.length > 0) {
+              this.displayRoute(data.schedule.routeCoordinates);
             }
           } else {
             // Generate new schedule if not found
@@ -493,6 +502,39 @@ function nurseScheduler() {
         });
       },
   
+      // Show or hide every nurse's route for today, drawn from server-side vector tiles
+      toggleOverview() {
+        if (this.overviewLayer) {
+          this.map.removeLayer(this.overviewLayer);
+          this.overviewLayer = null;
+          return;
+        }
+  
+        const today = new Date().toISOString().split("T")[0];
+        this.overviewLayer = L.vectorGrid.protobuf("/tiles/vector/{z}/{x}/{y}.mvt?date=" + today, {
+          rendererFactory: L.canvas.tile,
+          maxNativeZoom: 18,
+          interactive: true,
+          getFeatureId: function(feature) {
+            return feature.id;
+          },
+          vectorTileLayerStyles: {
+            routes: { color: "#7a4cf9", weight: 2, opacity: 0.6 },
+            patients: { radius: 3, fill: true, fillColor: "#f94c4c", fillOpacity: 0.8, color: "#ffffff", weight: 1 },
+            nurses: { radius: 4, fill: true, fillColor: "#4c86f9", fillOpacity: 0.9, color: "#ffffff", weight: 1 }
+          }
+        });
+  
+        var self = this;
+        this.overviewLayer.on("click", function(e) {
+          const properties = e.layer.properties || {};
+          const label = properties.name || ("Nurse " + properties.nurseId + " route");
+          L.popup().setLatLng(e.latlng).setContent("<strong>" + label + "</strong>").openOn(self.map);
+        });
+  
+        this.overviewLayer.addTo(this.map);
+      },
+  
       // Calculate estimated drive time based on distance
       calculateDriveTime(distance) {
         const hours = distance / 1000 / 40; // Assume 40 km/h average speed